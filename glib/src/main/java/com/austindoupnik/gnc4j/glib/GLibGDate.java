@@ -42,4 +42,24 @@ public class GLibGDate {
       return new ByValue(getPointer());
     }
   }
+
+  /**
+   * Returns true if the GDate represents an existing day. The date must not
+   * contain garbage; it should have been initialized with g_date_clear()
+   * if it wasn't allocated by one of the g_date_new() variants.
+   */
+  public static native boolean g_date_valid(final GDate date);
+
+  /**
+   * Returns the Julian day or "serial number" of the GDate. The
+   * Julian day is simply the number of days since January 1, Year 1; i.e.,
+   * January 1, Year 1 is Julian day 1; January 2, Year 1 is Julian day 2,
+   * etc. The date must be valid.
+   */
+  public static native GUInt32 g_date_get_julian(final GDate date);
+
+  /**
+   * Sets the value of a GDate from a Julian day number.
+   */
+  public static native void g_date_set_julian(final GDate date, final int julian_date);
 }
@@ -1,5 +1,6 @@
 package com.austindoupnik.gnc4j.glib;
 
+import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 import com.sun.jna.Structure.FieldOrder;
@@ -9,6 +10,7 @@ import lombok.experimental.FieldNameConstants;
 import lombok.experimental.UtilityClass;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
@@ -34,6 +36,25 @@ public class GLibGList {
     return result;
   }
 
+  /**
+   * Copy the data pointers out of a list, walking the links directly rather than reading them as {@link GList}
+   * structures.
+   *
+   * @param list the first link of a list, may be null
+   * @return the data pointer of every link, in order
+   */
+  public static long[] toPointerArray(final Pointer list) {
+    long[] result = new long[16];
+    int n = 0;
+    for (Pointer link = list; link != null; link = link.getPointer(Native.POINTER_SIZE)) {
+      if (n == result.length) {
+        result = Arrays.copyOf(result, n * 2);
+      }
+      result[n++] = Pointer.nativeValue(link.getPointer(0));
+    }
+    return Arrays.copyOf(result, n);
+  }
+
   @FieldOrder({
       GList.Fields.data,
       GList.Fields.next,
@@ -73,6 +94,8 @@ public class GLibGList {
    */
   public static native void g_list_free(final GList list);
 
+  public static native void g_list_free(final Pointer list);
+
   /**
    * g_list_append:
    * Adds a new element on to the end of the list.
@@ -0,0 +1,37 @@
+package com.austindoupnik.gnc4j.glib;
+
+import com.sun.jna.Pointer;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+@UtilityClass
+public class GLibGMem {
+  static {
+    nativeRegister(GLibGMem.class, "glib-2.0.0", "glib-2.0");
+  }
+
+  /**
+   * g_free:
+   * <p>
+   * Frees the memory pointed to by @mem.
+   * <p>
+   * If @mem is %NULL it simply returns, so there is no need to check @mem
+   * against %NULL before calling this function.
+   *
+   * @param mem the memory to free
+   */
+  public static native void g_free(final Pointer mem);
+
+  /**
+   * g_strdup:
+   * <p>
+   * Duplicates a string. If @str is %NULL it returns %NULL.
+   * The returned string should be freed with g_free()
+   * when no longer needed.
+   *
+   * @param str the string to duplicate
+   * @return a newly-allocated copy of @str
+   */
+  public static native Pointer g_strdup(final String str);
+}
@@ -0,0 +1,76 @@
+package com.austindoupnik.gnc4j.glib;
+
+import com.austindoupnik.gnc4j.jna_core.SizeT;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.Structure.FieldOrder;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * The parts of libgobject needed to read the properties of an object.
+ */
+@UtilityClass
+public class GLibGObject {
+  static {
+    nativeRegister(GLibGObject.class, "gobject-2.0.0", "gobject-2.0");
+  }
+
+  /**
+   * An opaque structure used to hold different types of values.
+   * <p>
+   * A GValue must be zero filled before g_value_init(), which a new structure is.
+   */
+  @FieldOrder(
+      value = {
+          GValue.Fields.g_type,
+          GValue.Fields.data,
+      }
+  )
+  @NoArgsConstructor
+  @FieldNameConstants
+  public static class GValue extends Structure {
+    public SizeT g_type = new SizeT();
+    public long[] data = new long[2];
+  }
+
+  /**
+   * Initializes value with the default value of type.
+   */
+  public static native GValue g_value_init(final GValue value, final SizeT g_type);
+
+  /**
+   * Clears the current value in value (if any) and "unsets" the type,
+   * this releases all resources associated with this GValue.
+   */
+  public static native void g_value_unset(final GValue value);
+
+  /**
+   * Get the contents of a G_TYPE_BOXED derived GValue, owned by the GValue.
+   */
+  public static native Pointer g_value_get_boxed(final GValue value);
+
+  /**
+   * Get the contents of a G_TYPE_STRING GValue, owned by the GValue.
+   */
+  public static native String g_value_get_string(final GValue value);
+
+  /**
+   * Gets a property of an object.
+   * <p>
+   * The value can be:
+   * - an empty GValue initialized by G_VALUE_INIT, which will be
+   * automatically initialized with the expected type of the property
+   * (since GLib 2.60)
+   * - a GValue initialized with the expected type of the property
+   * - a GValue initialized with a type to which the expected type
+   * of the property can be transformed
+   * <p>
+   * In general, a copy is made of the property contents and the caller is
+   * responsible for freeing the memory by calling g_value_unset().
+   */
+  public static native void g_object_get_property(final Pointer object, final String property_name, final GValue value);
+}
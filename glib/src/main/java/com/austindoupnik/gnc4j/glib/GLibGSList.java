@@ -0,0 +1,86 @@
+package com.austindoupnik.gnc4j.glib;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.Structure.FieldOrder;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
+import lombok.experimental.UtilityClass;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+@UtilityClass
+public class GLibGSList {
+  static {
+    nativeRegister(GLibGSList.class, "glib-2.0.0", "glib-2.0");
+  }
+
+  public static <T> GSList fromList(final List<T> elements, final Function<T, Pointer> converter) {
+    GSList result = null;
+    for (int i = elements.size() - 1; i >= 0; i--) {
+      result = g_slist_prepend(result, converter.apply(elements.get(i)));
+    }
+    return result;
+  }
+
+  @FieldOrder({
+      GSList.Fields.data,
+      GSList.Fields.next,
+  })
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @FieldNameConstants
+  public static class GSList extends Structure {
+    public static class ByReference extends GSList implements Structure.ByReference {
+
+    }
+
+    public Pointer data;
+
+    public GSList.ByReference next;
+  }
+
+  /**
+   * g_slist_free:
+   * <p>
+   * Frees all of the memory used by a #GSList.
+   * The freed elements are returned to the slice allocator.
+   * <p>
+   * If list elements contain dynamically-allocated memory,
+   * you should either use g_slist_free_full() or free them manually
+   * first.
+   *
+   * @param list the first link of a #GSList
+   */
+  public static native void g_slist_free(final GSList list);
+
+  /**
+   * g_slist_prepend:
+   * Adds a new element on to the start of the list.
+   * <p>
+   * The return value is the new start of the list, which
+   * may have changed, so make sure you store the new value.
+   *
+   * @param list a #GSList
+   * @param data the data for the new element
+   * @return a pointer to the start of the new #GSList
+   */
+  public static native GSList g_slist_prepend(final GSList list, final Pointer data);
+
+  /**
+   * g_slist_length:
+   * Gets the number of elements in a #GSList.
+   * <p>
+   * This function iterates over the whole list to
+   * count its elements. To check whether the list is non-empty, it is faster to
+   * check @list against %NULL.
+   *
+   * @param list a #GSList
+   * @return the number of elements in the #GSList
+   */
+  public static native GUInt g_slist_length(final GSList list);
+}
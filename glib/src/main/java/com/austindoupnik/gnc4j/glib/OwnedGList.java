@@ -0,0 +1,67 @@
+package com.austindoupnik.gnc4j.glib;
+
+import com.austindoupnik.gnc4j.jna_core.NativeOwned;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * A #GList whose links, but not whose data, are owned by the caller and freed with g_list_free() on close.
+ * <p>
+ * The data pointers are copied out when the list is taken over, the elements are created on access.
+ *
+ * @param <T> type of the elements
+ */
+public class OwnedGList<T> extends NativeOwned {
+  private final long[] data;
+  private final Function<Pointer, T> converter;
+
+  /**
+   * Take ownership of a list.
+   *
+   * @param type      counted under this type, for example {@code "GList<Account>"}
+   * @param list      the first link of the list, may be null for an empty list
+   * @param converter creates an element from its data pointer
+   */
+  public OwnedGList(final String type, final Pointer list, final Function<Pointer, T> converter) {
+    this(type, list, GLibGList.toPointerArray(list), converter);
+  }
+
+  private OwnedGList(final String type, final Pointer list, final long[] data, final Function<Pointer, T> converter) {
+    super(type, list, (long) data.length * 3 * Native.POINTER_SIZE, GLibGList::g_list_free);
+    this.data = data;
+    this.converter = converter;
+  }
+
+  public int size() {
+    return data.length;
+  }
+
+  public T get(final int index) {
+    pointer();
+    return converter.apply(new Pointer(data[index]));
+  }
+
+  /**
+   * @return a view of the elements, valid until the list is closed
+   */
+  public List<T> asList() {
+    return new ElementList();
+  }
+
+  private class ElementList extends AbstractList<T> implements RandomAccess {
+    @Override
+    public T get(final int index) {
+      return OwnedGList.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return data.length;
+    }
+  }
+}
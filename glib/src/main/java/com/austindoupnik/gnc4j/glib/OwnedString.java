@@ -0,0 +1,35 @@
+package com.austindoupnik.gnc4j.glib;
+
+import com.austindoupnik.gnc4j.jna_core.NativeOwned;
+import com.sun.jna.Pointer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A string allocated by GLib, for example with g_strdup(), freed with g_free() on close.
+ */
+public class OwnedString extends NativeOwned {
+  public static final String TYPE = "gchar*";
+
+  /**
+   * Take ownership of a string.
+   *
+   * @param str the string, may be null
+   */
+  public OwnedString(final Pointer str) {
+    super(TYPE, str, str == null ? 0 : str.indexOf(0, (byte) 0) + 1, GLibGMem::g_free);
+  }
+
+  /**
+   * @return a copy of the string, null when the owner holds NULL
+   */
+  public String getString() {
+    final Pointer p = pointer();
+    return p == null ? null : p.getString(0, StandardCharsets.UTF_8.name());
+  }
+
+  @Override
+  public String toString() {
+    return isClosed() ? "<closed>" : String.valueOf(getString());
+  }
+}
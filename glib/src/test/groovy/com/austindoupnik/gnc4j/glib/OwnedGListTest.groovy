@@ -0,0 +1,77 @@
+package com.austindoupnik.gnc4j.glib
+
+import com.austindoupnik.gnc4j.jna_core.NativeAllocations
+import com.sun.jna.Memory
+import com.sun.jna.Native
+import spock.lang.Specification
+
+import static GLibGList.*
+
+class OwnedGListTest extends Specification {
+    def "owned list exposes the elements and is counted until closed"() {
+        given:
+        def type = "GList<test-" + UUID.randomUUID() + ">"
+        def strings = ["abc", "xyz"].collect { new Memory(it.length() + 1).tap { m -> m.setString(0, it) } }
+        def gList = fromList(strings, s -> s)
+
+        when:
+        def owned = new OwnedGList<String>(type, gList.getPointer(), p -> p.getString(0))
+        def live = NativeAllocations.snapshot(type)
+
+        then:
+        owned.asList() == ["abc", "xyz"]
+        live.getLiveObjects() == 1
+        live.getLiveBytes() == 2 * 3 * Native.POINTER_SIZE
+
+        when:
+        owned.close()
+        owned.close()
+
+        then:
+        owned.isClosed()
+        NativeAllocations.snapshot(type).getLiveObjects() == 0
+        NativeAllocations.snapshot(type).getLiveBytes() == 0
+        NativeAllocations.snapshot(type).getCleanedObjects() == 0
+
+        when:
+        owned.get(0)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "empty list is not counted"() {
+        given:
+        def type = "GList<test-" + UUID.randomUUID() + ">"
+
+        when:
+        def owned = new OwnedGList<String>(type, null, p -> p.getString(0))
+
+        then:
+        owned.size() == 0
+        NativeAllocations.snapshot(type).getTotalObjects() == 0
+
+        cleanup:
+        owned.close()
+    }
+
+    def "owned string is read and freed with g_free"() {
+        given:
+        def before = NativeAllocations.snapshot(OwnedString.TYPE)
+
+        when:
+        def owned = new OwnedString(GLibGMem.g_strdup("abc"))
+        def live = NativeAllocations.snapshot(OwnedString.TYPE)
+
+        then:
+        owned.getString() == "abc"
+        live.getLiveBytes() - before.getLiveBytes() == 4
+
+        when:
+        owned.close()
+
+        then:
+        owned.isClosed()
+        NativeAllocations.snapshot(OwnedString.TYPE).getLiveBytes() == before.getLiveBytes()
+    }
+}
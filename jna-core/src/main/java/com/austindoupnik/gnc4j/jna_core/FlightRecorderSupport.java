@@ -0,0 +1,22 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+/**
+ * Java Flight Recorder is only present from Java 8u262 onwards, event classes must not be touched when it is
+ * missing.
+ */
+public class FlightRecorderSupport {
+  private static final boolean AVAILABLE = detect();
+
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  private static boolean detect() {
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorderSupport.class.getClassLoader());
+      return true;
+    } catch (final ClassNotFoundException | LinkageError ex) {
+      return false;
+    }
+  }
+}
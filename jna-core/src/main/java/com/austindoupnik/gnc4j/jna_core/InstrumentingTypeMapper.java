@@ -0,0 +1,230 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import com.sun.jna.FromNativeContext;
+import com.sun.jna.FromNativeConverter;
+import com.sun.jna.MethodParameterContext;
+import com.sun.jna.MethodResultContext;
+import com.sun.jna.Native;
+import com.sun.jna.NativeMapped;
+import com.sun.jna.NativeMappedConverter;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.ToNativeContext;
+import com.sun.jna.ToNativeConverter;
+import com.sun.jna.TypeConverter;
+import com.sun.jna.TypeMapper;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counts and times native calls, and times the conversion of mapped types to and from their native form, see
+ * {@link NativeMetrics}.
+ * <p>
+ * Direct mapped natives are bound straight to the native symbol, the only Java code JNA runs around a call is the
+ * conversion of its arguments and of its result. This mapper therefore also hands JNA a converter for primitives,
+ * void, {@link Pointer} and {@link String}, which passes values through unchanged: the conversion of the result marks
+ * the end of every call to a native not returning a structure by value, and the conversion of the last argument its
+ * start. Conversions are otherwise done exactly as JNA would do them without a type mapper.
+ * <p>
+ * JNA converts the arguments of a direct mapped native without telling which native they are for, so what is
+ * measured while converting them is kept per thread until the result names the method. A call is only timed when
+ * exactly its own arguments were converted since the previous call finished: a native whose result is not converted,
+ * such as one returning a structure by value, or a callback calling natives in the middle of a call, leave the
+ * arguments of two calls mixed, and the call finishing next is then counted without a latency rather than timed
+ * from the wrong start.
+ * <p>
+ * Structures declared in a bound class are handed the same type mapper by JNA. Their fields get no converter, so
+ * they are laid out, read and written exactly as without instrumentation.
+ */
+class InstrumentingTypeMapper implements TypeMapper {
+  /**
+   * Arguments converted on a thread since the last call it finished.
+   */
+  private static final class Call {
+    /**
+     * Time the last argument was converted.
+     */
+    private long start;
+    private int arguments;
+    private long marshalNanos;
+
+    private void clear() {
+      start = 0;
+      arguments = 0;
+      marshalNanos = 0;
+    }
+  }
+
+  private static final ThreadLocal<Call> CALL = ThreadLocal.withInitial(Call::new);
+
+  private final NativeMetrics metrics;
+  /**
+   * Number of arguments of each native converted by this mapper.
+   */
+  private final ConcurrentMap<Method, Integer> convertedArguments = new ConcurrentHashMap<>();
+
+  InstrumentingTypeMapper(final NativeMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public FromNativeConverter getFromNativeConverter(final Class<?> javaType) {
+    return converter(javaType);
+  }
+
+  @Override
+  public ToNativeConverter getToNativeConverter(final Class<?> javaType) {
+    return converter(javaType);
+  }
+
+  private TypeConverter converter(final Class<?> javaType) {
+    if (isForStructure()) {
+      return null;
+    }
+    if (NativeMapped.class.isAssignableFrom(javaType)) {
+      return new TimedConverter(NativeMappedConverter.getInstance(javaType));
+    }
+    if (isPassedThrough(javaType)) {
+      return new PassThroughConverter(javaType);
+    }
+    return null;
+  }
+
+  /**
+   * @return true when JNA asks for a converter for the field of a structure rather than for a native method, which
+   * only happens once per structure class or method when they are laid out or bound
+   */
+  private static boolean isForStructure() {
+    for (final StackTraceElement frame : new Throwable().getStackTrace()) {
+      if (frame.getClassName().equals(Native.class.getName()) && frame.getMethodName().equals("register")) {
+        return false;
+      }
+      if (frame.getClassName().startsWith(Structure.class.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isPassedThrough(final Class<?> javaType) {
+    return javaType.isPrimitive() || javaType == Pointer.class || javaType == String.class;
+  }
+
+  private void argumentConverted(final ToNativeContext context, final long marshalNanos) {
+    if (context instanceof MethodParameterContext) {
+      // interface mapped natives name the method of each argument
+      if (marshalNanos >= 0) {
+        metrics.record("marshal:" + methodName(((MethodParameterContext) context).getMethod()), marshalNanos);
+      }
+      return;
+    }
+    final Call call = CALL.get();
+    call.arguments++;
+    if (marshalNanos >= 0) {
+      call.marshalNanos += marshalNanos;
+    }
+    call.start = System.nanoTime();
+  }
+
+  private void callFinished(final FromNativeContext context) {
+    if (!(context instanceof MethodResultContext)) {
+      return;
+    }
+    final Method method = ((MethodResultContext) context).getMethod();
+    final String name = methodName(method);
+    final Call call = CALL.get();
+    final int expected = convertedArguments.computeIfAbsent(method, InstrumentingTypeMapper::countConverted);
+    if (expected > 0 && call.arguments == expected) {
+      metrics.record("call:" + name, System.nanoTime() - call.start);
+      if (call.marshalNanos > 0) {
+        metrics.record("marshal:" + name, call.marshalNanos);
+      }
+    } else {
+      // no arguments, or arguments of another call left over
+      metrics.count("call:" + name);
+    }
+    call.clear();
+  }
+
+  private static int countConverted(final Method method) {
+    int n = 0;
+    for (final Class<?> type : method.getParameterTypes()) {
+      if (NativeMapped.class.isAssignableFrom(type) || isPassedThrough(type)) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  private static String methodName(final Method method) {
+    return method.getDeclaringClass().getName() + "." + method.getName();
+  }
+
+  private class PassThroughConverter implements TypeConverter {
+    private final Class<?> nativeType;
+
+    private PassThroughConverter(final Class<?> nativeType) {
+      this.nativeType = nativeType;
+    }
+
+    @Override
+    public Object toNative(final Object value, final ToNativeContext context) {
+      argumentConverted(context, -1);
+      return value;
+    }
+
+    @Override
+    public Object fromNative(final Object nativeValue, final FromNativeContext context) {
+      callFinished(context);
+      return nativeValue;
+    }
+
+    @Override
+    public Class<?> nativeType() {
+      return nativeType;
+    }
+  }
+
+  private class TimedConverter implements TypeConverter {
+    private final NativeMappedConverter delegate;
+
+    private TimedConverter(final NativeMappedConverter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Object toNative(final Object value, final ToNativeContext context) {
+      final long start = System.nanoTime();
+      try {
+        return delegate.toNative(value, context);
+      } finally {
+        argumentConverted(context, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public Object fromNative(final Object nativeValue, final FromNativeContext context) {
+      callFinished(context);
+      final long start = System.nanoTime();
+      try {
+        return delegate.fromNative(nativeValue, context);
+      } finally {
+        metrics.record(unmarshalName(context), System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public Class<?> nativeType() {
+      return delegate.nativeType();
+    }
+
+    private String unmarshalName(final FromNativeContext context) {
+      if (context instanceof MethodResultContext) {
+        return "unmarshal:" + methodName(((MethodResultContext) context).getMethod());
+      }
+      return "unmarshal:" + context.getTargetType().getName();
+    }
+  }
+}
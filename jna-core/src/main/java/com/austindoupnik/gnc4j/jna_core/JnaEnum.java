@@ -3,17 +3,31 @@ package com.austindoupnik.gnc4j.jna_core;
 import com.sun.jna.FromNativeContext;
 import com.sun.jna.NativeMapped;
 
-import java.util.Objects;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 
 public interface JnaEnum<E extends Enum<E> & JnaEnum<E>> extends NativeMapped {
+  /**
+   * Marks the constant returned for native values no other constant has. At most one constant of an enum may carry
+   * it; without it unknown values are rejected.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target(ElementType.FIELD)
+  @interface Fallback {
+
+  }
+
+  /**
+   * Find the constant of an enum with the given native value, the first one declared when several share it.
+   * <p>
+   * The lookup table of each enum type is built on first use and cached.
+   *
+   * @throws IllegalArgumentException when no constant has the value and none is marked {@link Fallback}
+   */
   static <E extends Enum<E> & JnaEnum<E>> E findByValue(final Class<E> type, final int value) {
-    final E[] elements = type.getEnumConstants();
-    for (final E element : elements) {
-      if (Objects.equals(value, element.getValue())) {
-        return element;
-      }
-    }
-    throw new RuntimeException();
+    return JnaEnumTable.of(type).find(value);
   }
 
   abstract class JnaEnumByReference<E extends Enum<E> & JnaEnum<E>> extends com.sun.jna.ptr.ByReference {
@@ -37,7 +51,7 @@ public interface JnaEnum<E extends Enum<E> & JnaEnum<E>> extends NativeMapped {
   @Override
   @SuppressWarnings("unchecked")
   default Object fromNative(final Object nativeValue, final FromNativeContext context) {
-    return JnaEnum.findByValue((Class<E>) getClass(), (Integer) nativeValue);
+    return JnaEnum.findByValue(((Enum<E>) this).getDeclaringClass(), (Integer) nativeValue);
   }
 
   @Override
@@ -0,0 +1,136 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import java.util.Arrays;
+
+/**
+ * Native value to constant lookup for one {@link JnaEnum} type, built once per type by {@link JnaEnum#findByValue}.
+ * <p>
+ * Values spanning a small range are looked up in an array indexed by value, others by binary search. When several
+ * constants share a value the one declared first is returned.
+ */
+final class JnaEnumTable<E extends Enum<E> & JnaEnum<E>> {
+  /**
+   * Largest range of values stored densely, beyond that a sparse table is used.
+   */
+  private static final long MAX_DENSE_RANGE = 1024;
+
+  private static final ClassValue<JnaEnumTable<?>> TABLES = new ClassValue<JnaEnumTable<?>>() {
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected JnaEnumTable<?> computeValue(final Class<?> type) {
+      return new JnaEnumTable(type.asSubclass(Enum.class));
+    }
+  };
+
+  private final Class<E> type;
+  private final E fallback;
+  private final int min;
+  private final E[] dense;
+  private final int[] keys;
+  private final E[] sparse;
+
+  private JnaEnumTable(final Class<E> type) {
+    this.type = type;
+    final E[] constants = type.getEnumConstants();
+    this.fallback = findFallback(type, constants);
+
+    // distinct values in declaration order, the first constant of each value wins
+    int n = 0;
+    final int[] values = new int[constants.length];
+    final E[] byValue = Arrays.copyOf(constants, constants.length);
+    for (final E constant : constants) {
+      final int value = constant.getValue();
+      boolean seen = false;
+      for (int i = 0; i < n && !seen; i++) {
+        seen = values[i] == value;
+      }
+      if (!seen) {
+        values[n] = value;
+        byValue[n] = constant;
+        n++;
+      }
+    }
+
+    int lo = Integer.MAX_VALUE;
+    int hi = Integer.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      lo = Math.min(lo, values[i]);
+      hi = Math.max(hi, values[i]);
+    }
+    if (n > 0 && (long) hi - lo < MAX_DENSE_RANGE) {
+      this.min = lo;
+      this.dense = newArray(constants, hi - lo + 1);
+      for (int i = 0; i < n; i++) {
+        dense[values[i] - lo] = byValue[i];
+      }
+      this.keys = null;
+      this.sparse = null;
+    } else {
+      final Integer[] order = new Integer[n];
+      for (int i = 0; i < n; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Integer.compare(values[a], values[b]));
+      this.min = 0;
+      this.dense = null;
+      this.keys = new int[n];
+      this.sparse = newArray(constants, n);
+      for (int i = 0; i < n; i++) {
+        keys[i] = values[order[i]];
+        sparse[i] = byValue[order[i]];
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  static <E extends Enum<E> & JnaEnum<E>> JnaEnumTable<E> of(final Class<E> type) {
+    return (JnaEnumTable<E>) TABLES.get(type);
+  }
+
+  E find(final int value) {
+    E result = null;
+    if (dense != null) {
+      final long i = (long) value - min;
+      if (i >= 0 && i < dense.length) {
+        result = dense[(int) i];
+      }
+    } else {
+      final int i = Arrays.binarySearch(keys, value);
+      if (i >= 0) {
+        result = sparse[i];
+      }
+    }
+    if (result != null) {
+      return result;
+    }
+    if (fallback != null) {
+      return fallback;
+    }
+    throw new IllegalArgumentException("No " + type.getName() + " constant has the native value " + value);
+  }
+
+  private static <E extends Enum<E>> E findFallback(final Class<E> type, final E[] constants) {
+    E result = null;
+    for (final E constant : constants) {
+      final JnaEnum.Fallback annotation;
+      try {
+        annotation = type.getField(constant.name()).getAnnotation(JnaEnum.Fallback.class);
+      } catch (final NoSuchFieldException ex) {
+        throw new IllegalStateException(ex);
+      }
+      if (annotation != null) {
+        if (result != null) {
+          throw new IllegalStateException(type.getName() + " has more than one @Fallback constant");
+        }
+        result = constant;
+      }
+    }
+    return result;
+  }
+
+  private static <E> E[] newArray(final E[] like, final int length) {
+    final E[] result = Arrays.copyOf(like, length);
+    Arrays.fill(result, null);
+    return result;
+  }
+}
@@ -0,0 +1,148 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counts of native memory owned by Java, per type.
+ * <p>
+ * Every {@link NativeOwned} is counted here from creation until it is freed. Memory freed by the
+ * {@link NativeCleaner} rather than by closing the owner is counted separately, a growing count points at a missing
+ * close.
+ */
+public class NativeAllocations {
+  /**
+   * Memory owned by Java for one type of {@link NativeOwned} when {@link #snapshot(String)} was called: what is still
+   * allocated, what was allocated in total, and how much of it only the cleaner freed.
+   */
+  public static class Snapshot {
+    private final String type;
+    private final long liveObjects;
+    private final long liveBytes;
+    private final long totalObjects;
+    private final long totalBytes;
+    private final long cleanedObjects;
+
+    Snapshot(
+        final String type,
+        final long liveObjects,
+        final long liveBytes,
+        final long totalObjects,
+        final long totalBytes,
+        final long cleanedObjects
+    ) {
+      this.type = type;
+      this.liveObjects = liveObjects;
+      this.liveBytes = liveBytes;
+      this.totalObjects = totalObjects;
+      this.totalBytes = totalBytes;
+      this.cleanedObjects = cleanedObjects;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * @return objects allocated and not yet freed
+     */
+    public long getLiveObjects() {
+      return liveObjects;
+    }
+
+    /**
+     * @return bytes allocated and not yet freed, as far as they are known
+     */
+    public long getLiveBytes() {
+      return liveBytes;
+    }
+
+    public long getTotalObjects() {
+      return totalObjects;
+    }
+
+    public long getTotalBytes() {
+      return totalBytes;
+    }
+
+    /**
+     * @return objects freed by the cleaner because they were never closed
+     */
+    public long getCleanedObjects() {
+      return cleanedObjects;
+    }
+  }
+
+  private static class Counters {
+    private final LongAdder liveObjects = new LongAdder();
+    private final LongAdder liveBytes = new LongAdder();
+    private final LongAdder totalObjects = new LongAdder();
+    private final LongAdder totalBytes = new LongAdder();
+    private final LongAdder cleanedObjects = new LongAdder();
+  }
+
+  private static final ConcurrentMap<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+  private NativeAllocations() {
+  }
+
+  static void allocated(final String type, final long bytes) {
+    final Counters c = counters(type);
+    c.liveObjects.increment();
+    c.liveBytes.add(bytes);
+    c.totalObjects.increment();
+    c.totalBytes.add(bytes);
+  }
+
+  static void freed(final String type, final long bytes, final boolean cleaned) {
+    final Counters c = counters(type);
+    c.liveObjects.decrement();
+    c.liveBytes.add(-bytes);
+    if (cleaned) {
+      c.cleanedObjects.increment();
+    }
+  }
+
+  public static Snapshot snapshot(final String type) {
+    return snapshot(type, counters(type));
+  }
+
+  /**
+   * @return a copy of the counters of every type, ordered by type
+   */
+  public static Map<String, Snapshot> snapshot() {
+    final Map<String, Snapshot> result = new TreeMap<>();
+    COUNTERS.forEach((type, c) -> result.put(type, snapshot(type, c)));
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * @return bytes allocated and not yet freed, over all types
+   */
+  public static long liveBytes() {
+    long sum = 0;
+    for (final Counters c : COUNTERS.values()) {
+      sum += c.liveBytes.sum();
+    }
+    return sum;
+  }
+
+  private static Snapshot snapshot(final String type, final Counters c) {
+    return new Snapshot(
+        type,
+        c.liveObjects.sum(),
+        c.liveBytes.sum(),
+        c.totalObjects.sum(),
+        c.totalBytes.sum(),
+        c.cleanedObjects.sum()
+    );
+  }
+
+  private static Counters counters(final String type) {
+    return COUNTERS.computeIfAbsent(type, t -> new Counters());
+  }
+}
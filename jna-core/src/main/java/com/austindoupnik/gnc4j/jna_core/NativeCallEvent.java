@@ -0,0 +1,37 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A native call that took longer than the configured threshold, see {@link NativeMetrics#timed(String, Runnable)}.
+ */
+@Name("gnc4j.NativeCall")
+@Label("Native Call")
+@Category({"gnc4j", "Native"})
+@Description("A call into a native library that took longer than the threshold")
+@Threshold("10 ms")
+@StackTrace
+public class NativeCallEvent extends Event {
+  @Label("Function")
+  String function;
+
+  static NativeCallEvent start() {
+    final NativeCallEvent event = new NativeCallEvent();
+    event.begin();
+    return event;
+  }
+
+  void finish(final String function) {
+    end();
+    if (shouldCommit()) {
+      this.function = function;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs a cleaning action once an object has become phantom reachable, unless it was cleaned explicitly before.
+ * <p>
+ * This is java.lang.ref.Cleaner for Java 8: the action must not refer to the object being tracked, otherwise it
+ * never becomes unreachable. Actions run on a single daemon thread.
+ */
+public class NativeCleaner {
+  private static final NativeCleaner GLOBAL = new NativeCleaner("gnc4j-native-cleaner");
+
+  /**
+   * Registration of an object and its cleaning action.
+   */
+  public interface Cleanable {
+    /**
+     * Run the cleaning action now, unless it has already run. The object is no longer tracked.
+     */
+    void clean();
+  }
+
+  private class PhantomCleanable extends PhantomReference<Object> implements Cleanable {
+    private final Runnable action;
+
+    private PhantomCleanable(final Object referent, final Runnable action) {
+      super(referent, queue);
+      this.action = action;
+    }
+
+    @Override
+    public void clean() {
+      if (cleanables.remove(this)) {
+        clear();
+        action.run();
+      }
+    }
+  }
+
+  private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+  /**
+   * Keeps the phantom references themselves reachable until they have been cleaned.
+   */
+  private final Set<PhantomCleanable> cleanables = ConcurrentHashMap.newKeySet();
+
+  NativeCleaner(final String threadName) {
+    final Thread thread = new Thread(this::run, threadName);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * @return the cleaner shared by all owned native memory
+   */
+  public static NativeCleaner global() {
+    return GLOBAL;
+  }
+
+  public Cleanable register(final Object obj, final Runnable action) {
+    final PhantomCleanable cleanable = new PhantomCleanable(obj, action);
+    cleanables.add(cleanable);
+    return cleanable;
+  }
+
+  /**
+   * @return the number of objects still tracked
+   */
+  public int pending() {
+    return cleanables.size();
+  }
+
+  private void run() {
+    while (true) {
+      try {
+        final Reference<?> ref = queue.remove();
+        ((PhantomCleanable) ref).clean();
+      } catch (final InterruptedException ex) {
+        return;
+      } catch (final RuntimeException ex) {
+        // a failing action must not stop the cleaning of everything else
+      }
+    }
+  }
+}
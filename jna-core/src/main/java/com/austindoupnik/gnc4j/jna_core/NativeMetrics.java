@@ -0,0 +1,310 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Call counts and latency histograms for native calls.
+ * <p>
+ * Instrumentation is opt-in, enable it by starting the JVM with {@code -Dgnc4j.native.instrumentation=true}. When
+ * disabled {@link NativeRegister} binds libraries exactly as before and {@link #timed(String, Supplier)} only reports
+ * calls slower than the {@link NativeCallEvent} threshold to Java Flight Recorder, which costs next to nothing while
+ * no recording is running.
+ * <p>
+ * When enabled the following are recorded:
+ * <ul>
+ *   <li>{@code register:<class>} time taken to bind each class of native methods</li>
+ *   <li>{@code call:<class>.<method>} calls to each native method, and their latency from the conversion of the
+ *   last argument to the conversion of the result; natives taking no arguments are counted but not timed, and
+ *   natives returning a structure by value are neither counted nor timed, wrap those in
+ *   {@link #timed(String, Supplier)}; a call following one of those, or made from a callback in the middle of
+ *   another call, is counted but not timed</li>
+ *   <li>{@code marshal:<class>.<method>} time spent converting the mapped arguments of each call to their native
+ *   form, recorded with the latency of the call</li>
+ *   <li>{@code unmarshal:<class>.<method>} time spent converting the result of each native method returning a
+ *   mapped type</li>
+ *   <li>any name passed to {@link #timed(String, Supplier)}, wall clock time of the whole call</li>
+ * </ul>
+ * Setting {@code -Dgnc4j.native.instrumentation.dumpIntervalSeconds} as well writes {@link #dump()} to standard
+ * error at that interval.
+ */
+public class NativeMetrics {
+  public static final String PROPERTY = "gnc4j.native.instrumentation";
+  public static final String DUMP_INTERVAL_PROPERTY = "gnc4j.native.instrumentation.dumpIntervalSeconds";
+
+  /**
+   * Histogram buckets, bucket i counts latencies in [2^(i-1), 2^i) nanoseconds.
+   */
+  public static final int BUCKETS = 64;
+
+  private static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+  private static final boolean JFR = FlightRecorderSupport.isAvailable();
+  private static final NativeMetrics GLOBAL = new NativeMetrics();
+
+  static {
+    final long interval = Long.getLong(DUMP_INTERVAL_PROPERTY, 0);
+    if (ENABLED && interval > 0) {
+      GLOBAL.startPeriodicDump(interval, TimeUnit.SECONDS, System.err::println);
+    }
+  }
+
+  /**
+   * Calls recorded under one name when {@link #snapshot()} was taken: how many, their total and longest latency and
+   * how the latencies spread over the histogram buckets.
+   */
+  public static class Snapshot {
+    private final String name;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] histogram;
+
+    Snapshot(final String name, final long count, final long totalNanos, final long maxNanos, final long[] histogram) {
+      this.name = name;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.histogram = histogram;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return number of calls, including those counted without a latency
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return number of calls with a latency, those in the histogram
+     */
+    public long getTimedCount() {
+      long timed = 0;
+      for (final long n : histogram) {
+        timed += n;
+      }
+      return timed;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public double getMeanNanos() {
+      final long timed = getTimedCount();
+      return timed == 0 ? 0 : (double) totalNanos / timed;
+    }
+
+    /**
+     * @return a copy of the latency histogram, see {@link #BUCKETS}
+     */
+    public long[] getHistogram() {
+      return histogram.clone();
+    }
+
+    /**
+     * Upper bound of the histogram bucket holding the given percentile.
+     *
+     * @param percentile between 0 and 100
+     * @return latency in nanoseconds, at most a factor of two above the true value
+     */
+    public long getPercentileNanos(final double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+      }
+      final long target = (long) Math.ceil(getTimedCount() * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < histogram.length; i++) {
+        seen += histogram[i];
+        if (seen >= target && seen > 0) {
+          return Math.min(upperBound(i), maxNanos);
+        }
+      }
+      return 0;
+    }
+
+    private static long upperBound(final int bucket) {
+      return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+  }
+
+  private static class Recorder {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private volatile long maxNanos;
+
+    private void record(final long nanos) {
+      final long n = Math.max(nanos, 0);
+      count.increment();
+      totalNanos.add(n);
+      histogram.incrementAndGet(bucket(n));
+      if (n > maxNanos) {
+        synchronized (this) {
+          if (n > maxNanos) {
+            maxNanos = n;
+          }
+        }
+      }
+    }
+
+    private Snapshot snapshot(final String name) {
+      final long[] h = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+        h[i] = histogram.get(i);
+      }
+      return new Snapshot(name, count.sum(), totalNanos.sum(), maxNanos, h);
+    }
+  }
+
+  private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+  NativeMetrics() {
+  }
+
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * @return the registry shared by all bindings
+   */
+  public static NativeMetrics global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Time a call and record it against the given name in the global registry, when instrumentation is enabled.
+   * Calls slower than the {@link NativeCallEvent} threshold are reported to Java Flight Recorder.
+   *
+   * @param name usually the name of the native function being called
+   * @param call the call
+   * @return the result of the call
+   */
+  public static <T> T timed(final String name, final Supplier<T> call) {
+    if (!ENABLED && !JFR) {
+      return call.get();
+    }
+    final NativeCallEvent event = JFR ? NativeCallEvent.start() : null;
+    final long start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      finish(name, start, event);
+    }
+  }
+
+  /**
+   * Time a call and record it against the given name in the global registry, when instrumentation is enabled.
+   * Calls slower than the {@link NativeCallEvent} threshold are reported to Java Flight Recorder.
+   *
+   * @param name usually the name of the native function being called
+   * @param call the call
+   */
+  public static void timed(final String name, final Runnable call) {
+    if (!ENABLED && !JFR) {
+      call.run();
+      return;
+    }
+    final NativeCallEvent event = JFR ? NativeCallEvent.start() : null;
+    final long start = System.nanoTime();
+    try {
+      call.run();
+    } finally {
+      finish(name, start, event);
+    }
+  }
+
+  public void record(final String name, final long nanos) {
+    recorders.computeIfAbsent(name, n -> new Recorder()).record(nanos);
+  }
+
+  /**
+   * Count a call whose latency is not known, it is left out of the latency histogram.
+   */
+  public void count(final String name) {
+    recorders.computeIfAbsent(name, n -> new Recorder()).count.increment();
+  }
+
+  /**
+   * @return a copy of the counters of every recorded name, ordered by name
+   */
+  public Map<String, Snapshot> snapshot() {
+    final Map<String, Snapshot> result = new TreeMap<>();
+    recorders.forEach((name, recorder) -> result.put(name, recorder.snapshot(name)));
+    return Collections.unmodifiableMap(result);
+  }
+
+  public void reset() {
+    recorders.clear();
+  }
+
+  /**
+   * Render the current counters as a table, names with the largest total time first.
+   */
+  public String dump() {
+    final List<Snapshot> snapshots = new ArrayList<>(snapshot().values());
+    snapshots.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%-60s %12s %14s %12s %12s %12s%n", "name", "count", "total us", "mean ns", "p99 ns", "max ns"));
+    for (final Snapshot s : snapshots) {
+      sb.append(String.format(
+          "%-60s %12d %14d %12.0f %12d %12d%n",
+          s.getName(),
+          s.getCount(),
+          TimeUnit.NANOSECONDS.toMicros(s.getTotalNanos()),
+          s.getMeanNanos(),
+          s.getPercentileNanos(99),
+          s.getMaxNanos()
+      ));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Periodically write {@link #dump()} to the given sink from a daemon thread.
+   *
+   * @return cancel it to stop dumping
+   */
+  public ScheduledFuture<?> startPeriodicDump(final long period, final TimeUnit unit, final Consumer<String> sink) {
+    final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread t = new Thread(r, "gnc4j-native-metrics");
+      t.setDaemon(true);
+      return t;
+    });
+    return executor.scheduleAtFixedRate(() -> sink.accept(dump()), period, period, unit);
+  }
+
+  private static void finish(final String name, final long start, final NativeCallEvent event) {
+    if (ENABLED) {
+      GLOBAL.record(name, System.nanoTime() - start);
+    }
+    if (event != null) {
+      event.finish(name);
+    }
+  }
+
+  static int bucket(final long nanos) {
+    return nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+  }
+}
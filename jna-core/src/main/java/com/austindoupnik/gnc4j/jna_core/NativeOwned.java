@@ -0,0 +1,83 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import com.sun.jna.Pointer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Native memory owned by Java, freed when closed.
+ * <p>
+ * Close owners explicitly, preferably with try-with-resources. Owners that become unreachable without being closed
+ * are freed by the {@link NativeCleaner} as a safety net and counted in {@link NativeAllocations}. A NULL pointer is
+ * valid, for example an empty GList, and is neither counted nor freed.
+ */
+public abstract class NativeOwned implements AutoCloseable {
+  /**
+   * Frees the memory, must not refer to the owner.
+   */
+  private static class Release implements Runnable {
+    private final String type;
+    private final Pointer pointer;
+    private final long bytes;
+    private final Consumer<Pointer> free;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private Release(final String type, final Pointer pointer, final long bytes, final Consumer<Pointer> free) {
+      this.type = type;
+      this.pointer = pointer;
+      this.bytes = bytes;
+      this.free = free;
+    }
+
+    @Override
+    public void run() {
+      if (released.compareAndSet(false, true) && pointer != null) {
+        free.accept(pointer);
+        NativeAllocations.freed(type, bytes, !closed);
+      }
+    }
+  }
+
+  private final Release release;
+  private final NativeCleaner.Cleanable cleanable;
+
+  /**
+   * @param type    counted under this type in {@link NativeAllocations}
+   * @param pointer the owned memory, may be null
+   * @param bytes   size of the owned memory, as far as it is known
+   * @param free    frees the memory
+   */
+  protected NativeOwned(final String type, final Pointer pointer, final long bytes, final Consumer<Pointer> free) {
+    this.release = new Release(type, pointer, bytes, free);
+    if (pointer != null) {
+      NativeAllocations.allocated(type, bytes);
+    }
+    this.cleanable = NativeCleaner.global().register(this, release);
+  }
+
+  /**
+   * @return the owned memory, null when the owner holds NULL
+   * @throws IllegalStateException when already closed
+   */
+  protected Pointer pointer() {
+    if (release.released.get()) {
+      throw new IllegalStateException(release.type + " is closed");
+    }
+    return release.pointer;
+  }
+
+  public boolean isClosed() {
+    return release.released.get();
+  }
+
+  /**
+   * Free the memory, does nothing when already closed.
+   */
+  @Override
+  public void close() {
+    release.closed = true;
+    cleanable.clean();
+  }
+}
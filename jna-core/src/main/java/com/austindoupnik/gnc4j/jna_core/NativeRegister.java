@@ -1,23 +1,128 @@
 package com.austindoupnik.gnc4j.jna_core;
 
+import com.sun.jna.Library;
 import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Binds the native methods of a class to a library.
+ * <p>
+ * Libraries are looked up by trying each of the given names in turn. The name that loaded is remembered, so later
+ * classes bound to the same names go straight to it; {@link #preload(String...)} resolves and loads a library ahead
+ * of the first class using it. The time taken to register each class is kept, see {@link #getRegistrationNanos()}.
+ */
 public class NativeRegister {
+  /**
+   * Library names as passed to nativeRegister, joined, to the name that loaded.
+   */
+  private static final ConcurrentMap<String, String> RESOLVED = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, Long> REGISTRATION_NANOS = new ConcurrentHashMap<>();
+
   public static void nativeRegister(final Class<?> cls, final String... libNames) {
+    if (NativeMetrics.isEnabled()) {
+      nativeRegister(cls, NativeMetrics.global(), libNames);
+      return;
+    }
+    final long start = System.nanoTime();
+    register(cls, null, libNames);
+    REGISTRATION_NANOS.put(cls.getName(), System.nanoTime() - start);
+  }
+
+  /**
+   * Register cls recording the time taken and the conversion of mapped types in metrics.
+   */
+  static void nativeRegister(final Class<?> cls, final NativeMetrics metrics, final String... libNames) {
+    final long start = System.nanoTime();
+    final Map<String, Object> options = new HashMap<>(Native.getLibraryOptions(cls));
+    options.put(Library.OPTION_CLASSLOADER, cls.getClassLoader());
+    options.put(Library.OPTION_TYPE_MAPPER, new InstrumentingTypeMapper(metrics));
+    register(cls, options, libNames);
+    final long nanos = System.nanoTime() - start;
+    REGISTRATION_NANOS.put(cls.getName(), nanos);
+    metrics.record("register:" + cls.getName(), nanos);
+  }
+
+  /**
+   * Load the first of libNames that can be loaded and use it for every class later registered with the same names.
+   *
+   * @return the loaded library
+   */
+  public static NativeLibrary preload(final String... libNames) {
     final List<UnsatisfiedLinkError> exs = new ArrayList<>();
     for (final String libName : libNames) {
       try {
-        Native.register(cls, libName);
+        final NativeLibrary library = NativeLibrary.getInstance(libName);
+        RESOLVED.put(key(libNames), libName);
+        return library;
+      } catch (final UnsatisfiedLinkError ex) {
+        exs.add(ex);
+      }
+    }
+    throw unableToLoad(exs, libNames);
+  }
+
+  /**
+   * @return time taken to register each class so far, in nanoseconds, by class name
+   */
+  public static Map<String, Long> getRegistrationNanos() {
+    return Collections.unmodifiableMap(new TreeMap<>(REGISTRATION_NANOS));
+  }
+
+  /**
+   * @return time taken to register the class, in nanoseconds, null when it has not been registered
+   */
+  static Long getRegistrationNanos(final String className) {
+    return REGISTRATION_NANOS.get(className);
+  }
+
+  private static void register(final Class<?> cls, final Map<String, Object> options, final String... libNames) {
+    final String key = key(libNames);
+    final String resolved = RESOLVED.get(key);
+    if (resolved != null) {
+      try {
+        register(cls, options, resolved);
+        return;
+      } catch (final UnsatisfiedLinkError ex) {
+        throw unableToLoad(Collections.singletonList(ex), libNames);
+      }
+    }
+    final List<UnsatisfiedLinkError> exs = new ArrayList<>();
+    for (final String libName : libNames) {
+      try {
+        register(cls, options, libName);
+        RESOLVED.put(key, libName);
         return;
       } catch (final UnsatisfiedLinkError ex) {
         exs.add(ex);
       }
     }
+    throw unableToLoad(exs, libNames);
+  }
+
+  private static void register(final Class<?> cls, final Map<String, Object> options, final String libName) {
+    if (options == null) {
+      Native.register(cls, libName);
+    } else {
+      Native.register(cls, NativeLibrary.getInstance(libName, options));
+    }
+  }
+
+  private static String key(final String... libNames) {
+    return String.join("\0", libNames);
+  }
+
+  private static RuntimeException unableToLoad(final List<UnsatisfiedLinkError> exs, final String... libNames) {
     final RuntimeException ex = new RuntimeException("Unable to load library with name: " + String.join(", ", libNames));
     exs.forEach(ex::addSuppressed);
-    throw ex;
+    return ex;
   }
 }
@@ -0,0 +1,219 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explicit startup phase binding native libraries and classes up front, rather than on first use.
+ * <pre>
+ * NativeStartup.Report report = new NativeStartup()
+ *     .library("glib-2.0.0", "glib-2.0")
+ *     .bindings(GLibGList.class, GLibGMem.class)
+ *     .parallel(true)
+ *     .run();
+ * </pre>
+ * {@link #run()} first loads every library with {@link NativeRegister#preload(String...)}, then initializes every
+ * binding class, which registers its natives, optionally from several threads. Failures are collected in the report
+ * rather than thrown, a binding that failed throws again when it is first used.
+ */
+public class NativeStartup {
+  /**
+   * Outcome of loading one library or initializing one class.
+   */
+  public static class Entry {
+    private final String name;
+    private final long nanos;
+    private final long registerNanos;
+    private final Throwable failure;
+
+    Entry(final String name, final long nanos, final long registerNanos, final Throwable failure) {
+      this.name = name;
+      this.nanos = nanos;
+      this.registerNanos = registerNanos;
+      this.failure = failure;
+    }
+
+    /**
+     * @return "library:" followed by the library names, or the class name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return wall time spent loading the library or initializing the class
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * @return of {@link #getNanos()}, the time spent binding natives, -1 when not known
+     */
+    public long getRegisterNanos() {
+      return registerNanos;
+    }
+
+    /**
+     * @return why the library could not be loaded or the class initialized, null on success
+     */
+    public Throwable getFailure() {
+      return failure;
+    }
+  }
+
+  /**
+   * Timings of a startup phase, libraries first then classes in the order given.
+   */
+  public static class Report {
+    private final List<Entry> entries;
+    private final long wallNanos;
+
+    Report(final List<Entry> entries, final long wallNanos) {
+      this.entries = Collections.unmodifiableList(entries);
+      this.wallNanos = wallNanos;
+    }
+
+    public List<Entry> getEntries() {
+      return entries;
+    }
+
+    /**
+     * @return wall time of the whole phase, less than the sum of the entries when run in parallel
+     */
+    public long getWallNanos() {
+      return wallNanos;
+    }
+
+    public List<Entry> getFailures() {
+      final List<Entry> result = new ArrayList<>();
+      for (final Entry entry : entries) {
+        if (entry.failure != null) {
+          result.add(entry);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @return the n slowest entries, slowest first
+     */
+    public List<Entry> getSlowest(final int n) {
+      final List<Entry> sorted = new ArrayList<>(entries);
+      sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+      return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    /**
+     * Render the entries as a table, slowest first.
+     */
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder();
+      sb.append(String.format("%-80s %12s %12s %s%n", "name", "total us", "register us", "failure"));
+      for (final Entry e : getSlowest(entries.size())) {
+        sb.append(String.format(
+            "%-80s %12d %12s %s%n",
+            e.name,
+            TimeUnit.NANOSECONDS.toMicros(e.nanos),
+            e.registerNanos < 0 ? "-" : String.valueOf(TimeUnit.NANOSECONDS.toMicros(e.registerNanos)),
+            e.failure == null ? "" : e.failure
+        ));
+      }
+      sb.append(String.format("wall %d us%n", TimeUnit.NANOSECONDS.toMicros(wallNanos)));
+      return sb.toString();
+    }
+  }
+
+  private final List<String[]> libraries = new ArrayList<>();
+  private final List<Class<?>> bindings = new ArrayList<>();
+  private boolean parallel;
+
+  /**
+   * Load a library, trying each name in turn.
+   */
+  public NativeStartup library(final String... libNames) {
+    libraries.add(libNames.clone());
+    return this;
+  }
+
+  /**
+   * Initialize classes registering natives in their static initializer.
+   */
+  public NativeStartup bindings(final Class<?>... classes) {
+    bindings.addAll(Arrays.asList(classes));
+    return this;
+  }
+
+  /**
+   * Initialize the classes from as many threads as there are processors, libraries are always loaded in order.
+   */
+  public NativeStartup parallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  public Report run() {
+    final long start = System.nanoTime();
+    final List<Entry> entries = new ArrayList<>();
+    for (final String[] libNames : libraries) {
+      final long t = System.nanoTime();
+      Throwable failure = null;
+      try {
+        NativeRegister.preload(libNames);
+      } catch (final RuntimeException ex) {
+        failure = ex;
+      }
+      entries.add(new Entry("library:" + String.join(",", libNames), System.nanoTime() - t, -1, failure));
+    }
+
+    final int threads = parallel ? Math.min(bindings.size(), Runtime.getRuntime().availableProcessors()) : 1;
+    if (threads <= 1) {
+      for (final Class<?> cls : bindings) {
+        entries.add(initialize(cls));
+      }
+    } else {
+      final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+        final Thread t = new Thread(r, "gnc4j-native-startup");
+        t.setDaemon(true);
+        return t;
+      });
+      try {
+        final List<Future<Entry>> futures = new ArrayList<>();
+        for (final Class<?> cls : bindings) {
+          futures.add(executor.submit(() -> initialize(cls)));
+        }
+        for (final Future<Entry> future : futures) {
+          entries.add(future.get());
+        }
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while registering natives", ex);
+      } catch (final ExecutionException ex) {
+        throw new IllegalStateException("Unexpected failure registering natives", ex.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+    return new Report(entries, System.nanoTime() - start);
+  }
+
+  private static Entry initialize(final Class<?> cls) {
+    final long start = System.nanoTime();
+    Throwable failure = null;
+    try {
+      Class.forName(cls.getName(), true, cls.getClassLoader());
+    } catch (final ClassNotFoundException | LinkageError ex) {
+      failure = ex instanceof ExceptionInInitializerError && ex.getCause() != null ? ex.getCause() : ex;
+    }
+    final Long registerNanos = NativeRegister.getRegistrationNanos(cls.getName());
+    return new Entry(cls.getName(), System.nanoTime() - start, registerNanos == null ? -1 : registerNanos, failure);
+  }
+}
@@ -0,0 +1,167 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes strings as NUL terminated UTF-8 into a reusable slab of native memory, for passing to native code without
+ * a malloc and free per argument.
+ * <pre>
+ * NativeStringArena arena = NativeStringArena.forCurrentThread();
+ * for (Row row : batch) {
+ *   xaccAccountSetName(account, arena.put(row.name));
+ *   ...
+ * }
+ * arena.reset();
+ * </pre>
+ * Pointers returned by {@link #put(String)} stay valid until the next {@link #reset()}, native code must copy the
+ * string rather than keep the pointer, as every engine setter does. When the slab is full a larger one is added, on
+ * reset they are replaced by a single slab large enough for the whole batch, so a steady workload stops allocating
+ * native memory after its first batch.
+ * <p>
+ * An arena is not thread safe, use the one of the current thread.
+ */
+public class NativeStringArena {
+  private static final int DEFAULT_CAPACITY = 16 * 1024;
+  private static final ThreadLocal<NativeStringArena> CURRENT = ThreadLocal.withInitial(() -> new NativeStringArena(DEFAULT_CAPACITY));
+
+  private static class Slab extends Memory {
+    private final ByteBuffer buffer;
+
+    private Slab(final long size) {
+      super(size);
+      this.buffer = getByteBuffer(0, size);
+    }
+
+    private void free() {
+      dispose();
+    }
+  }
+
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+  /**
+   * Full slabs of the current batch, freed on reset.
+   */
+  private final List<Slab> retired = new ArrayList<>();
+  private Slab slab;
+  private long retiredBytes;
+  private long strings;
+  private long grows;
+
+  NativeStringArena(final int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.slab = new Slab(capacity);
+  }
+
+  /**
+   * @return the arena of the calling thread
+   */
+  public static NativeStringArena forCurrentThread() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Encode a string into the arena.
+   *
+   * @return the NUL terminated UTF-8 string, valid until the next {@link #reset()}, null when s is null
+   */
+  public Pointer put(final String s) {
+    if (s == null) {
+      return null;
+    }
+    // a UTF-16 char never takes more than three bytes, a surrogate pair takes four
+    final long worst = 3L * s.length() + 1;
+    if (worst > slab.buffer.remaining()) {
+      grow(worst);
+    }
+    final ByteBuffer buffer = slab.buffer;
+    final int offset = buffer.position();
+    encoder.reset();
+    final CharBuffer in = CharBuffer.wrap(s);
+    CoderResult result = encoder.encode(in, buffer, true);
+    if (!result.isUnderflow()) {
+      throw new IllegalStateException("Could not encode string: " + result);
+    }
+    result = encoder.flush(buffer);
+    if (!result.isUnderflow()) {
+      throw new IllegalStateException("Could not encode string: " + result);
+    }
+    buffer.put((byte) 0);
+    strings++;
+    return slab.share(offset);
+  }
+
+  /**
+   * Invalidate every pointer returned so far and make the memory available again.
+   */
+  public void reset() {
+    if (!retired.isEmpty()) {
+      final long capacity = retiredBytes + slab.size();
+      for (final Slab s : retired) {
+        s.free();
+      }
+      retired.clear();
+      retiredBytes = 0;
+      slab.free();
+      slab = new Slab(capacity);
+    }
+    slab.buffer.clear();
+  }
+
+  /**
+   * @return bytes encoded since the last reset, terminators included
+   */
+  public long getUsedBytes() {
+    long used = slab.buffer.position();
+    for (final Slab s : retired) {
+      used += s.buffer.position();
+    }
+    return used;
+  }
+
+  /**
+   * @return native memory held by the arena
+   */
+  public long getCapacityBytes() {
+    return retiredBytes + slab.size();
+  }
+
+  /**
+   * @return strings encoded since the arena was created
+   */
+  public long getStrings() {
+    return strings;
+  }
+
+  /**
+   * @return times a slab was added because the current one was full
+   */
+  public long getGrows() {
+    return grows;
+  }
+
+  private void grow(final long needed) {
+    final long size = Math.max(needed, 2 * slab.size());
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("String too large for the arena: " + needed + " bytes");
+    }
+    retired.add(slab);
+    retiredBytes += slab.size();
+    slab = new Slab(size);
+    grows++;
+  }
+}
@@ -0,0 +1,289 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import com.sun.jna.Pointer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable holder of a NUL terminated UTF-8 string read from native memory, compared and hashed without decoding it.
+ * <pre>
+ * NativeUtf8 description = new NativeUtf8();
+ * for (Transaction trans : transactions) {
+ *   if (xaccTransGetDescription_utf8(trans, description).startsWith("ATM ")) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ * {@link #set(Pointer)} copies the bytes into a buffer kept between calls, so a loop reusing one holder does not
+ * allocate once the buffer is large enough. {@link #contentEquals(CharSequence)}, {@link #startsWith(CharSequence)}
+ * and {@link #hashCode()} work on the bytes: the first two encode the other string as they go, the hash is the one
+ * of the equal {@link String}. A String is only decoded when one is asked for, by {@link #toString()} or
+ * {@link #charAt(int)} on a string that is not pure ASCII, ASCII strings are decoded without going through UTF-8.
+ * <p>
+ * The holder is mutable, do not use it as a map key. A NULL pointer reads as the empty string, see
+ * {@link #isNull()}.
+ */
+public class NativeUtf8 implements CharSequence {
+  private static final int UNSET = -1;
+
+  private byte[] bytes = new byte[64];
+  private int byteLength;
+  private boolean isNull = true;
+  private boolean ascii = true;
+  private int length = UNSET;
+  private int hash;
+  private boolean hashed;
+  private String decoded;
+
+  /**
+   * Read the string at p, replacing the previous contents.
+   *
+   * @param p NUL terminated UTF-8, may be null
+   * @return this
+   */
+  public NativeUtf8 set(final Pointer p) {
+    length = UNSET;
+    hashed = false;
+    decoded = null;
+    if (p == null) {
+      isNull = true;
+      byteLength = 0;
+      ascii = true;
+      return this;
+    }
+    isNull = false;
+    final long n = p.indexOf(0, (byte) 0);
+    if (n > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("String too large: " + n + " bytes");
+    }
+    byteLength = (int) n;
+    if (byteLength > bytes.length) {
+      bytes = new byte[Math.max(byteLength, 2 * bytes.length)];
+    }
+    p.read(0, bytes, 0, byteLength);
+    boolean a = true;
+    for (int i = 0; i < byteLength; i++) {
+      if (bytes[i] < 0) {
+        a = false;
+        break;
+      }
+    }
+    ascii = a;
+    return this;
+  }
+
+  /**
+   * @return true when the last pointer read was NULL
+   */
+  public boolean isNull() {
+    return isNull;
+  }
+
+  /**
+   * @return length of the string in bytes, without the terminator
+   */
+  public int byteLength() {
+    return byteLength;
+  }
+
+  /**
+   * @return true when every byte is ASCII
+   */
+  public boolean isAscii() {
+    return ascii;
+  }
+
+  @Override
+  public int length() {
+    if (length == UNSET) {
+      length = ascii ? byteLength : toString().length();
+    }
+    return length;
+  }
+
+  @Override
+  public char charAt(final int index) {
+    if (ascii) {
+      if (index < 0 || index >= byteLength) {
+        throw new IndexOutOfBoundsException("index " + index + ", length " + byteLength);
+      }
+      return (char) bytes[index];
+    }
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(final int start, final int end) {
+    return toString().subSequence(start, end);
+  }
+
+  /**
+   * @return true when s encodes to the same bytes, false when s is null
+   */
+  public boolean contentEquals(final CharSequence s) {
+    return s != null && compareEncoded(s, false);
+  }
+
+  /**
+   * @return true when the string begins with prefix, false when prefix is null
+   */
+  public boolean startsWith(final CharSequence prefix) {
+    return prefix != null && compareEncoded(prefix, true);
+  }
+
+  /**
+   * @return the hash of the equal {@link String}
+   */
+  @Override
+  public int hashCode() {
+    if (!hashed) {
+      hash = computeHash();
+      hashed = true;
+    }
+    return hash;
+  }
+
+  /**
+   * @return true when o is a NativeUtf8 holding the same bytes, use {@link #contentEquals(CharSequence)} to compare
+   * with a String
+   */
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof NativeUtf8)) {
+      return false;
+    }
+    final NativeUtf8 other = (NativeUtf8) o;
+    if (byteLength != other.byteLength) {
+      return false;
+    }
+    for (int i = 0; i < byteLength; i++) {
+      if (bytes[i] != other.bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the decoded string, cached until the next {@link #set(Pointer)}
+   */
+  @Override
+  public String toString() {
+    if (decoded == null) {
+      decoded = new String(bytes, 0, byteLength, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+    return decoded;
+  }
+
+  /**
+   * @return a copy of the bytes, without the terminator
+   */
+  public byte[] toBytes() {
+    return Arrays.copyOf(bytes, byteLength);
+  }
+
+  /**
+   * Encode s as UTF-8 char by char, as String.getBytes() would, comparing with the bytes held.
+   */
+  private boolean compareEncoded(final CharSequence s, final boolean prefix) {
+    final int n = s.length();
+    int pos = 0;
+    for (int i = 0; i < n; i++) {
+      final char c = s.charAt(i);
+      int cp = c;
+      if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+        cp = Character.toCodePoint(c, s.charAt(++i));
+      } else if (Character.isSurrogate(c)) {
+        cp = '?';
+      }
+      if (cp < 0x80) {
+        if (pos >= byteLength || bytes[pos++] != (byte) cp) {
+          return false;
+        }
+      } else if (cp < 0x800) {
+        if (pos + 2 > byteLength
+            || bytes[pos++] != (byte) (0xC0 | cp >> 6)
+            || bytes[pos++] != (byte) (0x80 | cp & 0x3F)) {
+          return false;
+        }
+      } else if (cp < 0x10000) {
+        if (pos + 3 > byteLength
+            || bytes[pos++] != (byte) (0xE0 | cp >> 12)
+            || bytes[pos++] != (byte) (0x80 | cp >> 6 & 0x3F)
+            || bytes[pos++] != (byte) (0x80 | cp & 0x3F)) {
+          return false;
+        }
+      } else {
+        if (pos + 4 > byteLength
+            || bytes[pos++] != (byte) (0xF0 | cp >> 18)
+            || bytes[pos++] != (byte) (0x80 | cp >> 12 & 0x3F)
+            || bytes[pos++] != (byte) (0x80 | cp >> 6 & 0x3F)
+            || bytes[pos++] != (byte) (0x80 | cp & 0x3F)) {
+          return false;
+        }
+      }
+    }
+    return prefix || pos == byteLength;
+  }
+
+  /**
+   * String.hashCode() over the UTF-16 units of the bytes, decoding them only when they are not well formed.
+   */
+  private int computeHash() {
+    int h = 0;
+    if (ascii) {
+      for (int i = 0; i < byteLength; i++) {
+        h = 31 * h + bytes[i];
+      }
+      return h;
+    }
+    int i = 0;
+    while (i < byteLength) {
+      final int b = bytes[i] & 0xFF;
+      final int cp;
+      final int size;
+      if (b < 0x80) {
+        cp = b;
+        size = 1;
+      } else if (b >= 0xC2 && b < 0xE0) {
+        cp = b & 0x1F;
+        size = 2;
+      } else if (b >= 0xE0 && b < 0xF0) {
+        cp = b & 0x0F;
+        size = 3;
+      } else if (b >= 0xF0 && b < 0xF5) {
+        cp = b & 0x07;
+        size = 4;
+      } else {
+        return toString().hashCode();
+      }
+      if (i + size > byteLength) {
+        return toString().hashCode();
+      }
+      int v = cp;
+      for (int k = 1; k < size; k++) {
+        final int cont = bytes[i + k] & 0xFF;
+        if ((cont & 0xC0) != 0x80) {
+          return toString().hashCode();
+        }
+        v = v << 6 | cont & 0x3F;
+      }
+      if (size == 3 && (v < 0x800 || Character.isSurrogate((char) v))
+          || size == 4 && (v < 0x10000 || v > Character.MAX_CODE_POINT)) {
+        return toString().hashCode();
+      }
+      if (v >= 0x10000) {
+        h = 31 * h + Character.highSurrogate(v);
+        h = 31 * h + Character.lowSurrogate(v);
+      } else {
+        h = 31 * h + v;
+      }
+      i += size;
+    }
+    return h;
+  }
+}
@@ -0,0 +1,19 @@
+package com.austindoupnik.gnc4j.jna_core
+
+import spock.lang.Specification
+
+class JnaEnumTest extends Specification {
+    def "sparse values are found, the first constant wins on duplicates and unknown values use the fallback"() {
+        expect:
+        JnaEnum.findByValue(TestSparseEnum, Integer.MIN_VALUE) == TestSparseEnum.NEGATIVE
+        JnaEnum.findByValue(TestSparseEnum, 1) == TestSparseEnum.SMALL
+        JnaEnum.findByValue(TestSparseEnum, 1 << 20) == TestSparseEnum.LARGE
+        JnaEnum.findByValue(TestSparseEnum, -2) == TestSparseEnum.UNKNOWN
+        JnaEnum.findByValue(TestSparseEnum, 42) == TestSparseEnum.UNKNOWN
+    }
+
+    def "fromNative decodes through the table of the enum"() {
+        expect:
+        TestSparseEnum.SMALL.fromNative(1 << 20, null) == TestSparseEnum.LARGE
+    }
+}
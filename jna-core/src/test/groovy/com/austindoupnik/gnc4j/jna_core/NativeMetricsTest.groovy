@@ -0,0 +1,125 @@
+package com.austindoupnik.gnc4j.jna_core
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class NativeMetricsTest extends Specification {
+    def metrics = new NativeMetrics()
+
+    def "records counts and histogram"() {
+        when:
+        [100L, 200L, 1_000_000L].each { metrics.record("f", it) }
+        def snapshot = metrics.snapshot()["f"]
+
+        then:
+        snapshot.getCount() == 3
+        snapshot.getTotalNanos() == 1_000_300
+        snapshot.getMaxNanos() == 1_000_000
+        snapshot.getPercentileNanos(50) == 255
+        snapshot.getPercentileNanos(100) == 1_000_000
+        metrics.dump().contains("f")
+    }
+
+    def "bucket is the bit length of the latency"() {
+        expect:
+        NativeMetrics.bucket(nanos) == bucket
+
+        where:
+        nanos          || bucket
+        0              || 0
+        1              || 1
+        255            || 8
+        256            || 9
+        Long.MAX_VALUE || 63
+    }
+
+    def "instrumented registration records registration, calls and unmarshalling"() {
+        when:
+        NativeRegister.nativeRegister(TestLibC, metrics, "c")
+        def length = TestLibC.strlen("abc")
+        def absolute = TestLibC.abs(-4)
+        TestLibC.srand(1)
+        TestLibC.rand()
+        def found = TestLibC.strchr("abc", (int) 'b')
+        def snapshot = metrics.snapshot()
+        def call = { String name -> snapshot["call:" + TestLibC.getName() + "." + name] }
+
+        then:
+        length.intValue() == 3
+        absolute == 4
+        found != null
+        snapshot["register:" + TestLibC.getName()].getCount() == 1
+        snapshot["unmarshal:" + TestLibC.getName() + ".strlen"].getCount() == 1
+        ["strlen", "abs", "srand", "strchr"].every { call(it).getCount() == 1 && call(it).getTimedCount() == 1 }
+        call("rand").getCount() == 1
+        call("rand").getTimedCount() == 0
+    }
+
+    def "mapped arguments are marshalled per method"() {
+        when:
+        NativeRegister.nativeRegister(TestLibC, metrics, "c")
+        def length = TestLibC.strnlen("abcdef", new SizeT(4))
+        def snapshot = metrics.snapshot()
+
+        then:
+        length.intValue() == 4
+        snapshot["marshal:" + TestLibC.getName() + ".strnlen"].getCount() == 1
+        snapshot.keySet().every { !it.startsWith("marshal:" + SizeT.getName()) }
+    }
+
+    def "a call whose result is not converted leaves no start for the next call"() {
+        when:
+        NativeRegister.nativeRegister(TestLibC, metrics, "c")
+        def quotient = TestLibC.div(7, 2)
+        TestLibC.rand()
+        TestLibC.abs(-1)
+        def snapshot = metrics.snapshot()
+        def call = { String name -> snapshot["call:" + TestLibC.getName() + "." + name] }
+
+        then:
+        quotient.quot == 3
+        call("rand").getCount() == 1
+        call("rand").getTimedCount() == 0
+        call("abs").getTimedCount() == 1
+    }
+
+    def "untimed calls are counted but left out of the latency"() {
+        when:
+        metrics.record("f", 100)
+        metrics.count("f")
+        def snapshot = metrics.snapshot()["f"]
+
+        then:
+        snapshot.getCount() == 2
+        snapshot.getTimedCount() == 1
+        snapshot.getMeanNanos() == 100d
+        snapshot.getPercentileNanos(100) == 100
+    }
+
+    def "slow calls are reported to flight recorder"() {
+        given:
+        def file = Files.createTempFile("native-call", ".jfr")
+        def recording = new Recording()
+        recording.enable("gnc4j.NativeCall")
+
+        when:
+        recording.start()
+        NativeMetrics.timed("fast", () -> {})
+        NativeMetrics.timed("slow", () -> Thread.sleep(50))
+        recording.stop()
+        recording.dump(file)
+        def functions = RecordingFile.readAllEvents(file)
+                .findAll { it.getEventType().getName() == "gnc4j.NativeCall" }
+                .collect { it.getString("function") }
+
+        then:
+        functions == ["slow"]
+
+        cleanup:
+        recording.close()
+        Files.deleteIfExists(file)
+    }
+}
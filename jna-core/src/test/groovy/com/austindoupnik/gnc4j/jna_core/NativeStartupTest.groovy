@@ -0,0 +1,34 @@
+package com.austindoupnik.gnc4j.jna_core
+
+import spock.lang.Specification
+
+class NativeStartupTest extends Specification {
+    def "libraries are preloaded, classes registered and failures reported"() {
+        when:
+        def report = new NativeStartup()
+                .library("gnc4j-no-such-library", "c")
+                .library("gnc4j-no-such-library")
+                .bindings(TestStartupLibC, TestMissingLib)
+                .parallel(parallel)
+                .run()
+
+        then:
+        report.entries*.name == [
+                "library:gnc4j-no-such-library,c",
+                "library:gnc4j-no-such-library",
+                TestStartupLibC.name,
+                TestMissingLib.name,
+        ]
+        report.failures*.name == ["library:gnc4j-no-such-library", TestMissingLib.name]
+        report.entries[2].registerNanos > 0
+        NativeRegister.getRegistrationNanos().containsKey(TestStartupLibC.name)
+        report.getSlowest(1).size() == 1
+        report.toString().contains(TestStartupLibC.name)
+
+        and:
+        TestStartupLibC.abs(-3) == 3
+
+        where:
+        parallel << [false, true]
+    }
+}
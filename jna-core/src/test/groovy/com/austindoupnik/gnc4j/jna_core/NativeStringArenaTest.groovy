@@ -0,0 +1,64 @@
+package com.austindoupnik.gnc4j.jna_core
+
+import spock.lang.Specification
+
+class NativeStringArenaTest extends Specification {
+    def "strings are encoded as NUL terminated UTF-8"() {
+        given:
+        def arena = new NativeStringArena(64)
+
+        when:
+        def ascii = arena.put("Assets")
+        def accented = arena.put("Dépenses €")
+        def empty = arena.put("")
+
+        then:
+        ascii.getString(0, "UTF-8") == "Assets"
+        accented.getString(0, "UTF-8") == "Dépenses €"
+        empty.getString(0, "UTF-8") == ""
+        arena.put(null) == null
+        arena.usedBytes == 7 + 14 + 1
+        arena.strings == 3
+    }
+
+    def "growing keeps earlier strings valid and reset consolidates the slabs"() {
+        given:
+        def arena = new NativeStringArena(16)
+
+        when:
+        def pointers = (0..<20).collect { arena.put("account " + it) }
+
+        then:
+        arena.grows > 0
+        pointers.withIndex().every { p, i -> p.getString(0, "UTF-8") == "account " + i }
+
+        when:
+        def capacity = arena.capacityBytes
+        arena.reset()
+
+        then:
+        arena.usedBytes == 0
+        arena.capacityBytes == capacity
+
+        when:
+        def grows = arena.grows
+        (0..<20).each { arena.put("account " + it) }
+
+        then:
+        arena.grows == grows
+    }
+
+    def "each thread has its own arena"() {
+        given:
+        def other = null
+        def thread = new Thread({ other = NativeStringArena.forCurrentThread() })
+
+        when:
+        thread.start()
+        thread.join()
+
+        then:
+        NativeStringArena.forCurrentThread().is(NativeStringArena.forCurrentThread())
+        !other.is(NativeStringArena.forCurrentThread())
+    }
+}
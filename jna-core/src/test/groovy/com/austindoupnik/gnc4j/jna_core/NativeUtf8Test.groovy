@@ -0,0 +1,58 @@
+package com.austindoupnik.gnc4j.jna_core
+
+import spock.lang.Specification
+
+class NativeUtf8Test extends Specification {
+    def arena = new NativeStringArena(1024)
+    def utf8 = new NativeUtf8()
+
+    def "compares and hashes like the decoded string"() {
+        when:
+        utf8.set(arena.put(s))
+
+        then:
+        utf8.contentEquals(s)
+        !utf8.contentEquals(s + "x")
+        !utf8.contentEquals(s.isEmpty() ? "x" : s.substring(1))
+        utf8.hashCode() == s.hashCode()
+        utf8.length() == s.length()
+        utf8.toString() == s
+        utf8.ascii == s.chars().allMatch { it < 0x80 }
+
+        where:
+        s << ["", "Groceries", "Café", "€ 10", "Gas ⛽", "𝄞 music"]
+    }
+
+    def "prefixes are matched on the bytes"() {
+        when:
+        utf8.set(arena.put("Dépôt ATM"))
+
+        then:
+        utf8.startsWith("")
+        utf8.startsWith("Dé")
+        utf8.startsWith("Dépôt ATM")
+        !utf8.startsWith("De")
+        !utf8.startsWith("Dépôt ATM!")
+        utf8.charAt(1) == 'é' as char
+    }
+
+    def "holders are reused and NULL reads as empty"() {
+        given:
+        def other = new NativeUtf8().set(arena.put("a much longer string " * 10))
+
+        when:
+        utf8.set(arena.put("a much longer string " * 10))
+
+        then:
+        utf8 == other
+        utf8.byteLength() == 210
+
+        when:
+        utf8.set(null)
+
+        then:
+        utf8.null
+        utf8.contentEquals("")
+        utf8 != other
+    }
+}
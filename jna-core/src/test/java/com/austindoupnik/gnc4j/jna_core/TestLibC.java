@@ -0,0 +1,26 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+
+class TestLibC {
+  static native SizeT strlen(final String s);
+
+  static native int abs(final int i);
+
+  static native void srand(final int seed);
+
+  static native int rand();
+
+  static native Pointer strchr(final String s, final int c);
+
+  static native SizeT strnlen(final String s, final SizeT max);
+
+  @Structure.FieldOrder({"quot", "rem"})
+  public static class div_t extends Structure implements Structure.ByValue {
+    public int quot;
+    public int rem;
+  }
+
+  static native div_t div(final int numerator, final int denominator);
+}
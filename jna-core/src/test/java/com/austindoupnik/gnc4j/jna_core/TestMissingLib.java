@@ -0,0 +1,12 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+/**
+ * Binding to a library that does not exist, used by NativeStartupTest.
+ */
+public class TestMissingLib {
+  static {
+    NativeRegister.nativeRegister(TestMissingLib.class, "gnc4j-no-such-library");
+  }
+
+  public static native int abs(final int i);
+}
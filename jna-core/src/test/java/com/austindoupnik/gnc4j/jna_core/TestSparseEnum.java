@@ -0,0 +1,24 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+/**
+ * Enum with values too far apart for a dense table and a fallback constant, used by JnaEnumTest.
+ */
+public enum TestSparseEnum implements JnaEnum<TestSparseEnum> {
+  NEGATIVE(Integer.MIN_VALUE),
+  SMALL(1),
+  ALSO_SMALL(1),
+  LARGE(1 << 20),
+  @JnaEnum.Fallback
+  UNKNOWN(-2);
+
+  private final int value;
+
+  TestSparseEnum(final int value) {
+    this.value = value;
+  }
+
+  @Override
+  public int getValue() {
+    return value;
+  }
+}
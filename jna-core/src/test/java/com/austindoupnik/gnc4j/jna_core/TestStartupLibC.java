@@ -0,0 +1,12 @@
+package com.austindoupnik.gnc4j.jna_core;
+
+/**
+ * Binding registered by its static initializer, the first library name does not exist. Used by NativeStartupTest.
+ */
+public class TestStartupLibC {
+  static {
+    NativeRegister.nativeRegister(TestStartupLibC.class, "gnc4j-no-such-library", "c");
+  }
+
+  public static native int abs(final int i);
+}
@@ -0,0 +1,112 @@
+package com.austindoupnik.gnc4j.libgnucash;
+
+import com.austindoupnik.gnc4j.glib.GLibGDate;
+import com.austindoupnik.gnc4j.glib.GLibGList;
+import com.austindoupnik.gnc4j.glib.GLibGMem;
+import com.austindoupnik.gnc4j.glib.GLibGObject;
+import com.austindoupnik.gnc4j.glib.GLibGSList;
+import com.austindoupnik.gnc4j.jna_core.NativeStartup;
+import com.austindoupnik.gnc4j.libgnucash.core_utils.CoreUtilsGncVersion;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncSession;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGuid;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofLog;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofUtil;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_budget.EngineGncBudget;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity.EngineGncCommodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_customer.EngineGncCustomer;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.EngineGncDate;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_employee.EngineGncEmployee;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice.EngineGncInvoice;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot.EngineGncLot;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.EngineGncNumeric;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner.EngineGncOwner;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_vendor.EngineGncVendor;
+import com.austindoupnik.gnc4j.libgnucash.engine.policy.EnginePolicy;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.EngineQofEvent;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_query.EngineQofQuery;
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.EngineRecurrence;
+import com.austindoupnik.gnc4j.libgnucash.engine.sched_xaction.EngineSchedXaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction;
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every class binding natives of glib, gobject, gnc-engine and core-utils, for registering them all at startup.
+ * <p>
+ * Binding classes register their natives the first time they are used, which spreads the cost of binding over the
+ * first calls made. {@link #registerAll(boolean)} pays it up front instead, and reports how long each library and
+ * class took.
+ */
+@UtilityClass
+public class GnuCashBindings {
+  public static final List<Class<?>> GLIB = Collections.unmodifiableList(Arrays.asList(
+      GLibGDate.class,
+      GLibGList.class,
+      GLibGMem.class,
+      GLibGObject.class,
+      GLibGSList.class
+  ));
+
+  public static final List<Class<?>> ENGINE = Collections.unmodifiableList(Arrays.asList(
+      EngineAccount.class,
+      EngineGncBudget.class,
+      EngineGncCommodity.class,
+      EngineGncCustomer.class,
+      EngineGncDate.class,
+      EngineGncEmployee.class,
+      EngineGncEngine.class,
+      EngineGncInvoice.class,
+      EngineGncLot.class,
+      EngineGncNumeric.class,
+      EngineGncOwner.class,
+      EngineGncPriceDb.class,
+      EngineGncSession.class,
+      EngineGncVendor.class,
+      EngineGuid.class,
+      EnginePolicy.class,
+      EngineQofBook.class,
+      EngineQofEvent.class,
+      EngineQofId.class,
+      EngineQofInstance.class,
+      EngineQofLog.class,
+      EngineQofQuery.class,
+      EngineQofSession.class,
+      EngineQofUtil.class,
+      EngineRecurrence.class,
+      EngineSchedXaction.class,
+      EngineSplit.class,
+      EngineTransaction.class
+  ));
+
+  public static final List<Class<?>> CORE_UTILS = Collections.singletonList(CoreUtilsGncVersion.class);
+
+  /**
+   * Load glib, gobject, gnc-engine and core-utils and register every binding class.
+   *
+   * @param parallel register classes from several threads
+   * @return timings and failures, nothing is thrown
+   */
+  public static NativeStartup.Report registerAll(final boolean parallel) {
+    return new NativeStartup()
+        .library("glib-2.0.0", "glib-2.0")
+        .library("gobject-2.0.0", "gobject-2.0")
+        .library("gnc-engine")
+        .library("core-utils")
+        .bindings(GLIB.toArray(new Class<?>[0]))
+        .bindings(ENGINE.toArray(new Class<?>[0]))
+        .bindings(CORE_UTILS.toArray(new Class<?>[0]))
+        .parallel(parallel)
+        .run();
+  }
+}
@@ -0,0 +1,478 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.glib.GLibGList.GList;
+import com.austindoupnik.gnc4j.glib.OwnedGList;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.GNCPrice;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventBridge;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventListener;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_commodity;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_currency;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_time64;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_value;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_list_destroy;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_pricedb_get_db;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_pricedb_get_prices;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.qof_instance_get_book;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity.EngineGncCommodity.GNC_COMMODITY_NS_CURRENCY;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity.EngineGncCommodity.gnc_commodity_table_get_commodities_owned;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity.EngineGncCommodity.gnc_commodity_table_get_table;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_PRICE;
+
+/**
+ * Converts between any two commodities linked by a chain of prices, using precomputed paths.
+ * <p>
+ * The commodities are the nodes of a graph and every pair with at least one price is an edge, usable in both
+ * directions. The path between two commodities is the one with the fewest hops, and among those the one whose
+ * oldest latest price is the most recent. Paths and the product of the latest rates along them are computed one
+ * source commodity at a time, the first time a conversion from it is asked for, so {@link #rate(long, long)} is a
+ * table lookup once warm. Conversions at a given time follow the same path with the prices nearest that time.
+ * <p>
+ * Prices added afterwards, through {@link #add(EngineGncPriceDb.GNCPrice)} or the price events of a
+ * {@link QofEventBridge}, only recompute the sources whose paths they may change: a new pair recomputes every source,
+ * a newer price of a known pair only those for which the pair links two consecutive hop counts. Removed prices are
+ * not taken into account, build a new graph after removing prices.
+ * <p>
+ * Prices delivered by events are only remembered as addresses while a batch is delivered, and read at the end of the
+ * batch. A price removed from the price database or destroyed later in the batch is forgotten rather than read after
+ * it may have been freed, and a price is only read when it is in the price database of its book, so prices still
+ * being built with setters are ignored until they are added.
+ */
+public class ConversionGraph implements QofEventListener, AutoCloseable {
+  /**
+   * Size of the graph, in commodities and priced pairs, and how many rows of paths from one source were computed and
+   * thrown away again by new prices, as of {@link #getStats()}.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Stats {
+    private final int commodities;
+    private final int pairs;
+    private final long rowsComputed;
+    private final long rowsInvalidated;
+  }
+
+  /**
+   * Reads the prices remembered during a batch once it ends, by then they may have been taken out of their price
+   * database or never put in it.
+   */
+  interface PriceReader {
+    /**
+     * Add the price to the graph when it is in the price database of its book.
+     */
+    void addIfListed(final ConversionGraph graph, final long price);
+  }
+
+  private static final PriceReader ENGINE = (graph, price) -> {
+    final GNCPrice p = new GNCPrice(new Pointer(price));
+    if (isListed(p)) {
+      graph.add(p);
+    }
+  };
+
+  private static final int FORGET = QofEventType.QOF_EVENT_REMOVE.getValue() | QofEventType.QOF_EVENT_DESTROY.getValue();
+
+  private static final Set<QofEventType> EVENTS = EnumSet.of(
+      QofEventType.QOF_EVENT_ADD,
+      QofEventType.QOF_EVENT_MODIFY,
+      QofEventType.QOF_EVENT_REMOVE,
+      QofEventType.QOF_EVENT_DESTROY
+  );
+
+  /**
+   * Paths from one source, indexed by destination.
+   */
+  private static class Row {
+    private final int[] hops;
+    private final int[] pred;
+    private final double[] rate;
+
+    private Row(final int n) {
+      this.hops = new int[n];
+      this.pred = new int[n];
+      this.rate = new double[n];
+    }
+  }
+
+  private final PriceHistory history;
+  private final Map<Long, Integer> ids = new HashMap<>();
+  private long[] nodes = new long[16];
+  private int n;
+  private int pairs;
+
+  /**
+   * Neighbours of each node, with the time and rate of the latest price towards them.
+   */
+  private int[][] adj = new int[16][];
+  private long[][] adjTime = new long[16][];
+  private double[][] adjRate = new double[16][];
+  private int[] degree = new int[16];
+
+  private Row[] rows = new Row[16];
+  private long rowsComputed;
+  private long rowsInvalidated;
+  private QofEventBridge.Subscription subscription;
+  private PriceReader reader = ENGINE;
+  /**
+   * Addresses of the prices added or modified in the batch being delivered.
+   */
+  private final Set<Long> pending = new LinkedHashSet<>();
+
+  /**
+   * @param history     prices to build the graph from, kept up to date by the graph afterwards
+   * @param commodities native addresses of commodities to include even without prices
+   */
+  public ConversionGraph(@NonNull final PriceHistory history, final long... commodities) {
+    this.history = history;
+    for (final long commodity : commodities) {
+      id(commodity);
+    }
+    history.forEachLatest(this::link);
+  }
+
+  /**
+   * Build a graph of every price and currency of a book.
+   */
+  public static ConversionGraph build(@NonNull final QofBook book) {
+    final PriceHistory history = PriceHistory.load(book);
+    try (OwnedGList<gnc_commodity> currencies = gnc_commodity_table_get_commodities_owned(
+        gnc_commodity_table_get_table(book),
+        GNC_COMMODITY_NS_CURRENCY
+    )) {
+      final long[] nodes = new long[currencies.size()];
+      for (int i = 0; i < nodes.length; i++) {
+        nodes[i] = Pointer.nativeValue(currencies.get(i).getPointer());
+      }
+      return new ConversionGraph(history, nodes);
+    }
+  }
+
+  /**
+   * Keep the graph up to date with the prices added to the book, delivered when the bridge is flushed.
+   *
+   * @return this, close it to stop listening
+   */
+  public ConversionGraph attach(@NonNull final QofEventBridge bridge) {
+    close();
+    subscription = bridge.addListener(this, EVENTS, GNC_ID_PRICE);
+    return this;
+  }
+
+  ConversionGraph readingWith(final PriceReader reader) {
+    this.reader = reader;
+    return this;
+  }
+
+  /**
+   * Add a price, such as one just added with gnc_pricedb_add_price().
+   */
+  public void add(@NonNull final GNCPrice p) {
+    final gnc_numeric value = gnc_price_get_value(p);
+    add(
+        address(gnc_price_get_commodity(p)),
+        address(gnc_price_get_currency(p)),
+        gnc_price_get_time64(p).longValue(),
+        value.num.longValue(),
+        value.denom.longValue()
+    );
+  }
+
+  /**
+   * Add a price of commodity in currency.
+   */
+  public void add(final long commodity, final long currency, final long time, final long num, final long denom) {
+    history.add(commodity, currency, time, num, denom);
+    history.latest(commodity, currency, this::link);
+  }
+
+  @Override
+  public void onEvent(final Pointer entity, final String entityType, final int eventId) {
+    final long price = Pointer.nativeValue(entity);
+    if ((eventId & FORGET) != 0) {
+      pending.remove(price);
+    } else {
+      pending.add(price);
+    }
+  }
+
+  @Override
+  public void onBatchEnd() {
+    final Long[] prices = pending.toArray(new Long[0]);
+    pending.clear();
+    for (final long price : prices) {
+      reader.addIfListed(this, price);
+    }
+  }
+
+  /**
+   * @return units of to per unit of from using the latest prices, NaN when no chain of prices links them
+   */
+  public double rate(final long from, final long to) {
+    if (from == to) {
+      return 1;
+    }
+    final Integer i = ids.get(from);
+    final Integer j = ids.get(to);
+    if (i == null || j == null) {
+      return Double.NaN;
+    }
+    return row(i).rate[j];
+  }
+
+  public double rate(@NonNull final gnc_commodity from, @NonNull final gnc_commodity to) {
+    return rate(address(from), address(to));
+  }
+
+  /**
+   * @return amount of from converted to to using the latest prices, NaN when no chain of prices links them
+   */
+  public double convert(final double amount, @NonNull final gnc_commodity from, @NonNull final gnc_commodity to) {
+    return amount * rate(address(from), address(to));
+  }
+
+  /**
+   * @return units of to per unit of from along the same path as {@link #rate(long, long)}, using the prices nearest
+   * to time, NaN when no chain of prices links them
+   */
+  public double rate(final long from, final long to, final long time) {
+    if (from == to) {
+      return 1;
+    }
+    final Integer i = ids.get(from);
+    final Integer j = ids.get(to);
+    if (i == null || j == null) {
+      return Double.NaN;
+    }
+    final Row row = row(i);
+    if (row.hops[j] < 0) {
+      return Double.NaN;
+    }
+    double rate = 1;
+    for (int v = j; v != i; v = row.pred[v]) {
+      rate *= history.nearest(nodes[row.pred[v]], nodes[v], time);
+    }
+    return rate;
+  }
+
+  /**
+   * @return native addresses of the commodities from from to to, empty when no chain of prices links them
+   */
+  public long[] path(final long from, final long to) {
+    final Integer i = ids.get(from);
+    final Integer j = ids.get(to);
+    if (i == null || j == null) {
+      return new long[0];
+    }
+    final Row row = row(i);
+    if (row.hops[j] < 0) {
+      return new long[0];
+    }
+    final long[] path = new long[row.hops[j] + 1];
+    for (int v = j, k = path.length - 1; k >= 0; v = row.pred[v], k--) {
+      path[k] = nodes[v];
+    }
+    return path;
+  }
+
+  public Stats getStats() {
+    return new Stats(n, pairs, rowsComputed, rowsInvalidated);
+  }
+
+  /**
+   * Stop listening for prices.
+   */
+  @Override
+  public void close() {
+    if (subscription != null) {
+      subscription.close();
+      subscription = null;
+    }
+  }
+
+  /**
+   * Record the latest price of a pair, invalidating the rows it may change.
+   */
+  private void link(final long commodity, final long currency, final long time, final double rate) {
+    if (Double.isNaN(rate) || rate == 0 || commodity == currency) {
+      return;
+    }
+    final int a = id(commodity);
+    final int b = id(currency);
+    final int k = indexOf(a, b);
+    if (k < 0) {
+      connect(a, b, time, rate);
+      connect(b, a, time, 1 / rate);
+      pairs++;
+      invalidateAll();
+      return;
+    }
+    if (time < adjTime[a][k]) {
+      return;
+    }
+    adjTime[a][k] = time;
+    adjRate[a][k] = rate;
+    final int r = indexOf(b, a);
+    adjTime[b][r] = time;
+    adjRate[b][r] = 1 / rate;
+    for (int s = 0; s < n; s++) {
+      final Row row = rows[s];
+      if (row != null && row.hops[a] >= 0 && Math.abs(row.hops[a] - row.hops[b]) == 1) {
+        rows[s] = null;
+        rowsInvalidated++;
+      }
+    }
+  }
+
+  private Row row(final int source) {
+    Row row = rows[source];
+    if (row == null) {
+      row = compute(source);
+      rows[source] = row;
+      rowsComputed++;
+    }
+    return row;
+  }
+
+  /**
+   * Breadth first search from source, preferring among predecessors at the same hop count the one whose path has the
+   * most recent oldest price.
+   */
+  private Row compute(final int source) {
+    final Row row = new Row(n);
+    final long[] recency = new long[n];
+    final int[] queue = new int[n];
+    Arrays.fill(row.hops, -1);
+    Arrays.fill(row.rate, Double.NaN);
+    row.hops[source] = 0;
+    row.pred[source] = source;
+    recency[source] = Long.MAX_VALUE;
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = source;
+    while (head < tail) {
+      final int u = queue[head++];
+      for (int k = 0; k < degree[u]; k++) {
+        final int v = adj[u][k];
+        final long r = Math.min(recency[u], adjTime[u][k]);
+        if (row.hops[v] < 0) {
+          row.hops[v] = row.hops[u] + 1;
+          row.pred[v] = u;
+          recency[v] = r;
+          queue[tail++] = v;
+        } else if (row.hops[v] == row.hops[u] + 1 && r > recency[v]) {
+          row.pred[v] = u;
+          recency[v] = r;
+        }
+      }
+    }
+    row.rate[source] = 1;
+    for (int q = 1; q < tail; q++) {
+      final int v = queue[q];
+      final int u = row.pred[v];
+      row.rate[v] = row.rate[u] * adjRate[u][indexOf(u, v)];
+    }
+    return row;
+  }
+
+  private void invalidateAll() {
+    for (int s = 0; s < n; s++) {
+      if (rows[s] != null) {
+        rows[s] = null;
+        rowsInvalidated++;
+      }
+    }
+  }
+
+  private int id(final long commodity) {
+    final Integer existing = ids.get(commodity);
+    if (existing != null) {
+      return existing;
+    }
+    if (n == nodes.length) {
+      final int grown = 2 * n;
+      nodes = Arrays.copyOf(nodes, grown);
+      adj = Arrays.copyOf(adj, grown);
+      adjTime = Arrays.copyOf(adjTime, grown);
+      adjRate = Arrays.copyOf(adjRate, grown);
+      degree = Arrays.copyOf(degree, grown);
+      rows = Arrays.copyOf(rows, grown);
+    }
+    final int id = n++;
+    nodes[id] = commodity;
+    adj[id] = new int[4];
+    adjTime[id] = new long[4];
+    adjRate[id] = new double[4];
+    ids.put(commodity, id);
+    // rows are sized to the number of nodes
+    invalidateAll();
+    return id;
+  }
+
+  private void connect(final int a, final int b, final long time, final double rate) {
+    final int d = degree[a];
+    if (d == adj[a].length) {
+      adj[a] = Arrays.copyOf(adj[a], 2 * d);
+      adjTime[a] = Arrays.copyOf(adjTime[a], 2 * d);
+      adjRate[a] = Arrays.copyOf(adjRate[a], 2 * d);
+    }
+    adj[a][d] = b;
+    adjTime[a][d] = time;
+    adjRate[a][d] = rate;
+    degree[a] = d + 1;
+  }
+
+  private int indexOf(final int a, final int b) {
+    for (int k = 0; k < degree[a]; k++) {
+      if (adj[a][k] == b) {
+        return k;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return true when the price is one of the prices of its pair in the price database of its book
+   */
+  private static boolean isListed(final GNCPrice p) {
+    final gnc_commodity commodity = gnc_price_get_commodity(p);
+    final gnc_commodity currency = gnc_price_get_currency(p);
+    final QofBook book = qof_instance_get_book(p.getPointer());
+    if (commodity == null || currency == null || book == null) {
+      return false;
+    }
+    final PriceList prices = gnc_pricedb_get_prices(gnc_pricedb_get_db(book), commodity, currency);
+    if (prices == null) {
+      return false;
+    }
+    try {
+      final long address = Pointer.nativeValue(p.getPointer());
+      for (GList link = prices; link != null; link = link.next) {
+        if (Pointer.nativeValue(link.data) == address) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      gnc_price_list_destroy(prices);
+    }
+  }
+
+  private static long address(final gnc_commodity commodity) {
+    return commodity == null ? 0 : Pointer.nativeValue(commodity.getPointer());
+  }
+}
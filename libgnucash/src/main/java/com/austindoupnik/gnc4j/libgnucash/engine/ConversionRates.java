@@ -0,0 +1,201 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.GNCPrice;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.GNCPriceDB;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_commodity;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_value;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_unref;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_pricedb_get_db;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_pricedb_lookup_nearest_in_time64;
+
+/**
+ * Memoized conversion rates between commodities, from the prices of a book.
+ * <p>
+ * A rate is resolved once per (commodity, currency, time): from the price nearest in time quoted in either direction,
+ * otherwise through one of the intermediate currencies given, multiplying the rate of the commodity in the
+ * intermediate by the rate of the intermediate in the currency. Every rate found, direct or not, is memoized, and so
+ * is the absence of one. Rates are doubles, as are the amounts they are meant to convert in reports.
+ * <p>
+ * Prices added to the book afterwards are not seen, use a new instance or {@link #clear()}.
+ */
+public class ConversionRates {
+  /**
+   * Looks up the price of a commodity nearest in time, commodities are native addresses.
+   */
+  public interface Prices {
+    /**
+     * @return units of currency per unit of commodity, NaN when there is no price between them
+     */
+    double nearest(final long commodity, final long currency, final long time);
+  }
+
+  /**
+   * Rates answered from the memo and computed, price lookups made for them and rates found only through an
+   * intermediate commodity, with the number of rates memoized, as of {@link #getStats()}.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Stats {
+    private final long hits;
+    private final long misses;
+    private final long priceLookups;
+    private final long indirect;
+    private final int rates;
+  }
+
+  @RequiredArgsConstructor
+  private static class Key {
+    private final long commodity;
+    private final long currency;
+    private final long time;
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key k = (Key) o;
+      return commodity == k.commodity && currency == k.currency && time == k.time;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = Long.hashCode(commodity);
+      h = 31 * h + Long.hashCode(currency);
+      return 31 * h + Long.hashCode(time);
+    }
+  }
+
+  private final Prices prices;
+  private final long[] intermediates;
+  private final Map<Key, Double> direct = new HashMap<>();
+  private final Map<Key, Double> rates = new HashMap<>();
+
+  private long hits;
+  private long misses;
+  private long priceLookups;
+  private long indirect;
+
+  /**
+   * @param prices        source of the direct rates
+   * @param intermediates native addresses of the currencies tried, in order, when two commodities have no price
+   *                      between them
+   */
+  public ConversionRates(@NonNull final Prices prices, final long... intermediates) {
+    this.prices = prices;
+    this.intermediates = intermediates.clone();
+  }
+
+  /**
+   * @param book          book whose prices are used
+   * @param intermediates currencies tried, in order, when two commodities have no price between them
+   */
+  public static ConversionRates of(@NonNull final QofBook book, final gnc_commodity... intermediates) {
+    final GNCPriceDB db = gnc_pricedb_get_db(book);
+    final long[] via = new long[intermediates.length];
+    for (int i = 0; i < via.length; i++) {
+      via[i] = Pointer.nativeValue(intermediates[i].getPointer());
+    }
+    return new ConversionRates((commodity, currency, time) -> {
+      final GNCPrice price = gnc_pricedb_lookup_nearest_in_time64(
+          db,
+          new gnc_commodity(new Pointer(commodity)),
+          new gnc_commodity(new Pointer(currency)),
+          new time64(time)
+      );
+      if (price == null) {
+        return Double.NaN;
+      }
+      try {
+        final double value = gnc_price_get_value(price).doubleValue();
+        if (value == 0) {
+          return Double.NaN;
+        }
+        final gnc_commodity quoted = gnc_price_get_commodity(price);
+        final boolean inverted = quoted != null && Pointer.nativeValue(quoted.getPointer()) != commodity;
+        return inverted ? 1 / value : value;
+      } finally {
+        gnc_price_unref(price);
+      }
+    }, via);
+  }
+
+  /**
+   * @return units of currency per unit of commodity at the given time, NaN when no rate could be found
+   */
+  public double rate(@NonNull final gnc_commodity commodity, @NonNull final gnc_commodity currency, final long time) {
+    return rate(Pointer.nativeValue(commodity.getPointer()), Pointer.nativeValue(currency.getPointer()), time);
+  }
+
+  /**
+   * Same as {@link #rate(gnc_commodity, gnc_commodity, long)} with the commodities as native addresses.
+   */
+  public double rate(final long commodity, final long currency, final long time) {
+    if (commodity == currency) {
+      return 1;
+    }
+    final Key key = new Key(commodity, currency, time);
+    final Double memo = rates.get(key);
+    if (memo != null) {
+      hits++;
+      return memo;
+    }
+    misses++;
+    double rate = direct(commodity, currency, time);
+    if (Double.isNaN(rate)) {
+      for (final long via : intermediates) {
+        if (via == commodity || via == currency) {
+          continue;
+        }
+        final double first = direct(commodity, via, time);
+        if (!Double.isNaN(first)) {
+          final double second = direct(via, currency, time);
+          if (!Double.isNaN(second)) {
+            rate = first * second;
+            indirect++;
+            break;
+          }
+        }
+      }
+    }
+    rates.put(key, rate);
+    return rate;
+  }
+
+  /**
+   * Forget every rate.
+   */
+  public void clear() {
+    direct.clear();
+    rates.clear();
+  }
+
+  public Stats getStats() {
+    return new Stats(hits, misses, priceLookups, indirect, rates.size());
+  }
+
+  private double direct(final long commodity, final long currency, final long time) {
+    final Key key = new Key(commodity, currency, time);
+    final Double memo = direct.get(key);
+    if (memo != null) {
+      return memo;
+    }
+    priceLookups++;
+    final double rate = prices.nearest(commodity, currency, time);
+    direct.put(key, rate);
+    // the price nearest in time is the same in both directions
+    direct.put(new Key(currency, commodity, time), Double.isNaN(rate) || rate == 0 ? Double.NaN : 1 / rate);
+    return rate;
+  }
+}
@@ -0,0 +1,279 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.jfr.EngineRecording;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Groups edits of accounts and transactions into a single edit cycle per entity.
+ * <p>
+ * {@link #edit(Account)} and {@link #edit(Transaction)} begin the edit of an entity the first time it is touched in
+ * the scope and do nothing after that, so the engine commits, and raises events for, each entity once however many
+ * setters run. All edits are committed together by {@link #commit()}, transactions first so that the accounts they
+ * touch only recompute once their own edits are committed.
+ * <pre>
+ * try (EditScope scope = EditScope.open()) {
+ *   xaccTransSetDescription(scope.edit(trans), "Groceries");
+ *   xaccAccountSetName(scope.edit(account), "Food");
+ *   scope.commit();
+ * }
+ * </pre>
+ * Closing a scope that was not committed, for example because an exception was thrown, rolls it back: transactions
+ * are rolled back with xaccTransRollbackEdit(). The engine has no rollback for accounts, their edits are committed.
+ * <p>
+ * Scopes opened while another scope is open on the same thread join the outermost scope, their edits are committed
+ * or rolled back with it. No scope can be opened between the commit or rollback of the outermost scope and its
+ * close. Rolling back a nested scope rolls back the outermost scope. Scopes must be closed on the
+ * thread that opened them, innermost first.
+ */
+public class EditScope implements AutoCloseable {
+  /**
+   * The begin, commit and rollback calls a scope makes, at most one begin and one end per entity.
+   */
+  interface Editor {
+    void accountBeginEdit(final Account account);
+
+    void accountCommitEdit(final Account account);
+
+    void transBeginEdit(final Transaction trans);
+
+    void transCommitEdit(final Transaction trans);
+
+    void transRollbackEdit(final Transaction trans);
+  }
+
+  private static final Editor ENGINE = new Editor() {
+    @Override
+    public void accountBeginEdit(final Account account) {
+      EngineRecording.accountBeginEdit(account);
+    }
+
+    @Override
+    public void accountCommitEdit(final Account account) {
+      EngineRecording.accountCommitEdit(account);
+    }
+
+    @Override
+    public void transBeginEdit(final Transaction trans) {
+      EngineRecording.transBeginEdit(trans);
+    }
+
+    @Override
+    public void transCommitEdit(final Transaction trans) {
+      EngineRecording.transCommitEdit(trans);
+    }
+
+    @Override
+    public void transRollbackEdit(final Transaction trans) {
+      EngineRecording.transRollbackEdit(trans);
+    }
+  };
+
+  private static final ThreadLocal<EditScope> CURRENT = new ThreadLocal<>();
+
+  private final Editor editor;
+  private final EditScope parent;
+  private final Map<Long, Account> accounts = new LinkedHashMap<>();
+  private final Map<Long, Transaction> transactions = new LinkedHashMap<>();
+  private boolean rollbackOnly;
+  private boolean done;
+  private boolean closed;
+
+  private EditScope(final Editor editor, final EditScope parent) {
+    this.editor = editor;
+    this.parent = parent;
+  }
+
+  /**
+   * Open a scope on the current thread, joining the scope already open on it if any.
+   *
+   * @throws IllegalStateException when the outermost scope open on the thread has already been committed or rolled
+   *                               back but not yet closed, edits begun now would never end
+   */
+  public static EditScope open() {
+    return open(ENGINE);
+  }
+
+  static EditScope open(final Editor editor) {
+    final EditScope parent = CURRENT.get();
+    if (parent != null && parent.root().done) {
+      throw new IllegalStateException("The outermost edit scope has already ended, close it before opening another");
+    }
+    final EditScope scope = new EditScope(editor, parent);
+    CURRENT.set(scope);
+    return scope;
+  }
+
+  /**
+   * Run body in a scope, committing it when body returns and rolling it back when body throws.
+   */
+  public static void run(@NonNull final Consumer<EditScope> body) {
+    try (EditScope scope = open()) {
+      body.accept(scope);
+      scope.commit();
+    }
+  }
+
+  /**
+   * Run body in a scope, committing it when body returns and rolling it back when body throws.
+   *
+   * @return the result of body
+   */
+  public static <T> T call(@NonNull final Function<EditScope, T> body) {
+    try (EditScope scope = open()) {
+      final T result = body.apply(scope);
+      scope.commit();
+      return result;
+    }
+  }
+
+  /**
+   * Make sure the account is being edited in this scope.
+   *
+   * @return account, for chaining into a setter
+   */
+  public Account edit(@NonNull final Account account) {
+    checkOpen();
+    final EditScope root = root();
+    final long key = Pointer.nativeValue(account.getPointer());
+    if (!root.accounts.containsKey(key)) {
+      root.editor.accountBeginEdit(account);
+      root.accounts.put(key, account);
+    }
+    return account;
+  }
+
+  /**
+   * Make sure the transaction is being edited in this scope.
+   *
+   * @return trans, for chaining into a setter
+   */
+  public Transaction edit(@NonNull final Transaction trans) {
+    checkOpen();
+    final EditScope root = root();
+    final long key = Pointer.nativeValue(trans.getPointer());
+    if (!root.transactions.containsKey(key)) {
+      root.editor.transBeginEdit(trans);
+      root.transactions.put(key, trans);
+    }
+    return trans;
+  }
+
+  /**
+   * @return the number of distinct entities being edited in the outermost scope
+   */
+  public int size() {
+    final EditScope root = root();
+    return root.accounts.size() + root.transactions.size();
+  }
+
+  /**
+   * Commit every edit. In a nested scope this only marks the scope as done, the edits are committed with the
+   * outermost scope.
+   *
+   * @throws IllegalStateException when a nested scope was rolled back, the edits are rolled back instead
+   */
+  public void commit() {
+    checkOpen();
+    done = true;
+    if (parent != null) {
+      return;
+    }
+    if (rollbackOnly) {
+      endEdits(false);
+      throw new IllegalStateException("A nested edit scope was rolled back, all edits have been rolled back");
+    }
+    endEdits(true);
+  }
+
+  /**
+   * Roll back every transaction and commit every account, see the class documentation. In a nested scope the
+   * outermost scope is rolled back when it ends.
+   */
+  public void rollback() {
+    checkOpen();
+    done = true;
+    if (parent != null) {
+      root().rollbackOnly = true;
+      return;
+    }
+    endEdits(false);
+  }
+
+  /**
+   * Roll back unless committed, see {@link #rollback()}.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    if (CURRENT.get() != this) {
+      throw new IllegalStateException("Edit scopes must be closed on the thread that opened them, innermost first");
+    }
+    try {
+      if (!done) {
+        rollback();
+      }
+    } finally {
+      closed = true;
+      if (parent == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(parent);
+      }
+    }
+  }
+
+  private void endEdits(final boolean commit) {
+    final List<RuntimeException> failures = new ArrayList<>();
+    for (final Transaction trans : transactions.values()) {
+      try {
+        if (commit) {
+          editor.transCommitEdit(trans);
+        } else {
+          editor.transRollbackEdit(trans);
+        }
+      } catch (final RuntimeException ex) {
+        failures.add(ex);
+      }
+    }
+    for (final Account account : accounts.values()) {
+      try {
+        editor.accountCommitEdit(account);
+      } catch (final RuntimeException ex) {
+        failures.add(ex);
+      }
+    }
+    transactions.clear();
+    accounts.clear();
+    if (!failures.isEmpty()) {
+      final RuntimeException ex = failures.get(0);
+      failures.subList(1, failures.size()).forEach(ex::addSuppressed);
+      throw ex;
+    }
+  }
+
+  private EditScope root() {
+    EditScope scope = this;
+    while (scope.parent != null) {
+      scope = scope.parent;
+    }
+    return scope;
+  }
+
+  private void checkOpen() {
+    if (closed || done) {
+      throw new IllegalStateException("Edit scope has already been " + (closed ? "closed" : "ended"));
+    }
+  }
+}
@@ -5,8 +5,11 @@ import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
 import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.sun.jna.Callback;
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.UtilityClass;
 
@@ -18,8 +21,11 @@ public class EngineGncPriceDb {
     nativeRegister(EngineGncPriceDb.class, "gnc-engine");
   }
 
+  @NoArgsConstructor
   public static class GNCPrice extends PointerType {
-
+    public GNCPrice(final Pointer p) {
+      super(p);
+    }
   }
 
   /**
@@ -108,6 +114,38 @@ public class EngineGncPriceDb {
 
   public static native void gnc_price_set_value(final GNCPrice p, final gnc_numeric.ByValue value);
 
+  /**
+   * gnc_price_unref - indicate you're finished with a price
+   * (i.e. decrement its reference count).
+   */
+  public static native void gnc_price_unref(final GNCPrice p);
+
+  public static native gnc_commodity gnc_price_get_commodity(final GNCPrice p);
+
+  public static native gnc_commodity gnc_price_get_currency(final GNCPrice p);
+
+  public static native gnc_numeric.ByValue gnc_price_get_value(final GNCPrice p);
+
+  /**
+   * gnc_price_ref - indicate your need for a given price to stick
+   * around (i.e. increase its reference count by 1).
+   */
+  public static native void gnc_price_ref(final GNCPrice p);
+
+  public static native time64 gnc_price_get_time64(final GNCPrice p);
+
+  public static native PriceSource gnc_price_get_source(final GNCPrice p);
+
+  public static native String gnc_price_get_source_string(final GNCPrice p);
+
+  public static native String gnc_price_get_typestr(final GNCPrice p);
+
+  /**
+   * gnc_price_list_destroy - destroy the given price list, calling
+   * gnc_price_unref on all the prices included in the list.
+   */
+  public static native void gnc_price_list_destroy(final PriceList prices);
+
   /**
    * Return the pricedb associated with the book
    *
@@ -137,4 +175,113 @@ public class EngineGncPriceDb {
    * @return TRUE if the price was added, FALSE otherwise.
    */
   public static native boolean gnc_pricedb_add_price(final GNCPriceDB db, final GNCPrice p);
+
+  /**
+   * Return the price between the two commodities nearest to the given time.
+   * <p>
+   * Prices quoted in either direction are considered, compare the commodity of the result with c to tell whether
+   * it must be inverted.
+   *
+   * @param db       The pricedb
+   * @param c        The commodity
+   * @param currency The currency
+   * @param t        The time nearest to which the returned price should be.
+   * @return A GNCPrice or NULL if no prices are found, unref it when done.
+   */
+  public static native GNCPrice gnc_pricedb_lookup_nearest_in_time64(
+      final GNCPriceDB db,
+      final gnc_commodity c,
+      final gnc_commodity currency,
+      final time64 t
+  );
+
+  /**
+   * Find the most recent price between the two commodities.
+   * <p>
+   * The returned GNCPrice may be in either direction so check to ensure
+   * that its values are correctly applied.
+   *
+   * @param db        The pricedb
+   * @param commodity The commodity for which to obtain a price
+   * @param currency  The currency in which the price is to be expressed
+   * @return A GNCPrice or NULL if no price exists, unref it when done.
+   */
+  public static native GNCPrice gnc_pricedb_lookup_latest(
+      final GNCPriceDB db,
+      final gnc_commodity commodity,
+      final gnc_commodity currency
+  );
+
+  /**
+   * Return the price between the two commodities on the indicated
+   * day. Note that the notion of day might be distorted by changes in
+   * timezone.
+   * <p>
+   * The returned GNCPrice may be in either direction so check to ensure
+   * that its values are correctly applied.
+   *
+   * @param db        The pricedb
+   * @param commodity The commodity
+   * @param currency  The currency
+   * @param t         A time. The price returned will be in the same day as this time
+   *                  according to the local timezone.
+   * @return A GNCPrice or NULL on failure, unref it when done.
+   */
+  public static native GNCPrice gnc_pricedb_lookup_day_t64(
+      final GNCPriceDB db,
+      final gnc_commodity commodity,
+      final gnc_commodity currency,
+      final time64 t
+  );
+
+  /**
+   * Return all the prices for a given commodity in another.
+   * <p>
+   * Does not retrieve reverse prices, i.e. prices of the currency in the commodity.
+   *
+   * @param db        The pricedb from which to retrieve prices.
+   * @param commodity The commodity for which prices should be retrieved.
+   * @param currency  The commodity in which prices should be quoted. If NULL,
+   *                  all prices in any commodity are included.
+   * @return A PriceList of prices found, newest first, free it with
+   * gnc_price_list_destroy() when done.
+   */
+  public static native PriceList gnc_pricedb_get_prices(
+      final GNCPriceDB db,
+      final gnc_commodity commodity,
+      final gnc_commodity currency
+  );
+
+  public interface GncPriceForeachFunc extends Callback {
+    boolean invoke(final GNCPrice p, final Pointer user_data);
+  }
+
+  /**
+   * Call a GncPriceForeachFunction once for each price in db, until the
+   * function returns FALSE. If stable_order is not FALSE, make sure the
+   * ordering of the traversal is stable (i.e. the same order every time
+   * given the same db contents -- stable traversals may be less
+   * efficient).
+   *
+   * @param db           The pricedb
+   * @param f            The function to call
+   * @param user_data    A data to pass to each invocation of f
+   * @param stable_order Ensure that the traversal is performed in the same order each time.
+   * @return TRUE if all calls to f returned TRUE.
+   */
+  public static native boolean gnc_pricedb_foreach_price(
+      final GNCPriceDB db,
+      final GncPriceForeachFunc f,
+      final Pointer user_data,
+      final boolean stable_order
+  );
+
+  /**
+   * Get the number of prices, in any currency, for a given commodity.
+   *
+   * @param db        The pricedb
+   * @param commodity The commodity
+   * @return The number of prices in the database for this commodity, zero if none
+   */
+  public static native int gnc_pricedb_num_prices(final GNCPriceDB db, final gnc_commodity commodity);
 }
@@ -0,0 +1,30 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.jna_core.SizeT;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GncGUID;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Globally Unique IDs provide a way to uniquely identify
+ * something. A GncGUID is a unique, cryptographically
+ * random 128-bit value.
+ */
+@UtilityClass
+public class EngineGuid {
+  static {
+    nativeRegister(EngineGuid.class, "gnc-engine");
+  }
+
+  /**
+   * Returns the GType of a GncGUID, GNC_TYPE_GUID, for reading boxed GncGUID properties.
+   */
+  public static native SizeT gnc_guid_get_type();
+
+  /**
+   * Given two GUIDs, return TRUE if they are non-NULL and equal.  Return
+   * FALSE, otherwise.
+   */
+  public static native boolean guid_equal(final GncGUID guid_1, final GncGUID guid_2);
+}
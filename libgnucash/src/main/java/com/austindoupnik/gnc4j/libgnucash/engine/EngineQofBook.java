@@ -1,9 +1,17 @@
 package com.austindoupnik.gnc4j.libgnucash.engine;
 
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.QofCollection;
+import com.sun.jna.Callback;
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
 import lombok.experimental.UtilityClass;
 
+import java.util.Map;
+import java.util.TreeMap;
+
 import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_count;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_get_type;
 
 @UtilityClass
 public class EngineQofBook {
@@ -14,4 +22,63 @@ public class EngineQofBook {
   public static class QofBook extends PointerType {
 
   }
+
+  /**
+   * qof_book_not_saved() returns the value of the session_dirty flag,
+   * set when changes to any object in the book are committed
+   * (qof_backend-&gt;commit_edit has been called) and the backend hasn't
+   * yet written out the changes. (Note that SQL backends write commits
+   * out immediately.)
+   */
+  public static native boolean qof_book_session_not_saved(final QofBook book);
+
+  /**
+   * The qof_book_mark_session_saved() routine marks the book as having been
+   * saved (to a file, to a database). Used by backends to mark the
+   * notsaved flag as FALSE just after loading.  Can also be used
+   * by the frontend when the used has said to abandon any changes.
+   */
+  public static native void qof_book_mark_session_saved(final QofBook book);
+
+  /**
+   * Is the book shutting down?
+   */
+  public static native boolean qof_book_shutting_down(final QofBook book);
+
+  /**
+   * Return The table of entities of the given type.
+   * <p>
+   * When an object's constructor calls qof_instance_init(), a
+   * reference to the object is stored in the book.  The book stores
+   * all the references to initialized instances, sorted by type.  This
+   * function returns a collection of the references for the specified
+   * type.
+   * <p>
+   * If the collection doesn't yet exist for the indicated type,
+   * it is created.  Thus, this routine is guaranteed to return
+   * a non-NULL value.  (Unless the system malloc failed (out of
+   * memory) in which case what happens??).
+   */
+  public static native QofCollection qof_book_get_collection(final QofBook book, final String entity_type);
+
+  /**
+   * Callback type for qof_book_foreach_collection
+   */
+  public interface QofCollectionForeachCB extends Callback {
+    void invoke(final QofCollection col, final Pointer user_data);
+  }
+
+  /**
+   * Invoke the indicated callback on each collection in the book.
+   */
+  public static native void qof_book_foreach_collection(final QofBook book, final QofCollectionForeachCB cb, final Pointer user_data);
+
+  /**
+   * @return the number of entities of each type the book has a collection for, by type
+   */
+  public static Map<String, Integer> qof_book_get_collection_counts(final QofBook book) {
+    final Map<String, Integer> counts = new TreeMap<>();
+    qof_book_foreach_collection(book, (col, data) -> counts.put(qof_collection_get_type(col), qof_collection_count(col).intValue()), null);
+    return counts;
+  }
 }
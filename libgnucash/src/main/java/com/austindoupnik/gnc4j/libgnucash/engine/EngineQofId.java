@@ -0,0 +1,69 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.glib.GUInt;
+import com.sun.jna.Callback;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * QOF entity type identification system
+ * <p>
+ * This file defines an API that adds types to the GncGUID's.
+ * GncGUID's with types can be used to identify and reference
+ * typed entities.
+ */
+@UtilityClass
+public class EngineQofId {
+  static {
+    nativeRegister(EngineQofId.class, "gnc-engine");
+  }
+
+  public static final String QOF_ID_NONE = null;
+  public static final String QOF_ID_NULL = "null";
+  public static final String QOF_ID_BOOK = "Book";
+  public static final String QOF_ID_SESSION = "Session";
+
+  /**
+   * A QofCollection is a set of entities of the same type.
+   */
+  @NoArgsConstructor
+  public static class QofCollection extends PointerType {
+    public QofCollection(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /**
+   * return the type that the collection stores
+   */
+  public static native String qof_collection_get_type(final QofCollection col);
+
+  /**
+   * return the number of entities in the collection.
+   */
+  public static native GUInt qof_collection_count(final QofCollection col);
+
+  /**
+   * Callback type for qof_collection_foreach
+   */
+  public interface QofInstanceForeachCB extends Callback {
+    void invoke(final Pointer instance, final Pointer user_data);
+  }
+
+  /**
+   * Call the callback for each entity in the collection.
+   */
+  public static native void qof_collection_foreach(final QofCollection col, final QofInstanceForeachCB cb_func, final Pointer user_data);
+
+  /**
+   * @return the entities of the collection as instance pointers, in no particular order, copied in one pass as
+   * {@link QofCollectionBatches} does
+   */
+  public static long[] qof_collection_get_pointers(final QofCollection col) {
+    return QofCollectionBatches.fill(col).toPointerArray();
+  }
+}
@@ -0,0 +1,53 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.QofCollection;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GncGUID;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Object instance holds common fields that most gnucash objects use.
+ */
+@UtilityClass
+public class EngineQofInstance {
+  static {
+    nativeRegister(EngineQofInstance.class, "gnc-engine");
+  }
+
+  @NoArgsConstructor
+  public static class QofInstance extends PointerType {
+    public QofInstance(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /**
+   * Return the book pointer
+   */
+  public static native QofBook qof_instance_get_book(final Pointer inst);
+
+  /**
+   * Return the GncGUID of this instance
+   */
+  public static native GncGUID qof_instance_get_guid(final Pointer inst);
+
+  /**
+   * Return the collection this instance belongs to
+   */
+  public static native QofCollection qof_instance_get_collection(final Pointer inst);
+
+  /**
+   * Return value of is_dirty flag
+   */
+  public static native boolean qof_instance_is_dirty(final Pointer inst);
+
+  /**
+   * Get the instance's edit level
+   */
+  public static native int qof_instance_get_editlevel(final Pointer inst);
+}
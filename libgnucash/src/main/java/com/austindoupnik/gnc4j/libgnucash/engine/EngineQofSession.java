@@ -141,4 +141,26 @@ public class EngineQofSession {
    * Returns the QofBook of this session.
    */
   public static native QofBook qof_session_get_book(final QofSession session);
+
+  /**
+   * The qof_session_get_url() routine returns the url that was opened.
+   * URL's for local files take the form of
+   * file:/some/where/some/file.gml
+   */
+  public static native String qof_session_get_url(final QofSession session);
+
+  /**
+   * The qof_session_get_error() routine can be used to obtain the reason
+   * for any failure.  Calling this routine returns the current error.
+   * A return value of zero (ERR_BACKEND_NO_ERR) indicates success.
+   */
+  public static native int qof_session_get_error(final QofSession session);
+
+  public static native String qof_session_get_error_message(final QofSession session);
+
+  /**
+   * The qof_session_pop_error() routine can be used to obtain the reason
+   * for any failure.  Calling this routine resets the error value.
+   */
+  public static native int qof_session_pop_error(final QofSession session);
 }
@@ -1,5 +1,7 @@
 package com.austindoupnik.gnc4j.libgnucash.engine;
 
+import com.austindoupnik.gnc4j.jna_core.NativeStringArena;
+import com.austindoupnik.gnc4j.jna_core.NativeUtf8;
 import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
 import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
@@ -11,6 +13,7 @@ import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
 import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
 
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.GNCLot;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
 
 @UtilityClass
@@ -19,6 +22,25 @@ public class EngineSplit {
     nativeRegister(EngineSplit.class, "gnc-engine");
   }
 
+  /* Split parameter names, used to build queries */
+  public static final String SPLIT_DATE_RECONCILED = "date-reconciled";
+  public static final String SPLIT_BALANCE = "balance";
+  public static final String SPLIT_CLEARED_BALANCE = "cleared-balance";
+  public static final String SPLIT_RECONCILED_BALANCE = "reconciled-balance";
+  public static final String SPLIT_MEMO = "memo";
+  public static final String SPLIT_ACTION = "action";
+  public static final String SPLIT_RECONCILE = "reconcile-flag";
+  public static final String SPLIT_AMOUNT = "amount";
+  public static final String SPLIT_SHARE_PRICE = "share-price";
+  public static final String SPLIT_VALUE = "value";
+  public static final String SPLIT_TYPE = "type";
+  public static final String SPLIT_VOIDED_AMOUNT = "voided-amount";
+  public static final String SPLIT_VOIDED_VALUE = "voided-value";
+  public static final String SPLIT_LOT = "lot";
+  public static final String SPLIT_TRANS = "trans";
+  public static final String SPLIT_ACCOUNT = "account";
+  public static final String SPLIT_ACCOUNT_GUID = "account-guid";
+
   @NoArgsConstructor
   public static class Split extends PointerType {
     public Split(final Pointer p) {
@@ -33,6 +55,40 @@ public class EngineSplit {
 
   public static native void xaccSplitSetAccount(final Split split, final Account account);
 
+  /**
+   * Returns the account of this split, which was set through
+   * xaccAccountInsertSplit().
+   */
+  public static native Account xaccSplitGetAccount(final Split split);
+
+  /**
+   * The memo is an arbitrary string associated with a split.  It is
+   * intended to hold a short (zero to forty character) string that is
+   * displayed by the GUI along with this split.  Users typically type
+   * in free form text from the GUI.
+   */
+  public static native void xaccSplitSetMemo(final Split split, final String memo);
+
+  /**
+   * Same as {@link #xaccSplitSetMemo(Split, String)}, with the memo already encoded as UTF-8, for example by a
+   * {@link NativeStringArena}.
+   */
+  public static native void xaccSplitSetMemo(final Split split, final Pointer memo);
+
+  /**
+   * Returns the memo string.
+   */
+  public static native String xaccSplitGetMemo(final Split split);
+
+  /**
+   * xaccSplitGetMemo() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccSplitGetMemo_utf8(final Split split, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccSplitGetMemo(split));
+  }
+
   /**
    * Returns the parent transaction of the split.
    */
@@ -40,6 +96,17 @@ public class EngineSplit {
 
   public static native void xaccSplitSetParent(final Split split, final Transaction trans);
 
+  /**
+   * Returns the pointer to the debited/credited Lot where this split
+   * belongs to, or NULL if it doesn't belong to any.
+   */
+  public static native GNCLot xaccSplitGetLot(final Split split);
+
+  /**
+   * Assigns the split to a specific Lot
+   */
+  public static native void xaccSplitSetLot(final Split split, final GNCLot lot);
+
   /**
    * The xaccSplitSetAmount() method sets the amount in the account's
    * commodity that the split should have.
@@ -96,4 +163,16 @@ public class EngineSplit {
       final gnc_numeric.ByValue price,
       final gnc_numeric.ByValue amount
   );
+
+  /**
+   * The string getters above, bound to return raw pointers to the strings owned by the engine.
+   */
+  @UtilityClass
+  private static class Borrowed {
+    static {
+      nativeRegister(Borrowed.class, "gnc-engine");
+    }
+
+    static native Pointer xaccSplitGetMemo(final Split split);
+  }
 }
@@ -0,0 +1,332 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.GNCPrice;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.GNCPriceDB;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_commodity;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_currency;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_time64;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_price_get_value;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_pricedb_foreach_price;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGncPriceDb.gnc_pricedb_get_db;
+
+/**
+ * In memory copy of the prices of a book, for looking up many prices by time without calling into the engine.
+ * <p>
+ * Prices are kept per (commodity, currency) pair as parallel arrays of times, numerators and denominators sorted by
+ * time, so a lookup is a binary search. {@link #load(EngineQofBook.QofBook)} reads every price in a single
+ * gnc_pricedb_foreach_price(), prices added to the book afterwards are added with
+ * {@link #add(EngineGncPriceDb.GNCPrice)}. At most one price is kept per pair and time, the last one added.
+ * <p>
+ * Lookups try the pair as asked first, then the reverse pair inverted, as the engine lookups do. Commodities are
+ * compared by address, which is stable for as long as the book is open.
+ * <p>
+ * A history is also a source of rates for {@link ConversionRates}: {@code new ConversionRates(history::nearest)}.
+ */
+public class PriceHistory {
+  /**
+   * Receives the latest price of a pair.
+   */
+  interface LatestConsumer {
+    void accept(final long commodity, final long currency, final long time, final double rate);
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Prices of one pair, sorted by time.
+   */
+  private static class Series {
+    private long[] times = new long[INITIAL_CAPACITY];
+    private long[] nums = new long[INITIAL_CAPACITY];
+    private long[] denoms = new long[INITIAL_CAPACITY];
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * Append without keeping the order, {@link #sort()} must be called before the next lookup.
+     */
+    private void append(final long time, final long num, final long denom) {
+      ensureCapacity(size + 1);
+      if (size > 0 && time <= times[size - 1]) {
+        sorted = false;
+      }
+      times[size] = time;
+      nums[size] = num;
+      denoms[size] = denom;
+      size++;
+    }
+
+    private void insert(final long time, final long num, final long denom) {
+      final int i = Arrays.binarySearch(times, 0, size, time);
+      if (i >= 0) {
+        nums[i] = num;
+        denoms[i] = denom;
+        return;
+      }
+      final int at = -i - 1;
+      ensureCapacity(size + 1);
+      System.arraycopy(times, at, times, at + 1, size - at);
+      System.arraycopy(nums, at, nums, at + 1, size - at);
+      System.arraycopy(denoms, at, denoms, at + 1, size - at);
+      times[at] = time;
+      nums[at] = num;
+      denoms[at] = denom;
+      size++;
+    }
+
+    /**
+     * Sort by time, keeping the last of the prices appended with the same time.
+     */
+    private void sort() {
+      if (sorted) {
+        return;
+      }
+      final Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      // stable, so that equal times stay in the order they were appended
+      Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+      final long[] t = new long[times.length];
+      final long[] n = new long[times.length];
+      final long[] d = new long[times.length];
+      int out = 0;
+      for (int k = 0; k < size; k++) {
+        final int i = order[k];
+        if (out > 0 && t[out - 1] == times[i]) {
+          out--;
+        }
+        t[out] = times[i];
+        n[out] = nums[i];
+        d[out] = denoms[i];
+        out++;
+      }
+      times = t;
+      nums = n;
+      denoms = d;
+      size = out;
+      sorted = true;
+    }
+
+    /**
+     * @return index of the price nearest to time, the earlier one on a tie
+     */
+    private int nearest(final long time) {
+      final int i = Arrays.binarySearch(times, 0, size, time);
+      if (i >= 0) {
+        return i;
+      }
+      final int after = -i - 1;
+      if (after == 0) {
+        return 0;
+      }
+      if (after == size) {
+        return size - 1;
+      }
+      return time - times[after - 1] <= times[after] - time ? after - 1 : after;
+    }
+
+    /**
+     * @return index of the latest price at or before time, -1 when there is none
+     */
+    private int atOrBefore(final long time) {
+      final int i = Arrays.binarySearch(times, 0, size, time);
+      return i >= 0 ? i : -i - 2;
+    }
+
+    private double rate(final int i) {
+      final long d = denoms[i];
+      if (d < 0) {
+        return (double) nums[i] * -d;
+      }
+      return d == 0 ? Double.NaN : (double) nums[i] / d;
+    }
+
+    private void ensureCapacity(final int capacity) {
+      if (capacity > times.length) {
+        final int grown = Math.max(capacity, 2 * times.length);
+        times = Arrays.copyOf(times, grown);
+        nums = Arrays.copyOf(nums, grown);
+        denoms = Arrays.copyOf(denoms, grown);
+      }
+    }
+  }
+
+  private final Map<Long, Map<Long, Series>> series = new HashMap<>();
+  private int prices;
+
+  /**
+   * Copy every price of a book.
+   */
+  public static PriceHistory load(@NonNull final QofBook book) {
+    final long start = System.nanoTime();
+    final GNCPriceDB db = gnc_pricedb_get_db(book);
+    final PriceHistory history = new PriceHistory();
+    gnc_pricedb_foreach_price(db, (p, data) -> {
+      final gnc_numeric value = gnc_price_get_value(p);
+      history.append(
+          address(gnc_price_get_commodity(p)),
+          address(gnc_price_get_currency(p)),
+          gnc_price_get_time64(p).longValue(),
+          value.num.longValue(),
+          value.denom.longValue()
+      );
+      return true;
+    }, null, false);
+    history.sortAll();
+    if (NativeMetrics.isEnabled()) {
+      NativeMetrics.global().record("price_history:load", System.nanoTime() - start);
+    }
+    return history;
+  }
+
+  /**
+   * Add a price, replacing the one of the same pair and time if any.
+   */
+  public void add(@NonNull final GNCPrice p) {
+    final gnc_numeric value = gnc_price_get_value(p);
+    add(
+        address(gnc_price_get_commodity(p)),
+        address(gnc_price_get_currency(p)),
+        gnc_price_get_time64(p).longValue(),
+        value.num.longValue(),
+        value.denom.longValue()
+    );
+  }
+
+  /**
+   * Add a price of commodity in currency, replacing the one of the same pair and time if any.
+   */
+  public void add(final long commodity, final long currency, final long time, final long num, final long denom) {
+    final Series s = series.computeIfAbsent(commodity, c -> new HashMap<>()).computeIfAbsent(currency, c -> new Series());
+    final int before = s.size;
+    s.insert(time, num, denom);
+    prices += s.size - before;
+  }
+
+  /**
+   * @return units of currency per unit of commodity from the price nearest to time, NaN when there is none
+   */
+  public double nearest(final long commodity, final long currency, final long time) {
+    Series s = get(commodity, currency);
+    if (s != null) {
+      return s.rate(s.nearest(time));
+    }
+    s = get(currency, commodity);
+    return s == null ? Double.NaN : invert(s.rate(s.nearest(time)));
+  }
+
+  public double nearest(@NonNull final gnc_commodity commodity, @NonNull final gnc_commodity currency, final long time) {
+    return nearest(address(commodity), address(currency), time);
+  }
+
+  /**
+   * @return units of currency per unit of commodity from the latest price at or before time, NaN when there is none
+   */
+  public double atOrBefore(final long commodity, final long currency, final long time) {
+    Series s = get(commodity, currency);
+    if (s != null) {
+      final int i = s.atOrBefore(time);
+      return i < 0 ? Double.NaN : s.rate(i);
+    }
+    s = get(currency, commodity);
+    if (s == null) {
+      return Double.NaN;
+    }
+    final int i = s.atOrBefore(time);
+    return i < 0 ? Double.NaN : invert(s.rate(i));
+  }
+
+  public double atOrBefore(@NonNull final gnc_commodity commodity, @NonNull final gnc_commodity currency, final long time) {
+    return atOrBefore(address(commodity), address(currency), time);
+  }
+
+  /**
+   * @return the price of commodity in currency nearest to time, as recorded, null when there is none in that direction
+   */
+  public gnc_numeric nearestValue(@NonNull final gnc_commodity commodity, @NonNull final gnc_commodity currency, final long time) {
+    final Series s = get(address(commodity), address(currency));
+    if (s == null) {
+      return null;
+    }
+    final int i = s.nearest(time);
+    return new gnc_numeric(s.nums[i], s.denoms[i]);
+  }
+
+  /**
+   * @return number of prices held
+   */
+  public int size() {
+    return prices;
+  }
+
+  /**
+   * @return number of pairs with at least one price
+   */
+  public int pairs() {
+    int n = 0;
+    for (final Map<Long, Series> byCurrency : series.values()) {
+      n += byCurrency.size();
+    }
+    return n;
+  }
+
+  /**
+   * Pass the latest price of every pair to consumer.
+   */
+  void forEachLatest(final LatestConsumer consumer) {
+    series.forEach((commodity, byCurrency) -> byCurrency.forEach((currency, s) -> {
+      if (s.size > 0) {
+        consumer.accept(commodity, currency, s.times[s.size - 1], s.rate(s.size - 1));
+      }
+    }));
+  }
+
+  /**
+   * Pass the latest price of the pair to consumer, if it has any.
+   */
+  void latest(final long commodity, final long currency, final LatestConsumer consumer) {
+    final Series s = get(commodity, currency);
+    if (s != null && s.size > 0) {
+      consumer.accept(commodity, currency, s.times[s.size - 1], s.rate(s.size - 1));
+    }
+  }
+
+  void append(final long commodity, final long currency, final long time, final long num, final long denom) {
+    series.computeIfAbsent(commodity, c -> new HashMap<>()).computeIfAbsent(currency, c -> new Series()).append(time, num, denom);
+  }
+
+  void sortAll() {
+    prices = 0;
+    for (final Map<Long, Series> byCurrency : series.values()) {
+      for (final Series s : byCurrency.values()) {
+        s.sort();
+        prices += s.size;
+      }
+    }
+  }
+
+  private Series get(final long commodity, final long currency) {
+    final Map<Long, Series> byCurrency = series.get(commodity);
+    return byCurrency == null ? null : byCurrency.get(currency);
+  }
+
+  private static double invert(final double rate) {
+    return rate == 0 ? Double.NaN : 1 / rate;
+  }
+
+  private static long address(final gnc_commodity commodity) {
+    return commodity == null ? 0 : Pointer.nativeValue(commodity.getPointer());
+  }
+}
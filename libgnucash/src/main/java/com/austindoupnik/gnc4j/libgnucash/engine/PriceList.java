@@ -0,0 +1,7 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.glib.GLibGList;
+
+public class PriceList extends GLibGList.GList {
+
+}
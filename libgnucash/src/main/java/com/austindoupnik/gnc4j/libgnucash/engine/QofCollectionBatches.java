@@ -0,0 +1,168 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.QofCollection;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.QofInstanceForeachCB;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_count;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_foreach;
+
+/**
+ * The entities of a collection, in batches.
+ * <p>
+ * {@link #of(EngineQofId.QofCollection, int, Function)} sizes a native array of instance pointers with
+ * qof_collection_count and fills it in one qof_collection_foreach pass, through a single callback that only stores
+ * the pointer. Iterating then reads {@code batchSize} pointers at a time out of the array and wraps them, without
+ * calling into the engine.
+ * <p>
+ * The entities are in no particular order. The batches hold the entities as they were when the array was filled,
+ * an entity destroyed since leaves a dangling pointer.
+ *
+ * @param <T> type the instance pointers are wrapped in
+ */
+public class QofCollectionBatches<T> implements Iterable<List<T>> {
+  private final Memory pointers;
+  private final int size;
+  private final int batchSize;
+  private final Function<Pointer, T> wrap;
+
+  QofCollectionBatches(final Memory pointers, final int size, final int batchSize, final Function<Pointer, T> wrap) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+    }
+    this.pointers = pointers;
+    this.size = size;
+    this.batchSize = batchSize;
+    this.wrap = wrap;
+  }
+
+  /**
+   * Copy the instance pointers of a collection.
+   *
+   * @param batchSize most entities in a batch
+   * @param wrap      wraps an instance pointer, for example {@code Account::new}
+   */
+  public static <T> QofCollectionBatches<T> of(
+      @NonNull final QofCollection col,
+      final int batchSize,
+      @NonNull final Function<Pointer, T> wrap
+  ) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+    }
+    return NativeMetrics.timed("qof_collection_batches", () -> fill(col).batches(batchSize, wrap));
+  }
+
+  /**
+   * Copy the instance pointers of a collection in one qof_collection_foreach pass.
+   */
+  static Filler fill(final QofCollection col) {
+    final Filler filler = new Filler(count(col));
+    qof_collection_foreach(col, filler, null);
+    return filler;
+  }
+
+  /**
+   * @return number of entities in the collection, without walking it
+   */
+  public static int count(@NonNull final QofCollection col) {
+    return qof_collection_count(col).intValue();
+  }
+
+  /**
+   * @return number of entities copied
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return number of batches
+   */
+  public int getBatchCount() {
+    return (size + batchSize - 1) / batchSize;
+  }
+
+  /**
+   * @return the entities of batch b
+   */
+  public List<T> getBatch(final int b) {
+    if (b < 0 || b >= getBatchCount()) {
+      throw new IndexOutOfBoundsException("batch " + b + " of " + getBatchCount());
+    }
+    final int from = b * batchSize;
+    final Pointer[] batch = pointers.getPointerArray((long) from * Native.POINTER_SIZE, Math.min(batchSize, size - from));
+    final List<T> result = new ArrayList<>(batch.length);
+    for (final Pointer p : batch) {
+      result.add(wrap.apply(p));
+    }
+    return result;
+  }
+
+  @Override
+  public Iterator<List<T>> iterator() {
+    return new Iterator<List<T>>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < getBatchCount();
+      }
+
+      @Override
+      public List<T> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return getBatch(next++);
+      }
+    };
+  }
+
+  static class Filler implements QofInstanceForeachCB {
+    private Memory pointers;
+    private int size = 0;
+
+    Filler(final int capacity) {
+      this.pointers = capacity == 0 ? null : new Memory((long) capacity * Native.POINTER_SIZE);
+    }
+
+    @Override
+    public void invoke(final Pointer instance, final Pointer user_data) {
+      final long capacity = pointers == null ? 0 : pointers.size() / Native.POINTER_SIZE;
+      if (size == capacity) {
+        final Memory grown = new Memory(Math.max(16, 2 * capacity) * Native.POINTER_SIZE);
+        if (pointers != null) {
+          grown.write(0, pointers.getByteArray(0, (int) pointers.size()), 0, (int) pointers.size());
+        }
+        pointers = grown;
+      }
+      pointers.setPointer((long) size++ * Native.POINTER_SIZE, instance);
+    }
+
+    /**
+     * @return the pointers stored, as addresses
+     */
+    long[] toPointerArray() {
+      final long[] result = new long[size];
+      for (int i = 0; i < size; i++) {
+        result[i] = Pointer.nativeValue(pointers.getPointer((long) i * Native.POINTER_SIZE));
+      }
+      return result;
+    }
+
+    <T> QofCollectionBatches<T> batches(final int batchSize, final Function<Pointer, T> wrap) {
+      return new QofCollectionBatches<>(pointers, size, batchSize, wrap);
+    }
+  }
+}
@@ -0,0 +1,380 @@
+package com.austindoupnik.gnc4j.libgnucash.engine;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.QofPercentageFunc;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.QofSession;
+import com.austindoupnik.gnc4j.libgnucash.engine.jfr.EngineRecording;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.qof_book_session_not_saved;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.*;
+
+/**
+ * Coalesces requests to save a session.
+ * <p>
+ * Each call to {@link #requestSave()} restarts the configured window, the save runs once no request has been made
+ * for a whole window and every request since the last save is folded into that single qof_session_save(). Requests
+ * arriving closer together than the window postpone the save, but never past the maximum delay after the first of
+ * them, so a steady stream of edits still gets saved; call {@link #flush()} to save sooner. When the save runs and
+ * the book has no unsaved changes it is skipped entirely.
+ * <p>
+ * Saves run on the supplied executor, which must be the thread that owns the engine; use a single threaded executor
+ * so saves never overlap.
+ * <p>
+ * Progress of a running save is reported through a {@link QofPercentageFunc} and can be polled from any thread
+ * with {@link #getProgressMessage()} and {@link #getProgressPercent()}.
+ */
+public class QofSessionSaveScheduler implements AutoCloseable {
+  /**
+   * Saves the book once, forwarding progress to the given callback.
+   */
+  public interface SessionSaver {
+    void save(final QofPercentageFunc percentageFunc);
+  }
+
+  /**
+   * Outcome of a single scheduled save.
+   */
+  public enum SaveResult {
+    /**
+     * The book was written out.
+     */
+    SAVED,
+    /**
+     * The book had no unsaved changes, nothing was written.
+     */
+    SKIPPED
+  }
+
+  /**
+   * Save requests and the saves they were folded into, as of {@link #getStats()}; queueDepth is the number of requests
+   * waiting on the save not started yet.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Stats {
+    private final long requests;
+    private final long saves;
+    private final long skipped;
+    private final long failures;
+    private final int queueDepth;
+    private final long lastLatencyNanos;
+    private final long maxLatencyNanos;
+    private final long totalLatencyNanos;
+    /**
+     * Size of the book file after the last save, -1 when the book is not an XML file.
+     */
+    private final long lastFileSize;
+
+    public double getMeanLatencyNanos() {
+      return saves == 0 ? 0 : (double) totalLatencyNanos / saves;
+    }
+  }
+
+  private final ScheduledExecutorService executor;
+  private final long windowNanos;
+  private final long maxDelayNanos;
+  private final LongSupplier clock;
+  private final BooleanSupplier dirty;
+  private final SessionSaver saver;
+  private final LongSupplier fileSize;
+  private final QofPercentageFunc listener;
+
+  /**
+   * Strongly referenced for as long as the scheduler lives, native code holds on to it during a save.
+   */
+  private final QofPercentageFunc progress = this::onProgress;
+
+  private final Object lock = new Object();
+  private CompletableFuture<SaveResult> pending;
+  private ScheduledFuture<?> scheduled;
+  /**
+   * Time of the first request folded into the pending save.
+   */
+  private long firstRequestNanos;
+  private int queueDepth;
+  private boolean closed;
+
+  private long requests;
+  private long saves;
+  private long skipped;
+  private long failures;
+  private long lastLatencyNanos;
+  private long maxLatencyNanos;
+  private long totalLatencyNanos;
+  private long lastFileSize = -1;
+
+  @Getter
+  private volatile String progressMessage;
+  @Getter
+  private volatile double progressPercent = -1;
+
+  QofSessionSaveScheduler(
+      final ScheduledExecutorService executor,
+      final long window,
+      final long maxDelay,
+      final TimeUnit unit,
+      final BooleanSupplier dirty,
+      final SessionSaver saver,
+      final LongSupplier fileSize,
+      final QofPercentageFunc listener
+  ) {
+    this(executor, window, maxDelay, unit, dirty, saver, fileSize, listener, System::nanoTime);
+  }
+
+  QofSessionSaveScheduler(
+      @NonNull final ScheduledExecutorService executor,
+      final long window,
+      final long maxDelay,
+      @NonNull final TimeUnit unit,
+      @NonNull final BooleanSupplier dirty,
+      @NonNull final SessionSaver saver,
+      @NonNull final LongSupplier fileSize,
+      final QofPercentageFunc listener,
+      @NonNull final LongSupplier clock
+  ) {
+    if (window < 0) {
+      throw new IllegalArgumentException("window must not be negative: " + window);
+    }
+    if (maxDelay < window) {
+      throw new IllegalArgumentException("max delay must not be shorter than the window: " + maxDelay);
+    }
+    this.executor = executor;
+    this.windowNanos = unit.toNanos(window);
+    this.maxDelayNanos = unit.toNanos(maxDelay);
+    this.clock = clock;
+    this.dirty = dirty;
+    this.saver = saver;
+    this.fileSize = fileSize;
+    this.listener = listener;
+  }
+
+  /**
+   * Create a scheduler saving the given session, waiting at most ten windows after the first unsaved request.
+   *
+   * @param session  the session to save
+   * @param executor the engine thread, saves are run here
+   * @param window   how long to wait after the last request before saving
+   * @param unit     unit of window
+   * @param listener notified of save progress, may be null
+   * @return a new scheduler
+   */
+  public static QofSessionSaveScheduler forSession(
+      @NonNull final QofSession session,
+      final ScheduledExecutorService executor,
+      final long window,
+      final TimeUnit unit,
+      final QofPercentageFunc listener
+  ) {
+    return forSession(session, executor, window, 10 * window, unit, listener);
+  }
+
+  /**
+   * Create a scheduler saving the given session.
+   *
+   * @param session  the session to save
+   * @param executor the engine thread, saves are run here
+   * @param window   how long to wait after the last request before saving
+   * @param maxDelay how long to wait at most after the first request not yet saved, at least window
+   * @param unit     unit of window and maxDelay
+   * @param listener notified of save progress, may be null
+   * @return a new scheduler
+   */
+  public static QofSessionSaveScheduler forSession(
+      @NonNull final QofSession session,
+      final ScheduledExecutorService executor,
+      final long window,
+      final long maxDelay,
+      final TimeUnit unit,
+      final QofPercentageFunc listener
+  ) {
+    final QofBook book = qof_session_get_book(session);
+    final Path file = localPath(qof_session_get_url(session));
+    return new QofSessionSaveScheduler(
+        executor,
+        window,
+        maxDelay,
+        unit,
+        () -> qof_book_session_not_saved(book),
+        f -> {
+          EngineRecording.sessionSave(session, f);
+          final int error = qof_session_pop_error(session);
+          if (error != 0) {
+            throw new IllegalStateException("Unable to save session, backend error: " + error);
+          }
+        },
+        () -> fileSize(file),
+        listener
+    );
+  }
+
+  /**
+   * Ask for the session to be saved.
+   * <p>
+   * All requests made before the pending save starts share the returned future, each of them restarts the window
+   * unless that would run the save later than the maximum delay after the first of them.
+   *
+   * @return completes once the save covering this request has finished
+   */
+  public CompletableFuture<SaveResult> requestSave() {
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("Scheduler is closed");
+      }
+      requests++;
+      queueDepth++;
+      final long now = clock.getAsLong();
+      if (pending == null) {
+        pending = new CompletableFuture<>();
+        firstRequestNanos = now;
+        scheduled = executor.schedule(this::runPending, windowNanos, TimeUnit.NANOSECONDS);
+      } else if (scheduled.cancel(false)) {
+        final long delay = Math.min(windowNanos, firstRequestNanos + maxDelayNanos - now);
+        scheduled = executor.schedule(this::runPending, Math.max(delay, 0), TimeUnit.NANOSECONDS);
+      }
+      return pending;
+    }
+  }
+
+  /**
+   * Run any pending save now rather than waiting for the window to elapse.
+   *
+   * @return completes once the pending save has finished, or immediately when nothing is pending
+   */
+  public CompletableFuture<SaveResult> flush() {
+    synchronized (lock) {
+      if (pending == null) {
+        return CompletableFuture.completedFuture(SaveResult.SKIPPED);
+      }
+      if (scheduled.cancel(false)) {
+        scheduled = executor.schedule(this::runPending, 0, TimeUnit.NANOSECONDS);
+      }
+      return pending;
+    }
+  }
+
+  public Stats getStats() {
+    synchronized (lock) {
+      return new Stats(
+          requests,
+          saves,
+          skipped,
+          failures,
+          queueDepth,
+          lastLatencyNanos,
+          maxLatencyNanos,
+          totalLatencyNanos,
+          lastFileSize
+      );
+    }
+  }
+
+  /**
+   * Save anything still pending and stop accepting requests.
+   * <p>
+   * Blocks until the final save has finished, so must not be called from the executor thread.
+   */
+  @Override
+  public void close() {
+    final CompletableFuture<SaveResult> last;
+    synchronized (lock) {
+      closed = true;
+      last = flush();
+    }
+    last.join();
+  }
+
+  private void runPending() {
+    final CompletableFuture<SaveResult> future;
+    synchronized (lock) {
+      future = pending;
+      pending = null;
+      scheduled = null;
+      queueDepth = 0;
+    }
+    if (future == null) {
+      return;
+    }
+
+    try {
+      if (!dirty.getAsBoolean()) {
+        synchronized (lock) {
+          skipped++;
+        }
+        future.complete(SaveResult.SKIPPED);
+        return;
+      }
+
+      final long start = System.nanoTime();
+      try {
+        saver.save(progress);
+      } finally {
+        progressPercent = -1;
+        progressMessage = null;
+      }
+      final long latency = System.nanoTime() - start;
+      final long size = fileSize.getAsLong();
+
+      synchronized (lock) {
+        saves++;
+        lastLatencyNanos = latency;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        totalLatencyNanos += latency;
+        lastFileSize = size;
+      }
+      future.complete(SaveResult.SAVED);
+    } catch (final RuntimeException ex) {
+      synchronized (lock) {
+        failures++;
+      }
+      future.completeExceptionally(ex);
+    }
+  }
+
+  private void onProgress(final String message, final double percent) {
+    progressMessage = message;
+    progressPercent = percent;
+    if (listener != null) {
+      listener.invoke(message, percent);
+    }
+  }
+
+  private static Path localPath(final String url) {
+    if (url == null) {
+      return null;
+    }
+    final int schemeEnd = url.indexOf("://");
+    if (schemeEnd < 0) {
+      return Paths.get(url);
+    }
+    final String scheme = url.substring(0, schemeEnd);
+    if (!scheme.equals("file") && !scheme.equals("xml")) {
+      return null;
+    }
+    return Paths.get(url.substring(schemeEnd + 3));
+  }
+
+  private static long fileSize(final Path file) {
+    if (file == null) {
+      return -1;
+    }
+    try {
+      return Files.size(file);
+    } catch (final IOException ex) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,352 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventBridge;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventListener;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.gnc_account_get_parent;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.gnc_get_account_separator_string;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetCode;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetCommodity;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetName;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetType;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_ACCOUNT;
+
+/**
+ * Caches the name, code, full name, type, commodity and parent of the accounts of a book.
+ * <p>
+ * The attributes of an account are read from the engine together the first time any of them is asked for. Names and
+ * codes are interned so that the accounts sharing one share the same String. Full names are built from the cached
+ * names of the ancestors rather than with gnc_account_get_full_name(), and kept until the account or one of its
+ * ancestors changes.
+ * <p>
+ * Accounts are invalidated through the account events of a {@link QofEventBridge}, each read delivers the events
+ * still buffered first so that it never sees an edit committed before it. Reads must therefore happen on the thread
+ * modifying the book. The events are delivered before the cache takes its own lock, the bridge delivers events
+ * while holding its lock, so taking the two in the other order could deadlock.
+ * <p>
+ * The account separator is read once, call {@link #invalidateAll()} after changing it.
+ */
+public class AccountMetadataCache implements QofEventListener, AutoCloseable {
+  /**
+   * Reads the attributes cached for an account, all of them on the first miss for it; accounts and commodities are
+   * native addresses.
+   */
+  interface Source {
+    String name(final long account);
+
+    String code(final long account);
+
+    int type(final long account);
+
+    /**
+     * @return the commodity, 0 when there is none
+     */
+    long commodity(final long account);
+
+    /**
+     * @return the parent, 0 for a root account
+     */
+    long parent(final long account);
+
+    String separator();
+  }
+
+  /**
+   * Reads answered from the cache and from the engine, accounts dropped by events and the size of the cache, as of
+   * {@link #getStats()}.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Stats {
+    private final long hits;
+    private final long misses;
+    private final long invalidations;
+    private final int accounts;
+    private final int internedStrings;
+
+    /**
+     * @return fraction of reads served from the cache, 0 before the first read
+     */
+    public double getHitRate() {
+      final long reads = hits + misses;
+      return reads == 0 ? 0 : (double) hits / reads;
+    }
+  }
+
+  private static final Set<QofEventType> EVENTS = EnumSet.allOf(QofEventType.class);
+
+  private static class Entry {
+    private final String name;
+    private final String code;
+    private final int type;
+    private final long commodity;
+    private final long parent;
+    private String fullName;
+
+    private Entry(final String name, final String code, final int type, final long commodity, final long parent) {
+      this.name = name;
+      this.code = code;
+      this.type = type;
+      this.commodity = commodity;
+      this.parent = parent;
+    }
+  }
+
+  private final Runnable flush;
+  private final Source source;
+  private final Map<Long, Entry> entries = new HashMap<>();
+  /**
+   * Cached children of each cached account, whose full names depend on it.
+   */
+  private final Map<Long, Set<Long>> children = new HashMap<>();
+  private final Map<String, String> interned = new HashMap<>();
+  private String separator;
+  private QofEventBridge.Subscription subscription;
+
+  private long hits;
+  private long misses;
+  private long invalidations;
+
+  AccountMetadataCache(final Runnable flush, final Source source) {
+    this.flush = flush;
+    this.source = source;
+  }
+
+  /**
+   * Start caching.
+   *
+   * @param bridge source of the account events
+   * @return the cache, close it to stop listening
+   */
+  public static AccountMetadataCache attach(@NonNull final QofEventBridge bridge) {
+    final AccountMetadataCache cache = new AccountMetadataCache(bridge::flush, new Source() {
+      @Override
+      public String name(final long account) {
+        return xaccAccountGetName(account(account));
+      }
+
+      @Override
+      public String code(final long account) {
+        return xaccAccountGetCode(account(account));
+      }
+
+      @Override
+      public int type(final long account) {
+        return xaccAccountGetType(account(account));
+      }
+
+      @Override
+      public long commodity(final long account) {
+        final gnc_commodity commodity = xaccAccountGetCommodity(account(account));
+        return commodity == null ? 0 : Pointer.nativeValue(commodity.getPointer());
+      }
+
+      @Override
+      public long parent(final long account) {
+        final Account parent = gnc_account_get_parent(account(account));
+        return parent == null ? 0 : Pointer.nativeValue(parent.getPointer());
+      }
+
+      @Override
+      public String separator() {
+        return gnc_get_account_separator_string();
+      }
+    });
+    cache.subscription = bridge.addListener(cache, EVENTS, GNC_ID_ACCOUNT);
+    return cache;
+  }
+
+  public String getName(@NonNull final Account account) {
+    return entry(account).name;
+  }
+
+  public String getCode(@NonNull final Account account) {
+    return entry(account).code;
+  }
+
+  public GNCAccountType getType(@NonNull final Account account) {
+    return GNCAccountType.findByValue(entry(account).type);
+  }
+
+  /**
+   * @return the commodity, null when there is none
+   */
+  public gnc_commodity getCommodity(@NonNull final Account account) {
+    final long commodity = entry(account).commodity;
+    return commodity == 0 ? null : new gnc_commodity(new Pointer(commodity));
+  }
+
+  /**
+   * @return the parent, null for a root account
+   */
+  public Account getParent(@NonNull final Account account) {
+    final long parent = entry(account).parent;
+    return parent == 0 ? null : new Account(new Pointer(parent));
+  }
+
+  /**
+   * @return the names of the ancestors below the root and of the account joined by the separator, as
+   * gnc_account_get_full_name() returns them
+   */
+  public String getFullName(@NonNull final Account account) {
+    flush.run();
+    synchronized (this) {
+      final long key = Pointer.nativeValue(account.getPointer());
+      final Entry entry = entries.get(key);
+      if (entry != null && entry.fullName != null) {
+        hits++;
+        return entry.fullName;
+      }
+      misses++;
+      return fullName(key);
+    }
+  }
+
+  /**
+   * Forget an account, and the full names of its descendants.
+   */
+  public synchronized void invalidate(@NonNull final Account account) {
+    invalidate(Pointer.nativeValue(account.getPointer()));
+  }
+
+  /**
+   * Forget every account and interned string, and read the separator again.
+   */
+  public synchronized void invalidateAll() {
+    invalidations += entries.size();
+    entries.clear();
+    children.clear();
+    interned.clear();
+    separator = null;
+  }
+
+  public synchronized Stats getStats() {
+    return new Stats(hits, misses, invalidations, entries.size(), interned.size());
+  }
+
+  @Override
+  public synchronized void onEvent(final Pointer entity, final String entityType, final int eventId) {
+    final long account = Pointer.nativeValue(entity);
+    invalidate(account);
+    if ((eventId & QofEventType.QOF_EVENT_DESTROY.getValue()) != 0) {
+      children.remove(account);
+    }
+  }
+
+  /**
+   * Stop listening, the cache is no longer kept up to date.
+   */
+  @Override
+  public void close() {
+    if (subscription != null) {
+      subscription.close();
+      subscription = null;
+    }
+  }
+
+  private Entry entry(final Account account) {
+    flush.run();
+    synchronized (this) {
+      final long key = Pointer.nativeValue(account.getPointer());
+      final Entry entry = entries.get(key);
+      if (entry != null) {
+        hits++;
+        return entry;
+      }
+      misses++;
+      return load(key);
+    }
+  }
+
+  private Entry load(final long account) {
+    final Entry entry = new Entry(
+        intern(source.name(account)),
+        intern(source.code(account)),
+        source.type(account),
+        source.commodity(account),
+        source.parent(account)
+    );
+    entries.put(account, entry);
+    if (entry.parent != 0) {
+      children.computeIfAbsent(entry.parent, p -> new HashSet<>()).add(account);
+    }
+    return entry;
+  }
+
+  private String fullName(final long account) {
+    Entry entry = entries.get(account);
+    if (entry == null) {
+      entry = load(account);
+    }
+    if (entry.fullName == null) {
+      if (entry.parent == 0) {
+        entry.fullName = "";
+      } else {
+        final String parent = fullName(entry.parent);
+        final String name = entry.name == null ? "" : entry.name;
+        if (entries.get(entry.parent).parent == 0) {
+          entry.fullName = name;
+        } else {
+          if (separator == null) {
+            separator = source.separator();
+          }
+          entry.fullName = parent + separator + name;
+        }
+      }
+    }
+    return entry.fullName;
+  }
+
+  private void invalidate(final long account) {
+    final Entry entry = entries.remove(account);
+    if (entry == null) {
+      return;
+    }
+    invalidations++;
+    if (entry.parent != 0) {
+      final Set<Long> siblings = children.get(entry.parent);
+      if (siblings != null) {
+        siblings.remove(account);
+      }
+    }
+    clearFullNames(account);
+  }
+
+  private void clearFullNames(final long account) {
+    final Set<Long> descendants = children.get(account);
+    if (descendants == null) {
+      return;
+    }
+    for (final long child : descendants) {
+      final Entry entry = entries.get(child);
+      if (entry != null && entry.fullName != null) {
+        entry.fullName = null;
+        clearFullNames(child);
+      }
+    }
+  }
+
+  private String intern(final String s) {
+    if (s == null) {
+      return null;
+    }
+    final String existing = interned.putIfAbsent(s, s);
+    return existing == null ? s : existing;
+  }
+
+  private static Account account(final long account) {
+    return new Account(new Pointer(account));
+  }
+}
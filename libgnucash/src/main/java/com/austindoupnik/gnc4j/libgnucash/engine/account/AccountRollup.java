@@ -0,0 +1,243 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account;
+
+import com.austindoupnik.gnc4j.glib.OwnedGList;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.ConversionRates;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.gnc_account_get_children_owned;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity.EngineGncCommodity.gnc_commodity_get_fraction;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetBalanceAsOfDate;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetCommodity;
+
+/**
+ * Balances of every account of a tree and the totals of their subtrees, converted to one currency in a single pass.
+ * <p>
+ * Each account's own balance is read once with xaccAccountGetBalanceAsOfDate() and converted with a
+ * {@link ConversionRates}, so that each (commodity, currency, date) rate is looked up once for the whole tree rather
+ * than once per account as xaccAccountGetBalanceAsOfDateInCurrency() does. Accounts whose commodity has no rate
+ * count as zero and are listed in {@link #getUnconverted()}.
+ * <p>
+ * Amounts are exact: balances are read as decimals, each converted balance is rounded half up to the smallest unit
+ * of the currency as the engine rounds it, and totals are sums of the rounded balances. Only rates are doubles.
+ */
+public class AccountRollup {
+  /**
+   * The account tree being rolled up, with accounts and commodities as native addresses; each account is visited
+   * once.
+   */
+  interface Tree {
+    long[] children(final long account);
+
+    long commodity(final long account);
+
+    /**
+     * @return balance of the account alone, in its commodity
+     */
+    BigDecimal balance(final long account, final long date);
+
+    /**
+     * @return number of smallest units of the commodity in one unit, 100 for a currency with cents
+     */
+    int fraction(final long commodity);
+  }
+
+  private static class Node {
+    private final BigDecimal balance;
+    private final BigDecimal converted;
+    private final BigDecimal total;
+
+    private Node(final BigDecimal balance, final BigDecimal converted, final BigDecimal total) {
+      this.balance = balance;
+      this.converted = converted;
+      this.total = total;
+    }
+  }
+
+  private final Map<Long, Node> nodes;
+  private final List<Account> unconverted;
+  @Getter
+  private final long nanos;
+
+  private AccountRollup(final Map<Long, Node> nodes, final List<Account> unconverted, final long nanos) {
+    this.nodes = nodes;
+    this.unconverted = Collections.unmodifiableList(unconverted);
+    this.nanos = nanos;
+  }
+
+  /**
+   * Roll up the tree under root.
+   *
+   * @param root     top of the tree, included in the rollup
+   * @param currency currency of the converted balances and totals
+   * @param date     balances at the end of the day before this time, and rates nearest to it
+   * @param rates    rates to use, shared between rollups to reuse the rates already found
+   */
+  public static AccountRollup compute(
+      @NonNull final Account root,
+      @NonNull final gnc_commodity currency,
+      final long date,
+      @NonNull final ConversionRates rates
+  ) {
+    return compute(engine(), Pointer.nativeValue(root.getPointer()), Pointer.nativeValue(currency.getPointer()), date, rates);
+  }
+
+  static AccountRollup compute(
+      final Tree tree,
+      final long root,
+      final long currency,
+      final long date,
+      final ConversionRates rates
+  ) {
+    final long start = System.nanoTime();
+    final Map<Long, Node> nodes = new HashMap<>();
+    final List<Account> unconverted = new ArrayList<>();
+    visit(tree, root, currency, tree.fraction(currency), date, rates, nodes, unconverted);
+    final long nanos = System.nanoTime() - start;
+    if (NativeMetrics.isEnabled()) {
+      NativeMetrics.global().record("account_rollup", nanos);
+    }
+    return new AccountRollup(nodes, unconverted, nanos);
+  }
+
+  /**
+   * @return the balance of the account alone in its own commodity, null when it is not part of the rollup
+   */
+  public BigDecimal getBalance(@NonNull final Account account) {
+    final Node node = node(account);
+    return node == null ? null : node.balance;
+  }
+
+  /**
+   * @return the balance of the account alone in the currency, null when it is not part of the rollup
+   */
+  public BigDecimal getConvertedBalance(@NonNull final Account account) {
+    final Node node = node(account);
+    return node == null ? null : node.converted;
+  }
+
+  /**
+   * @return the balance of the account and all its descendants in the currency, null when it is not part of the
+   * rollup
+   */
+  public BigDecimal getTotal(@NonNull final Account account) {
+    final Node node = node(account);
+    return node == null ? null : node.total;
+  }
+
+  /**
+   * @return accounts with a non zero balance counted as zero, because their commodity has no rate to the currency
+   */
+  public List<Account> getUnconverted() {
+    return unconverted;
+  }
+
+  /**
+   * @return number of accounts in the rollup
+   */
+  public int size() {
+    return nodes.size();
+  }
+
+  private Node node(final Account account) {
+    return nodes.get(Pointer.nativeValue(account.getPointer()));
+  }
+
+  private static BigDecimal visit(
+      final Tree tree,
+      final long account,
+      final long currency,
+      final int fraction,
+      final long date,
+      final ConversionRates rates,
+      final Map<Long, Node> nodes,
+      final List<Account> unconverted
+  ) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (final long child : tree.children(account)) {
+      total = total.add(visit(tree, child, currency, fraction, date, rates, nodes, unconverted));
+    }
+    final BigDecimal balance = tree.balance(account, date);
+    BigDecimal converted = BigDecimal.ZERO;
+    if (balance.signum() != 0) {
+      final long commodity = tree.commodity(account);
+      if (commodity == currency) {
+        converted = balance;
+      } else {
+        final double rate = rates.rate(commodity, currency, date);
+        if (Double.isNaN(rate)) {
+          unconverted.add(new Account(new Pointer(account)));
+        } else {
+          converted = round(balance.multiply(BigDecimal.valueOf(rate)), fraction);
+        }
+      }
+    }
+    total = total.add(converted);
+    nodes.put(account, new Node(balance, converted, total));
+    return total;
+  }
+
+  /**
+   * Round half up to a multiple of 1 / fraction.
+   */
+  static BigDecimal round(final BigDecimal value, final int fraction) {
+    if (fraction <= 0) {
+      return value;
+    }
+    final BigDecimal f = BigDecimal.valueOf(fraction);
+    final BigDecimal units = value.multiply(f).setScale(0, RoundingMode.HALF_UP);
+    try {
+      return units.divide(f);
+    } catch (final ArithmeticException ex) {
+      return units.divide(f, MathContext.DECIMAL128);
+    }
+  }
+
+  private static Tree engine() {
+    return new Tree() {
+      @Override
+      public long[] children(final long account) {
+        try (OwnedGList<Account> children = gnc_account_get_children_owned(account(account))) {
+          final long[] result = new long[children.size()];
+          for (int i = 0; i < result.length; i++) {
+            result[i] = Pointer.nativeValue(children.get(i).getPointer());
+          }
+          return result;
+        }
+      }
+
+      @Override
+      public long commodity(final long account) {
+        final gnc_commodity commodity = xaccAccountGetCommodity(account(account));
+        return commodity == null ? 0 : Pointer.nativeValue(commodity.getPointer());
+      }
+
+      @Override
+      public BigDecimal balance(final long account, final long date) {
+        return xaccAccountGetBalanceAsOfDate(account(account), new time64(date)).bigDecimalValue();
+      }
+
+      @Override
+      public int fraction(final long commodity) {
+        return gnc_commodity_get_fraction(new gnc_commodity(new Pointer(commodity)));
+      }
+    };
+  }
+
+  private static Account account(final long account) {
+    return new Account(new Pointer(account));
+  }
+}
@@ -2,6 +2,8 @@ package com.austindoupnik.gnc4j.libgnucash.engine.account;
 
 import com.austindoupnik.gnc4j.glib.*;
 import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import com.austindoupnik.gnc4j.jna_core.NativeStringArena;
+import com.austindoupnik.gnc4j.jna_core.NativeUtf8;
 import com.austindoupnik.gnc4j.jna_core.UnsignedInt;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.*;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
@@ -44,6 +46,8 @@ public class EngineAccount {
     nativeRegister(EngineAccount.class, "gnc-engine");
   }
 
+  private static final String ACCOUNT_LIST = "GList<Account>";
+
   /**
    * Constructor
    */
@@ -167,16 +171,34 @@ public class EngineAccount {
    */
   public static native void xaccAccountSetName(final Account account, final String name);
 
+  /**
+   * Same as {@link #xaccAccountSetName(Account, String)}, with the name already encoded as UTF-8, for example by a
+   * {@link NativeStringArena}.
+   */
+  public static native void xaccAccountSetName(final Account account, final Pointer name);
+
   /**
    * Set the account's accounting code
    */
   public static native void xaccAccountSetCode(final Account account, final String code);
 
+  /**
+   * Same as {@link #xaccAccountSetCode(Account, String)}, with the code already encoded as UTF-8, for example by a
+   * {@link NativeStringArena}.
+   */
+  public static native void xaccAccountSetCode(final Account account, final Pointer code);
+
   /**
    * Set the account's description
    */
   public static native void xaccAccountSetDescription(final Account account, final String desc);
 
+  /**
+   * Same as {@link #xaccAccountSetDescription(Account, String)}, with the description already encoded as
+   * UTF-8, for example by a {@link NativeStringArena}.
+   */
+  public static native void xaccAccountSetDescription(final Account account, final Pointer desc);
+
   /**
    * Set the account's Color
    */
@@ -202,6 +224,12 @@ public class EngineAccount {
    */
   public static native void xaccAccountSetNotes(final Account account, final String notes);
 
+  /**
+   * Same as {@link #xaccAccountSetNotes(Account, String)}, with the notes already encoded as UTF-8, for example by a
+   * {@link NativeStringArena}.
+   */
+  public static native void xaccAccountSetNotes(final Account account, final Pointer notes);
+
   /**
    * Set the last num field of an Account
    */
@@ -246,7 +274,7 @@ public class EngineAccount {
    * the 'starting balance' will represent the summation of the splits
    * up to that date.
    */
-  public static native void gnc_account_set_start_cleared_balance(final Account acc, final gnc_numeric start_baln);
+  public static native void gnc_account_set_start_cleared_balance(final Account acc, final gnc_numeric.ByValue start_baln);
 
   /**
    * This function will set the starting reconciled commodity balance
@@ -314,16 +342,43 @@ public class EngineAccount {
    */
   public static native String xaccAccountGetName(final Account account);
 
+  /**
+   * xaccAccountGetName() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccAccountGetName_utf8(final Account account, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccAccountGetName(account));
+  }
+
   /**
    * Get the account's accounting code
    */
   public static native String xaccAccountGetCode(final Account account);
 
+  /**
+   * xaccAccountGetCode() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccAccountGetCode_utf8(final Account account, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccAccountGetCode(account));
+  }
+
   /**
    * Get the account's description
    */
   public static native String xaccAccountGetDescription(final Account account);
 
+  /**
+   * xaccAccountGetDescription() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccAccountGetDescription_utf8(final Account account, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccAccountGetDescription(account));
+  }
+
   /**
    * Get the account's color
    */
@@ -390,9 +445,20 @@ public class EngineAccount {
    * must be freed by you the user !!!
    * hack alert -- since it breaks the rule of string allocation, maybe this
    * routine should not be in this library, but some utility library?
+   * <p>
+   * The string is copied into Java and the native copy is never freed, use
+   * gnc_account_get_full_name_owned() where that matters.
    */
   public static native String gnc_account_get_full_name(final Account account);
 
+  /**
+   * gnc_account_get_full_name() with the returned string owned by the caller,
+   * close it to free the string.
+   */
+  public static OwnedString gnc_account_get_full_name_owned(final Account account) {
+    return new OwnedString(Owning.gnc_account_get_full_name(account));
+  }
+
   /**
    * Retrieve the gains account used by this account for the indicated
    * currency, creating and recording a new one if necessary.
@@ -515,33 +581,33 @@ public class EngineAccount {
    * Get the current balance of the account, which may include future
    * splits
    */
-  public static native gnc_numeric xaccAccountGetBalance(final Account account);
+  public static native gnc_numeric.ByValue xaccAccountGetBalance(final Account account);
 
   /**
    * Get the current balance of the account, only including cleared
    * transactions
    */
-  public static native gnc_numeric xaccAccountGetClearedBalance(final Account account);
+  public static native gnc_numeric.ByValue xaccAccountGetClearedBalance(final Account account);
 
   /**
    * Get the current balance of the account, only including reconciled
    * transactions
    */
-  public static native gnc_numeric xaccAccountGetReconciledBalance(final Account account);
+  public static native gnc_numeric.ByValue xaccAccountGetReconciledBalance(final Account account);
 
-  public static native gnc_numeric xaccAccountGetPresentBalance(final Account account);
+  public static native gnc_numeric.ByValue xaccAccountGetPresentBalance(final Account account);
 
-  public static native gnc_numeric xaccAccountGetProjectedMinimumBalance(final Account account);
+  public static native gnc_numeric.ByValue xaccAccountGetProjectedMinimumBalance(final Account account);
 
   /**
    * Get the balance of the account at the end of the day before the date specified.
    */
-  public static native gnc_numeric xaccAccountGetBalanceAsOfDate(final Account account, final time64 date);
+  public static native gnc_numeric.ByValue xaccAccountGetBalanceAsOfDate(final Account account, final time64 date);
 
   /**
    * Get the reconciled balance of the account at the end of the day of the date specified.
    */
-  public static native gnc_numeric xaccAccountGetReconciledBalanceAsOfDate(final Account account, final time64 date);
+  public static native gnc_numeric.ByValue xaccAccountGetReconciledBalanceAsOfDate(final Account account, final time64 date);
 
   /* These two functions convert a given balance from one commodity to
      another.  The account argument is only used to get the Book, and
@@ -551,16 +617,16 @@ public class EngineAccount {
      Since they really have nothing to do with Accounts, there's
      probably some better place for them, but where?  gnc-commodity.h?
   */
-  public static native gnc_numeric xaccAccountConvertBalanceToCurrency(
+  public static native gnc_numeric.ByValue xaccAccountConvertBalanceToCurrency(
       final Account account, /* for book */
-      final gnc_numeric balance,
+      final gnc_numeric.ByValue balance,
       final gnc_commodity balance_currency,
       final gnc_commodity new_currency
   );
 
-  public static native gnc_numeric xaccAccountConvertBalanceToCurrencyAsOfDate(
+  public static native gnc_numeric.ByValue xaccAccountConvertBalanceToCurrencyAsOfDate(
       final Account account, /* for book */
-      final gnc_numeric balance,
+      final gnc_numeric.ByValue balance,
       final gnc_commodity balance_currency,
       final gnc_commodity new_currency,
       final time64 date
@@ -568,31 +634,31 @@ public class EngineAccount {
 
   /* These functions get some type of balance in the desired commodity.
      'report_commodity' may be NULL to use the account's commodity. */
-  public static native gnc_numeric xaccAccountGetBalanceInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetBalanceInCurrency(
       final Account account,
       final gnc_commodity report_commodity,
       final boolean include_children
   );
 
-  public static native gnc_numeric xaccAccountGetClearedBalanceInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetClearedBalanceInCurrency(
       final Account account,
       final gnc_commodity report_commodity,
       final boolean include_children
   );
 
-  public static native gnc_numeric xaccAccountGetReconciledBalanceInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetReconciledBalanceInCurrency(
       final Account account,
       final gnc_commodity report_commodity,
       final boolean include_children
   );
 
-  public static native gnc_numeric xaccAccountGetPresentBalanceInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetPresentBalanceInCurrency(
       final Account account,
       final gnc_commodity report_commodity,
       final boolean include_children
   );
 
-  public static native gnc_numeric xaccAccountGetProjectedMinimumBalanceInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetProjectedMinimumBalanceInCurrency(
       final Account account,
       final gnc_commodity report_commodity,
       final boolean include_children
@@ -602,7 +668,7 @@ public class EngineAccount {
    * This function gets the balance at the end of the given date, ignoring
    * closing entries, in the desired commodity.
    */
-  public static native gnc_numeric xaccAccountGetNoclosingBalanceAsOfDateInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetNoclosingBalanceAsOfDateInCurrency(
       final Account acc,
       final time64 date,
       final gnc_commodity report_commodity,
@@ -613,21 +679,21 @@ public class EngineAccount {
    * This function gets the balance at the end of the given date in the desired
    * commodity.
    */
-  public static native gnc_numeric xaccAccountGetBalanceAsOfDateInCurrency(
+  public static native gnc_numeric.ByValue xaccAccountGetBalanceAsOfDateInCurrency(
       final Account account,
       final time64 date,
       final gnc_commodity report_commodity,
       final boolean include_children
   );
 
-  public static native gnc_numeric xaccAccountGetNoclosingBalanceChangeForPeriod(
+  public static native gnc_numeric.ByValue xaccAccountGetNoclosingBalanceChangeForPeriod(
       final Account acc,
       final time64 date1,
       final time64 date2,
       final boolean recurse
   );
 
-  public static native gnc_numeric xaccAccountGetBalanceChangeForPeriod(
+  public static native gnc_numeric.ByValue xaccAccountGetBalanceChangeForPeriod(
       final Account acc,
       final time64 date1,
       final time64 date2,
@@ -725,12 +791,28 @@ public class EngineAccount {
    */
   public static native GList gnc_account_get_children(final Account account);
 
+  /**
+   * gnc_account_get_children() with the returned list owned by the caller, close it to
+   * free the list.
+   */
+  public static OwnedGList<Account> gnc_account_get_children_owned(final Account account) {
+    return new OwnedGList<>(ACCOUNT_LIST, Owning.gnc_account_get_children(account), Account::new);
+  }
+
   /**
    * This routine returns a GList of all children accounts of the specified
    * account, ordered by xaccAccountOrder().  \sa gnc_account_get_children()
    */
   public static native GList gnc_account_get_children_sorted(final Account account);
 
+  /**
+   * gnc_account_get_children_sorted() with the returned list owned by the caller, close it to
+   * free the list.
+   */
+  public static OwnedGList<Account> gnc_account_get_children_sorted_owned(final Account account) {
+    return new OwnedGList<>(ACCOUNT_LIST, Owning.gnc_account_get_children_sorted(account), Account::new);
+  }
+
   /**
    * Return the number of children of the specified account.  The
    * returned number does not include the account itself.
@@ -783,6 +865,14 @@ public class EngineAccount {
    */
   public static native GList gnc_account_get_descendants(final Account account);
 
+  /**
+   * gnc_account_get_descendants() with the returned list owned by the caller, close it to
+   * free the list.
+   */
+  public static OwnedGList<Account> gnc_account_get_descendants_owned(final Account account) {
+    return new OwnedGList<>(ACCOUNT_LIST, Owning.gnc_account_get_descendants(account), Account::new);
+  }
+
   /**
    * This function returns a GList containing all the descendants of
    * the specified account, sorted at each level.  This includes not
@@ -804,6 +894,14 @@ public class EngineAccount {
    */
   public static native GList gnc_account_get_descendants_sorted(final Account account);
 
+  /**
+   * gnc_account_get_descendants_sorted() with the returned list owned by the caller, close it to
+   * free the list.
+   */
+  public static OwnedGList<Account> gnc_account_get_descendants_sorted_owned(final Account account) {
+    return new OwnedGList<>(ACCOUNT_LIST, Owning.gnc_account_get_descendants_sorted(account), Account::new);
+  }
+
   /**
    * Return the number of descendants of the specified account.  The
    * returned number does not include the account itself.
@@ -1753,4 +1851,41 @@ public class EngineAccount {
    */
   @Deprecated
   public static native String dxaccAccountGetQuoteTZ(final Account account);
+
+  /**
+   * The functions above returning memory owned by the caller, bound to return raw pointers so that the memory can
+   * be freed.
+   */
+  @UtilityClass
+  private static class Owning {
+    static {
+      nativeRegister(Owning.class, "gnc-engine");
+    }
+
+    static native Pointer gnc_account_get_full_name(final Account account);
+
+    static native Pointer gnc_account_get_children(final Account account);
+
+    static native Pointer gnc_account_get_children_sorted(final Account account);
+
+    static native Pointer gnc_account_get_descendants(final Account account);
+
+    static native Pointer gnc_account_get_descendants_sorted(final Account account);
+  }
+
+  /**
+   * The string getters above, bound to return raw pointers to the strings owned by the engine.
+   */
+  @UtilityClass
+  private static class Borrowed {
+    static {
+      nativeRegister(Borrowed.class, "gnc-engine");
+    }
+
+    static native Pointer xaccAccountGetName(final Account account);
+
+    static native Pointer xaccAccountGetCode(final Account account);
+
+    static native Pointer xaccAccountGetDescription(final Account account);
+  }
 }
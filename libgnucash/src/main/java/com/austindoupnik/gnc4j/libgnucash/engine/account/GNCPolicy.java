@@ -1,7 +1,12 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.account;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
 
+@NoArgsConstructor
 public class GNCPolicy extends PointerType {
-
+  public GNCPolicy(final Pointer p) {
+    super(p);
+  }
 }
@@ -1,7 +1,12 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.account;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
 
+@NoArgsConstructor
 public class GncGUID extends PointerType {
-
+  public GncGUID(final Pointer p) {
+    super(p);
+  }
 }
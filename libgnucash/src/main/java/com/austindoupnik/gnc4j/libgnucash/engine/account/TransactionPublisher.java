@@ -0,0 +1,192 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account;
+
+import com.austindoupnik.gnc4j.glib.GInt;
+import com.austindoupnik.gnc4j.jna_core.UnsignedInt;
+import com.austindoupnik.gnc4j.libgnucash.engine.flow.Flow;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.TransactionCallback;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.gnc_account_tree_begin_staged_transaction_traversals;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.gnc_account_tree_staged_transaction_traversal;
+
+/**
+ * Publishes every transaction of an account tree, as fast as the subscriber requests them.
+ * <p>
+ * Transactions are produced by gnc_account_tree_staged_transaction_traversal(), which marks each transaction it
+ * visits with the stage. When the demand of the subscriber runs out the traversal is stopped, and it is started again
+ * when more is requested, skipping every transaction already marked. Nothing is buffered, at most the requested
+ * number of transactions are in flight. Restarting walks the split lists from the beginning again, request in batches
+ * rather than one transaction at a time when the tree is large.
+ * <p>
+ * The traversal runs on the thread calling {@link Flow.Subscription#request(long)}, which must be the thread that
+ * owns the book; subscribers typically request more from onNext. The transactions must not be destroyed, nor their
+ * splits moved to another account, while the traversal is paused or running.
+ * <p>
+ * Only one subscription can be active at a time since the stage markers live in the engine. A publisher created by
+ * {@link #forTree(Account)} resets the markers when a subscription starts, so each subscription sees every
+ * transaction.
+ */
+public class TransactionPublisher implements Flow.Publisher<Transaction> {
+  /**
+   * Visits the transactions of the account tree being published, each at most once per stage, so that a subscriber
+   * asking for more resumes the traversal without seeing a transaction again.
+   */
+  interface StagedTraversal {
+    void begin();
+
+    /**
+     * @return zero when every transaction has been visited, otherwise the value returned by thunk
+     */
+    int traverse(final int stage, final TransactionCallback thunk);
+  }
+
+  private static final GInt CONTINUE = new GInt(0);
+  private static final GInt STOP = new GInt(1);
+
+  private final StagedTraversal traversal;
+  private final int stage;
+  private final boolean reset;
+  private TraversalSubscription active;
+
+  TransactionPublisher(final StagedTraversal traversal, final int stage, final boolean reset) {
+    if (stage < 1) {
+      throw new IllegalArgumentException("stage must be positive: " + stage);
+    }
+    this.traversal = traversal;
+    this.stage = stage;
+    this.reset = reset;
+  }
+
+  /**
+   * Publish every transaction of the tree under root, resetting the stage markers for each subscription.
+   */
+  public static TransactionPublisher forTree(@NonNull final Account root) {
+    return new TransactionPublisher(engine(root), 1, true);
+  }
+
+  /**
+   * Publish the transactions of the tree under root whose marker is less than stage, without resetting the markers,
+   * to continue a sequence of staged traversals begun by the caller.
+   */
+  public static TransactionPublisher forStage(@NonNull final Account root, final int stage) {
+    return new TransactionPublisher(engine(root), stage, false);
+  }
+
+  @Override
+  public synchronized void subscribe(@NonNull final Flow.Subscriber<? super Transaction> subscriber) {
+    if (active != null) {
+      subscriber.onSubscribe(new TraversalSubscription(null));
+      subscriber.onError(new IllegalStateException("A traversal of this tree is already in progress"));
+      return;
+    }
+    active = new TraversalSubscription(subscriber);
+    subscriber.onSubscribe(active);
+  }
+
+  private synchronized void release(final TraversalSubscription subscription) {
+    if (active == subscription) {
+      active = null;
+    }
+  }
+
+  private static StagedTraversal engine(final Account root) {
+    return new StagedTraversal() {
+      @Override
+      public void begin() {
+        gnc_account_tree_begin_staged_transaction_traversals(root);
+      }
+
+      @Override
+      public int traverse(final int stage, final TransactionCallback thunk) {
+        return gnc_account_tree_staged_transaction_traversal(root, new UnsignedInt(stage), thunk, null);
+      }
+    };
+  }
+
+  private class TraversalSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super Transaction> subscriber;
+    /**
+     * Strongly referenced while the traversal runs, native code holds on to it.
+     */
+    private final TransactionCallback thunk = this::onTransaction;
+    private long demand;
+    private boolean begun;
+    private boolean draining;
+    private boolean done;
+    private volatile boolean cancelled;
+    private Throwable failure;
+
+    private TraversalSubscription(final Flow.Subscriber<? super Transaction> subscriber) {
+      this.subscriber = subscriber;
+      this.done = subscriber == null;
+    }
+
+    @Override
+    public synchronized void request(final long n) {
+      if (done || cancelled) {
+        return;
+      }
+      if (n <= 0) {
+        cancel();
+        subscriber.onError(new IllegalArgumentException("request must be positive: " + n));
+        return;
+      }
+      demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+      if (draining) {
+        // called from onNext, the running traversal picks up the new demand
+        return;
+      }
+      draining = true;
+      try {
+        while (demand > 0 && !cancelled) {
+          if (!begun) {
+            if (reset) {
+              traversal.begin();
+            }
+            begun = true;
+          }
+          final int result = traversal.traverse(stage, thunk);
+          if (failure != null) {
+            subscriber.onError(failure);
+            return;
+          }
+          if (result == 0 && !cancelled) {
+            finish();
+            subscriber.onComplete();
+            return;
+          }
+        }
+      } finally {
+        draining = false;
+      }
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      release(this);
+    }
+
+    private GInt onTransaction(final Transaction trans, final Pointer data) {
+      if (cancelled) {
+        return STOP;
+      }
+      demand--;
+      try {
+        subscriber.onNext(trans);
+      } catch (final RuntimeException ex) {
+        failure = ex;
+        cancel();
+        return STOP;
+      }
+      return demand > 0 && !cancelled ? CONTINUE : STOP;
+    }
+
+    private void finish() {
+      done = true;
+      release(this);
+    }
+  }
+}
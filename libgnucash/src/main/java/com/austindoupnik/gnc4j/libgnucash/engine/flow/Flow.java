@@ -0,0 +1,51 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.flow;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * The interfaces of java.util.concurrent.Flow, which only exists from Java 9 on.
+ * <p>
+ * They have the same names, methods and contracts, so publishers written against them adapt to the JDK interfaces,
+ * or to Reactive Streams, with a one line wrapper.
+ */
+@UtilityClass
+public class Flow {
+  /**
+   * A producer of items received by subscribers, as many as they request.
+   */
+  @FunctionalInterface
+  public interface Publisher<T> {
+    void subscribe(final Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * A receiver of items. Its methods are called in order: onSubscribe, then onNext as many times as requested, then
+   * at most one of onError or onComplete.
+   */
+  public interface Subscriber<T> {
+    void onSubscribe(final Subscription subscription);
+
+    void onNext(final T item);
+
+    void onError(final Throwable throwable);
+
+    void onComplete();
+  }
+
+  /**
+   * Links a publisher and a subscriber.
+   */
+  public interface Subscription {
+    /**
+     * Add n items to the demand of the subscriber.
+     *
+     * @param n more than zero, otherwise the subscriber receives onError with an IllegalArgumentException
+     */
+    void request(final long n);
+
+    /**
+     * Stop receiving items, some may still be delivered.
+     */
+    void cancel();
+  }
+}
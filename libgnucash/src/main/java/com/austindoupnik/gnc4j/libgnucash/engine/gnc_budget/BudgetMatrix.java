@@ -0,0 +1,358 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_budget;
+
+import com.austindoupnik.gnc4j.glib.GLibGList;
+import com.austindoupnik.gnc4j.glib.GLibGList.GList;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.Split;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_budget.EngineGncBudget.GncBudget;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.xaccSplitGetAmount;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.xaccSplitGetParent;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetCommoditySCU;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetSplitList;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_budget.EngineGncBudget.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.xaccTransRetDatePosted;
+
+/**
+ * Budgeted and actual amounts of a list of accounts for every period of a budget.
+ * <p>
+ * {@link #read(EngineGncBudget.GncBudget, List)} copies the budget into arrays, one row of periods per account, and
+ * computes the actuals in the same call by walking the splits of each account once and adding each amount to the
+ * period it was posted in. Asking the engine with gnc_budget_get_account_period_actual_value() instead walks the
+ * splits of the account again for every period. Everything after that runs in Java over the copied arrays.
+ * <p>
+ * Actuals are the amounts of the account's own splits, descendants are not included: list them as well and add
+ * their rows to roll them up. Splits posted outside of every period are ignored.
+ * <p>
+ * Amounts are kept in primitive arrays as whole units of the commodity fraction of each account, so that sums and
+ * variances are exact and match what the engine would compute; the getters turn them into {@link BigDecimal}s, and
+ * {@link #toBudgetedArray()} and {@link #toActualArray()} copy the units out as they are.
+ */
+public class BudgetMatrix {
+  /**
+   * The periods and amounts of the budget being read and the splits of the accounts of its rows, accounts as native
+   * addresses.
+   */
+  interface Source {
+    int periods();
+
+    long periodStart(final int period);
+
+    long periodEnd(final int period);
+
+    /**
+     * @return units in one of the commodity of the account
+     */
+    long fraction(final long account);
+
+    boolean isSet(final long account, final int period);
+
+    /**
+     * @return amount budgeted, in units of fraction
+     */
+    long budgeted(final long account, final int period, final long fraction);
+
+    /**
+     * Pass every split of the account to consumer, with its amount in units of fraction.
+     */
+    void splits(final long account, final long fraction, final SplitConsumer consumer);
+  }
+
+  interface SplitConsumer {
+    void accept(final long posted, final long amount);
+  }
+
+  private final long[] accounts;
+  private final Map<Long, Integer> rows;
+  private final long[] starts;
+  private final long[] ends;
+  private final long[] fractions;
+  private final boolean[] set;
+  private final long[] budgeted;
+  private final long[] actual;
+  @Getter
+  private final long splitCount;
+  @Getter
+  private final long nanos;
+
+  private BudgetMatrix(
+      final long[] accounts,
+      final long[] starts,
+      final long[] ends,
+      final long[] fractions,
+      final boolean[] set,
+      final long[] budgeted,
+      final long[] actual,
+      final long splitCount,
+      final long nanos
+  ) {
+    this.accounts = accounts;
+    this.rows = new HashMap<>(accounts.length * 2);
+    for (int i = 0; i < accounts.length; i++) {
+      rows.putIfAbsent(accounts[i], i);
+    }
+    this.starts = starts;
+    this.ends = ends;
+    this.fractions = fractions;
+    this.set = set;
+    this.budgeted = budgeted;
+    this.actual = actual;
+    this.splitCount = splitCount;
+    this.nanos = nanos;
+  }
+
+  /**
+   * Read the budget and actuals of the accounts, on the calling thread, which must be the engine thread.
+   *
+   * @param budget   the budget to read
+   * @param accounts rows of the matrix, in order
+   */
+  public static BudgetMatrix read(@NonNull final GncBudget budget, @NonNull final List<Account> accounts) {
+    final long[] pointers = new long[accounts.size()];
+    for (int i = 0; i < pointers.length; i++) {
+      pointers[i] = Pointer.nativeValue(accounts.get(i).getPointer());
+    }
+    return read(engine(budget), pointers);
+  }
+
+  /**
+   * Read the budget and actuals of the accounts as a single task of the engine thread.
+   *
+   * @param engine   the engine thread
+   * @param budget   the budget to read
+   * @param accounts rows of the matrix, in order
+   * @return completes with the matrix once read
+   */
+  public static CompletableFuture<BudgetMatrix> read(
+      @NonNull final Executor engine,
+      @NonNull final GncBudget budget,
+      @NonNull final List<Account> accounts
+  ) {
+    return CompletableFuture.supplyAsync(() -> read(budget, accounts), engine);
+  }
+
+  static BudgetMatrix read(final Source source, final long[] accounts) {
+    final long start = System.nanoTime();
+    final int periods = source.periods();
+    final long[] starts = new long[periods];
+    final long[] ends = new long[periods];
+    for (int p = 0; p < periods; p++) {
+      starts[p] = source.periodStart(p);
+      ends[p] = source.periodEnd(p);
+    }
+
+    final int cells = accounts.length * periods;
+    final long[] fractions = new long[accounts.length];
+    final boolean[] set = new boolean[cells];
+    final long[] budgeted = new long[cells];
+    final long[] actual = new long[cells];
+    final long[] splits = new long[1];
+    for (int a = 0; a < accounts.length; a++) {
+      final int row = a * periods;
+      final long fraction = source.fraction(accounts[a]);
+      fractions[a] = fraction;
+      for (int p = 0; p < periods; p++) {
+        if (source.isSet(accounts[a], p)) {
+          set[row + p] = true;
+          budgeted[row + p] = source.budgeted(accounts[a], p, fraction);
+        }
+      }
+      source.splits(accounts[a], fraction, (posted, amount) -> {
+        splits[0]++;
+        final int p = period(starts, ends, posted);
+        if (p >= 0) {
+          actual[row + p] += amount;
+        }
+      });
+    }
+
+    final long nanos = System.nanoTime() - start;
+    if (NativeMetrics.isEnabled()) {
+      NativeMetrics.global().record("budget_matrix", nanos);
+    }
+    return new BudgetMatrix(accounts, starts, ends, fractions, set, budgeted, actual, splits[0], nanos);
+  }
+
+  public int getAccountCount() {
+    return accounts.length;
+  }
+
+  public int getPeriodCount() {
+    return starts.length;
+  }
+
+  public Account getAccount(final int row) {
+    return new Account(new Pointer(accounts[row]));
+  }
+
+  /**
+   * @return row of the account, -1 when it is not part of the matrix
+   */
+  public int indexOf(@NonNull final Account account) {
+    final Integer row = rows.get(Pointer.nativeValue(account.getPointer()));
+    return row == null ? -1 : row;
+  }
+
+  public long getPeriodStart(final int period) {
+    return starts[period];
+  }
+
+  public long getPeriodEnd(final int period) {
+    return ends[period];
+  }
+
+  /**
+   * @return units in one of the amounts of the account
+   */
+  public long getFraction(final int row) {
+    return fractions[row];
+  }
+
+  /**
+   * @return true when an amount is budgeted for the account in the period
+   */
+  public boolean isSet(final int row, final int period) {
+    return set[cell(row, period)];
+  }
+
+  /**
+   * @return amount budgeted for the account in the period, zero when none is set
+   */
+  public BigDecimal getBudgeted(final int row, final int period) {
+    return decimal(row, budgeted[cell(row, period)]);
+  }
+
+  /**
+   * @return sum of the amounts of the account's splits posted in the period
+   */
+  public BigDecimal getActual(final int row, final int period) {
+    return decimal(row, actual[cell(row, period)]);
+  }
+
+  /**
+   * @return budgeted less actual
+   */
+  public BigDecimal getVariance(final int row, final int period) {
+    final int cell = cell(row, period);
+    return decimal(row, budgeted[cell] - actual[cell]);
+  }
+
+  public BigDecimal getBudgetedTotal(final int row) {
+    return decimal(row, sum(budgeted, row));
+  }
+
+  public BigDecimal getActualTotal(final int row) {
+    return decimal(row, sum(actual, row));
+  }
+
+  /**
+   * @return copy of the budgeted amounts, row after row, in units of the {@link #getFraction(int) fraction} of the
+   * row
+   */
+  public long[] toBudgetedArray() {
+    return budgeted.clone();
+  }
+
+  /**
+   * @return copy of the actual amounts, row after row, in units of the {@link #getFraction(int) fraction} of the row
+   */
+  public long[] toActualArray() {
+    return actual.clone();
+  }
+
+  private int cell(final int row, final int period) {
+    if (period < 0 || period >= starts.length) {
+      throw new IndexOutOfBoundsException("period " + period + " of " + starts.length);
+    }
+    return row * starts.length + period;
+  }
+
+  private long sum(final long[] values, final int row) {
+    final int from = cell(row, 0);
+    long total = 0;
+    for (int i = from; i < from + starts.length; i++) {
+      total += values[i];
+    }
+    return total;
+  }
+
+  private BigDecimal decimal(final int row, final long units) {
+    return gnc_numeric.bigDecimalValue(units, fractions[row]);
+  }
+
+  /**
+   * @return the period containing time, -1 when there is none
+   */
+  static int period(final long[] starts, final long[] ends, final long time) {
+    final int i = Arrays.binarySearch(starts, time);
+    final int p = i >= 0 ? i : -i - 2;
+    return p >= 0 && time <= ends[p] ? p : -1;
+  }
+
+  private static Source engine(final GncBudget budget) {
+    return new Source() {
+      @Override
+      public int periods() {
+        return gnc_budget_get_num_periods(budget).intValue();
+      }
+
+      @Override
+      public long periodStart(final int period) {
+        return gnc_budget_get_period_start_date(budget, period).longValue();
+      }
+
+      @Override
+      public long periodEnd(final int period) {
+        return gnc_budget_get_period_end_date(budget, period).longValue();
+      }
+
+      @Override
+      public long fraction(final long account) {
+        return xaccAccountGetCommoditySCU(account(account));
+      }
+
+      @Override
+      public boolean isSet(final long account, final int period) {
+        return gnc_budget_is_account_period_value_set(budget, account(account), period);
+      }
+
+      @Override
+      public long budgeted(final long account, final int period, final long fraction) {
+        return gnc_budget_get_account_period_value(budget, account(account), period).scaledValue(fraction);
+      }
+
+      @Override
+      public void splits(final long account, final long fraction, final SplitConsumer consumer) {
+        final GList list = xaccAccountGetSplitList(account(account));
+        if (list == null) {
+          return;
+        }
+        // the list belongs to the account
+        for (final long pointer : GLibGList.toPointerArray(list.getPointer())) {
+          final Split split = new Split(new Pointer(pointer));
+          consumer.accept(
+              xaccTransRetDatePosted(xaccSplitGetParent(split)).longValue(),
+              xaccSplitGetAmount(split).scaledValue(fraction)
+          );
+        }
+      }
+    };
+  }
+
+  private static Account account(final long account) {
+    return new Account(new Pointer(account));
+  }
+}
@@ -0,0 +1,129 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_budget;
+
+import com.austindoupnik.gnc4j.glib.GUInt;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GncGUID;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.Recurrence;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * GnuCash Budgets
+ * <p>
+ * A budget holds an amount for each account and each of a number of periods. The periods all have the same length,
+ * given by the recurrence of the budget, the first one starting at the start of the recurrence. Amounts are kept
+ * in the commodity of their account.
+ */
+@UtilityClass
+public class EngineGncBudget {
+  static {
+    nativeRegister(EngineGncBudget.class, "gnc-engine");
+  }
+
+  @NoArgsConstructor
+  public static class GncBudget extends PointerType {
+    public GncBudget(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /* Budget parameter names, used to build queries */
+  public static final String GNC_BUDGET_NAME = "name";
+  public static final String GNC_BUDGET_DESCRIPTION = "description";
+  public static final String GNC_BUDGET_NUM_PERIODS = "num_periods";
+  public static final String GNC_BUDGET_RECURRENCE = "recurrence";
+
+  /**
+   * Creates and initializes a Budget.
+   */
+  public static native GncBudget gnc_budget_new(final QofBook book);
+
+  /**
+   * Deletes the given budget object.
+   */
+  public static native void gnc_budget_destroy(final GncBudget budget);
+
+  public static native void gnc_budget_begin_edit(final GncBudget budget);
+
+  public static native void gnc_budget_commit_edit(final GncBudget budget);
+
+  /**
+   * Clones a budget creating a copy.
+   */
+  public static native GncBudget gnc_budget_clone(final GncBudget budget);
+
+  public static native void gnc_budget_set_name(final GncBudget budget, final String name);
+
+  public static native String gnc_budget_get_name(final GncBudget budget);
+
+  /**
+   * Set/Get the description of the Budget
+   */
+  public static native void gnc_budget_set_description(final GncBudget budget, final String description);
+
+  public static native String gnc_budget_get_description(final GncBudget budget);
+
+  /**
+   * Set/Get the number of periods in the Budget.
+   */
+  public static native void gnc_budget_set_num_periods(final GncBudget budget, final int num_periods);
+
+  public static native GUInt gnc_budget_get_num_periods(final GncBudget budget);
+
+  /**
+   * Set/Get the recurrence giving the length of the periods and the start of the first one. The budget keeps a copy
+   * of the recurrence it is given, the recurrence it returns belongs to the budget.
+   */
+  public static native void gnc_budget_set_recurrence(final GncBudget budget, final Recurrence r);
+
+  public static native Recurrence gnc_budget_get_recurrence(final GncBudget budget);
+
+  /**
+   * Get the starting date of the Budget period
+   */
+  public static native time64 gnc_budget_get_period_start_date(final GncBudget budget, final int period_num);
+
+  /**
+   * Get the ending date of the Budget period
+   */
+  public static native time64 gnc_budget_get_period_end_date(final GncBudget budget, final int period_num);
+
+  /**
+   * Set the amount budgeted for the account in the period.
+   */
+  public static native void gnc_budget_set_account_period_value(final GncBudget budget, final Account account, final int period_num, final gnc_numeric.ByValue val);
+
+  /**
+   * Remove the amount budgeted for the account in the period.
+   */
+  public static native void gnc_budget_unset_account_period_value(final GncBudget budget, final Account account, final int period_num);
+
+  /**
+   * @return true if an amount is budgeted for the account in the period
+   */
+  public static native boolean gnc_budget_is_account_period_value_set(final GncBudget budget, final Account account, final int period_num);
+
+  /**
+   * Get the amount budgeted for the account in the period, zero when none is set.
+   */
+  public static native gnc_numeric.ByValue gnc_budget_get_account_period_value(final GncBudget budget, final Account account, final int period_num);
+
+  /**
+   * Get the actual change in the balance of the account and its descendants over the period.
+   */
+  public static native gnc_numeric.ByValue gnc_budget_get_account_period_actual_value(final GncBudget budget, final Account account, final int period_num);
+
+  /**
+   * Get the default budget of the book, the first one found if none was marked as default.
+   */
+  public static native GncBudget gnc_budget_get_default(final QofBook book);
+
+  public static native GncBudget gnc_budget_lookup(final GncGUID guid, final QofBook book);
+}
@@ -2,6 +2,9 @@ package com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity;
 
 import com.austindoupnik.gnc4j.glib.GInt;
 import com.austindoupnik.gnc4j.glib.GUInt;
+import com.austindoupnik.gnc4j.glib.OwnedGList;
+import com.austindoupnik.gnc4j.jna_core.NativeStringArena;
+import com.austindoupnik.gnc4j.jna_core.NativeUtf8;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity_table;
 import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
@@ -42,6 +45,13 @@ public class EngineGncCommodity {
     nativeRegister(EngineGncCommodity.class, "gnc-engine");
   }
 
+  /**
+   * The namespace of the ISO 4217 currencies.
+   */
+  public static final String GNC_COMMODITY_NS_CURRENCY = "CURRENCY";
+
+  private static final String COMMODITY_LIST = "GList<gnc_commodity>";
+
   /* Commodity Quote Source functions */
 
   /**
@@ -232,6 +242,15 @@ public class EngineGncCommodity {
    */
   public static native String gnc_commodity_get_mnemonic(final gnc_commodity cm);
 
+  /**
+   * gnc_commodity_get_mnemonic() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 gnc_commodity_get_mnemonic_utf8(final gnc_commodity cm, final NativeUtf8 into) {
+    return into.set(Borrowed.gnc_commodity_get_mnemonic(cm));
+  }
+
   /**
    * Retrieve the namespace for the specified commodity.  This will be
    * a pointer to a null terminated string of the form "AMEX",
@@ -243,6 +262,15 @@ public class EngineGncCommodity {
    */
   public static native String gnc_commodity_get_namespace(final gnc_commodity cm);
 
+  /**
+   * gnc_commodity_get_namespace() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 gnc_commodity_get_namespace_utf8(final gnc_commodity cm, final NativeUtf8 into) {
+    return into.set(Borrowed.gnc_commodity_get_namespace(cm));
+  }
+
   /**
    * Retrieve the namespace data structure for the specified commodity.
    * This will be a pointer to another data structure.
@@ -264,6 +292,15 @@ public class EngineGncCommodity {
    */
   public static native String gnc_commodity_get_fullname(final gnc_commodity cm);
 
+  /**
+   * gnc_commodity_get_fullname() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 gnc_commodity_get_fullname_utf8(final gnc_commodity cm, final NativeUtf8 into) {
+    return into.set(Borrowed.gnc_commodity_get_fullname(cm));
+  }
+
   /**
    * Retrieve the 'print' name for the specified commodity.  This will
    * be a pointer to a null terminated string of the form "Acme
@@ -591,6 +628,16 @@ public class EngineGncCommodity {
       final String mnemonic
   );
 
+  /**
+   * Same as {@link #gnc_commodity_table_lookup(gnc_commodity_table, String, String)}, with the namespace and mnemonic
+   * already encoded as UTF-8, for example by a {@link NativeStringArena}.
+   */
+  public static native gnc_commodity gnc_commodity_table_lookup(
+      final gnc_commodity_table table,
+      final Pointer commodity_namespace,
+      final Pointer mnemonic
+  );
+
   public static native gnc_commodity gnc_commodity_table_lookup_unique(
       final gnc_commodity_table table,
       final String unique_name
@@ -771,6 +818,16 @@ public class EngineGncCommodity {
    */
   public static native CommodityList gnc_commodity_table_get_commodities(final gnc_commodity_table table, final String commodity_namespace);
 
+  /**
+   * gnc_commodity_table_get_commodities() with the returned list owned by the caller, close it to free the list.
+   */
+  public static OwnedGList<gnc_commodity> gnc_commodity_table_get_commodities_owned(
+      final gnc_commodity_table table,
+      final String commodity_namespace
+  ) {
+    return new OwnedGList<>(COMMODITY_LIST, Owning.gnc_commodity_table_get_commodities(table, commodity_namespace), gnc_commodity::new);
+  }
+
   /**
    * This function returns a list of commodities for which price quotes
    * should be retrieved.  It will scan the entire commodity table (or
@@ -872,4 +929,33 @@ public class EngineGncCommodity {
    * Free a monetary list and all the items it points to
    */
   public static native void gnc_monetary_list_free(final MonetaryList list);
+
+  /**
+   * The functions above returning memory owned by the caller, bound to return raw pointers so that the memory can
+   * be freed.
+   */
+  @UtilityClass
+  private static class Owning {
+    static {
+      nativeRegister(Owning.class, "gnc-engine");
+    }
+
+    static native Pointer gnc_commodity_table_get_commodities(final gnc_commodity_table table, final String commodity_namespace);
+  }
+
+  /**
+   * The string getters above, bound to return raw pointers to the strings owned by the engine.
+   */
+  @UtilityClass
+  private static class Borrowed {
+    static {
+      nativeRegister(Borrowed.class, "gnc-engine");
+    }
+
+    static native Pointer gnc_commodity_get_mnemonic(final gnc_commodity cm);
+
+    static native Pointer gnc_commodity_get_namespace(final gnc_commodity cm);
+
+    static native Pointer gnc_commodity_get_fullname(final gnc_commodity cm);
+  }
 }
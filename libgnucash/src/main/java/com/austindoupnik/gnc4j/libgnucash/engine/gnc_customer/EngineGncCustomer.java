@@ -0,0 +1,67 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_customer;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Core Customer Interface
+ */
+@UtilityClass
+public class EngineGncCustomer {
+  static {
+    nativeRegister(EngineGncCustomer.class, "gnc-engine");
+  }
+
+  public static final String GNC_ID_CUSTOMER = "gncCustomer";
+
+  @NoArgsConstructor
+  public static class GncCustomer extends PointerType {
+    public GncCustomer(final Pointer p) {
+      super(p);
+    }
+  }
+
+  public static native GncCustomer gncCustomerCreate(final QofBook book);
+
+  public static native void gncCustomerDestroy(final GncCustomer customer);
+
+  public static native void gncCustomerBeginEdit(final GncCustomer customer);
+
+  public static native void gncCustomerCommitEdit(final GncCustomer customer);
+
+  public static native void gncCustomerSetID(final GncCustomer customer, final String id);
+
+  public static native void gncCustomerSetName(final GncCustomer customer, final String name);
+
+  public static native void gncCustomerSetNotes(final GncCustomer customer, final String notes);
+
+  public static native void gncCustomerSetActive(final GncCustomer customer, final boolean active);
+
+  public static native void gncCustomerSetCurrency(final GncCustomer customer, final gnc_commodity currency);
+
+  public static native void gncCustomerSetCredit(final GncCustomer customer, final gnc_numeric.ByValue credit);
+
+  public static native String gncCustomerGetID(final GncCustomer customer);
+
+  public static native String gncCustomerGetName(final GncCustomer customer);
+
+  public static native String gncCustomerGetNotes(final GncCustomer customer);
+
+  public static native boolean gncCustomerGetActive(final GncCustomer customer);
+
+  public static native gnc_commodity gncCustomerGetCurrency(final GncCustomer customer);
+
+  /**
+   * Get the credit limit of the customer.
+   */
+  public static native gnc_numeric.ByValue gncCustomerGetCredit(final GncCustomer customer);
+
+  public static native gnc_numeric.ByValue gncCustomerGetDiscount(final GncCustomer customer);
+}
@@ -125,6 +125,30 @@ public class EngineGncDate {
    */
   public static native void gnc_tm_free(final tm time);
 
+  /**
+   * gnc_localtime() with the returned struct owned by the caller, close it to free the struct.
+   *
+   * @param secs Seconds since 00:00:01 UTC 01 January 1970 (negative values
+   *             are seconds before that moment).
+   */
+  public static OwnedTm gnc_localtime_owned(final long secs) {
+    final time64.ByReference ref = new time64.ByReference();
+    ref.setValue(new time64(secs));
+    return new OwnedTm(gnc_localtime(ref));
+  }
+
+  /**
+   * gnc_gmtime() with the returned struct owned by the caller, close it to free the struct.
+   *
+   * @param secs Seconds since 00:00:01 UTC 01 January 1970 (negative values
+   *             are seconds before that moment).
+   */
+  public static OwnedTm gnc_gmtime_owned(final long secs) {
+    final time64.ByReference ref = new time64.ByReference();
+    ref.setValue(new time64(secs));
+    return new OwnedTm(gnc_gmtime(ref));
+  }
+
   /* String / DateFormat conversion. */
 
   /**
@@ -0,0 +1,33 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_date;
+
+import com.austindoupnik.gnc4j.jna_core.NativeOwned;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+
+/**
+ * A struct tm* allocated by gnc_localtime() or gnc_gmtime(), freed with gnc_tm_free() on close.
+ */
+public class OwnedTm extends NativeOwned {
+  public static final String TYPE = "tm";
+
+  /**
+   * sizeof(struct tm) with glibc: nine ints, long tm_gmtoff and const char *tm_zone.
+   */
+  private static final long SIZE = 9 * 4 + NativeLong.SIZE - (9 * 4) % NativeLong.SIZE + NativeLong.SIZE + Native.POINTER_SIZE;
+
+  /**
+   * Take ownership of a struct tm*.
+   *
+   * @param time the struct, may be null
+   */
+  public OwnedTm(final tm time) {
+    super(TYPE, time == null ? null : time.getPointer(), SIZE, p -> EngineGncDate.gnc_tm_free(new tm(p)));
+  }
+
+  /**
+   * @return the struct, to pass to the other gnc_date functions, valid until closed
+   */
+  public tm get() {
+    return new tm(pointer());
+  }
+}
@@ -11,6 +11,13 @@ import com.sun.jna.ptr.NativeLongByReference;
 public class time64 extends NativeLong {
   private static final long serialVersionUID = 350018756716653128L;
 
+  public time64() {
+  }
+
+  public time64(final long value) {
+    super(value);
+  }
+
   public static class ByReference extends NativeLongByReference {
 
   }
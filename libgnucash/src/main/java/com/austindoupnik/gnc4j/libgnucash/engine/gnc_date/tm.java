@@ -1,7 +1,12 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.gnc_date;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
 
+@NoArgsConstructor
 public class tm extends PointerType {
-
+  public tm(final Pointer p) {
+    super(p);
+  }
 }
@@ -0,0 +1,62 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_employee;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Employee Interface
+ */
+@UtilityClass
+public class EngineGncEmployee {
+  static {
+    nativeRegister(EngineGncEmployee.class, "gnc-engine");
+  }
+
+  public static final String GNC_ID_EMPLOYEE = "gncEmployee";
+
+  @NoArgsConstructor
+  public static class GncEmployee extends PointerType {
+    public GncEmployee(final Pointer p) {
+      super(p);
+    }
+  }
+
+  public static native GncEmployee gncEmployeeCreate(final QofBook book);
+
+  public static native void gncEmployeeDestroy(final GncEmployee employee);
+
+  public static native void gncEmployeeBeginEdit(final GncEmployee employee);
+
+  public static native void gncEmployeeCommitEdit(final GncEmployee employee);
+
+  public static native void gncEmployeeSetID(final GncEmployee employee, final String id);
+
+  public static native void gncEmployeeSetUsername(final GncEmployee employee, final String username);
+
+  public static native void gncEmployeeSetName(final GncEmployee employee, final String name);
+
+  public static native void gncEmployeeSetActive(final GncEmployee employee, final boolean active);
+
+  public static native void gncEmployeeSetCurrency(final GncEmployee employee, final gnc_commodity currency);
+
+  public static native String gncEmployeeGetID(final GncEmployee employee);
+
+  public static native String gncEmployeeGetUsername(final GncEmployee employee);
+
+  public static native String gncEmployeeGetName(final GncEmployee employee);
+
+  public static native boolean gncEmployeeGetActive(final GncEmployee employee);
+
+  public static native gnc_commodity gncEmployeeGetCurrency(final GncEmployee employee);
+
+  public static native gnc_numeric.ByValue gncEmployeeGetWorkday(final GncEmployee employee);
+
+  public static native gnc_numeric.ByValue gncEmployeeGetRate(final GncEmployee employee);
+}
@@ -1,5 +1,6 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine;
 
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId;
 import com.sun.jna.StringArray;
 import lombok.experimental.UtilityClass;
 
@@ -12,6 +13,35 @@ public class EngineGncEngine {
     nativeRegister(EngineGncEngine.class, "gnc-engine");
   }
 
+  /* IDENTIFIERS
+   * GncGUID Identifiers can be used to reference Accounts, Transactions,
+   * Splits and other objects. These Gnucash types are referred to as Gnucash
+   * entities. GncGUID Identifiers are globally-unique and permanent, i.e., once
+   * an entity has been assigned an identifier, it retains that same
+   * identifier for its lifetime.
+   */
+
+  public static final String GNC_ID_NONE = null;
+  public static final String GNC_ID_BOOK = EngineQofId.QOF_ID_BOOK;
+  public static final String GNC_ID_SESSION = EngineQofId.QOF_ID_SESSION;
+  public static final String GNC_ID_NULL = EngineQofId.QOF_ID_NULL;
+
+  public static final String GNC_ID_ACCOUNT = "Account";
+  public static final String GNC_ID_COMMODITY = "Commodity";
+  public static final String GNC_ID_COMMODITY_NAMESPACE = "CommodityNamespace";
+  public static final String GNC_ID_COMMODITY_TABLE = "CommodityTable";
+  public static final String GNC_ID_LOT = "Lot";
+  public static final String GNC_ID_PERIOD = "Period";
+  public static final String GNC_ID_PRICE = "Price";
+  public static final String GNC_ID_PRICEDB = "PriceDB";
+  public static final String GNC_ID_SPLIT = "Split";
+  public static final String GNC_ID_BUDGET = "Budget";
+  public static final String GNC_ID_SCHEDXACTION = "SchedXaction";
+  public static final String GNC_ID_SXES = "SchedXactions";
+  public static final String GNC_ID_SXTG = "SXTGroup";
+  public static final String GNC_ID_SXTT = "SXTT";
+  public static final String GNC_ID_TRANS = "Trans";
+
   /**
    * gnc_engine_init should be called before gnc engine
    * functions can be used.
@@ -1,6 +1,8 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
 
 /**
  * @brief Transaction in Gnucash.
@@ -13,6 +15,9 @@ import com.sun.jna.PointerType;
  * the engine should include that file. Instead, access that data only
  * through the functions in Transaction.h .
  */
+@NoArgsConstructor
 public class Transaction extends PointerType {
-
+  public Transaction(final Pointer p) {
+    super(p);
+  }
 }
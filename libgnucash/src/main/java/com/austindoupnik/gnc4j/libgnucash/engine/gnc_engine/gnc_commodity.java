@@ -1,6 +1,8 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
 
 /**
  * @brief An article that is bought and sold.
@@ -18,6 +20,9 @@ import com.sun.jna.PointerType;
  * defined in a private source file. For accessing that data, only use
  * the functions in gnc-commodity.h .
  */
+@NoArgsConstructor
 public class gnc_commodity extends PointerType {
-
+  public gnc_commodity(final Pointer p) {
+    super(p);
+  }
 }
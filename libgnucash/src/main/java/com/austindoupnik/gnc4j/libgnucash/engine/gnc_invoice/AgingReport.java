@@ -0,0 +1,94 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.QofInstance;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts owed by or to each owner, by how long they are overdue, from
+ * {@link InvoiceSnapshot#aging(boolean, long, int...)}.
+ * <p>
+ * Owners are in the order their first document appears in the snapshot. Bucket 0 is not yet due, the last bucket is
+ * overdue by more than the last bound.
+ */
+public class AgingReport {
+  private final long[] owners;
+  private final int[] days;
+  private final BigDecimal[] amounts;
+
+  AgingReport(final long[] owners, final int[] days, final BigDecimal[] amounts) {
+    this.owners = owners;
+    this.days = days;
+    this.amounts = amounts;
+  }
+
+  public int getOwnerCount() {
+    return owners.length;
+  }
+
+  public QofInstance getOwner(final int row) {
+    return owners[row] == 0 ? null : new QofInstance(new Pointer(owners[row]));
+  }
+
+  /**
+   * @return row of the owner, -1 when it owes nothing and is owed nothing
+   */
+  public int indexOf(@NonNull final QofInstance owner) {
+    final long key = Pointer.nativeValue(owner.getPointer());
+    for (int row = 0; row < owners.length; row++) {
+      if (owners[row] == key) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  public int getBucketCount() {
+    return days.length + 2;
+  }
+
+  /**
+   * @return the most days overdue of the documents in the bucket, 0 for the first bucket and
+   * {@link Integer#MAX_VALUE} for the last
+   */
+  public int getBucketBound(final int bucket) {
+    if (bucket < 0 || bucket > days.length + 1) {
+      throw new IndexOutOfBoundsException("bucket " + bucket + " of " + getBucketCount());
+    }
+    if (bucket == 0) {
+      return 0;
+    }
+    return bucket <= days.length ? days[bucket - 1] : Integer.MAX_VALUE;
+  }
+
+  public BigDecimal getAmount(final int row, final int bucket) {
+    if (bucket < 0 || bucket >= getBucketCount()) {
+      throw new IndexOutOfBoundsException("bucket " + bucket + " of " + getBucketCount());
+    }
+    return amounts[row * getBucketCount() + bucket];
+  }
+
+  /**
+   * @return everything owed by or to the owner
+   */
+  public BigDecimal getTotal(final int row) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int b = 0; b < getBucketCount(); b++) {
+      total = total.add(getAmount(row, b));
+    }
+    return total;
+  }
+
+  /**
+   * @return everything in the bucket, over all owners
+   */
+  public BigDecimal getBucketTotal(final int bucket) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int row = 0; row < owners.length; row++) {
+      total = total.add(getAmount(row, bucket));
+    }
+    return total;
+  }
+}
@@ -0,0 +1,115 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.GNCLot;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner.EngineGncOwner.GncOwner;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Core Invoice Interface
+ * <p>
+ * An invoice is a business document of an owner: an invoice or credit note of a customer, a bill or credit note of
+ * a vendor, a voucher or credit note of an employee. Once posted, it has a transaction in a posted account, and a
+ * lot in that account holding the transaction and the payments made against it.
+ */
+@UtilityClass
+public class EngineGncInvoice {
+  static {
+    nativeRegister(EngineGncInvoice.class, "gnc-engine");
+  }
+
+  public static final String GNC_ID_INVOICE = "gncInvoice";
+
+  @NoArgsConstructor
+  public static class GncInvoice extends PointerType {
+    public GncInvoice(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /**
+   * Create a new GncInvoice object
+   */
+  public static native GncInvoice gncInvoiceCreate(final QofBook book);
+
+  public static native void gncInvoiceDestroy(final GncInvoice invoice);
+
+  public static native void gncInvoiceBeginEdit(final GncInvoice invoice);
+
+  public static native void gncInvoiceCommitEdit(final GncInvoice invoice);
+
+  public static native void gncInvoiceSetID(final GncInvoice invoice, final String id);
+
+  public static native void gncInvoiceSetOwner(final GncInvoice invoice, final GncOwner owner);
+
+  public static native void gncInvoiceSetDateOpened(final GncInvoice invoice, final time64 date);
+
+  public static native void gncInvoiceSetNotes(final GncInvoice invoice, final String notes);
+
+  public static native void gncInvoiceSetCurrency(final GncInvoice invoice, final gnc_commodity currency);
+
+  public static native void gncInvoiceSetActive(final GncInvoice invoice, final boolean active);
+
+  public static native String gncInvoiceGetID(final GncInvoice invoice);
+
+  public static native GncOwner gncInvoiceGetOwner(final GncInvoice invoice);
+
+  public static native time64 gncInvoiceGetDateOpened(final GncInvoice invoice);
+
+  public static native time64 gncInvoiceGetDatePosted(final GncInvoice invoice);
+
+  public static native time64 gncInvoiceGetDateDue(final GncInvoice invoice);
+
+  public static native String gncInvoiceGetBillingID(final GncInvoice invoice);
+
+  public static native String gncInvoiceGetNotes(final GncInvoice invoice);
+
+  public static native GncInvoiceType gncInvoiceGetType(final GncInvoice invoice);
+
+  public static native gnc_commodity gncInvoiceGetCurrency(final GncInvoice invoice);
+
+  public static native boolean gncInvoiceGetActive(final GncInvoice invoice);
+
+  public static native boolean gncInvoiceGetIsCreditNote(final GncInvoice invoice);
+
+  /**
+   * Return the "total" amount of the invoice as seen on the document
+   * (and shown to the user in the reports and invoice ledger).
+   */
+  public static native gnc_numeric.ByValue gncInvoiceGetTotal(final GncInvoice invoice);
+
+  /**
+   * Depending on the invoice type, invoices have a different effect
+   * on the balance. Customer invoices increase the balance, while
+   * vendor bills decrease the balance. Credit notes have the opposite
+   * effect.
+   *
+   * @return TRUE if the invoice will increase the balance or FALSE otherwise.
+   */
+  public static native boolean gncInvoiceAmountPositive(final GncInvoice invoice);
+
+  public static native GNCLot gncInvoiceGetPostedLot(final GncInvoice invoice);
+
+  public static native Transaction gncInvoiceGetPostedTxn(final GncInvoice invoice);
+
+  public static native Account gncInvoiceGetPostedAcc(final GncInvoice invoice);
+
+  /**
+   * Given a LOT, find and return the Invoice attached to the lot
+   */
+  public static native GncInvoice gncInvoiceGetInvoiceFromLot(final GNCLot lot);
+
+  public static native boolean gncInvoiceIsPosted(final GncInvoice invoice);
+
+  public static native boolean gncInvoiceIsPaid(final GncInvoice invoice);
+}
@@ -0,0 +1,38 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum GncInvoiceType implements JnaEnum<GncInvoiceType> {
+  GNC_INVOICE_UNDEFINED(0),
+  /**
+   * Invoice
+   */
+  GNC_INVOICE_CUST_INVOICE(1),
+  /**
+   * Bill
+   */
+  GNC_INVOICE_VEND_INVOICE(2),
+  /**
+   * Voucher
+   */
+  GNC_INVOICE_EMPL_INVOICE(3),
+  /**
+   * Credit Note for a customer
+   */
+  GNC_INVOICE_CUST_CREDIT_NOTE(4),
+  /**
+   * Credit Note from a vendor
+   */
+  GNC_INVOICE_VEND_CREDIT_NOTE(5),
+  /**
+   * Credit Note from an employee
+   */
+  GNC_INVOICE_EMPL_CREDIT_NOTE(6),
+  GNC_INVOICE_NUM_TYPES(7);
+
+  private final int value;
+}
@@ -0,0 +1,231 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.QofInstance;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.GNCLot;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice.EngineGncInvoice.GncInvoice;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.qof_book_get_collection;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_get_pointers;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice.EngineGncInvoice.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot.EngineGncLot.gnc_lot_get_balance;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner.EngineGncOwner.gncOwnerGetEndOwner;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner.EngineGncOwner.qofOwnerGetOwner;
+
+/**
+ * Copy of the open invoices, bills, vouchers and credit notes of a book.
+ * <p>
+ * {@link #of} walks the invoice collection once and keeps the posted documents whose lot is not yet
+ * closed, as columns: invoice i has {@link #getId(int)}, {@link #getType(int)}, the customer, vendor or employee
+ * {@link #getOwner(int)} (the customer of a job), the posted and due dates, and {@link #getBalance(int)}, the
+ * balance of its lot in the currency of the invoice. Aging runs in Java over the copy, see
+ * {@link #aging(boolean, long, int...)}; balances are kept and summed exactly.
+ */
+public class InvoiceSnapshot {
+  private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+  private final long[] invoices;
+  private final int[] types;
+  private final long[] owners;
+  private final String[] ids;
+  private final long[] posted;
+  private final long[] due;
+  private final BigDecimal[] balances;
+  private final long[] currencies;
+
+  InvoiceSnapshot(
+      final long[] invoices,
+      final int[] types,
+      final long[] owners,
+      final String[] ids,
+      final long[] posted,
+      final long[] due,
+      final BigDecimal[] balances,
+      final long[] currencies
+  ) {
+    this.invoices = invoices;
+    this.types = types;
+    this.owners = owners;
+    this.ids = ids;
+    this.posted = posted;
+    this.due = due;
+    this.balances = balances;
+    this.currencies = currencies;
+  }
+
+  /**
+   * Copy the open documents of a book.
+   */
+  public static InvoiceSnapshot of(@NonNull final QofBook book) {
+    return NativeMetrics.timed("invoice_snapshot", () -> read(book));
+  }
+
+  private static InvoiceSnapshot read(final QofBook book) {
+    final long[] all = qof_collection_get_pointers(qof_book_get_collection(book, GNC_ID_INVOICE));
+    final int capacity = all.length;
+    final long[] invoices = new long[capacity];
+    final int[] types = new int[capacity];
+    final long[] owners = new long[capacity];
+    final String[] ids = new String[capacity];
+    final long[] posted = new long[capacity];
+    final long[] due = new long[capacity];
+    final BigDecimal[] balances = new BigDecimal[capacity];
+    final long[] currencies = new long[capacity];
+    int n = 0;
+    for (final long pointer : all) {
+      final GncInvoice invoice = new GncInvoice(new Pointer(pointer));
+      if (!gncInvoiceIsPosted(invoice) || gncInvoiceIsPaid(invoice)) {
+        continue;
+      }
+      final GNCLot lot = gncInvoiceGetPostedLot(invoice);
+      invoices[n] = pointer;
+      types[n] = gncInvoiceGetType(invoice).getValue();
+      owners[n] = address(qofOwnerGetOwner(gncOwnerGetEndOwner(gncInvoiceGetOwner(invoice))));
+      ids[n] = gncInvoiceGetID(invoice);
+      posted[n] = gncInvoiceGetDatePosted(invoice).longValue();
+      due[n] = gncInvoiceGetDateDue(invoice).longValue();
+      balances[n] = lot == null ? BigDecimal.ZERO : gnc_lot_get_balance(lot).bigDecimalValue();
+      currencies[n] = address(gncInvoiceGetCurrency(invoice));
+      n++;
+    }
+    return new InvoiceSnapshot(
+        Arrays.copyOf(invoices, n),
+        Arrays.copyOf(types, n),
+        Arrays.copyOf(owners, n),
+        Arrays.copyOf(ids, n),
+        Arrays.copyOf(posted, n),
+        Arrays.copyOf(due, n),
+        Arrays.copyOf(balances, n),
+        Arrays.copyOf(currencies, n)
+    );
+  }
+
+  /**
+   * @return number of open documents
+   */
+  public int size() {
+    return invoices.length;
+  }
+
+  public GncInvoice getInvoice(final int i) {
+    return new GncInvoice(new Pointer(invoices[i]));
+  }
+
+  public GncInvoiceType getType(final int i) {
+    return JnaEnum.findByValue(GncInvoiceType.class, types[i]);
+  }
+
+  /**
+   * @return the customer, vendor or employee the document belongs to
+   */
+  public QofInstance getOwner(final int i) {
+    return owners[i] == 0 ? null : new QofInstance(new Pointer(owners[i]));
+  }
+
+  public String getId(final int i) {
+    return ids[i];
+  }
+
+  public long getDatePosted(final int i) {
+    return posted[i];
+  }
+
+  public long getDateDue(final int i) {
+    return due[i];
+  }
+
+  /**
+   * @return balance of the lot of the document: positive for what customers owe, negative for what is owed to
+   * vendors and employees, credit notes the other way around
+   */
+  public BigDecimal getBalance(final int i) {
+    return balances[i];
+  }
+
+  public gnc_commodity getCurrency(final int i) {
+    return currencies[i] == 0 ? null : new gnc_commodity(new Pointer(currencies[i]));
+  }
+
+  /**
+   * @return true for the documents of customers, false for those of vendors and employees
+   */
+  public boolean isReceivable(final int i) {
+    return isReceivableType(types[i]);
+  }
+
+  /**
+   * Age the receivables or the payables by owner.
+   * <p>
+   * Amounts are what is owed, to the book for receivables and by the book for payables, so credit notes count
+   * negative. Bucket 0 holds the documents not yet due at asOf, bucket 1 those overdue by up to {@code days[0]}
+   * days, bucket b those overdue by more than {@code days[b - 2]} and up to {@code days[b - 1]} days, and the last
+   * bucket those overdue by more than the last bound.
+   *
+   * @param receivable age the documents of customers, or those of vendors and employees
+   * @param asOf       time to age at
+   * @param days       increasing upper bounds of the overdue buckets, in days, for example 30, 60, 90
+   */
+  public AgingReport aging(final boolean receivable, final long asOf, @NonNull final int... days) {
+    for (int b = 0; b < days.length; b++) {
+      if (days[b] <= 0 || b > 0 && days[b] <= days[b - 1]) {
+        throw new IllegalArgumentException("bucket bounds must be positive and increasing: " + Arrays.toString(days));
+      }
+    }
+    final int buckets = days.length + 2;
+    final Map<Long, Integer> index = new HashMap<>();
+    final long[] keys = new long[invoices.length];
+    final int[] rows = new int[invoices.length];
+    for (int i = 0; i < invoices.length; i++) {
+      if (isReceivableType(types[i]) != receivable) {
+        rows[i] = -1;
+        continue;
+      }
+      final int next = index.size();
+      rows[i] = index.computeIfAbsent(owners[i], o -> next);
+      keys[rows[i]] = owners[i];
+    }
+
+    final BigDecimal[] amounts = new BigDecimal[index.size() * buckets];
+    Arrays.fill(amounts, BigDecimal.ZERO);
+    for (int i = 0; i < invoices.length; i++) {
+      if (rows[i] >= 0) {
+        final BigDecimal owed = receivable ? balances[i] : balances[i].negate();
+        final int cell = rows[i] * buckets + bucket(Math.floorDiv(asOf - due[i], SECONDS_PER_DAY), days);
+        amounts[cell] = amounts[cell].add(owed);
+      }
+    }
+    return new AgingReport(Arrays.copyOf(keys, index.size()), days.clone(), amounts);
+  }
+
+  static int bucket(final long overdue, final int[] days) {
+    if (overdue <= 0) {
+      return 0;
+    }
+    for (int b = 0; b < days.length; b++) {
+      if (overdue <= days[b]) {
+        return b + 1;
+      }
+    }
+    return days.length + 1;
+  }
+
+  private static boolean isReceivableType(final int type) {
+    return type == GncInvoiceType.GNC_INVOICE_CUST_INVOICE.getValue()
+        || type == GncInvoiceType.GNC_INVOICE_CUST_CREDIT_NOTE.getValue();
+  }
+
+  private static long address(final PointerType p) {
+    return p == null ? 0 : Pointer.nativeValue(p.getPointer());
+  }
+}
@@ -0,0 +1,238 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Cost basis, gains and holding periods of the splits of a {@link LotSnapshot}.
+ * <p>
+ * Splits with a positive amount are acquisitions costing their value, splits with a negative amount are disposals
+ * for the negated value. Splits with a zero amount, such as the gains splits written by the engine, are ignored.
+ * Splits are matched in posted date order, acquisitions first on the same date. Values are assumed to be in one
+ * currency, as they are for the splits of a lot.
+ * <p>
+ * Quantities and values are summed as whole units of the fractions of the snapshot, and only turned into
+ * {@link BigDecimal}s by the getters. When part of an acquisition or disposal is matched, its share of the value is
+ * rounded to a unit, and the last part matched gets whatever is left, so that the cost of sold and remaining quantities
+ * always adds up to what was paid and the proceeds to what was received, as in the book. Holding periods are averaged
+ * in double precision.
+ */
+public class CostBasis {
+  /**
+   * Disposals of quantities held longer than this are long term, one year.
+   */
+  public static final long LONG_TERM_SECONDS = 365L * 24 * 60 * 60;
+
+  @Getter
+  private final CostBasisMethod method;
+  private final long amountFraction;
+  private final long valueFraction;
+  private long proceeds;
+  private long costOfSold;
+  private long shortTermGain;
+  private long longTermGain;
+  private long soldQuantity;
+  private long unmatchedQuantity;
+  private long remainingQuantity;
+  private long remainingCost;
+  private double heldSecondsTimesQuantity;
+
+  private int openCount;
+  private final long[] openQuantity;
+  private final long[] openAcquired;
+
+  private CostBasis(final CostBasisMethod method, final LotSnapshot snapshot) {
+    this.method = method;
+    this.amountFraction = snapshot.getAmountFraction();
+    this.valueFraction = snapshot.getValueFraction();
+    this.openQuantity = new long[snapshot.getSplitCount()];
+    this.openAcquired = new long[snapshot.getSplitCount()];
+  }
+
+  /**
+   * Sum of the disposal values.
+   */
+  public BigDecimal getProceeds() {
+    return value(proceeds);
+  }
+
+  /**
+   * Cost of the quantity disposed of.
+   */
+  public BigDecimal getCostOfSold() {
+    return value(costOfSold);
+  }
+
+  public BigDecimal getShortTermGain() {
+    return value(shortTermGain);
+  }
+
+  public BigDecimal getLongTermGain() {
+    return value(longTermGain);
+  }
+
+  public BigDecimal getRealizedGain() {
+    return value(shortTermGain + longTermGain);
+  }
+
+  public BigDecimal getSoldQuantity() {
+    return quantity(soldQuantity);
+  }
+
+  /**
+   * Quantity disposed of without a prior acquisition to match, left out of the gains.
+   */
+  public BigDecimal getUnmatchedQuantity() {
+    return quantity(unmatchedQuantity);
+  }
+
+  public BigDecimal getRemainingQuantity() {
+    return quantity(remainingQuantity);
+  }
+
+  public BigDecimal getRemainingCost() {
+    return value(remainingCost);
+  }
+
+  /**
+   * @param price price of one unit, in the currency of the values
+   * @return gain had the remaining quantity been disposed of at price
+   */
+  public BigDecimal unrealizedGain(final BigDecimal price) {
+    return getRemainingQuantity().multiply(price).subtract(getRemainingCost());
+  }
+
+  /**
+   * @return average time the disposed quantity was held, weighted by quantity
+   */
+  public double getAverageHoldingSecondsSold() {
+    return soldQuantity == 0 ? 0 : heldSecondsTimesQuantity / soldQuantity;
+  }
+
+  /**
+   * @param asOf seconds since the epoch
+   * @return average time the remaining quantity has been held at asOf, weighted by quantity
+   */
+  public double averageHoldingSecondsOpen(final long asOf) {
+    double held = 0;
+    long quantity = 0;
+    for (int i = 0; i < openCount; i++) {
+      held += (double) (asOf - openAcquired[i]) * openQuantity[i];
+      quantity += openQuantity[i];
+    }
+    return quantity == 0 ? 0 : held / quantity;
+  }
+
+  private BigDecimal quantity(final long units) {
+    return gnc_numeric.bigDecimalValue(units, amountFraction);
+  }
+
+  private BigDecimal value(final long units) {
+    return gnc_numeric.bigDecimalValue(units, valueFraction);
+  }
+
+  static CostBasis compute(final LotSnapshot snapshot, final CostBasisMethod method, final long longTermSeconds) {
+    final CostBasis result = new CostBasis(method, snapshot);
+    if (method == CostBasisMethod.LOT) {
+      for (int lot = 0; lot < snapshot.getLotCount(); lot++) {
+        result.match(snapshot, snapshot.getLotStart(lot), snapshot.getLotStart(lot + 1), longTermSeconds);
+      }
+    } else {
+      result.match(snapshot, 0, snapshot.getSplitCount(), longTermSeconds);
+    }
+    return result;
+  }
+
+  /**
+   * Match the disposals against the acquisitions of splits from inclusive to to exclusive.
+   */
+  private void match(final LotSnapshot s, final int from, final int to, final long longTermSeconds) {
+    final int[] order = IntStream.range(from, to)
+        .boxed()
+        .sorted(Comparator.<Integer>comparingLong(s::getPosted).thenComparing(i -> s.getAmountUnits(i) < 0))
+        .mapToInt(Integer::intValue)
+        .toArray();
+
+    // acquisitions not yet disposed of, oldest at head
+    final long[] quantity = new long[order.length];
+    final long[] cost = new long[order.length];
+    final long[] acquired = new long[order.length];
+    int head = 0;
+    int tail = 0;
+    long poolQuantity = 0;
+    long poolCost = 0;
+
+    for (final int i : order) {
+      final long amount = s.getAmountUnits(i);
+      if (amount > 0) {
+        quantity[tail] = amount;
+        cost[tail] = s.getValueUnits(i);
+        acquired[tail] = s.getPosted(i);
+        tail++;
+        poolQuantity += amount;
+        poolCost += s.getValueUnits(i);
+      } else if (amount < 0) {
+        final long disposed = -amount;
+        long proceedsLeft = -s.getValueUnits(i);
+        long left = disposed;
+        while (left > 0 && head < tail) {
+          final int t = method == CostBasisMethod.LIFO ? tail - 1 : head;
+          final long take = Math.min(left, quantity[t]);
+          final long trancheCost = share(cost[t], take, quantity[t]);
+          final long taken = method == CostBasisMethod.AVERAGE ? share(poolCost, take, poolQuantity) : trancheCost;
+          final long proceedsTaken = share(proceedsLeft, take, left);
+          final long held = s.getPosted(i) - acquired[t];
+          if (held > longTermSeconds) {
+            longTermGain += proceedsTaken - taken;
+          } else {
+            shortTermGain += proceedsTaken - taken;
+          }
+          proceeds += proceedsTaken;
+          proceedsLeft -= proceedsTaken;
+          costOfSold += taken;
+          soldQuantity += take;
+          heldSecondsTimesQuantity += (double) held * take;
+          poolQuantity -= take;
+          poolCost -= taken;
+          quantity[t] -= take;
+          cost[t] -= trancheCost;
+          if (quantity[t] == 0) {
+            if (t == head) {
+              head++;
+            } else {
+              tail--;
+            }
+          }
+          left -= take;
+        }
+        unmatchedQuantity += left;
+      }
+    }
+
+    for (int t = head; t < tail; t++) {
+      openQuantity[openCount] = quantity[t];
+      openAcquired[openCount] = acquired[t];
+      openCount++;
+    }
+    remainingQuantity += poolQuantity;
+    remainingCost += poolCost;
+  }
+
+  /**
+   * @return part of total for part of whole units, rounded half away from zero, all of it for the whole
+   */
+  static long share(final long total, final long part, final long whole) {
+    if (part == whole) {
+      return total;
+    }
+    return BigDecimal.valueOf(total)
+        .multiply(BigDecimal.valueOf(part))
+        .divide(BigDecimal.valueOf(whole), 0, RoundingMode.HALF_UP)
+        .longValueExact();
+  }
+}
@@ -0,0 +1,44 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GNCPolicy;
+import com.sun.jna.Pointer;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.policy.EnginePolicy.xaccGetFIFOPolicy;
+
+/**
+ * How disposals are matched against acquisitions when computing cost basis.
+ */
+public enum CostBasisMethod {
+  /**
+   * Use the lots of the engine: disposals are matched against acquisitions of the same lot, first in first out
+   * within the lot. This is specific identification when lots are assigned by hand.
+   */
+  LOT,
+  /**
+   * First in, first out across every lot of the account.
+   */
+  FIFO,
+  /**
+   * Last in, first out across every lot of the account.
+   */
+  LIFO,
+  /**
+   * Every disposal is costed at the average cost of the quantity held at the time. Holding periods are still
+   * measured first in, first out.
+   */
+  AVERAGE;
+
+  /**
+   * The method matching an account policy: {@link #FIFO} for the FIFO policy, otherwise {@link #LOT}, since the lots
+   * of the engine are the only record of how any other policy assigned splits.
+   */
+  public static CostBasisMethod forPolicy(final GNCPolicy policy) {
+    if (policy == null || policy.getPointer() == null) {
+      return LOT;
+    }
+    final GNCPolicy fifo = xaccGetFIFOPolicy();
+    return fifo != null && Pointer.nativeValue(fifo.getPointer()) == Pointer.nativeValue(policy.getPointer())
+        ? FIFO
+        : LOT;
+  }
+}
@@ -0,0 +1,131 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot;
+
+import com.austindoupnik.gnc4j.glib.GLibGList;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.Split;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.GNCLot;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.SplitList;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Lots: Core Function for AR/AP, Inventory, Stock Lots, Cap Gains
+ * <p>
+ * One often needs to know that the item 'bought' in one transaction
+ * is the same one as the item 'sold' in a different transaction.
+ * Lots are used to make this association.  One Lot holds all of the
+ * splits that involve the same item.   A lot is typically formed when
+ * the item is bought, and is closed when the item is sold out.
+ * A lot need not be a single item, it can be a quantity of the same
+ * thing e.g. 500 gallons of paint (sold off a few gallons at a time).
+ */
+@UtilityClass
+public class EngineGncLot {
+  static {
+    nativeRegister(EngineGncLot.class, "gnc-engine");
+  }
+
+  /* Lot parameter names, used to build queries */
+  public static final String LOT_IS_CLOSED = "is-closed?";
+  public static final String LOT_BALANCE = "balance";
+  public static final String LOT_TITLE = "lot-title";
+  public static final String LOT_NOTES = "notes";
+
+  public static native GNCLot gnc_lot_new(final QofBook book);
+
+  public static native void gnc_lot_destroy(final GNCLot lot);
+
+  public static native void gnc_lot_begin_edit(final GNCLot lot);
+
+  public static native void gnc_lot_commit_edit(final GNCLot lot);
+
+  /**
+   * The gnc_lot_add_split() routine adds a split to this lot.  Note that
+   * *all* splits in a lot must also be in the same account.
+   * Note that this routine adds the split unconditionally, with
+   * no regard for the accounting policy.  To enforce a particular
+   * accounting policy, use the xaccSplitAssignToLot() routine
+   * instead.
+   */
+  public static native void gnc_lot_add_split(final GNCLot lot, final Split split);
+
+  public static native void gnc_lot_remove_split(final GNCLot lot, final Split split);
+
+  /**
+   * The gnc_lot_get_split_list() routine returns a GList of all the
+   * splits in this lot.  Do *not* free this list when done;
+   * it is a pointer straight into the lots intenal list.  Do
+   * *not* add to or remove from this list directly.  Calling
+   * either gnc_lot_add_split() or gnc_lot_remove_split() will
+   * invalidate the returned pointer.
+   */
+  public static native SplitList gnc_lot_get_split_list(final GNCLot lot);
+
+  public static native int gnc_lot_count_splits(final GNCLot lot);
+
+  /**
+   * The gnc_lot_get_account() routine returns the account with which
+   * this lot is associated.
+   */
+  public static native Account gnc_lot_get_account(final GNCLot lot);
+
+  public static native void gnc_lot_set_account(final GNCLot lot, final Account account);
+
+  /**
+   * The gnc_lot_get_balance() routine returns the balance of the lot.
+   * The commodity in which this balance is expressed is the commodity
+   * of the account.
+   */
+  public static native gnc_numeric.ByValue gnc_lot_get_balance(final GNCLot lot);
+
+  /**
+   * The gnc_lot_is_closed() routine returns a boolean flag: is this
+   * lot closed?  A lot is closed if its balance is zero.  This
+   * routine is faster than using gnc_lot_get_balance() because
+   * once the balance goes to zero, this fact is cached.
+   */
+  public static native boolean gnc_lot_is_closed(final GNCLot lot);
+
+  /**
+   * The gnc_lot_get_earliest_split() routine is a convenience routine
+   * that helps identify the date this lot was opened.   It simply
+   * loops over all of the splits in the lot, and returns the split
+   * with the earliest {@code split->transaction->date_posted}.
+   */
+  public static native Split gnc_lot_get_earliest_split(final GNCLot lot);
+
+  /**
+   * The gnc_lot_get_latest_split() routine is a convenience routine
+   * that helps identify the date this lot was closed.   It simply
+   * loops over all of the splits in the lot, and returns the split
+   * with the latest {@code split->transaction->date_posted}.
+   */
+  public static native Split gnc_lot_get_latest_split(final GNCLot lot);
+
+  /**
+   * Get the lot title
+   */
+  public static native String gnc_lot_get_title(final GNCLot lot);
+
+  /**
+   * Get the lot notes
+   */
+  public static native String gnc_lot_get_notes(final GNCLot lot);
+
+  public static native void gnc_lot_set_title(final GNCLot lot, final String title);
+
+  public static native void gnc_lot_set_notes(final GNCLot lot, final String notes);
+
+  public static native QofBook gnc_lot_get_book(final GNCLot lot);
+
+  /**
+   * @return the splits of the lot as split pointers, the list itself belongs to the lot
+   */
+  public static long[] gnc_lot_get_split_pointers(final GNCLot lot) {
+    final SplitList splits = gnc_lot_get_split_list(lot);
+    return splits == null ? new long[0] : GLibGList.toPointerArray(splits.getPointer());
+  }
+}
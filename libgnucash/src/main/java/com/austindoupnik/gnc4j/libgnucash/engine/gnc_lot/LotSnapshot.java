@@ -0,0 +1,234 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot;
+
+import com.austindoupnik.gnc4j.glib.GLibGList;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.Split;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.GNCLot;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.LotList;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.gnc_account_get_policy;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetCommoditySCU;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetLotList;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_commodity.EngineGncCommodity.gnc_commodity_get_fraction;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot.EngineGncLot.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.xaccTransGetCurrency;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.xaccTransRetDatePosted;
+
+/**
+ * Copy of the lots of an account and of the splits in them.
+ * <p>
+ * {@link #of(Account)} reads every lot and split from the engine once, everything after that, including
+ * {@link #costBasis(CostBasisMethod)}, runs in Java over the copied arrays. The splits of lot i are the splits
+ * {@code getLotStart(i)} inclusive to {@code getLotStart(i + 1)} exclusive. Splits of the account that are not in
+ * any lot are not part of the snapshot, scrub the account's lots first to include them.
+ * <p>
+ * Amounts are copied as a number of units of the commodity fraction of the account, and values as a number of units
+ * of the fraction of the currency of the first split's transaction, so that cost bases are computed exactly.
+ */
+public class LotSnapshot {
+  @Getter
+  private final CostBasisMethod policy;
+  private final long[] lots;
+  private final boolean[] closed;
+  private final String[] titles;
+  private final int[] lotStart;
+  private final long[] splits;
+  private final long[] posted;
+  /**
+   * Units in one of amounts.
+   */
+  @Getter
+  private final long amountFraction;
+  private final long[] amounts;
+  /**
+   * Units in one of values.
+   */
+  @Getter
+  private final long valueFraction;
+  private final long[] values;
+
+  LotSnapshot(
+      final CostBasisMethod policy,
+      final long[] lots,
+      final boolean[] closed,
+      final String[] titles,
+      final int[] lotStart,
+      final long[] splits,
+      final long[] posted,
+      final long amountFraction,
+      final long[] amounts,
+      final long valueFraction,
+      final long[] values
+  ) {
+    this.policy = policy;
+    this.lots = lots;
+    this.closed = closed;
+    this.titles = titles;
+    this.lotStart = lotStart;
+    this.splits = splits;
+    this.posted = posted;
+    this.amountFraction = amountFraction;
+    this.amounts = amounts;
+    this.valueFraction = valueFraction;
+    this.values = values;
+  }
+
+  /**
+   * Copy the lots of an account.
+   */
+  public static LotSnapshot of(@NonNull final Account account) {
+    return NativeMetrics.timed("lot_snapshot", () -> read(account));
+  }
+
+  private static LotSnapshot read(final Account account) {
+    final LotList list = xaccAccountGetLotList(account);
+    final long[] lots;
+    if (list == null) {
+      lots = new long[0];
+    } else {
+      lots = GLibGList.toPointerArray(list.getPointer());
+      GLibGList.g_list_free(list.getPointer());
+    }
+
+    final boolean[] closed = new boolean[lots.length];
+    final String[] titles = new String[lots.length];
+    final int[] lotStart = new int[lots.length + 1];
+    final long[][] lotSplits = new long[lots.length][];
+    for (int i = 0; i < lots.length; i++) {
+      final GNCLot lot = new GNCLot(new Pointer(lots[i]));
+      closed[i] = gnc_lot_is_closed(lot);
+      titles[i] = gnc_lot_get_title(lot);
+      lotSplits[i] = gnc_lot_get_split_pointers(lot);
+      lotStart[i + 1] = lotStart[i] + lotSplits[i].length;
+    }
+
+    final int n = lotStart[lots.length];
+    final long[] splits = new long[n];
+    final long[] posted = new long[n];
+    final long amountFraction = xaccAccountGetCommoditySCU(account);
+    final long[] amounts = new long[n];
+    long valueFraction = 0;
+    final long[] values = new long[n];
+    for (int i = 0; i < lots.length; i++) {
+      System.arraycopy(lotSplits[i], 0, splits, lotStart[i], lotSplits[i].length);
+    }
+    for (int i = 0; i < n; i++) {
+      final Split split = new Split(new Pointer(splits[i]));
+      final Transaction trans = xaccSplitGetParent(split);
+      if (i == 0) {
+        valueFraction = gnc_commodity_get_fraction(xaccTransGetCurrency(trans));
+      }
+      posted[i] = xaccTransRetDatePosted(trans).longValue();
+      amounts[i] = xaccSplitGetAmount(split).scaledValue(amountFraction);
+      values[i] = xaccSplitGetValue(split).scaledValue(valueFraction);
+    }
+
+    return new LotSnapshot(
+        CostBasisMethod.forPolicy(gnc_account_get_policy(account)),
+        lots,
+        closed,
+        titles,
+        lotStart,
+        splits,
+        posted,
+        amountFraction,
+        amounts,
+        valueFraction == 0 ? amountFraction : valueFraction,
+        values
+    );
+  }
+
+  public int getLotCount() {
+    return lots.length;
+  }
+
+  public GNCLot getLot(final int lot) {
+    return new GNCLot(new Pointer(lots[lot]));
+  }
+
+  public boolean isClosed(final int lot) {
+    return closed[lot];
+  }
+
+  public String getTitle(final int lot) {
+    return titles[lot];
+  }
+
+  /**
+   * @param lot index of a lot, or the number of lots for the end of the last lot
+   * @return index of the first split of the lot
+   */
+  public int getLotStart(final int lot) {
+    return lotStart[lot];
+  }
+
+  public int getSplitCount() {
+    return splits.length;
+  }
+
+  public Split getSplit(final int split) {
+    return new Split(new Pointer(splits[split]));
+  }
+
+  /**
+   * @return posted date of the transaction of the split, in seconds since the epoch
+   */
+  public long getPosted(final int split) {
+    return posted[split];
+  }
+
+  /**
+   * @return amount of the split, in the commodity of the account
+   */
+  public BigDecimal getAmount(final int split) {
+    return gnc_numeric.bigDecimalValue(amounts[split], amountFraction);
+  }
+
+  /**
+   * @return amount of the split, in units of {@link #getAmountFraction()}
+   */
+  public long getAmountUnits(final int split) {
+    return amounts[split];
+  }
+
+  /**
+   * @return value of the split, in the currency of its transaction
+   */
+  public BigDecimal getValue(final int split) {
+    return gnc_numeric.bigDecimalValue(values[split], valueFraction);
+  }
+
+  /**
+   * @return value of the split, in units of {@link #getValueFraction()}
+   */
+  public long getValueUnits(final int split) {
+    return values[split];
+  }
+
+  /**
+   * Cost basis using the method matching the policy of the account.
+   */
+  public CostBasis costBasis() {
+    return costBasis(policy);
+  }
+
+  public CostBasis costBasis(@NonNull final CostBasisMethod method) {
+    return costBasis(method, CostBasis.LONG_TERM_SECONDS);
+  }
+
+  /**
+   * @param longTermSeconds disposals of quantities held longer than this count as long term gains
+   */
+  public CostBasis costBasis(@NonNull final CostBasisMethod method, final long longTermSeconds) {
+    return CostBasis.compute(this, method, longTermSeconds);
+  }
+}
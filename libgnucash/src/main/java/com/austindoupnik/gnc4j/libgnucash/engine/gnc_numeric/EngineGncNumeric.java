@@ -3,6 +3,7 @@ package com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric;
 import com.austindoupnik.gnc4j.glib.GInt;
 import com.austindoupnik.gnc4j.glib.GInt64;
 import com.austindoupnik.gnc4j.glib.GUInt8;
+import com.austindoupnik.gnc4j.jna_core.SizeT;
 import lombok.experimental.UtilityClass;
 
 import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
@@ -208,4 +209,9 @@ public class EngineGncNumeric {
    * @return a gnc_numeric that is the inverse of num
    */
   public static native gnc_numeric.ByValue gnc_numeric_invert(final gnc_numeric num);
+
+  /**
+   * Returns the GType of a gnc_numeric, GNC_TYPE_NUMERIC, for reading boxed gnc_numeric properties.
+   */
+  public static native SizeT gnc_numeric_get_type();
 }
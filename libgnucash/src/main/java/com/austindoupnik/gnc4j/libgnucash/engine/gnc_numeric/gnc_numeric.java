@@ -7,6 +7,10 @@ import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldNameConstants;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
 import static com.sun.jna.Structure.FieldOrder;
 
 @FieldOrder({
@@ -40,4 +44,65 @@ public class gnc_numeric extends Structure {
     write();
     return new ByValue(getPointer());
   }
+
+  /**
+   * @return the value as a double, 0 for a zero denominator; a negative denominator is a multiplier
+   */
+  public double doubleValue() {
+    final long d = denom.longValue();
+    if (d < 0) {
+      return (double) num.longValue() * -d;
+    }
+    return d == 0 ? 0 : (double) num.longValue() / d;
+  }
+
+  /**
+   * @return the exact value, 0 for a zero denominator; a negative denominator is a multiplier, and a denominator that
+   * is not a product of twos and fives is rounded to 34 significant digits
+   */
+  public BigDecimal bigDecimalValue() {
+    return bigDecimalValue(num.longValue(), denom.longValue());
+  }
+
+  /**
+   * @param fraction units in one, such as the fraction of a commodity
+   * @return the value as a number of units, rounded half away from zero when it falls between two
+   * @throws ArithmeticException when that number does not fit in a long
+   */
+  public long scaledValue(final long fraction) {
+    final long n = num.longValue();
+    final long d = denom.longValue();
+    if (d == fraction) {
+      return n;
+    }
+    if (d < 0) {
+      return Math.multiplyExact(Math.multiplyExact(n, -d), fraction);
+    }
+    if (d == 0) {
+      return 0;
+    }
+    return BigDecimal.valueOf(n)
+        .multiply(BigDecimal.valueOf(fraction))
+        .divide(BigDecimal.valueOf(d), 0, RoundingMode.HALF_UP)
+        .longValueExact();
+  }
+
+  /**
+   * Exact value of num / denom, as by {@link #bigDecimalValue()}; for converting amounts kept as a number of units,
+   * see {@link #scaledValue(long)}, back at the edge of an API.
+   */
+  public static BigDecimal bigDecimalValue(final long num, final long denom) {
+    final BigDecimal n = BigDecimal.valueOf(num);
+    if (denom < 0) {
+      return n.multiply(BigDecimal.valueOf(-denom));
+    }
+    if (denom == 0) {
+      return BigDecimal.ZERO;
+    }
+    try {
+      return n.divide(BigDecimal.valueOf(denom));
+    } catch (final ArithmeticException ex) {
+      return n.divide(BigDecimal.valueOf(denom), MathContext.DECIMAL128);
+    }
+  }
 }
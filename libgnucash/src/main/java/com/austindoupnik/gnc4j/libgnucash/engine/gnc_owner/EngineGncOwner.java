@@ -0,0 +1,70 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.QofInstance;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GncGUID;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_customer.EngineGncCustomer.GncCustomer;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_employee.EngineGncEmployee.GncEmployee;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_vendor.EngineGncVendor.GncVendor;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Business Interface: Object OWNERs
+ * <p>
+ * An owner is who a business document belongs to: a customer, a job of a customer, a vendor or an employee.
+ */
+@UtilityClass
+public class EngineGncOwner {
+  static {
+    nativeRegister(EngineGncOwner.class, "gnc-engine");
+  }
+
+  @NoArgsConstructor
+  public static class GncOwner extends PointerType {
+    public GncOwner(final Pointer p) {
+      super(p);
+    }
+  }
+
+  public static native GncOwnerType gncOwnerGetType(final GncOwner owner);
+
+  /**
+   * Returns TRUE if the given owner is one of the valid objects.
+   */
+  public static native boolean gncOwnerIsValid(final GncOwner owner);
+
+  public static native GncCustomer gncOwnerGetCustomer(final GncOwner owner);
+
+  public static native GncVendor gncOwnerGetVendor(final GncOwner owner);
+
+  public static native GncEmployee gncOwnerGetEmployee(final GncOwner owner);
+
+  public static native String gncOwnerGetID(final GncOwner owner);
+
+  public static native String gncOwnerGetName(final GncOwner owner);
+
+  public static native boolean gncOwnerGetActive(final GncOwner owner);
+
+  public static native gnc_commodity gncOwnerGetCurrency(final GncOwner owner);
+
+  /**
+   * Get the GncGUID of the immediate owner
+   */
+  public static native GncGUID gncOwnerGetGUID(final GncOwner owner);
+
+  /**
+   * Get the "parent" Owner or GncGUID thereof.  The "parent" owner
+   * is the Customer or Vendor, or the Owner of a Job
+   */
+  public static native GncOwner gncOwnerGetEndOwner(final GncOwner owner);
+
+  /**
+   * return the owner itself as an entity.
+   */
+  public static native QofInstance qofOwnerGetOwner(final GncOwner owner);
+}
@@ -0,0 +1,18 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum GncOwnerType implements JnaEnum<GncOwnerType> {
+  GNC_OWNER_NONE(0),
+  GNC_OWNER_UNDEFINED(1),
+  GNC_OWNER_CUSTOMER(2),
+  GNC_OWNER_JOB(3),
+  GNC_OWNER_VENDOR(4),
+  GNC_OWNER_EMPLOYEE(5);
+
+  private final int value;
+}
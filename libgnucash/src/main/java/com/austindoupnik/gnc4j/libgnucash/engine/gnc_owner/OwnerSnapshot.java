@@ -0,0 +1,255 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner;
+
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.QofInstance;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_customer.EngineGncCustomer.GncCustomer;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_employee.EngineGncEmployee.GncEmployee;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_vendor.EngineGncVendor.GncVendor;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.qof_book_get_collection;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_get_pointers;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_customer.EngineGncCustomer.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_employee.EngineGncEmployee.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_vendor.EngineGncVendor.*;
+
+/**
+ * Copy of the customers, vendors and employees of a book.
+ * <p>
+ * {@link #of} walks each of the three collections once. Owner i has {@link #getType(int)},
+ * {@link #getId(int)}, {@link #getName(int)} (the user name of an employee without a name), {@link #isActive(int)}
+ * and {@link #getCurrency(int)}; {@link #indexOf} finds the owners of an {@code InvoiceSnapshot}.
+ */
+public class OwnerSnapshot {
+  private final long[] owners;
+  private final GncOwnerType[] types;
+  private final String[] ids;
+  private final String[] names;
+  private final boolean[] active;
+  private final long[] currencies;
+  private final Map<Long, Integer> rows;
+
+  private OwnerSnapshot(final int capacity) {
+    this.owners = new long[capacity];
+    this.types = new GncOwnerType[capacity];
+    this.ids = new String[capacity];
+    this.names = new String[capacity];
+    this.active = new boolean[capacity];
+    this.currencies = new long[capacity];
+    this.rows = new HashMap<>(capacity * 2);
+  }
+
+  /**
+   * The owners of the book being copied and the attributes of each, owners and commodities as native addresses.
+   */
+  interface Source {
+    /**
+     * @return the owners of a type, customers, vendors or employees
+     */
+    long[] owners(final GncOwnerType type);
+
+    String id(final GncOwnerType type, final long owner);
+
+    String name(final GncOwnerType type, final long owner);
+
+    /**
+     * @return the user name of an employee
+     */
+    String username(final long employee);
+
+    boolean isActive(final GncOwnerType type, final long owner);
+
+    /**
+     * @return address of the currency of the owner, 0 when it has none
+     */
+    long currency(final GncOwnerType type, final long owner);
+  }
+
+  private static final GncOwnerType[] TYPES = {
+      GncOwnerType.GNC_OWNER_CUSTOMER,
+      GncOwnerType.GNC_OWNER_VENDOR,
+      GncOwnerType.GNC_OWNER_EMPLOYEE
+  };
+
+  /**
+   * Copy the owners of a book.
+   */
+  public static OwnerSnapshot of(@NonNull final QofBook book) {
+    return NativeMetrics.timed("owner_snapshot", () -> read(engine(book)));
+  }
+
+  static OwnerSnapshot read(final Source source) {
+    final long[][] owners = new long[TYPES.length][];
+    int capacity = 0;
+    for (int t = 0; t < TYPES.length; t++) {
+      owners[t] = source.owners(TYPES[t]);
+      capacity += owners[t].length;
+    }
+    final OwnerSnapshot snapshot = new OwnerSnapshot(capacity);
+    int n = 0;
+    for (int t = 0; t < TYPES.length; t++) {
+      final GncOwnerType type = TYPES[t];
+      for (final long owner : owners[t]) {
+        String name = source.name(type, owner);
+        if (type == GncOwnerType.GNC_OWNER_EMPLOYEE && (name == null || name.isEmpty())) {
+          name = source.username(owner);
+        }
+        snapshot.set(n++, owner, type, source.id(type, owner), name, source.isActive(type, owner),
+            source.currency(type, owner));
+      }
+    }
+    return snapshot;
+  }
+
+  private void set(
+      final int i,
+      final long owner,
+      final GncOwnerType type,
+      final String id,
+      final String name,
+      final boolean isActive,
+      final long currency
+  ) {
+    owners[i] = owner;
+    types[i] = type;
+    ids[i] = id;
+    names[i] = name;
+    active[i] = isActive;
+    currencies[i] = currency;
+    rows.put(owner, i);
+  }
+
+  /**
+   * @return number of owners
+   */
+  public int size() {
+    return owners.length;
+  }
+
+  /**
+   * @return the customer, vendor or employee
+   */
+  public QofInstance getOwner(final int i) {
+    return new QofInstance(new Pointer(owners[i]));
+  }
+
+  public GncOwnerType getType(final int i) {
+    return types[i];
+  }
+
+  public String getId(final int i) {
+    return ids[i];
+  }
+
+  public String getName(final int i) {
+    return names[i];
+  }
+
+  public boolean isActive(final int i) {
+    return active[i];
+  }
+
+  public gnc_commodity getCurrency(final int i) {
+    return currencies[i] == 0 ? null : new gnc_commodity(new Pointer(currencies[i]));
+  }
+
+  /**
+   * @return index of the owner, -1 when it is not a customer, vendor or employee of the snapshot
+   */
+  public int indexOf(@NonNull final QofInstance owner) {
+    final Integer i = rows.get(Pointer.nativeValue(owner.getPointer()));
+    return i == null ? -1 : i;
+  }
+
+  private static Source engine(final QofBook book) {
+    return new Source() {
+      @Override
+      public long[] owners(final GncOwnerType type) {
+        switch (type) {
+          case GNC_OWNER_CUSTOMER:
+            return qof_collection_get_pointers(qof_book_get_collection(book, GNC_ID_CUSTOMER));
+          case GNC_OWNER_VENDOR:
+            return qof_collection_get_pointers(qof_book_get_collection(book, GNC_ID_VENDOR));
+          default:
+            return qof_collection_get_pointers(qof_book_get_collection(book, GNC_ID_EMPLOYEE));
+        }
+      }
+
+      @Override
+      public String id(final GncOwnerType type, final long owner) {
+        switch (type) {
+          case GNC_OWNER_CUSTOMER:
+            return gncCustomerGetID(customer(owner));
+          case GNC_OWNER_VENDOR:
+            return gncVendorGetID(vendor(owner));
+          default:
+            return gncEmployeeGetID(employee(owner));
+        }
+      }
+
+      @Override
+      public String name(final GncOwnerType type, final long owner) {
+        switch (type) {
+          case GNC_OWNER_CUSTOMER:
+            return gncCustomerGetName(customer(owner));
+          case GNC_OWNER_VENDOR:
+            return gncVendorGetName(vendor(owner));
+          default:
+            return gncEmployeeGetName(employee(owner));
+        }
+      }
+
+      @Override
+      public String username(final long employee) {
+        return gncEmployeeGetUsername(employee(employee));
+      }
+
+      @Override
+      public boolean isActive(final GncOwnerType type, final long owner) {
+        switch (type) {
+          case GNC_OWNER_CUSTOMER:
+            return gncCustomerGetActive(customer(owner));
+          case GNC_OWNER_VENDOR:
+            return gncVendorGetActive(vendor(owner));
+          default:
+            return gncEmployeeGetActive(employee(owner));
+        }
+      }
+
+      @Override
+      public long currency(final GncOwnerType type, final long owner) {
+        final gnc_commodity currency;
+        switch (type) {
+          case GNC_OWNER_CUSTOMER:
+            currency = gncCustomerGetCurrency(customer(owner));
+            break;
+          case GNC_OWNER_VENDOR:
+            currency = gncVendorGetCurrency(vendor(owner));
+            break;
+          default:
+            currency = gncEmployeeGetCurrency(employee(owner));
+            break;
+        }
+        return currency == null ? 0 : Pointer.nativeValue(currency.getPointer());
+      }
+    };
+  }
+
+  private static GncCustomer customer(final long owner) {
+    return new GncCustomer(new Pointer(owner));
+  }
+
+  private static GncVendor vendor(final long owner) {
+    return new GncVendor(new Pointer(owner));
+  }
+
+  private static GncEmployee employee(final long owner) {
+    return new GncEmployee(new Pointer(owner));
+  }
+}
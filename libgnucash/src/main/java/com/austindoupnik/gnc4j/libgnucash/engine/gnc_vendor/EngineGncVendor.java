@@ -0,0 +1,57 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_vendor;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Core Vendor Interface
+ */
+@UtilityClass
+public class EngineGncVendor {
+  static {
+    nativeRegister(EngineGncVendor.class, "gnc-engine");
+  }
+
+  public static final String GNC_ID_VENDOR = "gncVendor";
+
+  @NoArgsConstructor
+  public static class GncVendor extends PointerType {
+    public GncVendor(final Pointer p) {
+      super(p);
+    }
+  }
+
+  public static native GncVendor gncVendorCreate(final QofBook book);
+
+  public static native void gncVendorDestroy(final GncVendor vendor);
+
+  public static native void gncVendorBeginEdit(final GncVendor vendor);
+
+  public static native void gncVendorCommitEdit(final GncVendor vendor);
+
+  public static native void gncVendorSetID(final GncVendor vendor, final String id);
+
+  public static native void gncVendorSetName(final GncVendor vendor, final String name);
+
+  public static native void gncVendorSetNotes(final GncVendor vendor, final String notes);
+
+  public static native void gncVendorSetActive(final GncVendor vendor, final boolean active);
+
+  public static native void gncVendorSetCurrency(final GncVendor vendor, final gnc_commodity currency);
+
+  public static native String gncVendorGetID(final GncVendor vendor);
+
+  public static native String gncVendorGetName(final GncVendor vendor);
+
+  public static native String gncVendorGetNotes(final GncVendor vendor);
+
+  public static native boolean gncVendorGetActive(final GncVendor vendor);
+
+  public static native gnc_commodity gncVendorGetCurrency(final GncVendor vendor);
+}
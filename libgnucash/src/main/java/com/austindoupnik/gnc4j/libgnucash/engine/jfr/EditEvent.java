@@ -0,0 +1,44 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An edit cycle of an account or transaction, from the outermost begin edit to the matching commit or rollback, see
+ * {@link EngineRecording}.
+ */
+@Name("gnc4j.engine.Edit")
+@Label("Edit Cycle")
+@Category({"gnc4j", "Engine"})
+@Description("Begin edit to commit or rollback of an account or transaction")
+public class EditEvent extends Event {
+  @Label("Entity Type")
+  String entityType;
+
+  @Label("Committed")
+  @Description("False when the edit was rolled back")
+  boolean committed;
+
+  @Label("Splits")
+  @Description("Splits in the transaction when the edit ended, zero for accounts")
+  long splits;
+
+  static EditEvent start() {
+    final EditEvent event = new EditEvent();
+    event.begin();
+    return event;
+  }
+
+  void finish(final String entityType, final boolean committed, final long splits) {
+    end();
+    if (shouldCommit()) {
+      this.entityType = entityType;
+      this.committed = committed;
+      this.splits = splits;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.jfr;
+
+import com.austindoupnik.gnc4j.jna_core.FlightRecorderSupport;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.QofPercentageFunc;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.QofSession;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.SessionOpenMode;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.sun.jna.Pointer;
+import lombok.experimental.UtilityClass;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofSession.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountBeginEdit;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountCommitEdit;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_ACCOUNT;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_TRANS;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.*;
+
+/**
+ * Session and edit operations that report to Java Flight Recorder.
+ * <p>
+ * Each method calls the native function of the same name and emits a {@link SessionEvent} or {@link EditEvent}
+ * describing it. Nested begin edits of the same entity are folded into one event, spanning the outermost begin edit
+ * to the matching commit or rollback. Edits begun without going through this class are not recorded.
+ * <p>
+ * Anything only needed by an event, such as entity counts, is only fetched from the engine while a recording with
+ * the event enabled is running. On a JVM without Flight Recorder the native functions are called directly.
+ */
+@UtilityClass
+public class EngineRecording {
+  private static final boolean JFR = FlightRecorderSupport.isAvailable();
+
+  private static class PendingEdit {
+    private final EditEvent event;
+    private int depth = 1;
+
+    private PendingEdit(final EditEvent event) {
+      this.event = event;
+    }
+  }
+
+  private static final ThreadLocal<Map<Long, PendingEdit>> EDITS = ThreadLocal.withInitial(HashMap::new);
+
+  public static void sessionBegin(final QofSession session, final String new_uri, final SessionOpenMode mode) {
+    if (!JFR) {
+      qof_session_begin(session, new_uri, mode);
+      return;
+    }
+    final SessionEvent event = SessionEvent.start();
+    NativeMetrics.timed("qof_session_begin", () -> qof_session_begin(session, new_uri, mode));
+    event.finish("begin", new_uri, event.isEnabled() ? qof_session_get_error(session) : 0, null);
+  }
+
+  public static void sessionLoad(final QofSession session, final QofPercentageFunc percentage_func) {
+    session("load", session, () -> qof_session_load(session, percentage_func));
+  }
+
+  public static void sessionSave(final QofSession session, final QofPercentageFunc percentage_func) {
+    session("save", session, () -> qof_session_save(session, percentage_func));
+  }
+
+  public static void sessionEnd(final QofSession session) {
+    session("end", session, () -> qof_session_end(session));
+  }
+
+  public static void accountBeginEdit(final Account account) {
+    beginEdit(account.getPointer());
+    xaccAccountBeginEdit(account);
+  }
+
+  public static void accountCommitEdit(final Account account) {
+    final PendingEdit edit = endEdit(account.getPointer());
+    xaccAccountCommitEdit(account);
+    if (edit != null) {
+      edit.event.finish(GNC_ID_ACCOUNT, true, 0);
+    }
+  }
+
+  public static void transBeginEdit(final Transaction trans) {
+    beginEdit(trans.getPointer());
+    xaccTransBeginEdit(trans);
+  }
+
+  public static void transCommitEdit(final Transaction trans) {
+    final PendingEdit edit = endEdit(trans.getPointer());
+    // the transaction may be destroyed by the commit
+    final long splits = edit != null && edit.event.isEnabled() ? xaccTransCountSplits(trans) : 0;
+    xaccTransCommitEdit(trans);
+    if (edit != null) {
+      edit.event.finish(GNC_ID_TRANS, true, splits);
+    }
+  }
+
+  public static void transRollbackEdit(final Transaction trans) {
+    final PendingEdit edit = endEdit(trans.getPointer());
+    // the transaction may be destroyed by the rollback
+    final long splits = edit != null && edit.event.isEnabled() ? xaccTransCountSplits(trans) : 0;
+    xaccTransRollbackEdit(trans);
+    if (edit != null) {
+      edit.event.finish(GNC_ID_TRANS, false, splits);
+    }
+  }
+
+  private static void session(final String operation, final QofSession session, final Runnable call) {
+    if (!JFR) {
+      call.run();
+      return;
+    }
+    final SessionEvent event = SessionEvent.start();
+    final String url = event.isEnabled() ? qof_session_get_url(session) : null;
+    NativeMetrics.timed("qof_session_" + operation, call);
+    if (event.isEnabled()) {
+      event.finish(operation, url, qof_session_get_error(session), qof_session_get_book(session));
+    } else {
+      event.finish(operation, null, 0, null);
+    }
+  }
+
+  private static void beginEdit(final Pointer entity) {
+    if (!JFR) {
+      return;
+    }
+    final PendingEdit edit = EDITS.get().get(Pointer.nativeValue(entity));
+    if (edit != null) {
+      edit.depth++;
+    } else {
+      EDITS.get().put(Pointer.nativeValue(entity), new PendingEdit(EditEvent.start()));
+    }
+  }
+
+  /**
+   * @return the edit when this ends the outermost begin edit, otherwise null
+   */
+  private static PendingEdit endEdit(final Pointer entity) {
+    if (!JFR) {
+      return null;
+    }
+    final Map<Long, PendingEdit> edits = EDITS.get();
+    final PendingEdit edit = edits.get(Pointer.nativeValue(entity));
+    if (edit == null || --edit.depth > 0) {
+      return null;
+    }
+    edits.remove(Pointer.nativeValue(entity));
+    return edit;
+  }
+}
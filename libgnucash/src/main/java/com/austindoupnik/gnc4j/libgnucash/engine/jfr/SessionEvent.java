@@ -0,0 +1,63 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.jfr;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.qof_book_get_collection;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_count;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_ACCOUNT;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_SPLIT;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_TRANS;
+
+/**
+ * A session was begun, loaded, saved or ended, see {@link EngineRecording}.
+ */
+@Name("gnc4j.engine.Session")
+@Label("Session Operation")
+@Category({"gnc4j", "Engine"})
+@Description("Begin, load, save or end of a QofSession")
+public class SessionEvent extends Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Book URI")
+  String bookUri;
+
+  @Label("Error")
+  @Description("QofBackendError of the session after the operation")
+  int error;
+
+  @Label("Accounts")
+  long accounts;
+
+  @Label("Transactions")
+  long transactions;
+
+  @Label("Splits")
+  long splits;
+
+  static SessionEvent start() {
+    final SessionEvent event = new SessionEvent();
+    event.begin();
+    return event;
+  }
+
+  void finish(final String operation, final String bookUri, final int error, final QofBook book) {
+    end();
+    if (shouldCommit()) {
+      this.operation = operation;
+      this.bookUri = bookUri;
+      this.error = error;
+      if (book != null) {
+        this.accounts = qof_collection_count(qof_book_get_collection(book, GNC_ID_ACCOUNT)).longValue();
+        this.transactions = qof_collection_count(qof_book_get_collection(book, GNC_ID_TRANS)).longValue();
+        this.splits = qof_collection_count(qof_book_get_collection(book, GNC_ID_SPLIT)).longValue();
+      }
+      commit();
+    }
+  }
+}
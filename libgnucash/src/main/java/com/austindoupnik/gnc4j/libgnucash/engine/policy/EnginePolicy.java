@@ -0,0 +1,41 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.policy;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GNCPolicy;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Implement Accounting Policy.
+ * <p>
+ * This file implements Accounting Policy.  The Accounting Policy
+ * determines how splits are assigned to lots.  The default policy
+ * is the FIFO policy: the first thing bought is also the first thing sold.
+ * <p>
+ * The LIFO, average cost and manual policies are only compiled into the
+ * engine when it is built with STUB_POLICIES, so they are not bound here.
+ */
+@UtilityClass
+public class EnginePolicy {
+  static {
+    nativeRegister(EnginePolicy.class, "gnc-engine");
+  }
+
+  public static final String POLICY_FIFO = "fifo";
+  public static final String POLICY_LIFO = "lifo";
+  public static final String POLICY_AVERAGE = "average";
+  public static final String POLICY_MANUAL = "manual";
+
+  /**
+   * First-in, First-out Policy
+   * This policy will create FIFO Lots.  FIFO Lots have the following
+   * properties:
+   * -- The lot is started with the earliest posted split that isn't
+   * a part of another lot already.
+   * -- Splits are added to the lot in date order, with earliest splits
+   * added first.
+   * -- All splits in the lot share the same transaction currency as
+   * the split that opened the lot.
+   */
+  public static native GNCPolicy xaccGetFIFOPolicy();
+}
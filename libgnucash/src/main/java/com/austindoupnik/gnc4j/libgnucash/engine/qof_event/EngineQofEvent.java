@@ -0,0 +1,90 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_event;
+
+import com.sun.jna.Callback;
+import com.sun.jna.Pointer;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * QOF event handling interface
+ */
+@UtilityClass
+@SuppressWarnings("unused")
+public class EngineQofEvent {
+  static {
+    nativeRegister(EngineQofEvent.class, "gnc-engine");
+  }
+
+  public static final int QOF_EVENT_NONE = 0;
+  public static final int QOF_EVENT_CREATE = 1;
+  public static final int QOF_EVENT_MODIFY = 1 << 1;
+  public static final int QOF_EVENT_DESTROY = 1 << 2;
+  public static final int QOF_EVENT_ADD = 1 << 3;
+  public static final int QOF_EVENT_REMOVE = 1 << 4;
+  public static final int QOF_EVENT_ALL = 0xff;
+
+  /**
+   * Handler invoked when an event is generated.
+   * <p>
+   * ent: Entity generating the event
+   * event_type: The id of the event, including additional identifiers and
+   * the older defaults.
+   * handler_data: data supplied when handler was registered.
+   * event_data: data to be supplied when handler is invoked.
+   */
+  public interface QofEventHandler extends Callback {
+    void invoke(final Pointer ent, final int event_type, final Pointer handler_data, final Pointer event_data);
+  }
+
+  /**
+   * Register a handler for events.
+   *
+   * @param handler      handler to register
+   * @param handler_data data provided in handler callback
+   * @return id identifying handler
+   */
+  public static native int qof_event_register_handler(final QofEventHandler handler, final Pointer handler_data);
+
+  /**
+   * Unregister an event handler.
+   *
+   * @param handler_id the id of the handler to unregister
+   */
+  public static native void qof_event_unregister_handler(final int handler_id);
+
+  /**
+   * Invoke all registered event handlers using the given arguments.
+   * <p>
+   * Certain default events are used by QOF:
+   * <ul>
+   * <li>QOF_EVENT_DEFAULT_CREATE events should be generated after the object
+   * has been created and registered in the engine entity table.</li>
+   * <li>QOF_EVENT_DEFAULT_MODIFY events should be generated whenever any data
+   * member or submember (i.e., splits) is changed.</li>
+   * <li>QOF_EVENT_DEFAULT_DESTROY events should be called before the object
+   * has been destroyed or removed from the entity table.</li>
+   * </ul>
+   * Any other events are entirely the concern of the other objects that
+   * generate and handle them, and so are not given as default events.
+   *
+   * @param entity     the entity generating the event
+   * @param event_type the name of the event.
+   * @param event_data Data to be passed to the event handler just for
+   *                   this one event. Can be NULL.
+   */
+  public static native void qof_event_gen(final Pointer entity, final int event_type, final Pointer event_data);
+
+  /**
+   * Suspend all engine events. This function may be
+   * called multiple times. To resume event generation,
+   * an equal number of calls to qof_event_resume
+   * must be made.
+   */
+  public static native void qof_event_suspend();
+
+  /**
+   * Resume engine event generation.
+   */
+  public static native void qof_event_resume();
+}
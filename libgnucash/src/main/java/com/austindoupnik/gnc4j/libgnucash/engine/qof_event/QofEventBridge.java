@@ -0,0 +1,252 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_event;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.QofCollection;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.EngineQofEvent.QofEventHandler;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongFunction;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_get_type;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.qof_instance_get_collection;
+import static com.austindoupnik.gnc4j.libgnucash.engine.qof_event.EngineQofEvent.qof_event_register_handler;
+import static com.austindoupnik.gnc4j.libgnucash.engine.qof_event.EngineQofEvent.qof_event_unregister_handler;
+
+/**
+ * Bridges QOF engine events to Java listeners.
+ * <p>
+ * A single native handler is registered no matter how many listeners are added. The handler only records the
+ * entity, its collection and the event id into a ring buffer; listeners see the events when the buffer is drained,
+ * either explicitly through {@link #flush()} or automatically when it fills up. A buffer filling up is drained
+ * from inside the engine's event callback, in the middle of whatever engine call raised the event, so listeners
+ * must not assume the engine is in a consistent state and should only record what changed. Events raised by the
+ * listeners themselves while the buffer is drained grow the buffer and are delivered in the same batch, so no
+ * event is ever lost. Entity types are resolved once per collection and then cached.
+ * <p>
+ * The engine raises events on the thread that modifies the book, {@link #flush()} should be called from that same
+ * thread.
+ */
+public class QofEventBridge implements AutoCloseable {
+  /**
+   * Handle returned by {@link #addListener(QofEventListener, Set, String...)}, closing it removes the listener.
+   */
+  public interface Subscription extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * Events received from the engine, listener calls made for them and batches drained, with how full the buffer was
+   * when {@link #getStats()} was called.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Stats {
+    private final long received;
+    private final long delivered;
+    private final long batches;
+    private final int buffered;
+    private final int capacity;
+  }
+
+  @RequiredArgsConstructor
+  private static class Registration {
+    private final QofEventListener listener;
+    private final int mask;
+    private final Set<String> entityTypes;
+
+    private boolean matches(final String entityType, final int eventId) {
+      return (mask & eventId) != 0 && (entityTypes == null || entityTypes.contains(entityType));
+    }
+  }
+
+  private final LongFunction<String> typeResolver;
+  private long[] entities;
+  private long[] collections;
+  private int[] eventIds;
+  private int capacityMask;
+  private final Map<Long, String> types = new HashMap<>();
+  private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+  /**
+   * Strongly referenced for as long as the bridge lives, native code holds on to it.
+   */
+  private final QofEventHandler handler = this::onEvent;
+  private int handlerId = -1;
+
+  private int head;
+  private int tail;
+  private boolean flushing;
+
+  private long received;
+  private long delivered;
+  private long batches;
+
+  QofEventBridge(final int capacity, @NonNull final LongFunction<String> typeResolver) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    this.typeResolver = typeResolver;
+    this.entities = new long[size];
+    this.collections = new long[size];
+    this.eventIds = new int[size];
+    this.capacityMask = size - 1;
+  }
+
+  /**
+   * Register a bridge with the engine.
+   *
+   * @param capacity number of events buffered before they are delivered from the event callback, rounded up to a
+   *                 power of two
+   * @return the registered bridge, close it to unregister
+   */
+  public static QofEventBridge register(final int capacity) {
+    final QofEventBridge bridge = new QofEventBridge(
+        capacity,
+        c -> qof_collection_get_type(new QofCollection(new Pointer(c)))
+    );
+    bridge.handlerId = qof_event_register_handler(bridge.handler, null);
+    return bridge;
+  }
+
+  /**
+   * Listen for events.
+   *
+   * @param listener    receives matching events
+   * @param events      events of interest
+   * @param entityTypes QofIdTypes of interest, such as "Account" or "Trans"; all types when empty
+   * @return a subscription, close it to stop listening
+   */
+  public Subscription addListener(
+      @NonNull final QofEventListener listener,
+      @NonNull final Set<QofEventType> events,
+      final String... entityTypes
+  ) {
+    final Registration registration = new Registration(
+        listener,
+        QofEventType.toMask(events),
+        entityTypes.length == 0 ? null : new HashSet<>(Arrays.asList(entityTypes))
+    );
+    registrations.add(registration);
+    return () -> registrations.remove(registration);
+  }
+
+  /**
+   * Deliver all buffered events to the listeners.
+   */
+  public synchronized void flush() {
+    if (flushing || head == tail) {
+      return;
+    }
+    flushing = true;
+    try {
+      final Registration[] current = registrations.toArray(new Registration[0]);
+      final boolean[] notified = new boolean[current.length];
+      while (head != tail) {
+        final int i = head & capacityMask;
+        final long entity = entities[i];
+        final String entityType = resolveType(collections[i]);
+        final int eventId = eventIds[i];
+        head++;
+
+        final Pointer p = new Pointer(entity);
+        for (int r = 0; r < notified.length; r++) {
+          final Registration registration = current[r];
+          if (registration.matches(entityType, eventId)) {
+            registration.listener.onEvent(p, entityType, eventId);
+            notified[r] = true;
+            delivered++;
+          }
+        }
+      }
+      for (int r = 0; r < notified.length; r++) {
+        if (notified[r]) {
+          current[r].listener.onBatchEnd();
+        }
+      }
+      batches++;
+    } finally {
+      flushing = false;
+    }
+  }
+
+  public synchronized Stats getStats() {
+    return new Stats(received, delivered, batches, tail - head, entities.length);
+  }
+
+  /**
+   * Unregister from the engine and deliver anything still buffered.
+   */
+  @Override
+  public void close() {
+    if (handlerId >= 0) {
+      qof_event_unregister_handler(handlerId);
+      handlerId = -1;
+    }
+    flush();
+  }
+
+  synchronized void record(final long entity, final long collection, final int eventId) {
+    received++;
+    if (tail - head == entities.length) {
+      if (flushing) {
+        // a listener generated more events than fit in the buffer while it was being drained
+        grow();
+      } else {
+        flush();
+      }
+    }
+    final int i = tail & capacityMask;
+    entities[i] = entity;
+    collections[i] = collection;
+    eventIds[i] = eventId;
+    tail++;
+  }
+
+  private void grow() {
+    final int size = entities.length;
+    final long[] grownEntities = new long[size * 2];
+    final long[] grownCollections = new long[size * 2];
+    final int[] grownEventIds = new int[size * 2];
+    for (int n = 0; n < size; n++) {
+      final int i = (head + n) & capacityMask;
+      grownEntities[n] = entities[i];
+      grownCollections[n] = collections[i];
+      grownEventIds[n] = eventIds[i];
+    }
+    entities = grownEntities;
+    collections = grownCollections;
+    eventIds = grownEventIds;
+    capacityMask = size * 2 - 1;
+    head = 0;
+    tail = size;
+  }
+
+  private void onEvent(final Pointer entity, final int eventId, final Pointer handlerData, final Pointer eventData) {
+    if (entity == null) {
+      return;
+    }
+    final QofCollection collection = qof_instance_get_collection(entity);
+    record(Pointer.nativeValue(entity), collection == null ? 0 : Pointer.nativeValue(collection.getPointer()), eventId);
+  }
+
+  private String resolveType(final long collection) {
+    if (collection == 0) {
+      return null;
+    }
+    return types.computeIfAbsent(collection, typeResolver::apply);
+  }
+}
@@ -0,0 +1,25 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_event;
+
+import com.sun.jna.Pointer;
+
+/**
+ * Receives engine events delivered by a {@link QofEventBridge}.
+ */
+public interface QofEventListener {
+  /**
+   * Called once for each matching event in a batch.
+   *
+   * @param entity     the entity that generated the event; for {@link QofEventType#QOF_EVENT_DESTROY} it has
+   *                   usually been freed by the time the batch is delivered, so only use it as an identity key
+   * @param entityType the QofIdType of the entity, such as "Account" or "Trans"
+   * @param eventId    the raw QofEventId, may carry bits beyond the default events
+   */
+  void onEvent(final Pointer entity, final String entityType, final int eventId);
+
+  /**
+   * Called after the last event of a batch has been delivered to this listener.
+   */
+  default void onBatchEnd() {
+
+  }
+}
@@ -0,0 +1,53 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_event;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Default events used by QOF, each occupies a single bit of a QofEventId.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofEventType implements JnaEnum<QofEventType> {
+  QOF_EVENT_CREATE(1),
+  QOF_EVENT_MODIFY(1 << 1),
+  QOF_EVENT_DESTROY(1 << 2),
+  QOF_EVENT_ADD(1 << 3),
+  QOF_EVENT_REMOVE(1 << 4);
+
+  private final int value;
+
+  public static QofEventType findByValue(final int v) {
+    return JnaEnum.findByValue(QofEventType.class, v);
+  }
+
+  /**
+   * @param types the events of interest
+   * @return the QofEventId bit mask matching any of the given events
+   */
+  public static int toMask(final Set<QofEventType> types) {
+    int mask = 0;
+    for (final QofEventType type : types) {
+      mask |= type.getValue();
+    }
+    return mask;
+  }
+
+  /**
+   * @param mask a QofEventId bit mask
+   * @return the default events set in the mask, bits outside the defaults are ignored
+   */
+  public static Set<QofEventType> fromMask(final int mask) {
+    final Set<QofEventType> result = EnumSet.noneOf(QofEventType.class);
+    for (final QofEventType type : values()) {
+      if ((mask & type.getValue()) != 0) {
+        result.add(type);
+      }
+    }
+    return result;
+  }
+}
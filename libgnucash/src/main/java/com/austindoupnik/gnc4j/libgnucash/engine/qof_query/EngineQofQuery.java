@@ -0,0 +1,217 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.glib.GLibGList.GList;
+import com.austindoupnik.gnc4j.glib.GLibGSList.GSList;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Find objects that match a certain expression.
+ * <p>
+ * This query module uses a mix of "hard-wired" terms and modular parameter terms. Queries are built up of terms
+ * combined with logical operators; each term names a parameter path, such as { "trans", "date-posted" } for the
+ * posted date of the transaction of a split, and a predicate to apply to the value found at the end of that path.
+ */
+@UtilityClass
+@SuppressWarnings("unused")
+public class EngineQofQuery {
+  static {
+    nativeRegister(EngineQofQuery.class, "gnc-engine");
+  }
+
+  /* Parameter names common to all objects */
+  public static final String QOF_PARAM_BOOK = "book";
+  public static final String QOF_PARAM_GUID = "guid";
+  public static final String QOF_PARAM_KVP = "kvp";
+  public static final String QOF_PARAM_ACTIVE = "active";
+  public static final String QOF_PARAM_VERSION = "version";
+
+  /**
+   * A Query
+   */
+  @NoArgsConstructor
+  public static class QofQuery extends PointerType {
+    public QofQuery(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /**
+   * Core Data Type Predicates, the predicate data applied to the value of a term.
+   */
+  @NoArgsConstructor
+  public static class QofQueryPredData extends PointerType {
+    public QofQueryPredData(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /**
+   * Create a new query.
+   * Before running the query, a 'search-for' type must be set otherwise nothing will be returned. The results of
+   * the query is a list of the indicated search-for type.
+   * <p>
+   * Allocates and initializes a Query structure which must be freed by the user with qof_query_destroy().
+   * A newly-allocated QofQuery object matches nothing (qof_query_run() will return NULL).
+   */
+  public static native QofQuery qof_query_create();
+
+  public static native QofQuery qof_query_create_for(final String obj_type);
+
+  /**
+   * Frees the resources associate with a Query object.
+   */
+  public static native void qof_query_destroy(final QofQuery q);
+
+  /**
+   * Set the object type to be searched for. The results of performing the query will be a list of this obj_type.
+   */
+  public static native void qof_query_search_for(final QofQuery query, final String obj_type);
+
+  /**
+   * Set the book to be searched. Books contain/identify collections of objects; the search will be performed over
+   * those books specified with this function. If no books are set, no results will be returned (since there is
+   * nothing to search over).
+   * <p>
+   * You can search multiple books. To specify multiple books, call this function multiple times with different
+   * arguments.
+   */
+  public static native void qof_query_set_book(final QofQuery q, final QofBook book);
+
+  /**
+   * This is the general function that adds a new Query Term to a query. It will find the 'obj_type' object of the
+   * search item and compare the 'param_list' parameter to the predicate data via the comparator.
+   * <p>
+   * The param_list is a recursive list of parameters. For example, you can say {@code split->memo} by creating a list
+   * of one element, "SPLIT_MEMO". You can say {@code split->account->name} by creating a list of two elements,
+   * "SPLIT_ACCOUNT" and "ACCOUNT_NAME". The list becomes the property of the Query.
+   * <p>
+   * The strings held by param_list are not copied, they must outlive the query.
+   * <p>
+   * For example:
+   * <pre>
+   * acct_name_pred_data = make_string_pred_data(QOF_STRING_MATCH_CASEINSENSITIVE, account_name);
+   * param_list = make_list (SPLIT_ACCOUNT, ACCOUNT_NAME, NULL);
+   * qof_query_add_term (query, param_list, QOF_COMPARE_EQUAL, acct_name_pred_data, QOF_QUERY_AND);
+   * </pre>
+   * Please note that QofQuery does not, at this time, support joins. That is, one cannot specify a predicate that
+   * is a parameter of one object compared to a parameter of another object.
+   */
+  public static native void qof_query_add_term(
+      final QofQuery query,
+      final GSList param_list,
+      final QofQueryPredData pred_data,
+      final QofQueryOp op
+  );
+
+  /**
+   * Remove all query terms from query. query matches nothing after qof_query_clear().
+   */
+  public static native void qof_query_clear(final QofQuery query);
+
+  /**
+   * Return the number of terms in the canonical form of the query.
+   */
+  public static native int qof_query_num_terms(final QofQuery q);
+
+  /**
+   * Set the maximum number of results that should be returned. If 'max-results' is set to -1, then all of the
+   * results are returned. If there are more results than 'max-results', then the result list is trimmed. Note
+   * that there is an important interplay between 'max-results' and the sort order: only the last bit of results
+   * are returned. For example, if the sort order is set to be increasing date order, then only the objects with
+   * the most recent dates will be returned.
+   */
+  public static native void qof_query_set_max_results(final QofQuery q, final int n);
+
+  /**
+   * When a query is run, the results are sorted before being returned. This routine can be used to control the
+   * direction of the ordering. A value of TRUE indicates the sort will be in increasing order, a value of FALSE
+   * will order results in decreasing order.
+   * <p>
+   * Note that if there are more results than the 'max-results' value, then only the *last* max-results will be
+   * returned. For example, if the sort is set to be increasing date order, then only the objects with the most
+   * recent dates will be returned.
+   */
+  public static native void qof_query_set_sort_increasing(
+      final QofQuery q,
+      final boolean prim_inc,
+      final boolean sec_inc,
+      final boolean tert_inc
+  );
+
+  /**
+   * Perform the query, return the results. The returned list is a list of the 'search-for' type that was
+   * previously set with the qof_query_search_for() or the qof_query_create_for() routines. The returned list will
+   * have been sorted using the indicated sort order, and trimmed to the max_results length.
+   * <p>
+   * Do NOT free the resulting list. This list is managed internally by QofQuery.
+   * <p>
+   * The list is returned as a raw pointer to its first link rather than a {@link GList} so that it is only decoded
+   * as far as the caller actually walks it.
+   */
+  public static native Pointer qof_query_run(final QofQuery query);
+
+  /**
+   * Return the results of the last query, without causing the query to be re-run. Do NOT free the resulting list.
+   * This list is managed internally by QofQuery.
+   */
+  public static native Pointer qof_query_last_run(final QofQuery query);
+
+  /**
+   * Combine two queries together using the Boolean set (logical) operator 'op'. For example, if the operator 'op'
+   * is set to QUERY_AND, then the set of results returned by the query will be will be the intersection of the sets
+   * returned by q1 and q2. Similarly, QUERY_OR maps to set union, etc.
+   * <p>
+   * Both queries must have compatible search-types. If both queries are set, they must search for the same object
+   * type. If only one is set, the resulting query will search for the set type. If neither query has the
+   * search-type set, the result will be unset as well.
+   * <p>
+   * This will return a newly allocated QofQuery object, or NULL on error. Free it with qof_query_destroy() when no
+   * longer needed.
+   */
+  public static native QofQuery qof_query_merge(final QofQuery q1, final QofQuery q2, final QofQueryOp op);
+
+  /* Core Data Type Predicates */
+
+  public static native QofQueryPredData qof_query_string_predicate(
+      final QofQueryCompare how,
+      final String str,
+      final QofStringMatch options,
+      final boolean is_regex
+  );
+
+  public static native QofQueryPredData qof_query_date_predicate(
+      final QofQueryCompare how,
+      final QofDateMatch options,
+      final time64 date
+  );
+
+  public static native QofQueryPredData qof_query_numeric_predicate(
+      final QofQueryCompare how,
+      final QofNumericMatch options,
+      final gnc_numeric.ByValue value
+  );
+
+  /**
+   * The guids are copied, the caller remains responsible for guid_list.
+   */
+  public static native QofQueryPredData qof_query_guid_predicate(final QofGuidMatch options, final GList guid_list);
+
+  public static native QofQueryPredData qof_query_int32_predicate(final QofQueryCompare how, final int val);
+
+  public static native QofQueryPredData qof_query_int64_predicate(final QofQueryCompare how, final long val);
+
+  public static native QofQueryPredData qof_query_boolean_predicate(final QofQueryCompare how, final boolean val);
+
+  /**
+   * Destroy a predicate.
+   */
+  public static native void qof_query_core_predicate_free(final QofQueryPredData pdata);
+}
@@ -0,0 +1,23 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Comparisons for QOF_TYPE_DATE
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofDateMatch implements JnaEnum<QofDateMatch> {
+  /**
+   * The comparison uses the full time of day, the default.
+   */
+  QOF_DATE_MATCH_NORMAL(1),
+  /**
+   * The comparison ignores the time of day and matches on the day only.
+   */
+  QOF_DATE_MATCH_DAY(2);
+
+  private final int value;
+}
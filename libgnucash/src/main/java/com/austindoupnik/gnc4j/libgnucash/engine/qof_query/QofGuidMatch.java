@@ -0,0 +1,26 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Comparisons for QOF_TYPE_GUID
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofGuidMatch implements JnaEnum<QofGuidMatch> {
+  /**
+   * These expect a single object and expect the QofAccessFunc returns GncGUID*
+   */
+  QOF_GUID_MATCH_ANY(1),
+  QOF_GUID_MATCH_NONE(2),
+  QOF_GUID_MATCH_NULL(3),
+  /**
+   * This expects a GList* of objects and calls the accessor function on each item in the list.
+   */
+  QOF_GUID_MATCH_ALL(4),
+  QOF_GUID_MATCH_LIST_ANY(5);
+
+  private final int value;
+}
@@ -0,0 +1,18 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Comparisons for QOF_TYPE_NUMERIC, QOF_TYPE_DEBCRED
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofNumericMatch implements JnaEnum<QofNumericMatch> {
+  QOF_NUMERIC_MATCH_DEBIT(1),
+  QOF_NUMERIC_MATCH_CREDIT(2),
+  QOF_NUMERIC_MATCH_ANY(3);
+
+  private final int value;
+}
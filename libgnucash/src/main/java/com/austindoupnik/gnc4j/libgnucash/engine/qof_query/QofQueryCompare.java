@@ -0,0 +1,24 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Standard Query comparators, for how to compare objects in a predicate. Note that not all core types implement all
+ * comparators
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofQueryCompare implements JnaEnum<QofQueryCompare> {
+  QOF_COMPARE_LT(1),
+  QOF_COMPARE_LTE(2),
+  QOF_COMPARE_EQUAL(3),
+  QOF_COMPARE_GT(4),
+  QOF_COMPARE_GTE(5),
+  QOF_COMPARE_NEQ(6),
+  QOF_COMPARE_CONTAINS(7),
+  QOF_COMPARE_NCONTAINS(8);
+
+  private final int value;
+}
@@ -0,0 +1,20 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A Query Term Combination operator
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofQueryOp implements JnaEnum<QofQueryOp> {
+  QOF_QUERY_AND(1),
+  QOF_QUERY_OR(2),
+  QOF_QUERY_NAND(3),
+  QOF_QUERY_NOR(4),
+  QOF_QUERY_XOR(5);
+
+  private final int value;
+}
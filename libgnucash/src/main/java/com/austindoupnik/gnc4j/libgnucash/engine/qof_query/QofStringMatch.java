@@ -0,0 +1,17 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Comparisons for QOF_TYPE_STRING
+ */
+@Getter
+@RequiredArgsConstructor
+public enum QofStringMatch implements JnaEnum<QofStringMatch> {
+  QOF_STRING_MATCH_NORMAL(1),
+  QOF_STRING_MATCH_CASEINSENSITIVE(2);
+
+  private final int value;
+}
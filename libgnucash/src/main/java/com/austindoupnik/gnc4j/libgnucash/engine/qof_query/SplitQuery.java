@@ -0,0 +1,249 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query;
+
+import com.austindoupnik.gnc4j.glib.GLibGList;
+import com.austindoupnik.gnc4j.glib.GLibGList.GList;
+import com.austindoupnik.gnc4j.glib.GLibGSList;
+import com.austindoupnik.gnc4j.glib.GLibGSList.GSList;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.Split;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_query.EngineQofQuery.QofQuery;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_query.EngineQofQuery.QofQueryPredData;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.qof_instance_get_guid;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.SPLIT_ACCOUNT;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.SPLIT_AMOUNT;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.SPLIT_MEMO;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.SPLIT_TRANS;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.SPLIT_VALUE;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_SPLIT;
+import static com.austindoupnik.gnc4j.libgnucash.engine.qof_query.EngineQofQuery.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.TRANS_DATE_POSTED;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.TRANS_DESCRIPTION;
+
+/**
+ * Typed builder for queries over splits.
+ * <p>
+ * The terms are evaluated by the engine, only the matching splits cross into Java. All terms must match. A query
+ * without terms matches every split in the book.
+ * <p>
+ * Building a query does not touch the engine, the native query only exists for the duration of {@link #run}.
+ */
+public class SplitQuery {
+  @RequiredArgsConstructor
+  private static class Term {
+    private final String[] path;
+    private final Supplier<QofQueryPredData> predicate;
+  }
+
+  /**
+   * Splits matched by a query.
+   * <p>
+   * Only the split pointers are copied out of the engine, the {@link Split} handles are created on access. The
+   * splits remain valid for as long as they are not destroyed in the engine.
+   */
+  public static class Result extends AbstractList<Split> implements RandomAccess {
+    private final long[] splits;
+
+    Result(final long[] splits) {
+      this.splits = splits;
+    }
+
+    @Override
+    public Split get(final int index) {
+      return new Split(new Pointer(splits[index]));
+    }
+
+    @Override
+    public int size() {
+      return splits.length;
+    }
+  }
+
+  private final List<Term> terms = new ArrayList<>();
+  private int maxResults = -1;
+  /**
+   * Set by a term no split can match, the query then returns nothing without running.
+   */
+  private boolean matchesNothing = false;
+
+  /**
+   * Splits whose transaction was posted on or after the given time.
+   */
+  public SplitQuery postedOnOrAfter(@NonNull final time64 date) {
+    return date(QofQueryCompare.QOF_COMPARE_GTE, date);
+  }
+
+  /**
+   * Splits whose transaction was posted on or before the given time.
+   */
+  public SplitQuery postedOnOrBefore(@NonNull final time64 date) {
+    return date(QofQueryCompare.QOF_COMPARE_LTE, date);
+  }
+
+  /**
+   * Splits whose transaction was posted within the given times, inclusive.
+   */
+  public SplitQuery postedBetween(final time64 from, final time64 to) {
+    return postedOnOrAfter(from).postedOnOrBefore(to);
+  }
+
+  /**
+   * Splits whose amount, in the commodity of their account, lies within the given bounds, inclusive.
+   */
+  public SplitQuery amountBetween(@NonNull final gnc_numeric min, @NonNull final gnc_numeric max) {
+    return numeric(SPLIT_AMOUNT, QofQueryCompare.QOF_COMPARE_GTE, min)
+        .numeric(SPLIT_AMOUNT, QofQueryCompare.QOF_COMPARE_LTE, max);
+  }
+
+  /**
+   * Splits whose value, in the commodity of their transaction, lies within the given bounds, inclusive.
+   */
+  public SplitQuery valueBetween(@NonNull final gnc_numeric min, @NonNull final gnc_numeric max) {
+    return numeric(SPLIT_VALUE, QofQueryCompare.QOF_COMPARE_GTE, min)
+        .numeric(SPLIT_VALUE, QofQueryCompare.QOF_COMPARE_LTE, max);
+  }
+
+  /**
+   * Splits belonging to any of the given accounts, none when there are no accounts.
+   */
+  public SplitQuery inAccounts(@NonNull final Collection<Account> accounts) {
+    if (accounts.isEmpty()) {
+      // the engine has no predicate matching no GUID and would drop the term, matching every split
+      matchesNothing = true;
+      return this;
+    }
+    final List<Account> copy = new ArrayList<>(accounts);
+    terms.add(new Term(
+        new String[]{SPLIT_ACCOUNT, QOF_PARAM_GUID},
+        () -> {
+          final GList guids = GLibGList.fromList(copy, a -> qof_instance_get_guid(a.getPointer()).getPointer());
+          try {
+            return qof_query_guid_predicate(QofGuidMatch.QOF_GUID_MATCH_ANY, guids);
+          } finally {
+            GLibGList.g_list_free(guids);
+          }
+        }
+    ));
+    return this;
+  }
+
+  /**
+   * Splits whose transaction description contains the given text, ignoring case.
+   */
+  public SplitQuery descriptionContains(@NonNull final String text) {
+    return string(new String[]{SPLIT_TRANS, TRANS_DESCRIPTION}, QofQueryCompare.QOF_COMPARE_CONTAINS, text, false);
+  }
+
+  /**
+   * Splits whose transaction description matches the given regular expression, ignoring case.
+   */
+  public SplitQuery descriptionMatches(@NonNull final String regex) {
+    return string(new String[]{SPLIT_TRANS, TRANS_DESCRIPTION}, QofQueryCompare.QOF_COMPARE_EQUAL, regex, true);
+  }
+
+  /**
+   * Splits whose memo contains the given text, ignoring case.
+   */
+  public SplitQuery memoContains(@NonNull final String text) {
+    return string(new String[]{SPLIT_MEMO}, QofQueryCompare.QOF_COMPARE_CONTAINS, text, false);
+  }
+
+  /**
+   * Limit the number of splits returned, see qof_query_set_max_results().
+   *
+   * @param n the maximum number of results, -1 for no limit
+   */
+  public SplitQuery maxResults(final int n) {
+    if (n < -1) {
+      throw new IllegalArgumentException("max results must be -1 or more: " + n);
+    }
+    maxResults = n;
+    return this;
+  }
+
+  /**
+   * Run the query against a book.
+   *
+   * @param book the book to search
+   * @return the matching splits
+   */
+  public Result run(@NonNull final QofBook book) {
+    if (matchesNothing) {
+      return new Result(new long[0]);
+    }
+    final Map<String, Memory> names = new HashMap<>();
+    final QofQuery query = qof_query_create_for(GNC_ID_SPLIT);
+    try {
+      qof_query_set_book(query, book);
+      qof_query_set_max_results(query, maxResults);
+      for (final Term term : terms) {
+        final GSList params = GLibGSList.fromList(Arrays.asList(term.path), name -> paramName(names, name));
+        qof_query_add_term(query, params, term.predicate.get(), QofQueryOp.QOF_QUERY_AND);
+      }
+      return new Result(decode(NativeMetrics.timed("qof_query_run", () -> qof_query_run(query))));
+    } finally {
+      qof_query_destroy(query);
+      // the query refers to the parameter names until it is destroyed
+      names.clear();
+    }
+  }
+
+  static long[] decode(final Pointer list) {
+    return GLibGList.toPointerArray(list);
+  }
+
+  private SplitQuery date(final QofQueryCompare how, final time64 date) {
+    final time64 copy = new time64(date.longValue());
+    terms.add(new Term(
+        new String[]{SPLIT_TRANS, TRANS_DATE_POSTED},
+        () -> qof_query_date_predicate(how, QofDateMatch.QOF_DATE_MATCH_NORMAL, copy)
+    ));
+    return this;
+  }
+
+  private SplitQuery numeric(final String param, final QofQueryCompare how, final gnc_numeric value) {
+    final gnc_numeric copy = new gnc_numeric(value.num.longValue(), value.denom.longValue());
+    terms.add(new Term(
+        new String[]{param},
+        () -> qof_query_numeric_predicate(how, QofNumericMatch.QOF_NUMERIC_MATCH_ANY, copy.byValue())
+    ));
+    return this;
+  }
+
+  private SplitQuery string(final String[] path, final QofQueryCompare how, final String str, final boolean regex) {
+    terms.add(new Term(
+        path,
+        () -> qof_query_string_predicate(how, str, QofStringMatch.QOF_STRING_MATCH_CASEINSENSITIVE, regex)
+    ));
+    return this;
+  }
+
+  private static Pointer paramName(final Map<String, Memory> names, final String name) {
+    return names.computeIfAbsent(name, n -> {
+      final byte[] bytes = n.getBytes(StandardCharsets.UTF_8);
+      final Memory m = new Memory(bytes.length + 1L);
+      m.write(0, bytes, 0, bytes.length);
+      m.setByte(bytes.length, (byte) 0);
+      return m;
+    });
+  }
+}
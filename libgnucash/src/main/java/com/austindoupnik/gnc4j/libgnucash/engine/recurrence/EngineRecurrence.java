@@ -0,0 +1,71 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence;
+
+import com.austindoupnik.gnc4j.glib.GLibGDate.GDate;
+import com.austindoupnik.gnc4j.glib.GUInt;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * Recurrences
+ * <p>
+ * A Recurrence represents the periodic occurrence of dates, with a
+ * beginning point.  The beginning point is the first occurrence, the
+ * period type and multiplier give the time between occurrences.
+ * <p>
+ * Recurrences of type PERIOD_MONTH, PERIOD_END_OF_MONTH and PERIOD_YEAR
+ * may move occurrences falling on a weekend to the nearest weekday, as
+ * given by their WeekendAdjust.
+ */
+@UtilityClass
+public class EngineRecurrence {
+  static {
+    nativeRegister(EngineRecurrence.class, "gnc-engine");
+  }
+
+  /**
+   * Set the recurrence.
+   *
+   * @param mult the number of periods between occurrences, 0 is treated as 1
+   * @param pt   the period type
+   * @param date the first occurrence, today when NULL or invalid
+   * @param wadj how occurrences falling on a weekend are moved
+   */
+  public static native void recurrenceSet(final Recurrence r, final short mult, final PeriodType pt, final GDate date, final WeekendAdjust wadj);
+
+  public static native GUInt recurrenceGetMultiplier(final Recurrence r);
+
+  public static native PeriodType recurrenceGetPeriodType(final Recurrence r);
+
+  public static native GDate.ByValue recurrenceGetDate(final Recurrence r);
+
+  public static native WeekendAdjust recurrenceGetWeekendAdjust(final Recurrence r);
+
+  /**
+   * Get the occurrence immediately after ref, the first occurrence when ref is before it.
+   */
+  public static native void recurrenceNextInstance(final Recurrence r, final GDate ref, final GDate next);
+
+  /**
+   * Get the earliest of the next occurrences of the recurrences of a list.
+   */
+  public static native void recurrenceListNextInstance(final RecurrenceList r, final GDate refDate, final GDate nextDate);
+
+  /**
+   * Get the time64 of the beginning, or end, of the period.
+   *
+   * @param n   the period, 0 is the first one
+   * @param end true for the last second of the period, false for its first
+   */
+  public static native time64 recurrenceGetPeriodTime(final Recurrence r, final int n, final boolean end);
+
+  public static native String recurrencePeriodTypeToString(final PeriodType pt);
+
+  public static native String recurrenceWeekendAdjustToString(final WeekendAdjust wadj);
+
+  /**
+   * Compare two recurrences by the length of their period, then by their period type.
+   */
+  public static native int recurrenceCmp(final Recurrence a, final Recurrence b);
+}
@@ -0,0 +1,22 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum PeriodType implements JnaEnum<PeriodType> {
+  PERIOD_ONCE(0),
+  PERIOD_DAY(1),
+  PERIOD_WEEK(2),
+  PERIOD_MONTH(3),
+  PERIOD_END_OF_MONTH(4),
+  PERIOD_NTH_WEEKDAY(5),
+  PERIOD_LAST_WEEKDAY(6),
+  PERIOD_YEAR(7),
+  NUM_PERIOD_TYPES(8),
+  PERIOD_INVALID(-1);
+
+  private final int value;
+}
@@ -0,0 +1,12 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class Recurrence extends PointerType {
+  public Recurrence(final Pointer p) {
+    super(p);
+  }
+}
@@ -0,0 +1,7 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence;
+
+import com.austindoupnik.gnc4j.glib.GLibGList;
+
+public class RecurrenceList extends GLibGList.GList {
+
+}
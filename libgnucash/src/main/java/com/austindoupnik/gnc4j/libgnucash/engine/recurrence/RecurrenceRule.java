@@ -0,0 +1,197 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence;
+
+import com.austindoupnik.gnc4j.glib.GLibGDate.GDate;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.LocalDate;
+
+import static com.austindoupnik.gnc4j.glib.GLibGDate.g_date_get_julian;
+import static com.austindoupnik.gnc4j.glib.GLibGDate.g_date_valid;
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.EngineRecurrence.recurrenceGetDate;
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.EngineRecurrence.recurrenceGetMultiplier;
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.EngineRecurrence.recurrenceGetPeriodType;
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.EngineRecurrence.recurrenceGetWeekendAdjust;
+
+/**
+ * Copy of a {@link Recurrence}, whose occurrences are computed in Java.
+ * <p>
+ * Occurrences are numbered from 0, the first one being the start of the recurrence, and occurrence k is computed
+ * directly from the start rather than by stepping from occurrence k - 1, so that a monthly recurrence starting on
+ * the 31st comes back to the 31st after a shorter month, as recurrenceNextInstance() does. Days are epoch days, as
+ * {@link LocalDate#toEpochDay()}.
+ */
+@Getter
+public final class RecurrenceRule {
+  /**
+   * Returned for occurrences that do not exist, after the only one of a PERIOD_ONCE recurrence.
+   */
+  public static final long NONE = Long.MAX_VALUE;
+
+  /**
+   * Julian day, as counted by GDate, of 1970-01-01.
+   */
+  private static final long JULIAN_EPOCH = 719163;
+
+  private final PeriodType periodType;
+  private final int multiplier;
+  private final long start;
+  private final WeekendAdjust weekendAdjust;
+
+  /**
+   * @param multiplier number of periods between occurrences, 0 is treated as 1
+   * @param start      first occurrence, before any weekend adjustment
+   */
+  public RecurrenceRule(
+      @NonNull final PeriodType periodType,
+      final int multiplier,
+      @NonNull final LocalDate start,
+      @NonNull final WeekendAdjust weekendAdjust
+  ) {
+    if (periodType == PeriodType.PERIOD_INVALID || periodType == PeriodType.NUM_PERIOD_TYPES) {
+      throw new IllegalArgumentException("Invalid period type: " + periodType);
+    }
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("multiplier must not be negative: " + multiplier);
+    }
+    this.periodType = periodType;
+    this.multiplier = Math.max(multiplier, 1);
+    this.start = start.toEpochDay();
+    this.weekendAdjust = weekendAdjust;
+  }
+
+  /**
+   * Copy a recurrence of the engine.
+   */
+  public static RecurrenceRule of(@NonNull final Recurrence r) {
+    return new RecurrenceRule(
+        recurrenceGetPeriodType(r),
+        recurrenceGetMultiplier(r).intValue(),
+        LocalDate.ofEpochDay(epochDay(recurrenceGetDate(r))),
+        recurrenceGetWeekendAdjust(r)
+    );
+  }
+
+  /**
+   * @return the epoch day of a valid GDate
+   */
+  public static long epochDay(@NonNull final GDate date) {
+    if (!g_date_valid(date)) {
+      throw new IllegalArgumentException("Invalid date");
+    }
+    return g_date_get_julian(date).longValue() - JULIAN_EPOCH;
+  }
+
+  /**
+   * @return number of the first occurrence after day, after weekend adjustment
+   */
+  public long firstAfter(final long day) {
+    long k = firstUnadjustedAfter(day);
+    // an adjustment moves an occurrence by at most two days, never past the occurrences next to it
+    while (k > 0 && occurrence(k - 1) > day) {
+      k--;
+    }
+    while (occurrence(k) <= day) {
+      k++;
+    }
+    return k;
+  }
+
+  private long firstUnadjustedAfter(final long day) {
+    if (day < start) {
+      return 0;
+    }
+    switch (periodType) {
+      case PERIOD_ONCE:
+        return 1;
+      case PERIOD_DAY:
+        return (day - start) / multiplier + 1;
+      case PERIOD_WEEK:
+        return (day - start) / (7L * multiplier) + 1;
+      default:
+        final LocalDate from = LocalDate.ofEpochDay(start);
+        final LocalDate to = LocalDate.ofEpochDay(day);
+        final long months = 12L * (to.getYear() - from.getYear()) + to.getMonthValue() - from.getMonthValue();
+        // occurrence k falls in a month before the month of day, or in the same month
+        long k = months / monthsPerPeriod();
+        while (unadjusted(k) <= day) {
+          k++;
+        }
+        return k;
+    }
+  }
+
+  /**
+   * @return epoch day of occurrence k, after weekend adjustment, {@link #NONE} when there is none
+   */
+  public long occurrence(final long k) {
+    final long day = unadjusted(k);
+    if (day == NONE || weekendAdjust == WeekendAdjust.WEEKEND_ADJ_NONE) {
+      return day;
+    }
+    switch (periodType) {
+      case PERIOD_MONTH:
+      case PERIOD_END_OF_MONTH:
+      case PERIOD_YEAR:
+        break;
+      default:
+        return day;
+    }
+    // 1970-01-01 was a Thursday, 5 and 6 are Saturday and Sunday
+    final int dayOfWeek = (int) Math.floorMod(day + 3, 7L);
+    if (dayOfWeek < 5) {
+      return day;
+    }
+    if (weekendAdjust == WeekendAdjust.WEEKEND_ADJ_BACK) {
+      return day - (dayOfWeek - 4);
+    }
+    return day + (7 - dayOfWeek);
+  }
+
+  /**
+   * @return the first occurrence after the date, after weekend adjustment, null when there is none
+   */
+  public LocalDate next(@NonNull final LocalDate after) {
+    final long day = occurrence(firstAfter(after.toEpochDay()));
+    return day == NONE ? null : LocalDate.ofEpochDay(day);
+  }
+
+  private long unadjusted(final long k) {
+    switch (periodType) {
+      case PERIOD_ONCE:
+        return k == 0 ? start : NONE;
+      case PERIOD_DAY:
+        return start + k * multiplier;
+      case PERIOD_WEEK:
+        return start + 7 * k * multiplier;
+      case PERIOD_MONTH:
+      case PERIOD_YEAR:
+        return LocalDate.ofEpochDay(start).plusMonths(k * monthsPerPeriod()).toEpochDay();
+      case PERIOD_END_OF_MONTH: {
+        final LocalDate month = LocalDate.ofEpochDay(start).withDayOfMonth(1).plusMonths(k * monthsPerPeriod());
+        return month.withDayOfMonth(month.lengthOfMonth()).toEpochDay();
+      }
+      case PERIOD_NTH_WEEKDAY:
+      case PERIOD_LAST_WEEKDAY: {
+        final LocalDate first = LocalDate.ofEpochDay(start);
+        final LocalDate month = first.withDayOfMonth(1).plusMonths(k * monthsPerPeriod());
+        final int shift = Math.floorMod(first.getDayOfWeek().getValue() - month.getDayOfWeek().getValue(), 7);
+        // the nth weekday of the month, n being that of the start, or the last one when the month has fewer
+        int day = 1 + shift + 7 * ((first.getDayOfMonth() - 1) / 7);
+        if (periodType == PeriodType.PERIOD_LAST_WEEKDAY) {
+          day = 1 + shift + 7 * ((month.lengthOfMonth() - 1 - shift) / 7);
+        }
+        while (day > month.lengthOfMonth()) {
+          day -= 7;
+        }
+        return month.withDayOfMonth(day).toEpochDay();
+      }
+      default:
+        throw new IllegalStateException("Invalid period type: " + periodType);
+    }
+  }
+
+  private long monthsPerPeriod() {
+    return periodType == PeriodType.PERIOD_YEAR ? 12L * multiplier : multiplier;
+  }
+}
@@ -0,0 +1,26 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence;
+
+import com.austindoupnik.gnc4j.jna_core.JnaEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum WeekendAdjust implements JnaEnum<WeekendAdjust> {
+  /**
+   * no adjustment
+   */
+  WEEKEND_ADJ_NONE(0),
+  /**
+   * Previous weekday
+   */
+  WEEKEND_ADJ_BACK(1),
+  /**
+   * Next weekday
+   */
+  WEEKEND_ADJ_FORWARD(2),
+  NUM_WEEKEND_ADJS(3),
+  WEEKEND_ADJ_INVALID(-1);
+
+  private final int value;
+}
@@ -0,0 +1,531 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.sched_xaction;
+
+import com.austindoupnik.gnc4j.glib.GLibGDate.GDate;
+import com.austindoupnik.gnc4j.glib.GLibGList;
+import com.austindoupnik.gnc4j.glib.GLibGList.GList;
+import com.austindoupnik.gnc4j.glib.GLibGObject.GValue;
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.jna_core.SizeT;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.GncGUID;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.Recurrence;
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.RecurrenceList;
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.RecurrenceRule;
+import com.austindoupnik.gnc4j.libgnucash.engine.sched_xaction.EngineSchedXaction.SchedXaction;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.austindoupnik.gnc4j.glib.GLibGDate.g_date_valid;
+import static com.austindoupnik.gnc4j.glib.GLibGObject.g_object_get_property;
+import static com.austindoupnik.gnc4j.glib.GLibGObject.g_value_get_boxed;
+import static com.austindoupnik.gnc4j.glib.GLibGObject.g_value_init;
+import static com.austindoupnik.gnc4j.glib.GLibGObject.g_value_unset;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineGuid.gnc_guid_get_type;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.qof_instance_get_book;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetBalance;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetCommoditySCU;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountGetSplitList;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.xaccAccountLookup;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.EngineGncNumeric.gnc_numeric_get_type;
+import static com.austindoupnik.gnc4j.libgnucash.engine.sched_xaction.EngineSchedXaction.*;
+
+/**
+ * Splits the scheduled transactions of a book would create up to a date, and the balances of their accounts.
+ * <p>
+ * Each scheduled transaction is copied out of the engine once, as a {@link Schedule}, and its recurrences are
+ * expanded in Java with {@link RecurrenceRule}, so no transaction is created in the engine. The projected splits are
+ * kept as columns sorted by date: split i is on {@link #getDate(int)}, in {@link #getAccount(int)}, for
+ * {@link #getAmount(int)}, created by {@link #getSchedule(int)}.
+ * <p>
+ * Occurrences are those after the last one entered, up to the end of the schedule, so occurrences overdue but not
+ * yet entered are included at their own date. Amounts are those of the template splits; amounts given by a formula
+ * with variables count as zero, and template splits whose account is not in the book are left out.
+ * <p>
+ * Amounts and balances are kept as whole units of the commodity fraction of their account, so projected balances are
+ * exact; the getters turn them into {@link BigDecimal}s.
+ */
+public class CashFlowForecast {
+  /**
+   * Current balance of an account, read from the engine by {@link #compute(List, LocalDate)}.
+   */
+  interface BalanceReader {
+    /**
+     * @return balance of the account, in units of fraction
+     */
+    long balance(final long account, final long fraction);
+  }
+
+  /**
+   * A scheduled transaction copied out of the engine.
+   */
+  @Getter
+  public static class Schedule {
+    private final String name;
+    private final boolean enabled;
+    /**
+     * Epoch day of the start of the schedule.
+     */
+    private final long start;
+    /**
+     * Epoch day of the end of the schedule, {@link Long#MAX_VALUE} when it has none.
+     */
+    private final long end;
+    /**
+     * Epoch day of the last occurrence entered, {@link Long#MIN_VALUE} when none was.
+     */
+    private final long lastOccur;
+    /**
+     * Number of occurrences left, -1 when there is no limit.
+     */
+    private final int remaining;
+    private final List<RecurrenceRule> rules;
+    /**
+     * Account of each template split, 0 when it is not in the book.
+     */
+    private final long[] accounts;
+    /**
+     * Commodity fraction of the account of each template split.
+     */
+    private final long[] fractions;
+    /**
+     * Amount of each template split, in units of its fraction.
+     */
+    private final long[] amounts;
+
+    Schedule(
+        final String name,
+        final boolean enabled,
+        final long start,
+        final long end,
+        final long lastOccur,
+        final int remaining,
+        final List<RecurrenceRule> rules,
+        final long[] accounts,
+        final long[] fractions,
+        final long[] amounts
+    ) {
+      this.name = name;
+      this.enabled = enabled;
+      this.start = start;
+      this.end = end;
+      this.lastOccur = lastOccur;
+      this.remaining = remaining;
+      this.rules = Collections.unmodifiableList(rules);
+      this.accounts = accounts;
+      this.fractions = fractions;
+      this.amounts = amounts;
+    }
+
+    /**
+     * Copy a scheduled transaction with its schedule and template splits.
+     */
+    public static Schedule of(@NonNull final SchedXaction sx) {
+      final List<RecurrenceRule> rules = new ArrayList<>();
+      final RecurrenceList schedule = gnc_sx_get_schedule(sx);
+      if (schedule != null) {
+        // the list belongs to the SX
+        for (final long r : GLibGList.toPointerArray(schedule.getPointer())) {
+          rules.add(RecurrenceRule.of(new Recurrence(new Pointer(r))));
+        }
+      }
+
+      final QofBook book = qof_instance_get_book(sx.getPointer());
+      final GList list = xaccAccountGetSplitList(gnc_sx_get_template_transaction_account(sx));
+      final long[] splits = list == null ? new long[0] : GLibGList.toPointerArray(list.getPointer());
+      final long[] accounts = new long[splits.length];
+      final long[] fractions = new long[splits.length];
+      final long[] amounts = new long[splits.length];
+      final SizeT guidType = gnc_guid_get_type();
+      final SizeT numericType = gnc_numeric_get_type();
+      for (int i = 0; i < splits.length; i++) {
+        final Pointer split = new Pointer(splits[i]);
+        accounts[i] = accountProperty(split, guidType, book);
+        if (accounts[i] != 0) {
+          fractions[i] = xaccAccountGetCommoditySCU(new Account(new Pointer(accounts[i])));
+          amounts[i] = numericProperty(split, GNC_SX_DEBIT_NUMERIC, numericType).scaledValue(fractions[i])
+              - numericProperty(split, GNC_SX_CREDIT_NUMERIC, numericType).scaledValue(fractions[i]);
+        }
+      }
+
+      final GDate lastOccur = xaccSchedXactionGetLastOccurDate(sx);
+      return new Schedule(
+          xaccSchedXactionGetName(sx),
+          xaccSchedXactionGetEnabled(sx),
+          RecurrenceRule.epochDay(xaccSchedXactionGetStartDate(sx)),
+          xaccSchedXactionHasEndDate(sx) ? RecurrenceRule.epochDay(xaccSchedXactionGetEndDate(sx)) : Long.MAX_VALUE,
+          lastOccur != null && g_date_valid(lastOccur) ? RecurrenceRule.epochDay(lastOccur) : Long.MIN_VALUE,
+          xaccSchedXactionHasOccurDef(sx) ? xaccSchedXactionGetRemOccur(sx) : -1,
+          rules,
+          accounts,
+          fractions,
+          amounts
+      );
+    }
+
+    private static long accountProperty(final Pointer split, final SizeT guidType, final QofBook book) {
+      final GValue value = new GValue();
+      g_value_init(value, guidType);
+      try {
+        g_object_get_property(split, GNC_SX_ACCOUNT, value);
+        final Pointer guid = g_value_get_boxed(value);
+        if (guid == null) {
+          return 0;
+        }
+        final Account account = xaccAccountLookup(new GncGUID(guid), book);
+        return account == null ? 0 : Pointer.nativeValue(account.getPointer());
+      } finally {
+        g_value_unset(value);
+      }
+    }
+
+    private static gnc_numeric numericProperty(final Pointer split, final String name, final SizeT numericType) {
+      final GValue value = new GValue();
+      g_value_init(value, numericType);
+      try {
+        g_object_get_property(split, name, value);
+        final Pointer n = g_value_get_boxed(value);
+        return n == null ? new gnc_numeric(0, 1) : new gnc_numeric(n.getLong(0), n.getLong(8));
+      } finally {
+        g_value_unset(value);
+      }
+    }
+  }
+
+  /**
+   * Projected splits of one account, sorted by date.
+   */
+  private static class Ledger {
+    private final long[] days;
+    private final long[] cumulative;
+
+    private Ledger(final int size) {
+      this.days = new long[size];
+      this.cumulative = new long[size];
+    }
+  }
+
+  private final List<Schedule> schedules;
+  private final int size;
+  private final long[] days;
+  private final int[] sources;
+  private final long[] accounts;
+  private final long[] amounts;
+  private final Map<Long, Long> fractions;
+  private final Map<Long, Long> balances;
+  private final Map<Long, Ledger> ledgers;
+  @Getter
+  private final long nanos;
+
+  private CashFlowForecast(
+      final List<Schedule> schedules,
+      final int size,
+      final long[] days,
+      final int[] sources,
+      final long[] accounts,
+      final long[] amounts,
+      final Map<Long, Long> fractions,
+      final Map<Long, Long> balances,
+      final long nanos
+  ) {
+    this.schedules = schedules;
+    this.size = size;
+    this.days = days;
+    this.sources = sources;
+    this.accounts = accounts;
+    this.amounts = amounts;
+    this.fractions = fractions;
+    this.balances = balances;
+    this.ledgers = ledgers(size, days, accounts, amounts);
+    this.nanos = nanos;
+  }
+
+  /**
+   * Forecast every scheduled transaction of the book, on the engine thread.
+   *
+   * @param until last day of the forecast, inclusive
+   */
+  public static CashFlowForecast compute(@NonNull final QofBook book, @NonNull final LocalDate until) {
+    final List<Schedule> schedules = new ArrayList<>();
+    for (final long sx : gnc_book_get_schedxaction_pointers(book)) {
+      schedules.add(Schedule.of(new SchedXaction(new Pointer(sx))));
+    }
+    return compute(schedules, until);
+  }
+
+  /**
+   * Forecast the schedules, with the balances of their accounts read from the engine.
+   *
+   * @param until last day of the forecast, inclusive
+   */
+  public static CashFlowForecast compute(@NonNull final List<Schedule> schedules, @NonNull final LocalDate until) {
+    return compute(
+        schedules,
+        (account, fraction) -> xaccAccountGetBalance(new Account(new Pointer(account))).scaledValue(fraction),
+        until.toEpochDay()
+    );
+  }
+
+  static CashFlowForecast compute(final List<Schedule> schedules, final BalanceReader balance, final long until) {
+    final long start = System.nanoTime();
+    final Columns columns = new Columns();
+    final Map<Long, Long> fractions = new HashMap<>();
+    for (int s = 0; s < schedules.size(); s++) {
+      expand(schedules.get(s), s, until, columns, fractions);
+    }
+    columns.sort();
+
+    final Map<Long, Long> balances = new HashMap<>();
+    fractions.forEach((account, fraction) -> balances.put(account, balance.balance(account, fraction)));
+    final long nanos = System.nanoTime() - start;
+    if (NativeMetrics.isEnabled()) {
+      NativeMetrics.global().record("cash_flow_forecast", nanos);
+    }
+    return new CashFlowForecast(
+        Collections.unmodifiableList(new ArrayList<>(schedules)),
+        columns.size,
+        columns.days,
+        columns.sources,
+        columns.accounts,
+        columns.amounts,
+        fractions,
+        balances,
+        nanos
+    );
+  }
+
+  /**
+   * @return number of projected splits
+   */
+  public int size() {
+    return size;
+  }
+
+  public LocalDate getDate(final int split) {
+    return LocalDate.ofEpochDay(getDay(split));
+  }
+
+  /**
+   * @return epoch day of the split
+   */
+  public long getDay(final int split) {
+    return days[index(split)];
+  }
+
+  public Account getAccount(final int split) {
+    return new Account(new Pointer(accounts[index(split)]));
+  }
+
+  /**
+   * @return amount of the split, in the commodity of its account
+   */
+  public BigDecimal getAmount(final int split) {
+    final int i = index(split);
+    return decimal(accounts[i], amounts[i]);
+  }
+
+  public Schedule getSchedule(final int split) {
+    return schedules.get(sources[index(split)]);
+  }
+
+  /**
+   * @return accounts with at least one projected split
+   */
+  public List<Account> getAccounts() {
+    final List<Account> result = new ArrayList<>(ledgers.size());
+    for (final long account : ledgers.keySet()) {
+      result.add(new Account(new Pointer(account)));
+    }
+    return result;
+  }
+
+  /**
+   * @return current balance of the account, null when it has no projected split
+   */
+  public BigDecimal getBalance(@NonNull final Account account) {
+    final long a = Pointer.nativeValue(account.getPointer());
+    final Long balance = balances.get(a);
+    return balance == null ? null : decimal(a, balance);
+  }
+
+  /**
+   * @return balance of the account at the end of the day, with the projected splits up to it, null when the account
+   * has no projected split
+   */
+  public BigDecimal getBalance(@NonNull final Account account, @NonNull final LocalDate date) {
+    final long a = Pointer.nativeValue(account.getPointer());
+    final Ledger ledger = ledgers.get(a);
+    if (ledger == null) {
+      return null;
+    }
+    final int n = upperBound(ledger.days, date.toEpochDay());
+    return decimal(a, balances.get(a) + (n == 0 ? 0 : ledger.cumulative[n - 1]));
+  }
+
+  private BigDecimal decimal(final long account, final long units) {
+    return gnc_numeric.bigDecimalValue(units, fractions.get(account));
+  }
+
+  private int index(final int split) {
+    if (split < 0 || split >= size) {
+      throw new IndexOutOfBoundsException("split " + split + " of " + size);
+    }
+    return split;
+  }
+
+  private static void expand(
+      final Schedule schedule,
+      final int source,
+      final long until,
+      final Columns columns,
+      final Map<Long, Long> fractions
+  ) {
+    if (!schedule.enabled || schedule.rules.isEmpty() || schedule.remaining == 0) {
+      return;
+    }
+    final long last = Math.min(until, schedule.end);
+    final long after = Math.max(schedule.lastOccur, schedule.start - 1);
+    final int n = schedule.rules.size();
+    final long[] k = new long[n];
+    final long[] next = new long[n];
+    for (int r = 0; r < n; r++) {
+      k[r] = schedule.rules.get(r).firstAfter(after);
+      next[r] = schedule.rules.get(r).occurrence(k[r]);
+    }
+    int remaining = schedule.remaining;
+    while (remaining != 0) {
+      long day = RecurrenceRule.NONE;
+      for (int r = 0; r < n; r++) {
+        day = Math.min(day, next[r]);
+      }
+      if (day > last) {
+        return;
+      }
+      for (int j = 0; j < schedule.accounts.length; j++) {
+        if (schedule.accounts[j] == 0) {
+          continue;
+        }
+        columns.add(day, source, schedule.accounts[j], schedule.amounts[j]);
+        fractions.putIfAbsent(schedule.accounts[j], schedule.fractions[j]);
+      }
+      // occurrences of several recurrences on the same day are one occurrence
+      for (int r = 0; r < n; r++) {
+        while (next[r] <= day) {
+          next[r] = schedule.rules.get(r).occurrence(++k[r]);
+        }
+      }
+      if (remaining > 0) {
+        remaining--;
+      }
+    }
+  }
+
+  private static Map<Long, Ledger> ledgers(
+      final int size,
+      final long[] days,
+      final long[] accounts,
+      final long[] amounts
+  ) {
+    final Map<Long, int[]> counts = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      counts.computeIfAbsent(accounts[i], a -> new int[1])[0]++;
+    }
+    final Map<Long, Ledger> ledgers = new HashMap<>(counts.size() * 2);
+    counts.forEach((account, count) -> ledgers.put(account, new Ledger(count[0])));
+    final Map<Long, int[]> filled = new HashMap<>(counts.size() * 2);
+    for (int i = 0; i < size; i++) {
+      final Ledger ledger = ledgers.get(accounts[i]);
+      final int j = filled.computeIfAbsent(accounts[i], a -> new int[1])[0]++;
+      ledger.days[j] = days[i];
+      ledger.cumulative[j] = (j == 0 ? 0 : ledger.cumulative[j - 1]) + amounts[i];
+    }
+    return ledgers;
+  }
+
+  /**
+   * @return number of days at or before day
+   */
+  private static int upperBound(final long[] days, final long day) {
+    int lo = 0;
+    int hi = days.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (days[mid] <= day) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Projected splits as they are expanded, in the order of their schedule.
+   */
+  private static class Columns {
+    private long[] days = new long[64];
+    private int[] sources = new int[64];
+    private long[] accounts = new long[64];
+    private long[] amounts = new long[64];
+    private int size;
+
+    private void add(final long day, final int source, final long account, final long amount) {
+      if (size == days.length) {
+        final int grown = 2 * size;
+        days = Arrays.copyOf(days, grown);
+        sources = Arrays.copyOf(sources, grown);
+        accounts = Arrays.copyOf(accounts, grown);
+        amounts = Arrays.copyOf(amounts, grown);
+      }
+      days[size] = day;
+      sources[size] = source;
+      accounts[size] = account;
+      amounts[size] = amount;
+      size++;
+    }
+
+    /**
+     * Sort by day, keeping the order of splits of the same day, with a single sort of primitive keys.
+     */
+    private void sort() {
+      if (size == 0) {
+        return;
+      }
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < size; i++) {
+        min = Math.min(min, days[i]);
+      }
+      final long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = (days[i] - min) << 32 | i;
+      }
+      Arrays.sort(keys);
+      final long[] d = new long[size];
+      final int[] s = new int[size];
+      final long[] a = new long[size];
+      final long[] m = new long[size];
+      for (int i = 0; i < size; i++) {
+        final int from = (int) keys[i];
+        d[i] = days[from];
+        s[i] = sources[from];
+        a[i] = accounts[from];
+        m[i] = amounts[from];
+      }
+      days = d;
+      sources = s;
+      accounts = a;
+      amounts = m;
+    }
+  }
+}
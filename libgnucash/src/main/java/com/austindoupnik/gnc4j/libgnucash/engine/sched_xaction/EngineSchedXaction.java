@@ -0,0 +1,112 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.sched_xaction;
+
+import com.austindoupnik.gnc4j.glib.GLibGDate.GDate;
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.RecurrenceList;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import lombok.NoArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.qof_book_get_collection;
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineQofId.qof_collection_get_pointers;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_SCHEDXACTION;
+
+/**
+ * Scheduled Transactions
+ * <p>
+ * A scheduled transaction is a template transaction together with a
+ * schedule of when it should be entered. The template transaction lives
+ * in a template account of its own; the real account and the amount of
+ * each of its splits are kept as properties of the template split.
+ * <p>
+ * The schedule may end at a date or after a number of occurrences, or
+ * not at all.
+ */
+@UtilityClass
+public class EngineSchedXaction {
+  static {
+    nativeRegister(EngineSchedXaction.class, "gnc-engine");
+  }
+
+  @NoArgsConstructor
+  public static class SchedXaction extends PointerType {
+    public SchedXaction(final Pointer p) {
+      super(p);
+    }
+  }
+
+  /* Properties of template splits */
+  public static final String GNC_SX_ACCOUNT = "sx-account";
+  public static final String GNC_SX_CREDIT_FORMULA = "sx-credit-formula";
+  public static final String GNC_SX_CREDIT_NUMERIC = "sx-credit-numeric";
+  public static final String GNC_SX_DEBIT_FORMULA = "sx-debit-formula";
+  public static final String GNC_SX_DEBIT_NUMERIC = "sx-debit-numeric";
+  public static final String GNC_SX_SHARES = "sx-shares";
+
+  /**
+   * Creates and initializes a scheduled transaction.
+   */
+  public static native SchedXaction xaccSchedXactionMalloc(final QofBook book);
+
+  /**
+   * Cleans up and frees a SchedXaction and its associated data.
+   */
+  public static native void xaccSchedXactionDestroy(final SchedXaction sx);
+
+  public static native void gnc_sx_begin_edit(final SchedXaction sx);
+
+  public static native void gnc_sx_commit_edit(final SchedXaction sx);
+
+  /**
+   * @return the schedule of the SX, a list of Recurrences belonging to the SX
+   */
+  public static native RecurrenceList gnc_sx_get_schedule(final SchedXaction sx);
+
+  public static native String xaccSchedXactionGetName(final SchedXaction sx);
+
+  /**
+   * A copy of the name is made.
+   */
+  public static native void xaccSchedXactionSetName(final SchedXaction sx, final String newName);
+
+  public static native GDate xaccSchedXactionGetStartDate(final SchedXaction sx);
+
+  /**
+   * Returns true if the scheduled transaction has a defined end-date.
+   */
+  public static native boolean xaccSchedXactionHasEndDate(final SchedXaction sx);
+
+  /**
+   * Returns invalid date when there is no end-date specified.
+   */
+  public static native GDate xaccSchedXactionGetEndDate(final SchedXaction sx);
+
+  public static native GDate xaccSchedXactionGetLastOccurDate(final SchedXaction sx);
+
+  /**
+   * Returns true if the scheduled transaction has a defined number of
+   * occurrences, false if not.
+   */
+  public static native boolean xaccSchedXactionHasOccurDef(final SchedXaction sx);
+
+  public static native int xaccSchedXactionGetNumOccur(final SchedXaction sx);
+
+  public static native int xaccSchedXactionGetRemOccur(final SchedXaction sx);
+
+  public static native boolean xaccSchedXactionGetEnabled(final SchedXaction sx);
+
+  /**
+   * @return the account holding the template transaction of the SX
+   */
+  public static native Account gnc_sx_get_template_transaction_account(final SchedXaction sx);
+
+  /**
+   * @return the scheduled transactions of the book as SX pointers, in no particular order
+   */
+  public static long[] gnc_book_get_schedxaction_pointers(final QofBook book) {
+    return qof_collection_get_pointers(qof_book_get_collection(book, GNC_ID_SCHEDXACTION));
+  }
+}
@@ -1,6 +1,8 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.transaction;
 
 import com.austindoupnik.gnc4j.glib.GUInt;
+import com.austindoupnik.gnc4j.jna_core.NativeStringArena;
+import com.austindoupnik.gnc4j.jna_core.NativeUtf8;
 import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
 import com.austindoupnik.gnc4j.libgnucash.engine.account.GncGUID;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
@@ -8,6 +10,7 @@ import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.SplitList;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity;
 import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
 import lombok.experimental.UtilityClass;
 
 import java.time.LocalDate;
@@ -27,6 +30,24 @@ public class EngineTransaction {
     nativeRegister(EngineTransaction.class, "gnc-engine");
   }
 
+  /* Transaction parameter names, used to build queries */
+  public static final String TRANS_KVP = "kvp";
+  public static final String TRANS_NUM = "num";
+  public static final String TRANS_DESCRIPTION = "desc";
+  public static final String TRANS_DATE_ENTERED = "date-entered";
+  public static final String TRANS_DATE_POSTED = "date-posted";
+  public static final String TRANS_DATE_DUE = "date-due";
+  public static final String TRANS_IMBALANCE = "trans-imbalance";
+  public static final String TRANS_IS_BALANCED = "trans-balanced?";
+  public static final String TRANS_IS_CLOSING = "trans-is-closing?";
+  public static final String TRANS_NOTES = "notes";
+  public static final String TRANS_DOCLINK = "doclink";
+  public static final String TRANS_TYPE = "type";
+  public static final String TRANS_VOID_STATUS = "void-p";
+  public static final String TRANS_VOID_REASON = "void-reason";
+  public static final String TRANS_VOID_TIME = "void-time";
+  public static final String TRANS_SPLITLIST = "split-list";
+
   /* Transaction creation and editing */
 
   /**
@@ -234,11 +255,23 @@ public class EngineTransaction {
    */
   public static native void xaccTransSetNum(final Transaction trans, final String num);
 
+  /**
+   * Same as {@link #xaccTransSetNum(Transaction, String)}, with the num already encoded as UTF-8, for example by a
+   * {@link NativeStringArena}.
+   */
+  public static native void xaccTransSetNum(final Transaction trans, final Pointer num);
+
   /**
    * Sets the transaction Description
    */
   public static native void xaccTransSetDescription(final Transaction trans, final String desc);
 
+  /**
+   * Same as {@link #xaccTransSetDescription(Transaction, String)}, with the description already encoded as
+   * UTF-8, for example by a {@link NativeStringArena}.
+   */
+  public static native void xaccTransSetDescription(final Transaction trans, final Pointer desc);
+
   /**
    * Sets the transaction Document Link
    */
@@ -251,6 +284,12 @@ public class EngineTransaction {
    */
   public static native void xaccTransSetNotes(final Transaction trans, final String notes);
 
+  /**
+   * Same as {@link #xaccTransSetNotes(Transaction, String)}, with the notes already encoded as UTF-8, for example by a
+   * {@link NativeStringArena}.
+   */
+  public static native void xaccTransSetNotes(final Transaction trans, final Pointer notes);
+
   /**
    * Gets the transaction Number (or ID) field; rather than use this function
    * directly, see 'gnc_get_num_action' and 'gnc_get_action_num' in
@@ -260,11 +299,29 @@ public class EngineTransaction {
    */
   public static native String xaccTransGetNum(final Transaction trans);
 
+  /**
+   * xaccTransGetNum() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccTransGetNum_utf8(final Transaction trans, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccTransGetNum(trans));
+  }
+
   /**
    * Gets the transaction Description
    */
   public static native String xaccTransGetDescription(final Transaction trans);
 
+  /**
+   * xaccTransGetDescription() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccTransGetDescription_utf8(final Transaction trans, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccTransGetDescription(trans));
+  }
+
   /**
    * Gets the transaction Document Link
    */
@@ -277,6 +334,15 @@ public class EngineTransaction {
    */
   public static native String xaccTransGetNotes(final Transaction trans);
 
+  /**
+   * xaccTransGetNotes() read into a reusable holder without decoding it, see {@link NativeUtf8}.
+   *
+   * @return into
+   */
+  public static NativeUtf8 xaccTransGetNotes_utf8(final Transaction trans, final NativeUtf8 into) {
+    return into.set(Borrowed.xaccTransGetNotes(trans));
+  }
+
 
   /**
    * Sets whether or not this transaction is a "closing transaction"
@@ -766,4 +832,20 @@ public class EngineTransaction {
    * @param source The price priority level
    */
   public static native void xaccTransRecordPrice(final Transaction trans, final PriceSource source);
+
+  /**
+   * The string getters above, bound to return raw pointers to the strings owned by the engine.
+   */
+  @UtilityClass
+  private static class Borrowed {
+    static {
+      nativeRegister(Borrowed.class, "gnc-engine");
+    }
+
+    static native Pointer xaccTransGetNum(final Transaction trans);
+
+    static native Pointer xaccTransGetDescription(final Transaction trans);
+
+    static native Pointer xaccTransGetNotes(final Transaction trans);
+  }
 }
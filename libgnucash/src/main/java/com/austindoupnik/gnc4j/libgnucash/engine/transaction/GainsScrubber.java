@@ -0,0 +1,198 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.transaction;
+
+import com.austindoupnik.gnc4j.jna_core.NativeMetrics;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventBridge;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventListener;
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.EngineGncEngine.GNC_ID_TRANS;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.xaccTransScrubGains;
+
+/**
+ * Runs xaccTransScrubGains() over only the transactions created or modified since the previous run.
+ * <p>
+ * Transactions are tracked through the events of a {@link QofEventBridge}, destroyed transactions are forgotten.
+ * {@link #scrub(Progress)} runs in three phases on the calling thread, which must be the thread modifying the book:
+ * <ol>
+ *   <li>{@code flush} delivers the buffered events, so that every edit made so far is tracked</li>
+ *   <li>{@code scrub} scrubs each tracked transaction once</li>
+ *   <li>{@code settle} delivers the events raised by the scrub itself, which do not mark the scrubbed transactions
+ *   dirty again</li>
+ * </ol>
+ * When instrumentation is enabled the phase timings are also recorded in {@link NativeMetrics} as
+ * {@code scrub_gains:<phase>}.
+ */
+public class GainsScrubber implements QofEventListener, AutoCloseable {
+  /**
+   * Receives progress of the scrub phase.
+   */
+  public interface Progress {
+    /**
+     * @param done  transactions scrubbed so far
+     * @param total transactions to scrub in this run
+     */
+    void onProgress(final int done, final int total);
+  }
+
+  /**
+   * Scrubs the gains of one dirty transaction, given as its native address, once the events of the run have been
+   * flushed.
+   */
+  interface Scrub {
+    void scrub(final long trans);
+  }
+
+  /**
+   * Outcome of one {@link #scrub(Progress)}.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Result {
+    private final int scrubbed;
+    private final long flushNanos;
+    private final long scrubNanos;
+    private final long settleNanos;
+
+    public long getTotalNanos() {
+      return flushNanos + scrubNanos + settleNanos;
+    }
+  }
+
+  private static final Set<QofEventType> EVENTS = EnumSet.of(
+      QofEventType.QOF_EVENT_CREATE,
+      QofEventType.QOF_EVENT_MODIFY,
+      QofEventType.QOF_EVENT_DESTROY
+  );
+
+  private final Runnable flush;
+  private final Scrub scrub;
+  private final Set<Long> dirty = new LinkedHashSet<>();
+  private QofEventBridge.Subscription subscription;
+
+  /**
+   * Sorted transactions of the scrub in progress, their events are ignored until it is settled.
+   */
+  private long[] scrubbing;
+
+  GainsScrubber(final Runnable flush, final Scrub scrub) {
+    this.flush = flush;
+    this.scrub = scrub;
+  }
+
+  /**
+   * Start tracking transactions.
+   *
+   * @param bridge      source of the transaction events
+   * @param gainAccount account receiving gains, null to let the engine pick one per commodity
+   * @return the scrubber, close it to stop tracking
+   */
+  public static GainsScrubber attach(@NonNull final QofEventBridge bridge, final Account gainAccount) {
+    final GainsScrubber scrubber = new GainsScrubber(
+        bridge::flush,
+        trans -> xaccTransScrubGains(new Transaction(new Pointer(trans)), gainAccount)
+    );
+    scrubber.subscription = bridge.addListener(scrubber, EVENTS, GNC_ID_TRANS);
+    return scrubber;
+  }
+
+  /**
+   * Track a transaction whose edits were not seen by the bridge.
+   */
+  public void markDirty(@NonNull final Transaction trans) {
+    dirty.add(Pointer.nativeValue(trans.getPointer()));
+  }
+
+  /**
+   * @return number of transactions scrubbed by the next run, not counting events still buffered in the bridge
+   */
+  public int getDirtyCount() {
+    return dirty.size();
+  }
+
+  @Override
+  public void onEvent(final Pointer entity, final String entityType, final int eventId) {
+    final long trans = Pointer.nativeValue(entity);
+    if ((eventId & QofEventType.QOF_EVENT_DESTROY.getValue()) != 0) {
+      dirty.remove(trans);
+    } else if (scrubbing == null || Arrays.binarySearch(scrubbing, trans) < 0) {
+      dirty.add(trans);
+    }
+  }
+
+  /**
+   * Scrub the gains of every transaction created or modified since the previous run.
+   *
+   * @param progress notified after each transaction, may be null
+   */
+  public Result scrub(final Progress progress) {
+    final long start = System.nanoTime();
+    flush.run();
+    final long flushed = System.nanoTime();
+
+    final long[] batch = new long[dirty.size()];
+    int n = 0;
+    for (final long trans : dirty) {
+      batch[n++] = trans;
+    }
+    dirty.clear();
+    final long[] sorted = batch.clone();
+    Arrays.sort(sorted);
+    scrubbing = sorted;
+
+    final long scrubbed;
+    final long settled;
+    try {
+      int done = 0;
+      try {
+        for (final long trans : batch) {
+          scrub.scrub(trans);
+          done++;
+          if (progress != null) {
+            progress.onProgress(done, batch.length);
+          }
+        }
+      } catch (final RuntimeException ex) {
+        // leave what was not scrubbed for the next run
+        for (int i = done; i < batch.length; i++) {
+          dirty.add(batch[i]);
+        }
+        throw ex;
+      } finally {
+        scrubbed = System.nanoTime();
+        flush.run();
+        settled = System.nanoTime();
+      }
+    } finally {
+      scrubbing = null;
+    }
+
+    if (NativeMetrics.isEnabled()) {
+      NativeMetrics.global().record("scrub_gains:flush", flushed - start);
+      NativeMetrics.global().record("scrub_gains:scrub", scrubbed - flushed);
+      NativeMetrics.global().record("scrub_gains:settle", settled - scrubbed);
+    }
+    return new Result(batch.length, flushed - start, scrubbed - flushed, settled - scrubbed);
+  }
+
+  /**
+   * Stop tracking transactions.
+   */
+  @Override
+  public void close() {
+    if (subscription != null) {
+      subscription.close();
+      subscription = null;
+    }
+  }
+}
@@ -0,0 +1,367 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.transaction;
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.Split;
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_date.time64;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.GNCLot;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction;
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric;
+import com.sun.jna.Pointer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.account.EngineAccount.*;
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot.EngineGncLot.gnc_lot_remove_split;
+import static com.austindoupnik.gnc4j.libgnucash.engine.transaction.EngineTransaction.*;
+
+/**
+ * Produces many copies of one transaction, overriding only what differs between them.
+ * <p>
+ * Each copy is made with xaccTransClone(), which copies every split with its account, and then receives its overrides
+ * in a single edit. xaccTransClone() also adds each copied split to the lot of the template split; the copies are
+ * taken out of those lots again first, so the lots of the template keep only the splits that were in them. Balances
+ * of the accounts touched by the template are not recomputed while the copies are made, only once at the end.
+ * <pre>
+ * TransactionTemplate.of(payroll)
+ *     .datePosted(i -&gt; firstOfMonth[i])
+ *     .description(i -&gt; "Payroll " + months[i])
+ *     .value(0, i -&gt; salaries[i])
+ *     .value(1, i -&gt; negatedSalaries[i])
+ *     .generate(12);
+ * </pre>
+ * Overriding a value or amount of one split does not rebalance the others, override them so that every copy stays
+ * balanced, otherwise the engine adds an imbalance split on commit.
+ * <p>
+ * When an override throws, the copy being made is rolled back and destroyed and the exception is rethrown, the
+ * copies made before it are kept.
+ */
+public class TransactionTemplate {
+  /**
+   * The engine calls that make one copy of the template and apply its overrides, and that defer and recompute the
+   * balances of the accounts it touches around a whole run.
+   */
+  interface Editor {
+    Transaction clone(final Transaction template);
+
+    void beginEdit(final Transaction trans);
+
+    void commitEdit(final Transaction trans);
+
+    void rollbackEdit(final Transaction trans);
+
+    /**
+     * Destroy a transaction that is not being edited.
+     */
+    void destroy(final Transaction trans);
+
+    /**
+     * Remove every split of a transaction that is in a lot from its lot.
+     */
+    void removeFromLots(final Transaction trans);
+
+    void setDatePosted(final Transaction trans, final long secs);
+
+    void setDescription(final Transaction trans, final String description);
+
+    void setNum(final Transaction trans, final String num);
+
+    Split getSplit(final Transaction trans, final int i);
+
+    void setMemo(final Split split, final String memo);
+
+    void setAmount(final Split split, final gnc_numeric amount);
+
+    void setValue(final Split split, final gnc_numeric value);
+
+    /**
+     * Defer balance computation of every account of the template that is not deferred already.
+     *
+     * @return the accounts deferred here
+     */
+    List<Account> deferBalances(final Transaction template);
+
+    /**
+     * Stop deferring balance computation of the account and recompute its balance.
+     */
+    void recomputeBalance(final Account account);
+  }
+
+  private static final Editor ENGINE = new Editor() {
+    @Override
+    public Transaction clone(final Transaction template) {
+      return xaccTransClone(template);
+    }
+
+    @Override
+    public void beginEdit(final Transaction trans) {
+      xaccTransBeginEdit(trans);
+    }
+
+    @Override
+    public void commitEdit(final Transaction trans) {
+      xaccTransCommitEdit(trans);
+    }
+
+    @Override
+    public void rollbackEdit(final Transaction trans) {
+      xaccTransRollbackEdit(trans);
+    }
+
+    @Override
+    public void destroy(final Transaction trans) {
+      xaccTransBeginEdit(trans);
+      xaccTransDestroy(trans);
+      xaccTransCommitEdit(trans);
+    }
+
+    @Override
+    public void removeFromLots(final Transaction trans) {
+      final int count = xaccTransCountSplits(trans);
+      for (int i = 0; i < count; i++) {
+        final Split split = xaccTransGetSplit(trans, i);
+        final GNCLot lot = xaccSplitGetLot(split);
+        if (lot != null) {
+          gnc_lot_remove_split(lot, split);
+        }
+      }
+    }
+
+    @Override
+    public void setDatePosted(final Transaction trans, final long secs) {
+      xaccTransSetDatePostedSecsNormalized(trans, new time64(secs));
+    }
+
+    @Override
+    public void setDescription(final Transaction trans, final String description) {
+      xaccTransSetDescription(trans, description);
+    }
+
+    @Override
+    public void setNum(final Transaction trans, final String num) {
+      xaccTransSetNum(trans, num);
+    }
+
+    @Override
+    public Split getSplit(final Transaction trans, final int i) {
+      return xaccTransGetSplit(trans, i);
+    }
+
+    @Override
+    public void setMemo(final Split split, final String memo) {
+      xaccSplitSetMemo(split, memo);
+    }
+
+    @Override
+    public void setAmount(final Split split, final gnc_numeric amount) {
+      xaccSplitSetAmount(split, amount.byValue());
+    }
+
+    @Override
+    public void setValue(final Split split, final gnc_numeric value) {
+      xaccSplitSetValue(split, value.byValue());
+    }
+
+    @Override
+    public List<Account> deferBalances(final Transaction template) {
+      final Map<Long, Account> accounts = new LinkedHashMap<>();
+      final int count = xaccTransCountSplits(template);
+      for (int i = 0; i < count; i++) {
+        final Account account = xaccSplitGetAccount(xaccTransGetSplit(template, i));
+        if (account != null) {
+          accounts.putIfAbsent(Pointer.nativeValue(account.getPointer()), account);
+        }
+      }
+      final List<Account> deferred = new ArrayList<>();
+      for (final Account account : accounts.values()) {
+        if (!gnc_account_get_defer_bal_computation(account)) {
+          gnc_account_set_defer_bal_computation(account, true);
+          deferred.add(account);
+        }
+      }
+      return deferred;
+    }
+
+    @Override
+    public void recomputeBalance(final Account account) {
+      gnc_account_set_defer_bal_computation(account, false);
+      xaccAccountRecomputeBalance(account);
+    }
+  };
+
+  /**
+   * Copies made by {@link #generate(int)} and how long that took.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Result {
+    private final List<Transaction> transactions;
+    private final long copyNanos;
+    private final long rebalanceNanos;
+
+    public double getCopiesPerSecond() {
+      return copyNanos == 0 ? 0 : transactions.size() * 1e9 / copyNanos;
+    }
+  }
+
+  private final Editor editor;
+  private final Transaction template;
+  private IntToLongFunction datePosted;
+  private IntFunction<String> description;
+  private IntFunction<String> num;
+  private final Map<Integer, IntFunction<gnc_numeric>> values = new HashMap<>();
+  private final Map<Integer, IntFunction<gnc_numeric>> amounts = new HashMap<>();
+  private final Map<Integer, IntFunction<String>> memos = new HashMap<>();
+
+  private TransactionTemplate(final Editor editor, final Transaction template) {
+    this.editor = editor;
+    this.template = template;
+  }
+
+  /**
+   * @param template the transaction to copy, it is left untouched
+   */
+  public static TransactionTemplate of(@NonNull final Transaction template) {
+    return of(ENGINE, template);
+  }
+
+  static TransactionTemplate of(final Editor editor, final Transaction template) {
+    return new TransactionTemplate(editor, template);
+  }
+
+  /**
+   * Posted date of each copy, in seconds since the epoch, normalized as by xaccTransSetDatePostedSecsNormalized().
+   */
+  public TransactionTemplate datePosted(@NonNull final IntToLongFunction secs) {
+    this.datePosted = secs;
+    return this;
+  }
+
+  /**
+   * Description of each copy.
+   */
+  public TransactionTemplate description(@NonNull final IntFunction<String> description) {
+    this.description = description;
+    return this;
+  }
+
+  /**
+   * Number of each copy.
+   */
+  public TransactionTemplate num(@NonNull final IntFunction<String> num) {
+    this.num = num;
+    return this;
+  }
+
+  /**
+   * Value of the split at the given index of each copy, in the currency of the transaction.
+   */
+  public TransactionTemplate value(final int split, @NonNull final IntFunction<gnc_numeric> value) {
+    values.put(checkSplit(split), value);
+    return this;
+  }
+
+  /**
+   * Amount of the split at the given index of each copy, in the commodity of its account.
+   */
+  public TransactionTemplate amount(final int split, @NonNull final IntFunction<gnc_numeric> amount) {
+    amounts.put(checkSplit(split), amount);
+    return this;
+  }
+
+  /**
+   * Memo of the split at the given index of each copy.
+   */
+  public TransactionTemplate memo(final int split, @NonNull final IntFunction<String> memo) {
+    memos.put(checkSplit(split), memo);
+    return this;
+  }
+
+  /**
+   * Make the copies.
+   *
+   * @param n number of copies
+   * @return the copies, in order
+   */
+  public Result generate(final int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("number of copies must not be negative: " + n);
+    }
+    final List<Account> deferred = editor.deferBalances(template);
+    final List<Transaction> copies = new ArrayList<>(n);
+    final long start = System.nanoTime();
+    final long copied;
+    try {
+      for (int i = 0; i < n; i++) {
+        copies.add(copy(i));
+      }
+    } finally {
+      copied = System.nanoTime();
+      for (final Account account : deferred) {
+        editor.recomputeBalance(account);
+      }
+    }
+    return new Result(Collections.unmodifiableList(copies), copied - start, System.nanoTime() - copied);
+  }
+
+  private Transaction copy(final int i) {
+    final Transaction copy = editor.clone(template);
+    editor.beginEdit(copy);
+    try {
+      editor.removeFromLots(copy);
+      if (datePosted != null) {
+        editor.setDatePosted(copy, datePosted.applyAsLong(i));
+      }
+      if (description != null) {
+        editor.setDescription(copy, description.apply(i));
+      }
+      if (num != null) {
+        editor.setNum(copy, num.apply(i));
+      }
+      for (final Map.Entry<Integer, IntFunction<String>> e : memos.entrySet()) {
+        editor.setMemo(split(copy, e.getKey()), e.getValue().apply(i));
+      }
+      for (final Map.Entry<Integer, IntFunction<gnc_numeric>> e : amounts.entrySet()) {
+        editor.setAmount(split(copy, e.getKey()), e.getValue().apply(i));
+      }
+      for (final Map.Entry<Integer, IntFunction<gnc_numeric>> e : values.entrySet()) {
+        editor.setValue(split(copy, e.getKey()), e.getValue().apply(i));
+      }
+    } catch (final RuntimeException ex) {
+      try {
+        editor.rollbackEdit(copy);
+        editor.destroy(copy);
+      } catch (final RuntimeException cleanup) {
+        ex.addSuppressed(cleanup);
+      }
+      throw ex;
+    }
+    editor.commitEdit(copy);
+    return copy;
+  }
+
+  private Split split(final Transaction trans, final int i) {
+    final Split split = editor.getSplit(trans, i);
+    if (split == null) {
+      throw new IndexOutOfBoundsException("Template has no split at index " + i);
+    }
+    return split;
+  }
+
+  private static int checkSplit(final int split) {
+    if (split < 0) {
+      throw new IndexOutOfBoundsException("Split index must not be negative: " + split);
+    }
+    return split;
+  }
+}
@@ -0,0 +1,27 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+/**
+ * A request to a worker process failed, either because the handler threw or because the process died.
+ */
+public class WorkerException extends RuntimeException {
+  private static final long serialVersionUID = 4216540723457012931L;
+
+  private final boolean crashed;
+
+  public WorkerException(final String message, final boolean crashed) {
+    super(message);
+    this.crashed = crashed;
+  }
+
+  public WorkerException(final String message, final Throwable cause) {
+    super(message, cause);
+    this.crashed = true;
+  }
+
+  /**
+   * @return true when the process died before answering, the request may or may not have been carried out
+   */
+  public boolean isCrashed() {
+    return crashed;
+  }
+}
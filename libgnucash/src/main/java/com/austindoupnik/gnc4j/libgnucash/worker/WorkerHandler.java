@@ -0,0 +1,27 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+/**
+ * Serves requests inside a worker process started by a {@link WorkerPool}.
+ * <p>
+ * One instance is created per worker process through its public no argument constructor, and is only ever called
+ * from the main thread of that process, which can therefore own the engine. The same book is always routed to the
+ * same process, but a restarted process starts empty: open books lazily, on the first request naming them.
+ */
+public interface WorkerHandler extends AutoCloseable {
+  /**
+   * @param book      the book the request was routed by, usually its URI
+   * @param operation what to do, defined by the handler
+   * @param payload   arguments of the operation, encoded as the handler sees fit
+   * @return the result, encoded as the handler sees fit
+   * @throws Exception reported to the caller as a {@link WorkerException}, the process keeps serving
+   */
+  byte[] handle(final String book, final String operation, final byte[] payload) throws Exception;
+
+  /**
+   * Called when the pool shuts the process down, close the books here.
+   */
+  @Override
+  default void close() {
+
+  }
+}
@@ -0,0 +1,32 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+import lombok.experimental.UtilityClass;
+
+import static com.austindoupnik.gnc4j.jna_core.NativeRegister.nativeRegister;
+
+/**
+ * The few C library calls a worker process needs to take its standard output away from native code.
+ */
+@UtilityClass
+class WorkerLibC {
+  static {
+    nativeRegister(WorkerLibC.class, "c");
+  }
+
+  static final int STDOUT_FILENO = 1;
+  static final int STDERR_FILENO = 2;
+
+  /**
+   * Duplicate oldfd onto the lowest free file descriptor.
+   *
+   * @return the new file descriptor, -1 on error
+   */
+  static native int dup(final int oldfd);
+
+  /**
+   * Make newfd a copy of oldfd, closing newfd first.
+   *
+   * @return newfd, -1 on error
+   */
+  static native int dup2(final int oldfd, final int newfd);
+}
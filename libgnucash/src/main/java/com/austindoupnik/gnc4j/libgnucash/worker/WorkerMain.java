@@ -0,0 +1,68 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Entry point of a worker process: {@code WorkerMain <handler class>}.
+ * <p>
+ * Reads requests from standard input and answers them on standard output, one at a time on the main thread, until
+ * standard input is closed. Before the handler is loaded, the pipe behind file descriptor 1 is duplicated for the
+ * frames and file descriptor 1 itself is pointed at standard error, so nothing printed, whether by Java, the engine,
+ * GLib or JNA, can corrupt the protocol.
+ */
+public class WorkerMain {
+  public static void main(final String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("Usage: " + WorkerMain.class.getName() + " <handler class>");
+      System.exit(2);
+    }
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(takeStandardOutput()));
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+
+    try (WorkerHandler handler = Class.forName(args[0])
+        .asSubclass(WorkerHandler.class)
+        .getDeclaredConstructor()
+        .newInstance()) {
+      serve(handler, in, out);
+    }
+  }
+
+  /**
+   * Move the stream behind file descriptor 1 to a new file descriptor and point 1 at standard error.
+   *
+   * @return the original standard output
+   */
+  private static OutputStream takeStandardOutput() throws IOException {
+    System.out.flush();
+    final int frames = WorkerLibC.dup(WorkerLibC.STDOUT_FILENO);
+    if (frames < 0) {
+      throw new IOException("Unable to duplicate standard output");
+    }
+    final OutputStream out = new FileOutputStream("/dev/fd/" + frames);
+    if (WorkerLibC.dup2(WorkerLibC.STDERR_FILENO, WorkerLibC.STDOUT_FILENO) < 0) {
+      throw new IOException("Unable to redirect standard output to standard error");
+    }
+    return out;
+  }
+
+  static void serve(final WorkerHandler handler, final DataInputStream in, final DataOutputStream out) throws IOException {
+    for (WorkerProtocol.Request request = WorkerProtocol.readRequest(in); request != null; request = WorkerProtocol.readRequest(in)) {
+      final byte[] result;
+      try {
+        result = handler.handle(request.book, request.operation, request.payload);
+      } catch (final Exception ex) {
+        WorkerProtocol.writeError(out, request.id, String.valueOf(ex));
+        continue;
+      }
+      WorkerProtocol.writeResult(out, request.id, result == null ? new byte[0] : result);
+    }
+  }
+}
@@ -0,0 +1,328 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs independent books in separate worker processes, so that they can be worked on in parallel.
+ * <p>
+ * The engine keeps global state, such as the current session, so one process can only drive it from one thread. A
+ * pool starts a number of JVMs running {@link WorkerMain} with a {@link WorkerHandler}, and routes every request for
+ * a book to the same process: the first request for a book assigns it to the process owning the fewest books.
+ * Requests travel over the standard input and output of the processes, see {@link WorkerProtocol}.
+ * <p>
+ * When a process dies its pending requests fail with a crashed {@link WorkerException}, they are not retried since
+ * they may have been carried out. The next request routed to it starts a new process, which reopens its books on
+ * demand. The standard error of the processes is inherited.
+ */
+public class WorkerPool implements AutoCloseable {
+  /**
+   * Starts the process of one worker, called again with the same index when that worker has to be restarted;
+   * {@link WorkerPool#start} runs {@link WorkerMain} in a JVM on the classpath of this one.
+   */
+  interface Launcher {
+    Process launch(final int worker) throws IOException;
+  }
+
+  /**
+   * Requests submitted to the pool and how they ended, worker restarts and books routed, as of {@link #getStats()};
+   * pending counts the requests still waiting for a response from any worker.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Stats {
+    private final int workers;
+    private final int books;
+    private final long submitted;
+    private final long succeeded;
+    private final long failed;
+    private final long restarts;
+    private final int pending;
+  }
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final Launcher launcher;
+  private final Worker[] workers;
+  private final Map<String, Integer> routes = new HashMap<>();
+  private final int[] booksPerWorker;
+  private final AtomicInteger ids = new AtomicInteger();
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong succeeded = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong restarts = new AtomicLong();
+  private volatile boolean closed;
+
+  WorkerPool(final int workers, final Launcher launcher) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("workers must be positive: " + workers);
+    }
+    this.launcher = launcher;
+    this.workers = new Worker[workers];
+    for (int i = 0; i < workers; i++) {
+      this.workers[i] = new Worker(i);
+    }
+    this.booksPerWorker = new int[workers];
+  }
+
+  /**
+   * Start a pool of child JVMs using the class path and java executable of this JVM. Processes are started when the
+   * first request is routed to them.
+   *
+   * @param handler class instantiated in every process to serve requests
+   * @param workers number of processes
+   * @param jvmArgs extra arguments for the child JVMs, such as -Xmx or -Djna.library.path
+   */
+  public static WorkerPool start(
+      @NonNull final Class<? extends WorkerHandler> handler,
+      final int workers,
+      final String... jvmArgs
+  ) {
+    final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    final String classPath = System.getProperty("java.class.path");
+    return new WorkerPool(workers, worker -> {
+      final List<String> command = new ArrayList<>();
+      command.add(java);
+      command.addAll(Arrays.asList(jvmArgs));
+      command.add("-cp");
+      command.add(classPath);
+      command.add(WorkerMain.class.getName());
+      command.add(handler.getName());
+      return new ProcessBuilder(command)
+          .redirectError(ProcessBuilder.Redirect.INHERIT)
+          .start();
+    });
+  }
+
+  /**
+   * Send a request to the process owning the book.
+   *
+   * @return completes with the result of the handler, or exceptionally with a {@link WorkerException}
+   */
+  public CompletableFuture<byte[]> submit(
+      @NonNull final String book,
+      @NonNull final String operation,
+      @NonNull final byte[] payload
+  ) {
+    if (closed) {
+      throw new IllegalStateException("Worker pool is closed");
+    }
+    submitted.incrementAndGet();
+    final CompletableFuture<byte[]> future = workers[workerFor(book)].send(ids.incrementAndGet(), book, operation, payload);
+    future.whenComplete((result, ex) -> (ex == null ? succeeded : failed).incrementAndGet());
+    return future;
+  }
+
+  /**
+   * @return index of the process owning the book, assigning it if this is the first time it is seen
+   */
+  public synchronized int workerFor(@NonNull final String book) {
+    return routes.computeIfAbsent(book, b -> {
+      int least = 0;
+      for (int i = 1; i < booksPerWorker.length; i++) {
+        if (booksPerWorker[i] < booksPerWorker[least]) {
+          least = i;
+        }
+      }
+      booksPerWorker[least]++;
+      return least;
+    });
+  }
+
+  public synchronized Stats getStats() {
+    int pending = 0;
+    for (final Worker worker : workers) {
+      pending += worker.pendingCount();
+    }
+    return new Stats(
+        workers.length,
+        routes.size(),
+        submitted.get(),
+        succeeded.get(),
+        failed.get(),
+        restarts.get(),
+        pending
+    );
+  }
+
+  /**
+   * Close the standard input of every process, wait for them to exit and fail anything still pending.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for (final Worker worker : workers) {
+      worker.stop();
+    }
+  }
+
+  /**
+   * One process of a worker, with the requests sent to it and not yet answered. A request only ever fails with the
+   * process it was written to.
+   */
+  private static class Connection {
+    private final Process process;
+    private final DataOutputStream out;
+    private final Map<Integer, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+
+    private Connection(final Process process) {
+      this.process = process;
+      this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    }
+  }
+
+  private class Worker {
+    private final int index;
+    private Connection connection;
+    private boolean started;
+
+    private Worker(final int index) {
+      this.index = index;
+    }
+
+    private synchronized int pendingCount() {
+      return connection == null ? 0 : connection.pending.size();
+    }
+
+    private CompletableFuture<byte[]> send(
+        final int id,
+        final String book,
+        final String operation,
+        final byte[] payload
+    ) {
+      final CompletableFuture<byte[]> future = new CompletableFuture<>();
+      final Connection unreachable;
+      synchronized (this) {
+        Connection c = null;
+        try {
+          c = ensureRunning();
+          c.pending.put(id, future);
+          WorkerProtocol.writeRequest(c.out, id, book, operation, payload);
+          return future;
+        } catch (final IOException ex) {
+          if (c != null) {
+            c.pending.remove(id);
+            if (connection == c) {
+              connection = null;
+            }
+          }
+          future.completeExceptionally(new WorkerException("Worker " + index + " could not be reached", ex));
+          unreachable = c;
+        }
+      }
+      // outside of the lock, other requests to this worker start a new process meanwhile
+      if (unreachable != null) {
+        kill(unreachable.process);
+      }
+      return future;
+    }
+
+    private Connection ensureRunning() throws IOException {
+      if (connection != null) {
+        return connection;
+      }
+      if (started) {
+        restarts.incrementAndGet();
+      }
+      started = true;
+      final Connection c = new Connection(launcher.launch(index));
+      connection = c;
+      final Thread reader = new Thread(() -> read(c), "gnc4j-worker-" + index);
+      reader.setDaemon(true);
+      reader.start();
+      return c;
+    }
+
+    private void read(final Connection c) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(c.process.getInputStream()))) {
+        for (WorkerProtocol.Response response = WorkerProtocol.readResponse(in); response != null; response = WorkerProtocol.readResponse(in)) {
+          final CompletableFuture<byte[]> future = c.pending.remove(response.id);
+          if (future == null) {
+            continue;
+          }
+          if (response.status == WorkerProtocol.OK) {
+            future.complete(response.result);
+          } else {
+            future.completeExceptionally(new WorkerException(response.message, false));
+          }
+        }
+      } catch (final IOException ignored) {
+        // treated as the process dying below
+      }
+      died(c);
+    }
+
+    /**
+     * Forget a process that exited or stopped answering and fail the requests sent to it, the next request starts a
+     * new process.
+     */
+    private void died(final Connection c) {
+      synchronized (this) {
+        if (connection == c) {
+          connection = null;
+        }
+      }
+      kill(c.process);
+      final Process p = c.process;
+      final String message = "Worker " + index + " exited" + (p.isAlive() ? "" : " with code " + p.exitValue());
+      for (final Integer id : new ArrayList<>(c.pending.keySet())) {
+        final CompletableFuture<byte[]> future = c.pending.remove(id);
+        if (future != null) {
+          future.completeExceptionally(new WorkerException(message, true));
+        }
+      }
+    }
+
+    private void stop() {
+      final Process p;
+      synchronized (this) {
+        if (connection == null) {
+          return;
+        }
+        p = connection.process;
+        try {
+          connection.out.close();
+        } catch (final IOException ignored) {
+          // the process is gone already
+        }
+      }
+      try {
+        if (!p.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          p.destroyForcibly();
+        }
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        p.destroyForcibly();
+      }
+    }
+
+    private void kill(final Process p) {
+      if (p.isAlive()) {
+        p.destroyForcibly();
+        try {
+          p.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
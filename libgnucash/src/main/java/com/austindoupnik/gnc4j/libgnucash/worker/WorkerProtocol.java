@@ -0,0 +1,130 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames exchanged between a {@link WorkerPool} and its processes over their standard input and output.
+ * <p>
+ * Request: int id, book, operation, payload.
+ * <p>
+ * Response: int id, byte status, then for {@link #OK} the result, for {@link #ERROR} the message.
+ * <p>
+ * Strings are sent as UTF-8 and, like byte arrays, preceded by their length as an int. Strings are encoded before
+ * anything is written, so a frame is either written whole or not at all.
+ */
+@UtilityClass
+class WorkerProtocol {
+  static final byte OK = 0;
+  static final byte ERROR = 1;
+
+  /**
+   * Longest message sent back for a failed request, in chars.
+   */
+  private static final int MAX_MESSAGE = 16 * 1024;
+
+  @RequiredArgsConstructor
+  static class Request {
+    final int id;
+    final String book;
+    final String operation;
+    final byte[] payload;
+  }
+
+  @RequiredArgsConstructor
+  static class Response {
+    final int id;
+    final byte status;
+    final byte[] result;
+    final String message;
+  }
+
+  static void writeRequest(
+      final DataOutputStream out,
+      final int id,
+      final String book,
+      final String operation,
+      final byte[] payload
+  ) throws IOException {
+    final byte[] bookBytes = book.getBytes(StandardCharsets.UTF_8);
+    final byte[] operationBytes = operation.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(id);
+    writeBytes(out, bookBytes);
+    writeBytes(out, operationBytes);
+    writeBytes(out, payload);
+    out.flush();
+  }
+
+  /**
+   * @return the next request, null at the end of the stream
+   */
+  static Request readRequest(final DataInputStream in) throws IOException {
+    final int id;
+    try {
+      id = in.readInt();
+    } catch (final EOFException ex) {
+      return null;
+    }
+    final String book = readString(in);
+    final String operation = readString(in);
+    return new Request(id, book, operation, readBytes(in));
+  }
+
+  static void writeResult(final DataOutputStream out, final int id, final byte[] result) throws IOException {
+    out.writeInt(id);
+    out.writeByte(OK);
+    writeBytes(out, result);
+    out.flush();
+  }
+
+  static void writeError(final DataOutputStream out, final int id, final String message) throws IOException {
+    final byte[] bytes = (message.length() > MAX_MESSAGE ? message.substring(0, MAX_MESSAGE) : message)
+        .getBytes(StandardCharsets.UTF_8);
+    out.writeInt(id);
+    out.writeByte(ERROR);
+    writeBytes(out, bytes);
+    out.flush();
+  }
+
+  /**
+   * @return the next response, null at the end of the stream
+   */
+  static Response readResponse(final DataInputStream in) throws IOException {
+    final int id;
+    try {
+      id = in.readInt();
+    } catch (final EOFException ex) {
+      return null;
+    }
+    final byte status = in.readByte();
+    if (status == OK) {
+      return new Response(id, status, readBytes(in), null);
+    }
+    return new Response(id, status, null, readString(in));
+  }
+
+  private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    return new String(readBytes(in), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(final DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Corrupt frame, negative length: " + length);
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,111 @@
+package com.austindoupnik.gnc4j.libgnucash.engine
+
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class ConversionGraphTest extends Specification {
+    static final long USD = 1, EUR = 2, GBP = 3, CHF = 4, AAPL = 5, NESN = 6, JPY = 7
+
+    def history = new PriceHistory()
+
+    def setup() {
+        history.append(AAPL, USD, 100, 200, 1)
+        history.append(EUR, USD, 100, 5, 4)
+        history.append(GBP, USD, 50, 3, 2)
+        history.append(GBP, EUR, 90, 6, 5)
+        history.append(NESN, CHF, 100, 100, 1)
+        history.sortAll()
+    }
+
+    def "conversions follow the shortest path with the most recent prices"() {
+        given:
+        def graph = new ConversionGraph(history, JPY)
+
+        expect:
+        graph.rate(AAPL, EUR) == 160d
+        graph.path(AAPL, EUR) == [AAPL, USD, EUR] as long[]
+        graph.path(AAPL, GBP) == [AAPL, USD, GBP] as long[]
+        graph.rate(EUR, AAPL) == 1 / 160d
+        graph.rate(JPY, JPY) == 1d
+        graph.rate(NESN, USD).isNaN()
+        graph.rate(JPY, USD).isNaN()
+        graph.path(NESN, USD).length == 0
+        graph.stats.commodities == 7
+        graph.stats.pairs == 5
+    }
+
+    def "among paths with as many hops the one with the most recent oldest price wins"() {
+        given:
+        history.add(CHF, EUR, 95, 1, 1)
+        history.add(CHF, GBP, 80, 1, 1)
+
+        when:
+        def graph = new ConversionGraph(history)
+
+        then:
+        graph.path(CHF, USD) == [CHF, EUR, USD] as long[]
+    }
+
+    def "a newer price only recomputes the sources it can affect"() {
+        given:
+        def graph = new ConversionGraph(history)
+        graph.rate(AAPL, EUR)
+        graph.rate(NESN, CHF)
+
+        when:
+        graph.add(EUR, USD, 200, 3, 2)
+
+        then:
+        graph.stats.rowsInvalidated == 1
+        Math.abs(graph.rate(AAPL, EUR) - 200 / 1.5d) < 1e-9
+
+        when:
+        graph.add(NESN, USD, 200, 110, 1)
+
+        then:
+        graph.stats.pairs == 6
+        graph.rate(CHF, AAPL) == 110 / 100d / 200d
+    }
+
+    def "conversions at a time use the prices nearest to it along the path"() {
+        given:
+        def graph = new ConversionGraph(history)
+        graph.add(AAPL, USD, 300, 250, 1)
+
+        expect:
+        graph.rate(AAPL, EUR, 120) == 200 / 1.25d
+        graph.rate(AAPL, EUR, 1000) == 250 / 1.25d
+        graph.rate(AAPL, EUR) == 250 / 1.25d
+    }
+
+    def "prices from events are read at the end of the batch unless removed or destroyed meanwhile"() {
+        given:
+        def read = []
+        def graph = new ConversionGraph(history).readingWith({ g, price -> read << price } as ConversionGraph.PriceReader)
+        def modify = QofEventType.QOF_EVENT_MODIFY.value
+
+        when:
+        graph.onEvent(new Pointer(10), "Price", QofEventType.QOF_EVENT_ADD.value)
+        graph.onEvent(new Pointer(20), "Price", modify)
+        graph.onEvent(new Pointer(30), "Price", modify)
+        graph.onEvent(new Pointer(10), "Price", modify)
+
+        then:
+        read.isEmpty()
+
+        when:
+        graph.onEvent(new Pointer(20), "Price", QofEventType.QOF_EVENT_REMOVE.value)
+        graph.onEvent(new Pointer(30), "Price", QofEventType.QOF_EVENT_DESTROY.value)
+        graph.onBatchEnd()
+
+        then:
+        read == [10L]
+
+        when:
+        graph.onBatchEnd()
+
+        then:
+        read == [10L]
+    }
+}
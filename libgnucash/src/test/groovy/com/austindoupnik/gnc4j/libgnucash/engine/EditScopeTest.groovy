@@ -0,0 +1,131 @@
+package com.austindoupnik.gnc4j.libgnucash.engine
+
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class EditScopeTest extends Specification {
+    def calls = []
+    def editor = new EditScope.Editor() {
+        @Override
+        void accountBeginEdit(Account account) {
+            calls << "begin account " + Pointer.nativeValue(account.getPointer())
+        }
+
+        @Override
+        void accountCommitEdit(Account account) {
+            calls << "commit account " + Pointer.nativeValue(account.getPointer())
+        }
+
+        @Override
+        void transBeginEdit(Transaction trans) {
+            calls << "begin trans " + Pointer.nativeValue(trans.getPointer())
+        }
+
+        @Override
+        void transCommitEdit(Transaction trans) {
+            calls << "commit trans " + Pointer.nativeValue(trans.getPointer())
+        }
+
+        @Override
+        void transRollbackEdit(Transaction trans) {
+            calls << "rollback trans " + Pointer.nativeValue(trans.getPointer())
+        }
+    }
+
+    def account = new Account(new Pointer(1))
+    def trans = new Transaction(new Pointer(2))
+
+    def "each entity is begun once and committed at the end, transactions first"() {
+        when:
+        def scope = EditScope.open(editor)
+        scope.edit(account)
+        scope.edit(trans)
+        scope.edit(new Account(new Pointer(1)))
+        scope.edit(trans)
+        def size = scope.size()
+        scope.commit()
+        scope.close()
+
+        then:
+        size == 2
+        calls == ["begin account 1", "begin trans 2", "commit trans 2", "commit account 1"]
+    }
+
+    def "closing without commit rolls back transactions"() {
+        when:
+        def scope = EditScope.open(editor)
+        try {
+            scope.edit(trans)
+            scope.edit(account)
+            throw new IllegalArgumentException()
+        } catch (IllegalArgumentException ignored) {
+        } finally {
+            scope.close()
+        }
+
+        then:
+        calls == ["begin trans 2", "begin account 1", "rollback trans 2", "commit account 1"]
+    }
+
+    def "nested scopes join the outermost scope"() {
+        when:
+        def outer = EditScope.open(editor)
+        outer.edit(trans)
+        def inner = EditScope.open(editor)
+        inner.edit(trans)
+        inner.edit(account)
+        inner.commit()
+        inner.close()
+        def beforeOuterCommit = new ArrayList(calls)
+        outer.commit()
+        outer.close()
+
+        then:
+        beforeOuterCommit == ["begin trans 2", "begin account 1"]
+        calls == ["begin trans 2", "begin account 1", "commit trans 2", "commit account 1"]
+    }
+
+    def "rolled back nested scope rolls back the outermost scope"() {
+        given:
+        def outer = EditScope.open(editor)
+        outer.edit(trans)
+        def inner = EditScope.open(editor)
+        inner.close()
+
+        when:
+        outer.commit()
+
+        then:
+        thrown(IllegalStateException)
+        calls == ["begin trans 2", "rollback trans 2"]
+
+        cleanup:
+        outer.close()
+    }
+
+    def "no scope can be opened once the outermost scope has ended"() {
+        given:
+        def outer = EditScope.open(editor)
+        outer.edit(trans)
+        outer.commit()
+
+        when:
+        EditScope.open(editor)
+
+        then:
+        thrown(IllegalStateException)
+        calls == ["begin trans 2", "commit trans 2"]
+
+        when:
+        outer.close()
+        def next = EditScope.open(editor)
+        next.edit(account)
+        next.commit()
+        next.close()
+
+        then:
+        calls == ["begin trans 2", "commit trans 2", "begin account 1", "commit account 1"]
+    }
+}
@@ -0,0 +1,61 @@
+package com.austindoupnik.gnc4j.libgnucash.engine
+
+import spock.lang.Specification
+
+class PriceHistoryTest extends Specification {
+    static final long USD = 1, EUR = 2, AAPL = 3, GBP = 4
+
+    def history = new PriceHistory()
+
+    def setup() {
+        // appended out of order, as the engine walks its prices
+        history.append(AAPL, USD, 300, 130, 1)
+        history.append(AAPL, USD, 100, 110, 1)
+        history.append(AAPL, USD, 200, 120, 1)
+        history.append(AAPL, USD, 200, 125, 1)
+        history.append(EUR, USD, 100, 125, 100)
+        history.sortAll()
+    }
+
+    def "prices are sorted once and the last one of a time wins"() {
+        expect:
+        history.size() == 4
+        history.pairs() == 2
+        history.nearest(AAPL, USD, 200) == 125d
+    }
+
+    def "nearest and at or before are found by binary search"() {
+        expect:
+        history.nearest(AAPL, USD, time) == nearest
+        history.atOrBefore(AAPL, USD, time) == atOrBefore
+
+        where:
+        time | nearest | atOrBefore
+        0    | 110d    | Double.NaN
+        149  | 110d    | 110d
+        150  | 110d    | 110d
+        151  | 125d    | 110d
+        1000 | 130d    | 130d
+    }
+
+    def "reverse pairs are inverted and unknown pairs have no price"() {
+        expect:
+        history.nearest(USD, EUR, 100) == 0.8d
+        history.atOrBefore(USD, EUR, 50).isNaN()
+        history.nearest(GBP, USD, 100).isNaN()
+    }
+
+    def "prices added later keep the series sorted"() {
+        when:
+        history.add(AAPL, USD, 250, 140, 1)
+        history.add(AAPL, USD, 100, 111, 1)
+        history.add(GBP, USD, 100, 3, 2)
+
+        then:
+        history.size() == 6
+        history.atOrBefore(AAPL, USD, 260) == 140d
+        history.nearest(AAPL, USD, 90) == 111d
+        history.nearest(GBP, USD, 0) == 1.5d
+        new ConversionRates(history::nearest).rate(USD, GBP, 0) == 1 / 1.5d
+    }
+}
@@ -0,0 +1,86 @@
+package com.austindoupnik.gnc4j.libgnucash.engine
+
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+import java.util.function.Function
+
+class QofCollectionBatchesTest extends Specification {
+    static final Function<Pointer, Long> ADDRESS = { Pointer p -> Pointer.nativeValue(p) } as Function<Pointer, Long>
+
+    static QofCollectionBatches<Long> fill(int capacity, int entities, int batchSize) {
+        def filler = new QofCollectionBatches.Filler(capacity)
+        (1..entities).each { filler.invoke(new Pointer(it * 8L), null) }
+        filler.batches(batchSize, ADDRESS)
+    }
+
+    def "entities come back in batches of at most the batch size"() {
+        given:
+        def batches = fill(5, 5, 2)
+
+        expect:
+        batches.size() == 5
+        batches.batchCount == 3
+        batches.collect() == [[8L, 16L], [24L, 32L], [40L]]
+        batches.getBatch(2) == [40L]
+    }
+
+    def "the array grows when the collection holds more than it counted"() {
+        given:
+        def batches = fill(capacity, 40, 64)
+
+        expect:
+        batches.size() == 40
+        batches.collect() == [(1..40).collect { it * 8L }]
+
+        where:
+        capacity << [0, 1, 17]
+    }
+
+    def "the pointers can be copied out as addresses"() {
+        given:
+        def filler = new QofCollectionBatches.Filler(capacity)
+        (1..entities).each { filler.invoke(new Pointer(it * 8L), null) }
+
+        expect:
+        filler.toPointerArray() == (1..entities).collect { it * 8L } as long[]
+
+        where:
+        capacity | entities
+        3        | 3
+        1        | 20
+    }
+
+    def "an empty collection has no pointers"() {
+        expect:
+        new QofCollectionBatches.Filler(0).toPointerArray().length == 0
+    }
+
+    def "an empty collection has no batches"() {
+        given:
+        def batches = new QofCollectionBatches.Filler(0).batches(10, ADDRESS)
+
+        when:
+        batches.iterator().next()
+
+        then:
+        batches.size() == 0
+        batches.batchCount == 0
+        !batches.iterator().hasNext()
+        thrown(NoSuchElementException)
+    }
+
+    def "batch size and batch index are checked"() {
+        when:
+        fill(3, 3, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        fill(3, 3, 2).getBatch(2)
+
+        then:
+        thrown(IndexOutOfBoundsException)
+    }
+}
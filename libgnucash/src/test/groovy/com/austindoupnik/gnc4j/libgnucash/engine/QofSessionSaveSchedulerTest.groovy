@@ -0,0 +1,122 @@
+package com.austindoupnik.gnc4j.libgnucash.engine
+
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.QofSessionSaveScheduler.SaveResult
+
+class QofSessionSaveSchedulerTest extends Specification {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor()
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "requests within the window are coalesced into one save"() {
+        given:
+        def saves = 0
+        def scheduler = new QofSessionSaveScheduler(executor, 1, 1, TimeUnit.HOURS, () -> true, f -> {
+            f.invoke("saving", 50)
+            saves++
+        }, () -> 42L, null)
+
+        when:
+        def futures = (1..5).collect { scheduler.requestSave() }
+        def depth = scheduler.getStats().getQueueDepth()
+        scheduler.flush().get(5, TimeUnit.SECONDS)
+        def stats = scheduler.getStats()
+
+        then:
+        depth == 5
+        futures.every { it.get() == SaveResult.SAVED }
+        saves == 1
+        stats.getRequests() == 5
+        stats.getSaves() == 1
+        stats.getQueueDepth() == 0
+        stats.getLastFileSize() == 42
+    }
+
+    def "clean book is not saved"() {
+        given:
+        def saves = 0
+        def scheduler = new QofSessionSaveScheduler(executor, 0, 0, TimeUnit.MILLISECONDS, () -> false, f -> saves++, () -> 0L, null)
+
+        when:
+        def result = scheduler.requestSave().get(5, TimeUnit.SECONDS)
+
+        then:
+        result == SaveResult.SKIPPED
+        saves == 0
+        scheduler.getStats().getSkipped() == 1
+    }
+
+    def "failed save completes the future exceptionally"() {
+        given:
+        def scheduler = new QofSessionSaveScheduler(executor, 0, 0, TimeUnit.MILLISECONDS, () -> true, f -> {
+            throw new IllegalStateException("boom")
+        }, () -> 0L, null)
+
+        when:
+        scheduler.requestSave().join()
+
+        then:
+        thrown(Exception)
+        scheduler.getStats().getFailures() == 1
+    }
+
+    def "every request restarts the window"() {
+        given:
+        def engine = Mock(ScheduledExecutorService)
+        def first = Mock(ScheduledFuture)
+        def second = Mock(ScheduledFuture)
+        def scheduler = new QofSessionSaveScheduler(engine, 5, 60, TimeUnit.SECONDS, () -> true, f -> {}, () -> 0L, null)
+
+        when:
+        def a = scheduler.requestSave()
+
+        then:
+        1 * engine.schedule(_, TimeUnit.SECONDS.toNanos(5), TimeUnit.NANOSECONDS) >> first
+
+        when:
+        def b = scheduler.requestSave()
+
+        then:
+        1 * first.cancel(false) >> true
+        1 * engine.schedule(_, TimeUnit.SECONDS.toNanos(5), TimeUnit.NANOSECONDS) >> second
+        a.is(b)
+    }
+
+    def "requests never push the save past the maximum delay after the first one"() {
+        given:
+        def engine = Mock(ScheduledExecutorService)
+        def now = 0L
+        def scheduler = new QofSessionSaveScheduler(engine, 5, 12, TimeUnit.SECONDS, () -> true, f -> {}, () -> 0L, null,
+                () -> TimeUnit.SECONDS.toNanos(now))
+        def delays = []
+        engine.schedule(_, _, TimeUnit.NANOSECONDS) >> { args ->
+            delays << TimeUnit.NANOSECONDS.toSeconds(args[1])
+            Stub(ScheduledFuture) { cancel(false) >> true }
+        }
+
+        when:
+        [0, 4, 9, 11, 14].each {
+            now = it
+            scheduler.requestSave()
+        }
+
+        then:
+        delays == [5, 5, 3, 1, 0]
+    }
+
+    def "the maximum delay must not be shorter than the window"() {
+        when:
+        new QofSessionSaveScheduler(executor, 5, 4, TimeUnit.SECONDS, () -> true, f -> {}, () -> 0L, null)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
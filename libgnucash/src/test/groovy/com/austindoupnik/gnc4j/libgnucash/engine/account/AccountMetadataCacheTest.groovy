@@ -0,0 +1,105 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account
+
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class AccountMetadataCacheTest extends Specification {
+    static final int MODIFY = QofEventType.QOF_EVENT_MODIFY.value
+
+    /**
+     * root(1) -> Assets(2) -> Bank(3) -> Checking(4), root(1) -> Expenses(5)
+     */
+    def names = [1L: "", 2L: "Assets", 3L: "Bank", 4L: "Checking", 5L: "Expenses"]
+    def parents = [1L: 0L, 2L: 1L, 3L: 2L, 4L: 3L, 5L: 1L]
+    def reads = 0
+    AccountMetadataCache cache
+
+    def setup() {
+        cache = new AccountMetadataCache({}, new AccountMetadataCache.Source() {
+            String name(long account) {
+                reads++
+                new String(names[account])
+            }
+
+            String code(long account) { new String("100") }
+
+            int type(long account) { GNCAccountType.ACCT_TYPE_BANK.value }
+
+            long commodity(long account) { 0 }
+
+            long parent(long account) { parents[account] }
+
+            String separator() { ":" }
+        })
+    }
+
+    static Account account(long p) {
+        new Account(new Pointer(p))
+    }
+
+    def "attributes are read once and full names are built from the ancestors"() {
+        when:
+        def full = cache.getFullName(account(4))
+
+        then:
+        full == "Assets:Bank:Checking"
+        cache.getFullName(account(5)) == "Expenses"
+        cache.getFullName(account(1)) == ""
+        cache.getName(account(3)) == "Bank"
+        cache.getType(account(3)) == GNCAccountType.ACCT_TYPE_BANK
+        cache.getParent(account(2)) == account(1)
+        cache.getCommodity(account(2)) == null
+        reads == 5
+        cache.getCode(account(2)).is(cache.getCode(account(3)))
+
+        and:
+        def stats = cache.stats
+        stats.misses == 2
+        stats.hits == 7
+        stats.accounts == 5
+        stats.internedStrings == 6
+    }
+
+    def "renaming an account rebuilds the full names below it"() {
+        given:
+        cache.getFullName(account(4))
+        cache.getFullName(account(5))
+
+        when:
+        names[2L] = "Assets2"
+        cache.onEvent(new Pointer(2), "Account", MODIFY)
+
+        then:
+        cache.getFullName(account(4)) == "Assets2:Bank:Checking"
+        cache.getFullName(account(5)) == "Expenses"
+        cache.stats.invalidations == 1
+    }
+
+    def "moving an account rebuilds its full name"() {
+        given:
+        cache.getFullName(account(3))
+
+        when:
+        parents[3L] = 5L
+        cache.onEvent(new Pointer(3), "Account", MODIFY)
+
+        then:
+        cache.getFullName(account(3)) == "Expenses:Bank"
+        cache.getFullName(account(4)) == "Expenses:Bank:Checking"
+    }
+
+    def "buffered events are flushed before the cache lock is taken"() {
+        given:
+        def heldDuringFlush = []
+        AccountMetadataCache locking
+        locking = new AccountMetadataCache({ heldDuringFlush << Thread.holdsLock(locking) }, cache.source)
+
+        when:
+        locking.getName(account(3))
+        locking.getFullName(account(4))
+
+        then:
+        heldDuringFlush == [false, false]
+    }
+}
@@ -0,0 +1,108 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account
+
+import com.austindoupnik.gnc4j.libgnucash.engine.ConversionRates
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class AccountRollupTest extends Specification {
+    static final long USD = 100, EUR = 101, GBP = 102, AAPL = 103, JPY = 104
+
+    /**
+     * root(1) -> Assets(2) -> [Checking(3) USD 100, Savings(4) EUR 50, Stock(5) AAPL 2, Yen(6) JPY 1000]
+     */
+    def children = [1L: [2L], 2L: [3L, 4L, 5L, 6L], 3L: [], 4L: [], 5L: [], 6L: []]
+    def commodities = [1L: USD, 2L: USD, 3L: USD, 4L: EUR, 5L: AAPL, 6L: JPY]
+    def balances = [1L: 0.0, 2L: 0.0, 3L: 100.0, 4L: 50.0, 5L: 2.0, 6L: 1000.0]
+    def tree = new AccountRollup.Tree() {
+        long[] children(long account) { children[account] as long[] }
+
+        long commodity(long account) { commodities[account] }
+
+        BigDecimal balance(long account, long date) { balances[account] }
+
+        int fraction(long commodity) { commodity == JPY ? 1 : 100 }
+    }
+
+    def lookups = []
+    def prices = [
+            [EUR, USD]: 1.25d,
+            [AAPL, EUR]: 100d,
+            [GBP, USD]: 1.5d,
+    ]
+    def rates = new ConversionRates({ long c, long cur, long t ->
+        lookups << [c, cur]
+        prices.get([c, cur]) ?: Double.NaN
+    } as ConversionRates.Prices, EUR)
+
+    static Account account(long p) {
+        new Account(new Pointer(p))
+    }
+
+    def "subtree totals are converted with one lookup per rate, through an intermediate when needed"() {
+        when:
+        def rollup = AccountRollup.compute(tree, 1, USD, 0, rates)
+
+        then:
+        rollup.size() == 6
+        rollup.getConvertedBalance(account(4)) == 62.5
+        rollup.getConvertedBalance(account(5)) == 250
+        rollup.getTotal(account(2)) == 412.5
+        rollup.getTotal(account(1)) == 412.5
+        rollup.getBalance(account(6)) == 1000
+        rollup.unconverted == [account(6)]
+        rollup.getTotal(account(42)) == null
+    }
+
+    def "rates are memoized across rollups, inverse prices included"() {
+        when:
+        AccountRollup.compute(tree, 1, USD, 0, rates)
+        def before = lookups.size()
+        AccountRollup.compute(tree, 1, USD, 0, rates)
+
+        then:
+        lookups.size() == before
+        rates.stats.hits == 3
+        rates.stats.indirect == 1
+
+        when:
+        def usdToEur = rates.rate(USD, EUR, 0)
+
+        then:
+        usdToEur == 0.8d
+        lookups.size() == before
+    }
+
+    def "amounts are summed exactly and converted balances rounded to the currency unit"() {
+        given:
+        balances[3L] = 0.1
+        balances[4L] = 0.03
+        balances[5L] = 0.0
+        balances[6L] = 0.0
+        children[2L] = [3L, 4L, 5L, 6L, 7L]
+        children[7L] = []
+        commodities[7L] = USD
+        balances[7L] = 0.2
+
+        when:
+        def rollup = AccountRollup.compute(tree, 1, USD, 0, rates)
+
+        then:
+        rollup.getConvertedBalance(account(4)) == 0.04
+        rollup.getTotal(account(2)) == 0.34
+        rollup.getTotal(account(2)).toDouble() == 0.34d
+        rollup.unconverted.isEmpty()
+    }
+
+    def "rounding is half up to the fraction"() {
+        expect:
+        AccountRollup.round(value, fraction) == rounded
+
+        where:
+        value    | fraction || rounded
+        0.0125   | 100      || 0.01
+        0.015    | 100      || 0.02
+        -0.015   | 100      || -0.02
+        2.5      | 1        || 3
+        0.123456 | 0        || 0.123456
+    }
+}
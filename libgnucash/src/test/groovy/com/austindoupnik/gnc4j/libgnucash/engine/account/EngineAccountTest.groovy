@@ -1,5 +1,6 @@
 package com.austindoupnik.gnc4j.libgnucash.engine.account
 
+import com.austindoupnik.gnc4j.jna_core.NativeAllocations
 import spock.lang.Specification
 import spock.lang.TempDir
 
@@ -95,6 +96,33 @@ class EngineAccountTest extends Specification {
         result == ["good bye world", "hello world", "hello world"]
     }
 
+    def "owned descendants and full names are freed on close"() {
+        when:
+        def session = gnc_get_current_session()
+        qof_session_begin(session, "xml://" + tempDir.resolve(UUID.randomUUID().toString()), SessionOpenMode.SESSION_NEW_STORE)
+
+        def book = qof_session_get_book(session)
+        def rootAccount = gnc_book_get_root_account(book)
+
+        def parent = xaccMallocAccount(book)
+        gnc_account_append_child(rootAccount, parent)
+        xaccAccountSetName(parent, "parent")
+        def child = xaccMallocAccount(book)
+        gnc_account_append_child(parent, child)
+        xaccAccountSetName(child, "child")
+
+        def names = gnc_account_get_descendants_owned(rootAccount).withCloseable { descendants ->
+            descendants.asList().collect { a -> gnc_account_get_full_name_owned(a).withCloseable { it.getString() } }
+        }
+        def live = NativeAllocations.snapshot("GList<Account>").getLiveObjects()
+
+        qof_session_end(session)
+
+        then:
+        names == ["parent", "parent:child"]
+        live == 0
+    }
+
     def "account string 'INCOME' converted to enum 'ACCT_TYPE_INCOME' by reference"() {
         when:
         def accountType = new GNCAccountType.ByReference()
@@ -0,0 +1,40 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account
+
+import spock.lang.Specification
+
+class GNCAccountTypeTest extends Specification {
+    def "every value decodes to the first constant declared with it"() {
+        expect:
+        GNCAccountType.findByValue(value) == type
+
+        where:
+        value | type
+        -1    | GNCAccountType.ACCT_TYPE_INVALID
+        0     | GNCAccountType.ACCT_TYPE_BANK
+        2     | GNCAccountType.ACCT_TYPE_ASSET
+        3     | GNCAccountType.ACCT_TYPE_CREDIT
+        15    | GNCAccountType.NUM_ACCOUNT_TYPES
+        19    | GNCAccountType.ACCT_TYPE_LAST
+    }
+
+    def "unknown values are rejected with a descriptive error"() {
+        when:
+        GNCAccountType.findByValue(20)
+
+        then:
+        def ex = thrown(IllegalArgumentException)
+        ex.message.contains("GNCAccountType")
+        ex.message.contains("20")
+    }
+
+    def "by reference decodes through the same table"() {
+        given:
+        def ref = new GNCAccountType.ByReference()
+
+        when:
+        ref.setValue(GNCAccountType.ACCT_TYPE_STOCK)
+
+        then:
+        ref.getValue() == GNCAccountType.ACCT_TYPE_STOCK
+    }
+}
@@ -0,0 +1,171 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.account
+
+import com.austindoupnik.gnc4j.libgnucash.engine.flow.Flow
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.TransactionCallback
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class TransactionPublisherTest extends Specification {
+    /**
+     * Staged traversal over transactions 1 to 10, behaving like the engine: the marker is set before the thunk runs.
+     */
+    class FakeTraversal implements TransactionPublisher.StagedTraversal {
+        int[] markers = new int[10]
+        int begins = 0
+        int traversals = 0
+
+        @Override
+        void begin() {
+            begins++
+            Arrays.fill(markers, 0)
+        }
+
+        @Override
+        int traverse(int stage, TransactionCallback thunk) {
+            traversals++
+            for (int i = 0; i < markers.length; i++) {
+                if (markers[i] < stage) {
+                    markers[i] = stage
+                    def result = thunk.invoke(new Transaction(new Pointer(i + 1)), null).intValue()
+                    if (result != 0) {
+                        return result
+                    }
+                }
+            }
+            return 0
+        }
+    }
+
+    class RecordingSubscriber implements Flow.Subscriber<Transaction> {
+        Flow.Subscription subscription
+        List<Long> items = []
+        Throwable error
+        boolean completed
+        Closure onItem = {}
+
+        @Override
+        void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription
+        }
+
+        @Override
+        void onNext(Transaction item) {
+            items << Pointer.nativeValue(item.getPointer())
+            onItem(this)
+        }
+
+        @Override
+        void onError(Throwable throwable) {
+            error = throwable
+        }
+
+        @Override
+        void onComplete() {
+            completed = true
+        }
+    }
+
+    def traversal = new FakeTraversal()
+    def publisher = new TransactionPublisher(traversal, 1, true)
+    def subscriber = new RecordingSubscriber()
+
+    def "the traversal pauses when demand runs out and resumes where it stopped"() {
+        given:
+        publisher.subscribe(subscriber)
+
+        when:
+        subscriber.subscription.request(3)
+
+        then:
+        subscriber.items == [1L, 2L, 3L]
+        !subscriber.completed
+
+        when:
+        subscriber.subscription.request(4)
+
+        then:
+        subscriber.items == (1L..7L).toList()
+        traversal.begins == 1
+
+        when:
+        subscriber.subscription.request(100)
+
+        then:
+        subscriber.items == (1L..10L).toList()
+        subscriber.completed
+    }
+
+    def "requests made from onNext keep the traversal going"() {
+        given:
+        subscriber.onItem = { RecordingSubscriber s -> s.subscription.request(1) }
+        publisher.subscribe(subscriber)
+
+        when:
+        subscriber.subscription.request(1)
+
+        then:
+        subscriber.items == (1L..10L).toList()
+        subscriber.completed
+        traversal.traversals == 1
+    }
+
+    def "cancel stops the traversal and frees the publisher for another subscriber"() {
+        given:
+        subscriber.onItem = { RecordingSubscriber s -> if (s.items.size() == 2) s.subscription.cancel() }
+        publisher.subscribe(subscriber)
+
+        when:
+        subscriber.subscription.request(5)
+
+        then:
+        subscriber.items == [1L, 2L]
+        !subscriber.completed
+
+        when:
+        def second = new RecordingSubscriber()
+        publisher.subscribe(second)
+        second.subscription.request(Long.MAX_VALUE)
+
+        then:
+        second.items == (1L..10L).toList()
+        traversal.begins == 2
+    }
+
+    def "only one subscription is active at a time"() {
+        given:
+        publisher.subscribe(subscriber)
+        def second = new RecordingSubscriber()
+
+        when:
+        publisher.subscribe(second)
+
+        then:
+        second.error instanceof IllegalStateException
+    }
+
+    def "a non positive request is an error"() {
+        given:
+        publisher.subscribe(subscriber)
+
+        when:
+        subscriber.subscription.request(0)
+
+        then:
+        subscriber.error instanceof IllegalArgumentException
+        subscriber.items.isEmpty()
+    }
+
+    def "an exception thrown by onNext cancels and is reported"() {
+        given:
+        subscriber.onItem = { throw new IllegalStateException("boom") }
+        publisher.subscribe(subscriber)
+
+        when:
+        subscriber.subscription.request(5)
+
+        then:
+        subscriber.items == [1L]
+        subscriber.error.message == "boom"
+    }
+}
@@ -0,0 +1,110 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_budget
+
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class BudgetMatrixTest extends Specification {
+    static final long GROCERIES = 10, RENT = 11, FUEL = 12
+
+    /**
+     * three periods of 100 seconds, starting at 1000
+     */
+    def budget = [
+            [GROCERIES, 0]: 300.00,
+            [GROCERIES, 1]: 300.00,
+            [GROCERIES, 2]: 350.00,
+            [RENT, 0]     : 1000.00,
+            [RENT, 1]     : 1000.00,
+            [RENT, 2]     : 1000.00,
+    ]
+    def splits = [
+            (GROCERIES): [[999L, 5.00], [1000L, 120.10], [1099L, 200.20], [1100L, 310.00], [1250L, 40.00], [1300L, 1.00]],
+            (RENT)     : [[1010L, 1000.00], [1110L, 1000.00]],
+            (FUEL)     : [[1200L, 60.00]],
+    ]
+    def visits = 0
+    def source = new BudgetMatrix.Source() {
+        int periods() { 3 }
+
+        long periodStart(int period) { 1000 + 100 * period }
+
+        long periodEnd(int period) { 1000 + 100 * period + 99 }
+
+        long fraction(long account) { 100 }
+
+        boolean isSet(long account, int period) { budget.containsKey([account, period]) }
+
+        long budgeted(long account, int period, long fraction) { budget[[account, period]] * fraction }
+
+        void splits(long account, long fraction, BudgetMatrix.SplitConsumer consumer) {
+            visits++
+            splits[account].each { consumer.accept(it[0] as long, (it[1] * fraction) as long) }
+        }
+    }
+
+    def "budgeted and actual amounts are read into one row per account"() {
+        when:
+        def matrix = BudgetMatrix.read(source, [GROCERIES, RENT, FUEL] as long[])
+
+        then:
+        visits == 3
+        matrix.splitCount == 9
+        matrix.accountCount == 3
+        matrix.periodCount == 3
+        matrix.getActual(0, 0) == 320.30
+        matrix.getActual(0, 1) == 310
+        matrix.getActual(0, 2) == 40
+        matrix.getVariance(0, 0) == -20.30
+        matrix.getActual(2, 2) == 60
+        !matrix.isSet(2, 2)
+        matrix.getBudgeted(2, 2) == 0
+        matrix.getBudgetedTotal(1) == 3000
+        matrix.getActualTotal(1) == 2000
+        matrix.getFraction(0) == 100
+        matrix.toActualArray() as List == [32030L, 31000L, 4000L, 100000L, 100000L, 0L, 0L, 0L, 6000L]
+        matrix.indexOf(new Account(new Pointer(RENT))) == 1
+        matrix.indexOf(new Account(new Pointer(42))) == -1
+    }
+
+    def "periods are found by binary search, inclusive of their end"() {
+        given:
+        def starts = [1000, 1100, 1200] as long[]
+        def ends = [1099, 1199, 1250] as long[]
+
+        expect:
+        BudgetMatrix.period(starts, ends, time) == period
+
+        where:
+        time | period
+        999  | -1
+        1000 | 0
+        1099 | 0
+        1100 | 1
+        1250 | 2
+        1251 | -1
+    }
+
+    def "cells outside of the periods are rejected"() {
+        given:
+        def matrix = BudgetMatrix.read(source, [GROCERIES] as long[])
+
+        when:
+        matrix.getActual(0, 3)
+
+        then:
+        thrown(IndexOutOfBoundsException)
+    }
+
+    def "actuals are summed exactly"() {
+        given:
+        splits[FUEL] = (1..10).collect { [1200L, 0.10] }
+
+        when:
+        def matrix = BudgetMatrix.read(source, [FUEL] as long[])
+
+        then:
+        matrix.getActual(0, 2).compareTo(BigDecimal.ONE) == 0
+        matrix.getActualTotal(0).compareTo(BigDecimal.ONE) == 0
+    }
+}
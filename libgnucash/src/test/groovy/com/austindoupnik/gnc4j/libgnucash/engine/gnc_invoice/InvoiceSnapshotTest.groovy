@@ -0,0 +1,86 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.QofInstance
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_invoice.GncInvoiceType.*
+
+class InvoiceSnapshotTest extends Specification {
+    static final long DAY = 24 * 60 * 60
+    static final long NOW = 1000 * DAY
+    static final long ACME = 1, GLOBEX = 2, SUPPLIER = 3
+
+    static QofInstance owner(long p) {
+        new QofInstance(new Pointer(p))
+    }
+
+    /**
+     * documents due relative to NOW, with the balance of their lot
+     */
+    def snapshot = new InvoiceSnapshot(
+            [11, 12, 13, 14, 15, 16] as long[],
+            [GNC_INVOICE_CUST_INVOICE, GNC_INVOICE_CUST_INVOICE, GNC_INVOICE_CUST_CREDIT_NOTE,
+             GNC_INVOICE_CUST_INVOICE, GNC_INVOICE_VEND_INVOICE, GNC_INVOICE_VEND_CREDIT_NOTE]*.value as int[],
+            [ACME, ACME, ACME, GLOBEX, SUPPLIER, SUPPLIER] as long[],
+            ['I1', 'I2', 'C1', 'I3', 'B1', 'VC1'] as String[],
+            [0, 0, 0, 0, 0, 0] as long[],
+            [NOW + DAY, NOW - 10 * DAY, NOW - 45 * DAY, NOW - 120 * DAY, NOW - 30 * DAY, NOW - 31 * DAY] as long[],
+            [100.10, 200.20, -50.30, 400, -300, 20] as BigDecimal[],
+            [0, 0, 0, 0, 0, 0] as long[]
+    )
+
+    def "receivables are aged by owner, credit notes reducing what is owed"() {
+        when:
+        def aging = snapshot.aging(true, NOW, 30, 60, 90)
+
+        then:
+        aging.ownerCount == 2
+        aging.bucketCount == 5
+        aging.getOwner(0) == owner(ACME)
+        aging.getAmount(0, 0) == 100.10
+        aging.getAmount(0, 1) == 200.20
+        aging.getAmount(0, 2) == -50.30
+        aging.getTotal(0) == 250.00
+        aging.getAmount(aging.indexOf(owner(GLOBEX)), 4) == 400
+        aging.getBucketTotal(4) == 400
+        aging.indexOf(owner(SUPPLIER)) == -1
+        aging.getBucketBound(3) == 90
+        aging.getBucketBound(4) == Integer.MAX_VALUE
+    }
+
+    def "payables are what the book owes"() {
+        when:
+        def aging = snapshot.aging(false, NOW, 30)
+
+        then:
+        aging.ownerCount == 1
+        aging.getAmount(0, 1) == 300
+        aging.getAmount(0, 2) == -20
+        snapshot.getType(5) == GNC_INVOICE_VEND_CREDIT_NOTE
+        !snapshot.isReceivable(4)
+    }
+
+    def "buckets are bounded by the days overdue, inclusive"() {
+        expect:
+        InvoiceSnapshot.bucket(overdue, [30, 60] as int[]) == bucket
+
+        where:
+        overdue | bucket
+        -5      | 0
+        0       | 0
+        1       | 1
+        30      | 1
+        31      | 2
+        60      | 2
+        61      | 3
+    }
+
+    def "bucket bounds must increase"() {
+        when:
+        snapshot.aging(true, NOW, 60, 30)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
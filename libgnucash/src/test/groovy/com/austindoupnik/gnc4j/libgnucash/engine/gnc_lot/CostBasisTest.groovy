@@ -0,0 +1,128 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_lot
+
+import spock.lang.Specification
+
+class CostBasisTest extends Specification {
+    static final long DAY = 24 * 60 * 60
+
+    /**
+     * Two lots: 10 units bought on day 0 for 100, 10 units bought on day 100 for 200, then 15 units sold on day 500
+     * for 450, 10 from the first lot and 5 from the second.
+     */
+    def snapshot = new LotSnapshot(
+            CostBasisMethod.FIFO,
+            [1L, 2L] as long[],
+            [true, false] as boolean[],
+            ["first", "second"] as String[],
+            [0, 2, 4] as int[],
+            [11L, 12L, 21L, 22L] as long[],
+            [0L, 500 * DAY, 100 * DAY, 500 * DAY] as long[],
+            1,
+            [10L, -10L, 10L, -5L] as long[],
+            100,
+            [10000L, -30000L, 20000L, -15000L] as long[]
+    )
+
+    def "fifo matches the oldest acquisition first"() {
+        when:
+        def basis = snapshot.costBasis(CostBasisMethod.FIFO)
+
+        then:
+        basis.soldQuantity == 15
+        basis.proceeds == 450
+        basis.costOfSold == 200
+        basis.longTermGain == 250
+        basis.shortTermGain == 0
+        basis.remainingQuantity == 5
+        basis.remainingCost == 100
+        basis.unrealizedGain(30.0) == 50
+        basis.averageHoldingSecondsOpen(600 * DAY) == 500d * DAY
+    }
+
+    def "lifo matches the newest acquisition first"() {
+        when:
+        def basis = snapshot.costBasis(CostBasisMethod.LIFO)
+
+        then:
+        basis.costOfSold == 250
+        basis.realizedGain == 200
+        basis.remainingCost == 50
+        basis.averageHoldingSecondsOpen(600 * DAY) == 600d * DAY
+    }
+
+    def "average costs every disposal at the average held"() {
+        when:
+        def basis = snapshot.costBasis(CostBasisMethod.AVERAGE)
+
+        then:
+        basis.costOfSold == 225
+        basis.realizedGain == 225
+        basis.remainingCost == 75
+    }
+
+    def "lot matches within each lot and splits gains by holding period"() {
+        when:
+        def basis = snapshot.costBasis(CostBasisMethod.LOT, 450 * DAY)
+
+        then:
+        basis.costOfSold == 200
+        basis.longTermGain == 200
+        basis.shortTermGain == 50
+        Math.abs(basis.averageHoldingSecondsSold - (10 * 500 + 5 * 400) / 15d * DAY) < 1e-3
+        basis.remainingQuantity == 5
+    }
+
+    def "disposals without acquisitions are unmatched"() {
+        given:
+        def shortSale = new LotSnapshot(
+                CostBasisMethod.FIFO,
+                [1L] as long[],
+                [false] as boolean[],
+                ["short"] as String[],
+                [0, 2] as int[],
+                [11L, 12L] as long[],
+                [0L, DAY] as long[],
+                1,
+                [-4L, 0L] as long[],
+                100,
+                [-4000L, 500L] as long[]
+        )
+
+        when:
+        def basis = shortSale.costBasis(CostBasisMethod.FIFO)
+
+        then:
+        basis.unmatchedQuantity == 4
+        basis.proceeds == 0
+        basis.realizedGain == 0
+    }
+
+    def "partial matches are rounded to a cent and add up to what was paid"() {
+        given:
+        def thirds = new LotSnapshot(
+                CostBasisMethod.FIFO,
+                [1L] as long[],
+                [true] as boolean[],
+                ["thirds"] as String[],
+                [0, 4] as int[],
+                [11L, 12L, 13L, 14L] as long[],
+                [0L, DAY, 2 * DAY, 3 * DAY] as long[],
+                1,
+                [3L, -1L, -1L, -1L] as long[],
+                100,
+                [100L, -50L, -50L, -50L] as long[]
+        )
+
+        when:
+        def basis = thirds.costBasis(method)
+
+        then:
+        basis.costOfSold == 1.00
+        basis.realizedGain == 0.50
+        basis.remainingQuantity == 0
+        basis.remainingCost == 0
+
+        where:
+        method << [CostBasisMethod.FIFO, CostBasisMethod.AVERAGE]
+    }
+}
@@ -0,0 +1,33 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric
+
+import spock.lang.Specification
+
+class GncNumericTest extends Specification {
+    def "decimal value is exact"() {
+        expect:
+        new gnc_numeric(num, denom).bigDecimalValue() == value
+
+        where:
+        num  | denom || value
+        1234 | 100   || 12.34
+        -5   | 1000  || -0.005
+        7    | -10   || 70
+        3    | 0     || 0
+        1    | 3     || 0.3333333333333333333333333333333333
+    }
+
+    def "scaled value is a number of units of the fraction"() {
+        expect:
+        new gnc_numeric(num, denom).scaledValue(fraction) == value
+
+        where:
+        num  | denom | fraction || value
+        1234 | 100   | 100      || 1234
+        1234 | 100   | 1000     || 12340
+        1235 | 1000  | 100      || 124
+        -1235 | 1000 | 100      || -124
+        7    | -10   | 100      || 7000
+        3    | 0     | 100      || 0
+        1    | 3     | 100      || 33
+    }
+}
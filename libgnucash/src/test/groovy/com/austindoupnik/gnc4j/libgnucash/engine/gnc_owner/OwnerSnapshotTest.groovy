@@ -0,0 +1,72 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofInstance.QofInstance
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.gnc_commodity
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.gnc_owner.GncOwnerType.*
+
+class OwnerSnapshotTest extends Specification {
+    static final long USD = 100
+
+    static QofInstance owner(long p) {
+        new QofInstance(new Pointer(p))
+    }
+
+    /**
+     * id, name, active and currency of each owner, by type
+     */
+    def owners = [
+            (GNC_OWNER_CUSTOMER): [1L: ['C1', 'Acme', true, USD], 2L: ['C2', 'Globex', false, USD]],
+            (GNC_OWNER_VENDOR)  : [3L: ['V1', 'Supplier', true, 0L]],
+            (GNC_OWNER_EMPLOYEE): [4L: ['E1', '', true, USD], 5L: ['E2', 'Jo', true, USD]],
+    ]
+    def source = new OwnerSnapshot.Source() {
+        long[] owners(GncOwnerType type) { owners[type].keySet() as long[] }
+
+        String id(GncOwnerType type, long owner) { owners[type][owner][0] }
+
+        String name(GncOwnerType type, long owner) { owners[type][owner][1] }
+
+        String username(long employee) { 'user' + employee }
+
+        boolean isActive(GncOwnerType type, long owner) { owners[type][owner][2] }
+
+        long currency(GncOwnerType type, long owner) { owners[type][owner][3] }
+    }
+
+    def "customers, vendors and employees are copied in that order"() {
+        when:
+        def snapshot = OwnerSnapshot.read(source)
+
+        then:
+        snapshot.size() == 5
+        (0..<5).collect { snapshot.getType(it) } ==
+                [GNC_OWNER_CUSTOMER, GNC_OWNER_CUSTOMER, GNC_OWNER_VENDOR, GNC_OWNER_EMPLOYEE, GNC_OWNER_EMPLOYEE]
+        (0..<5).collect { snapshot.getId(it) } == ['C1', 'C2', 'V1', 'E1', 'E2']
+        snapshot.getOwner(2) == owner(3)
+        !snapshot.isActive(1)
+        snapshot.getCurrency(0) == new gnc_commodity(new Pointer(USD))
+        snapshot.getCurrency(2) == null
+    }
+
+    def "employees without a name are named after their user name"() {
+        when:
+        def snapshot = OwnerSnapshot.read(source)
+
+        then:
+        snapshot.getName(3) == 'user4'
+        snapshot.getName(4) == 'Jo'
+        snapshot.getName(0) == 'Acme'
+    }
+
+    def "owners are found by their instance"() {
+        given:
+        def snapshot = OwnerSnapshot.read(source)
+
+        expect:
+        snapshot.indexOf(owner(4)) == 3
+        snapshot.indexOf(owner(42)) == -1
+    }
+}
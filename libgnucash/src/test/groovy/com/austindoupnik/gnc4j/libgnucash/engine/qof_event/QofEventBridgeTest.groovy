@@ -0,0 +1,115 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_event
+
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType.*
+
+class QofEventBridgeTest extends Specification {
+    static final long ACCOUNTS = 100
+    static final long TRANSACTIONS = 200
+
+    def bridge = new QofEventBridge(4, c -> c == ACCOUNTS ? "Account" : "Trans")
+
+    static QofEventListener collecting(List<Long> seen) {
+        new QofEventListener() {
+            @Override
+            void onEvent(Pointer entity, String entityType, int eventId) {
+                seen << Pointer.nativeValue(entity)
+            }
+        }
+    }
+
+    def "events are delivered on flush to matching listeners only"() {
+        given:
+        def accountEvents = []
+        def batchEnds = 0
+        bridge.addListener(new QofEventListener() {
+            @Override
+            void onEvent(Pointer entity, String entityType, int eventId) {
+                accountEvents << [Pointer.nativeValue(entity), entityType, eventId]
+            }
+
+            @Override
+            void onBatchEnd() {
+                batchEnds++
+            }
+        }, EnumSet.of(QOF_EVENT_MODIFY, QOF_EVENT_DESTROY), "Account")
+
+        when:
+        bridge.record(1, ACCOUNTS, QOF_EVENT_CREATE.getValue())
+        bridge.record(1, ACCOUNTS, QOF_EVENT_MODIFY.getValue())
+        bridge.record(2, TRANSACTIONS, QOF_EVENT_MODIFY.getValue())
+
+        then:
+        accountEvents.isEmpty()
+        bridge.getStats().getBuffered() == 3
+
+        when:
+        bridge.flush()
+
+        then:
+        accountEvents == [[1L, "Account", QOF_EVENT_MODIFY.getValue()]]
+        batchEnds == 1
+        bridge.getStats().getBuffered() == 0
+    }
+
+    def "full buffer is drained before recording more"() {
+        given:
+        def seen = []
+        bridge.addListener(collecting(seen), EnumSet.allOf(QofEventType))
+
+        when:
+        (1..5).each { bridge.record(it, TRANSACTIONS, QOF_EVENT_MODIFY.getValue()) }
+
+        then:
+        seen == [1L, 2L, 3L, 4L]
+
+        when:
+        bridge.flush()
+
+        then:
+        seen == [1L, 2L, 3L, 4L, 5L]
+        bridge.getStats().getReceived() == 5
+        bridge.getStats().getBatches() == 2
+    }
+
+    def "closed subscription receives nothing"() {
+        given:
+        def seen = []
+        def subscription = bridge.addListener(collecting(seen), EnumSet.allOf(QofEventType))
+
+        when:
+        subscription.close()
+        bridge.record(1, ACCOUNTS, QOF_EVENT_MODIFY.getValue())
+        bridge.flush()
+
+        then:
+        seen.isEmpty()
+    }
+
+    def "events raised while draining grow the buffer instead of being lost"() {
+        given:
+        def seen = []
+        bridge.addListener(new QofEventListener() {
+            @Override
+            void onEvent(Pointer entity, String entityType, int eventId) {
+                def e = Pointer.nativeValue(entity)
+                seen << e
+                if (e == 1) {
+                    (10..19).each { bridge.record(it, TRANSACTIONS, QOF_EVENT_MODIFY.getValue()) }
+                }
+            }
+        }, EnumSet.allOf(QofEventType))
+
+        when:
+        (1..3).each { bridge.record(it, TRANSACTIONS, QOF_EVENT_MODIFY.getValue()) }
+        bridge.flush()
+
+        then:
+        seen == [1L, 2L, 3L] + (10L..19L)
+        bridge.getStats().getDelivered() == 13
+        bridge.getStats().getBuffered() == 0
+        bridge.getStats().getCapacity() == 16
+    }
+}
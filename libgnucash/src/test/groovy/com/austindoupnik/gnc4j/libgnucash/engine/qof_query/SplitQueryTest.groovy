@@ -0,0 +1,47 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.qof_query
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineQofBook.QofBook
+import com.sun.jna.Memory
+import com.sun.jna.Native
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class SplitQueryTest extends Specification {
+    def "decode copies the data pointers of every link"() {
+        given:
+        def links = (0..<40).collect { new Memory(Native.POINTER_SIZE * 3) }
+        links.eachWithIndex { link, i ->
+            link.setPointer(0, new Pointer(1000 + i))
+            link.setPointer(Native.POINTER_SIZE, i + 1 < links.size() ? links[i + 1] : null)
+        }
+
+        when:
+        def splits = new SplitQuery.Result(SplitQuery.decode(links[0]))
+
+        then:
+        splits.size() == 40
+        Pointer.nativeValue(splits[0].getPointer()) == 1000
+        Pointer.nativeValue(splits[39].getPointer()) == 1039
+    }
+
+    def "decode of an empty list is empty"() {
+        expect:
+        new SplitQuery.Result(SplitQuery.decode(null)).isEmpty()
+    }
+
+    def "max results must not be below -1"() {
+        when:
+        new SplitQuery().maxResults(-2)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "no accounts match no split, without running the query"() {
+        when:
+        def splits = new SplitQuery().memoContains('rent').inAccounts([]).run(new QofBook())
+
+        then:
+        splits.isEmpty()
+    }
+}
@@ -0,0 +1,91 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.recurrence
+
+import spock.lang.Specification
+
+import java.time.LocalDate
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.PeriodType.*
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.WeekendAdjust.*
+
+class RecurrenceRuleTest extends Specification {
+    static List<LocalDate> first(RecurrenceRule rule, int n) {
+        (0..<n).collect { LocalDate.ofEpochDay(rule.occurrence(it)) }
+    }
+
+    static LocalDate date(String s) {
+        LocalDate.parse(s)
+    }
+
+    def "occurrences are computed from the start of the recurrence"() {
+        expect:
+        first(new RecurrenceRule(type, mult, date(start), WEEKEND_ADJ_NONE), 4) == expected.collect { date(it) }
+
+        where:
+        type                | mult | start        | expected
+        PERIOD_DAY          | 3    | '2024-02-27' | ['2024-02-27', '2024-03-01', '2024-03-04', '2024-03-07']
+        PERIOD_WEEK         | 2    | '2024-01-01' | ['2024-01-01', '2024-01-15', '2024-01-29', '2024-02-12']
+        PERIOD_MONTH        | 1    | '2024-01-31' | ['2024-01-31', '2024-02-29', '2024-03-31', '2024-04-30']
+        PERIOD_END_OF_MONTH | 1    | '2023-12-31' | ['2023-12-31', '2024-01-31', '2024-02-29', '2024-03-31']
+        PERIOD_NTH_WEEKDAY  | 1    | '2024-01-09' | ['2024-01-09', '2024-02-13', '2024-03-12', '2024-04-09']
+        PERIOD_LAST_WEEKDAY | 1    | '2024-01-26' | ['2024-01-26', '2024-02-23', '2024-03-29', '2024-04-26']
+        PERIOD_YEAR         | 1    | '2020-02-29' | ['2020-02-29', '2021-02-28', '2022-02-28', '2023-02-28']
+    }
+
+    def "a recurrence of one period happens once"() {
+        given:
+        def rule = new RecurrenceRule(PERIOD_ONCE, 1, date('2024-05-01'), WEEKEND_ADJ_NONE)
+
+        expect:
+        rule.next(date('2024-04-30')) == date('2024-05-01')
+        rule.next(date('2024-05-01')) == null
+        rule.occurrence(1) == RecurrenceRule.NONE
+    }
+
+    def "the next occurrence is strictly after the date"() {
+        given:
+        def rule = new RecurrenceRule(type, mult, date('2024-01-31'), WEEKEND_ADJ_NONE)
+
+        expect:
+        rule.next(date(after)) == date(next)
+
+        where:
+        type         | mult | after        | next
+        PERIOD_DAY   | 7    | '2023-06-01' | '2024-01-31'
+        PERIOD_DAY   | 7    | '2024-01-31' | '2024-02-07'
+        PERIOD_DAY   | 7    | '2024-02-08' | '2024-02-14'
+        PERIOD_MONTH | 2    | '2024-02-15' | '2024-03-31'
+        PERIOD_MONTH | 2    | '2024-03-31' | '2024-05-31'
+        PERIOD_YEAR  | 1    | '2030-01-30' | '2030-01-31'
+    }
+
+    def "month based occurrences falling on a weekend are moved to a weekday"() {
+        expect:
+        // 2024-06-30 is a Sunday, 2024-08-31 a Saturday
+        first(new RecurrenceRule(PERIOD_END_OF_MONTH, 1, date('2024-06-30'), adjust), 3) == expected.collect { date(it) }
+        new RecurrenceRule(PERIOD_DAY, 1, date('2024-06-30'), adjust).occurrence(0) == date('2024-06-30').toEpochDay()
+
+        where:
+        adjust              | expected
+        WEEKEND_ADJ_BACK    | ['2024-06-28', '2024-07-31', '2024-08-30']
+        WEEKEND_ADJ_FORWARD | ['2024-07-01', '2024-07-31', '2024-09-02']
+    }
+
+    def "the next occurrence is strictly after the date once adjusted for weekends"() {
+        given:
+        // 2024-06-30 is a Sunday, 2024-08-31 a Saturday
+        def rule = new RecurrenceRule(PERIOD_END_OF_MONTH, 1, date('2024-06-30'), adjust)
+
+        expect:
+        rule.next(date(after)) == date(next)
+
+        where:
+        adjust              | after        | next
+        WEEKEND_ADJ_BACK    | '2024-06-27' | '2024-06-28'
+        WEEKEND_ADJ_BACK    | '2024-06-28' | '2024-07-31'
+        WEEKEND_ADJ_BACK    | '2024-06-29' | '2024-07-31'
+        WEEKEND_ADJ_BACK    | '2024-08-30' | '2024-09-30'
+        WEEKEND_ADJ_FORWARD | '2024-06-30' | '2024-07-01'
+        WEEKEND_ADJ_FORWARD | '2024-07-01' | '2024-07-31'
+        WEEKEND_ADJ_FORWARD | '2024-08-31' | '2024-09-02'
+    }
+}
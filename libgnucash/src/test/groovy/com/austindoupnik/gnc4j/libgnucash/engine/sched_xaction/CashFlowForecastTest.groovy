@@ -0,0 +1,156 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.sched_xaction
+
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account
+import com.austindoupnik.gnc4j.libgnucash.engine.recurrence.RecurrenceRule
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+import java.time.LocalDate
+
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.PeriodType.*
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.WeekendAdjust.WEEKEND_ADJ_BACK
+import static com.austindoupnik.gnc4j.libgnucash.engine.recurrence.WeekendAdjust.WEEKEND_ADJ_NONE
+
+class CashFlowForecastTest extends Specification {
+    static final long CHECKING = 10, SALARY = 11, RENT = 12
+
+    static long day(String s) {
+        LocalDate.parse(s).toEpochDay()
+    }
+
+    static RecurrenceRule rule(type, int mult, String start) {
+        new RecurrenceRule(type, mult, LocalDate.parse(start), WEEKEND_ADJ_NONE)
+    }
+
+    static CashFlowForecast.Schedule schedule(Map args) {
+        new CashFlowForecast.Schedule(
+                args.name ?: 'sx',
+                args.containsKey('enabled') ? args.enabled : true,
+                day(args.start),
+                args.end ? day(args.end) : Long.MAX_VALUE,
+                args.last ? day(args.last) : Long.MIN_VALUE,
+                args.containsKey('remaining') ? args.remaining : -1,
+                args.rules,
+                args.accounts as long[],
+                args.accounts.collect { 100L } as long[],
+                args.amounts.collect { (it * 100) as long } as long[]
+        )
+    }
+
+    static Account account(long p) {
+        new Account(new Pointer(p))
+    }
+
+    def balances = [(CHECKING): 1000, (SALARY): 0, (RENT): 0]
+
+    def balance = { long account, long fraction -> balances[account] * fraction } as CashFlowForecast.BalanceReader
+
+    def "occurrences after the last one entered are projected in date order"() {
+        given:
+        def salary = schedule(name: 'salary', start: '2024-01-01', last: '2024-01-31',
+                rules: [rule(PERIOD_END_OF_MONTH, 1, '2024-01-31')],
+                accounts: [CHECKING, SALARY], amounts: [2000, -2000])
+        def rent = schedule(name: 'rent', start: '2024-01-01', remaining: 2,
+                rules: [rule(PERIOD_MONTH, 1, '2024-02-01')],
+                accounts: [RENT, CHECKING], amounts: [1500, -1500])
+
+        when:
+        def forecast = CashFlowForecast.compute([salary, rent], balance, day('2024-04-15'))
+
+        then:
+        forecast.size() == 8
+        (0..<forecast.size()).collect { forecast.getDate(it).toString() } == [
+                '2024-02-01', '2024-02-01',
+                '2024-02-29', '2024-02-29',
+                '2024-03-01', '2024-03-01',
+                '2024-03-31', '2024-03-31',
+        ]
+        forecast.getSchedule(0).name == 'rent'
+        forecast.getSchedule(2).name == 'salary'
+        forecast.getAccount(2) == account(CHECKING)
+        forecast.getAmount(0) == 1500
+        forecast.getBalance(account(CHECKING)) == 1000
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-01-31')) == 1000
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-02-29')) == 1500
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-12-31')) == 2000
+        forecast.getBalance(account(RENT), LocalDate.parse('2024-12-31')) == 3000
+        forecast.getBalance(account(42), LocalDate.parse('2024-12-31')) == null
+    }
+
+    def "disabled and ended schedules stop, occurrences of several recurrences on one day count once"() {
+        given:
+        def disabled = schedule(enabled: false, start: '2024-01-01',
+                rules: [rule(PERIOD_DAY, 1, '2024-01-01')], accounts: [CHECKING], amounts: [1])
+        def twice = schedule(start: '2024-01-01', end: '2024-01-20',
+                rules: [rule(PERIOD_WEEK, 1, '2024-01-01'), rule(PERIOD_DAY, 2, '2024-01-01')],
+                accounts: [CHECKING], amounts: [1])
+
+        when:
+        def forecast = CashFlowForecast.compute([disabled, twice], balance, day('2024-12-31'))
+
+        then:
+        // every other day from the 1st to the 19th, and the 8th and 22nd Mondays, minus the 22nd past the end
+        forecast.size() == 11
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-12-31')) == 1011
+    }
+
+    def "five years of hundreds of schedules are expanded without the engine"() {
+        given:
+        def schedules = (0..<300).collect {
+            schedule(start: '2024-01-01', rules: [rule(it % 3 == 0 ? PERIOD_WEEK : PERIOD_MONTH, 1, '2024-01-01')],
+                    accounts: [CHECKING, 100 + it], amounts: [-10, 10])
+        }
+
+        when:
+        def forecast = CashFlowForecast.compute(schedules, { a, f -> 0L }, day('2028-12-31'))
+
+        then:
+        forecast.size() == 2 * (100 * 261 + 200 * 60)
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2028-12-31')) == -10 * (100 * 261 + 200 * 60)
+        (1..<forecast.size()).every { forecast.getDay(it - 1) <= forecast.getDay(it) }
+    }
+
+    def "an occurrence moved back onto the last one entered is not projected again"() {
+        given:
+        // the occurrence of Sunday 2024-06-30 was entered on Friday 2024-06-28
+        def salary = schedule(start: '2024-01-01', last: '2024-06-28',
+                rules: [new RecurrenceRule(PERIOD_END_OF_MONTH, 1, LocalDate.parse('2024-01-31'), WEEKEND_ADJ_BACK)],
+                accounts: [CHECKING], amounts: [2000])
+
+        when:
+        def forecast = CashFlowForecast.compute([salary], balance, day('2024-09-30'))
+
+        then:
+        (0..<forecast.size()).collect { forecast.getDate(it).toString() } == ['2024-07-31', '2024-08-30', '2024-09-30']
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-09-30')) == 7000
+    }
+
+    def "template splits of accounts not in the book are left out"() {
+        given:
+        def rent = schedule(start: '2024-01-01', rules: [rule(PERIOD_MONTH, 1, '2024-02-01')],
+                accounts: [0, CHECKING], amounts: [1500, -1500])
+        def read = []
+        def reading = { long a, long f -> read << a; balances[a] * f } as CashFlowForecast.BalanceReader
+
+        when:
+        def forecast = CashFlowForecast.compute([rent], reading, day('2024-03-31'))
+
+        then:
+        forecast.size() == 2
+        forecast.accounts == [account(CHECKING)]
+        read == [CHECKING]
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-03-31')) == -2000
+    }
+
+    def "balances are summed exactly"() {
+        given:
+        def coffee = schedule(start: '2024-01-01', rules: [rule(PERIOD_DAY, 1, '2024-01-01')],
+                accounts: [CHECKING], amounts: [-0.10])
+
+        when:
+        def forecast = CashFlowForecast.compute([coffee], balance, day('2024-01-10'))
+
+        then:
+        forecast.getBalance(account(CHECKING), LocalDate.parse('2024-01-10')) == 999.00
+    }
+}
@@ -0,0 +1,88 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.transaction
+
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction
+import com.austindoupnik.gnc4j.libgnucash.engine.qof_event.QofEventType
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class GainsScrubberTest extends Specification {
+    static final int MODIFY = QofEventType.QOF_EVENT_MODIFY.value
+    static final int DESTROY = QofEventType.QOF_EVENT_DESTROY.value
+
+    def scrubbed = []
+    def flushes = 0
+    GainsScrubber scrubber
+
+    def setup() {
+        scrubber = new GainsScrubber({ flushes++ }, { scrubbed << it })
+    }
+
+    def event(long trans, int eventId) {
+        scrubber.onEvent(new Pointer(trans), "Trans", eventId)
+    }
+
+    def "only transactions touched since the last run are scrubbed, once each"() {
+        given:
+        event(1, MODIFY)
+        event(2, MODIFY)
+        event(1, MODIFY)
+        event(3, MODIFY)
+        event(3, DESTROY)
+
+        when:
+        def progress = []
+        def result = scrubber.scrub({ done, total -> progress << [done, total] })
+
+        then:
+        scrubbed == [1L, 2L]
+        progress == [[1, 2], [2, 2]]
+        result.scrubbed == 2
+        flushes == 2
+
+        when:
+        scrubbed.clear()
+        scrubber.scrub(null)
+
+        then:
+        scrubbed.isEmpty()
+    }
+
+    def "events raised by the scrub itself do not mark transactions dirty again"() {
+        given:
+        scrubber = new GainsScrubber({ flushes++ }, {
+            scrubbed << it
+            event(it, MODIFY)
+            event(9, MODIFY)
+        })
+        scrubber.markDirty(new Transaction(new Pointer(5)))
+
+        when:
+        scrubber.scrub(null)
+
+        then:
+        scrubbed == [5L]
+        scrubber.dirtyCount == 1
+    }
+
+    def "transactions not scrubbed because of a failure are kept for the next run"() {
+        given:
+        scrubber = new GainsScrubber({ flushes++ }, {
+            if (it == 2L) {
+                throw new IllegalStateException("boom")
+            }
+            scrubbed << it
+        })
+        event(1, MODIFY)
+        event(2, MODIFY)
+        event(3, MODIFY)
+
+        when:
+        scrubber.scrub(null)
+
+        then:
+        thrown(IllegalStateException)
+        scrubbed == [1L]
+        scrubber.dirtyCount == 2
+        flushes == 2
+    }
+}
@@ -0,0 +1,152 @@
+package com.austindoupnik.gnc4j.libgnucash.engine.transaction
+
+import com.austindoupnik.gnc4j.libgnucash.engine.EngineSplit.Split
+import com.austindoupnik.gnc4j.libgnucash.engine.account.Account
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_engine.Transaction
+import com.austindoupnik.gnc4j.libgnucash.engine.gnc_numeric.gnc_numeric
+import com.sun.jna.Pointer
+import spock.lang.Specification
+
+class TransactionTemplateTest extends Specification {
+    def calls = []
+    def clones = 0
+    def template = new Transaction(new Pointer(1))
+
+    def editor = new TransactionTemplate.Editor() {
+        @Override
+        Transaction clone(Transaction t) {
+            def copy = new Transaction(new Pointer(100 + ++clones))
+            calls << "clone " + id(copy)
+            copy
+        }
+
+        @Override
+        void beginEdit(Transaction trans) {
+            calls << "begin " + id(trans)
+        }
+
+        @Override
+        void commitEdit(Transaction trans) {
+            calls << "commit " + id(trans)
+        }
+
+        @Override
+        void rollbackEdit(Transaction trans) {
+            calls << "rollback " + id(trans)
+        }
+
+        @Override
+        void destroy(Transaction trans) {
+            calls << "destroy " + id(trans)
+        }
+
+        @Override
+        void removeFromLots(Transaction trans) {
+            calls << "unlot " + id(trans)
+        }
+
+        @Override
+        void setDatePosted(Transaction trans, long secs) {
+            calls << "date " + id(trans) + " " + secs
+        }
+
+        @Override
+        void setDescription(Transaction trans, String description) {
+            calls << "description " + id(trans) + " " + description
+        }
+
+        @Override
+        void setNum(Transaction trans, String num) {
+        }
+
+        @Override
+        Split getSplit(Transaction trans, int i) {
+            i < 2 ? new Split(new Pointer(id(trans) * 10 + i)) : null
+        }
+
+        @Override
+        void setMemo(Split split, String memo) {
+        }
+
+        @Override
+        void setAmount(Split split, gnc_numeric amount) {
+        }
+
+        @Override
+        void setValue(Split split, gnc_numeric value) {
+            calls << "value " + Pointer.nativeValue(split.getPointer()) + " " + value.num
+        }
+
+        @Override
+        List<Account> deferBalances(Transaction t) {
+            calls << "defer"
+            [new Account(new Pointer(7))]
+        }
+
+        @Override
+        void recomputeBalance(Account account) {
+            calls << "recompute " + Pointer.nativeValue(account.getPointer())
+        }
+    }
+
+    static long id(Transaction trans) {
+        Pointer.nativeValue(trans.getPointer())
+    }
+
+    def "each copy receives its overrides in one edit and balances are recomputed once"() {
+        when:
+        def result = TransactionTemplate.of(editor, template)
+                .datePosted(i -> 1000L * i)
+                .value(1, i -> new gnc_numeric(i + 5, 100))
+                .generate(2)
+
+        then:
+        result.transactions.collect { id(it) } == [101L, 102L]
+        calls == [
+                "defer",
+                "clone 101", "begin 101", "unlot 101", "date 101 0", "value 1011 5", "commit 101",
+                "clone 102", "begin 102", "unlot 102", "date 102 1000", "value 1021 6", "commit 102",
+                "recompute 7"
+        ]
+    }
+
+    def "a failing override rolls back and destroys the copy being made"() {
+        when:
+        TransactionTemplate.of(editor, template)
+                .description(i -> {
+                    if (i == 1) {
+                        throw new IllegalStateException("boom")
+                    }
+                    "copy " + i
+                })
+                .generate(3)
+
+        then:
+        def ex = thrown(IllegalStateException)
+        ex.message == "boom"
+        calls == [
+                "defer",
+                "clone 101", "begin 101", "unlot 101", "description 101 copy 0", "commit 101",
+                "clone 102", "begin 102", "unlot 102", "rollback 102", "destroy 102",
+                "recompute 7"
+        ]
+    }
+
+    def "a missing split fails the copy"() {
+        when:
+        TransactionTemplate.of(editor, template).memo(2, i -> "memo").generate(1)
+
+        then:
+        thrown(IndexOutOfBoundsException)
+        calls == ["defer", "clone 101", "begin 101", "unlot 101", "rollback 101", "destroy 101", "recompute 7"]
+    }
+
+    def "copies are taken out of the lots of the template before their overrides"() {
+        when:
+        TransactionTemplate.of(editor, template).description(i -> "copy").generate(1)
+
+        then:
+        calls.indexOf("unlot 101") == calls.indexOf("begin 101") + 1
+        calls.indexOf("unlot 101") < calls.indexOf("description 101 copy")
+    }
+}
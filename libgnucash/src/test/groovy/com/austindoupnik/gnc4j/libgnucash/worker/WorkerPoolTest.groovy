@@ -0,0 +1,143 @@
+package com.austindoupnik.gnc4j.libgnucash.worker
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+class WorkerPoolTest extends Specification {
+    @AutoCleanup
+    def pool = WorkerPool.start(TestWorkerHandler, 2, "-Xmx64m")
+
+    def call(String book, String operation, byte[] payload = new byte[0]) {
+        pool.submit(book, operation, payload).get(60, TimeUnit.SECONDS)
+    }
+
+    def whoami(String book) {
+        new String(call(book, "whoami"), StandardCharsets.UTF_8)
+    }
+
+    def "requests are answered by the process owning the book"() {
+        expect:
+        call("a.gnucash", "echo", [1, 2, 3] as byte[]) == [1, 2, 3] as byte[]
+        whoami("a.gnucash") == whoami("a.gnucash")
+        whoami("a.gnucash") != whoami("b.gnucash")
+        pool.workerFor("a.gnucash") == 0
+        pool.workerFor("b.gnucash") == 1
+        pool.workerFor("c.gnucash") == 0
+    }
+
+    def "a failing handler is reported and the process keeps serving"() {
+        when:
+        call("a.gnucash", "fail")
+
+        then:
+        def ex = thrown(ExecutionException)
+        ex.cause instanceof WorkerException
+        !ex.cause.crashed
+        ex.cause.message.contains("failed a.gnucash")
+
+        and:
+        call("a.gnucash", "echo", [4] as byte[]) == [4] as byte[]
+    }
+
+    def "a process that dies fails its pending requests and is restarted by the next request"() {
+        given:
+        def before = whoami("a.gnucash")
+
+        when:
+        call("a.gnucash", "exit")
+
+        then:
+        def ex = thrown(ExecutionException)
+        ex.cause instanceof WorkerException
+        ex.cause.crashed
+
+        and:
+        whoami("a.gnucash") != before
+        pool.stats.restarts == 1
+    }
+
+    def "output written to file descriptor 1 does not corrupt the protocol"() {
+        expect:
+        call("a.gnucash", "print", [5] as byte[]) == [5] as byte[]
+        call("a.gnucash", "echo", [6] as byte[]) == [6] as byte[]
+    }
+
+    def "names longer than 65535 bytes are sent whole"() {
+        given:
+        def book = "b" * 70_000 + ".gnucash"
+
+        expect:
+        call(book, "echo", [7] as byte[]) == [7] as byte[]
+        call("a.gnucash", "echo", [8] as byte[]) == [8] as byte[]
+        pool.stats.restarts == 0
+    }
+
+    /**
+     * Process answering what is written to responses, whose kill blocks until released.
+     */
+    static class FakeProcess extends Process {
+        final responses = new PipedOutputStream()
+        final input = new PipedInputStream(responses)
+        final killing = new CountDownLatch(1)
+        final released = new CountDownLatch(1)
+        volatile boolean alive = true
+
+        OutputStream getOutputStream() { new ByteArrayOutputStream() }
+
+        InputStream getInputStream() { input }
+
+        InputStream getErrorStream() { new ByteArrayInputStream(new byte[0]) }
+
+        int waitFor() { released.await(); 0 }
+
+        boolean waitFor(long timeout, TimeUnit unit) { released.await(); alive = false; true }
+
+        int exitValue() { 137 }
+
+        void destroy() {}
+
+        Process destroyForcibly() { killing.countDown(); this }
+
+        boolean isAlive() { alive }
+
+        void respond(int id, byte[] result) {
+            def out = new DataOutputStream(responses)
+            WorkerProtocol.writeResult(out, id, result)
+            out.flush()
+        }
+    }
+
+    def "requests sent to a new process are not failed with the process it replaces"() {
+        given:
+        def processes = [new FakeProcess(), new FakeProcess()]
+        def launched = 0
+        def fake = new WorkerPool(1, { processes[launched++] } as WorkerPool.Launcher)
+        def first = fake.submit("a.gnucash", "echo", new byte[0])
+
+        when: "the first process dies and is being killed"
+        processes[0].responses.close()
+        processes[0].killing.await(10, TimeUnit.SECONDS)
+        def second = fake.submit("a.gnucash", "echo", new byte[0])
+        processes[0].released.countDown()
+        first.handle { r, ex -> ex }.get(10, TimeUnit.SECONDS)
+
+        then:
+        !second.isDone()
+
+        when:
+        processes[1].respond(2, [9] as byte[])
+
+        then:
+        second.get(10, TimeUnit.SECONDS) == [9] as byte[]
+        first.isCompletedExceptionally()
+
+        cleanup:
+        processes[1].released.countDown()
+        fake.close()
+    }
+}
@@ -0,0 +1,39 @@
+package com.austindoupnik.gnc4j.libgnucash.worker;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handler used by WorkerPoolTest, answers with the process name, fails, exits or writes to file descriptor 1 like
+ * native code would on request.
+ */
+public class TestWorkerHandler implements WorkerHandler {
+  @Override
+  public byte[] handle(final String book, final String operation, final byte[] payload) {
+    switch (operation) {
+      case "echo":
+        return payload;
+      case "whoami":
+        return ManagementFactory.getRuntimeMXBean().getName().getBytes(StandardCharsets.UTF_8);
+      case "fail":
+        throw new IllegalStateException("failed " + book);
+      case "print":
+        try {
+          new FileOutputStream(FileDescriptor.out).write("printed by native code\n".getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+        System.out.println("printed by Java");
+        return payload;
+      case "exit":
+        System.exit(3);
+        return null;
+      default:
+        throw new UnsupportedOperationException(operation);
+    }
+  }
+}